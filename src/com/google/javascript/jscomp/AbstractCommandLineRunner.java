@@ -32,8 +32,13 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Maps;
+import com.google.common.hash.Hashing;
+import com.google.common.hash.HashingOutputStream;
 import com.google.common.io.ByteStreams;
 import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
 import com.google.gson.stream.JsonReader;
 import com.google.gson.stream.JsonWriter;
 import com.google.javascript.jscomp.CompilerOptions.JsonStreamMode;
@@ -61,6 +66,9 @@ import java.io.PrintStream;
 import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -205,6 +213,16 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
   @GwtIncompatible("Unnecessary")
   private final List<JsonFileSpec> filesToStreamOut = new ArrayList<>();
 
+  /** Placeholder in the module output path prefix for the hash of the module's contents. */
+  private static final String MODULE_HASH_PLACEHOLDER = "[hash]";
+
+  /** The number of hex digits of the content hash that replace the placeholder. */
+  private static final int MODULE_HASH_PLACEHOLDER_LENGTH = 16;
+
+  /** Hashes of the module output written so far, keyed by module name. */
+  @GwtIncompatible("Unnecessary")
+  private final Map<String, ModuleOutputHash> moduleOutputHashes = new LinkedHashMap<>();
+
   @GwtIncompatible("Unnecessary")
   AbstractCommandLineRunner() {
     this(System.in, System.out, System.err);
@@ -457,6 +475,21 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       }
     }
 
+    if (config.moduleOutputPathPrefix.contains(MODULE_HASH_PLACEHOLDER)) {
+      if (new File(config.moduleOutputPathPrefix).getName().indexOf(MODULE_HASH_PLACEHOLDER) < 0) {
+        throw new FlagUsageException(
+            "The " + MODULE_HASH_PLACEHOLDER + " placeholder may only appear in the file name "
+            + "part of the chunk output path prefix: " + config.moduleOutputPathPrefix);
+      }
+      for (String wrapper : config.moduleWrapper) {
+        if (wrapper.contains("%basename%")) {
+          throw new FlagUsageException(
+              "The %basename% placeholder cannot be used in a chunk wrapper when the chunk "
+              + "output path prefix contains " + MODULE_HASH_PLACEHOLDER);
+        }
+      }
+    }
+
     if (!config.outputBundles.isEmpty()) {
       Set<String> uniqueNames = new HashSet<>();
       for (String filename : config.outputBundles) {
@@ -473,7 +506,21 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     options.angularPass = config.angularPass;
     options.instrumentationTemplateFile = config.instrumentationTemplateFile;
 
-    if (config.errorFormat == CommandLineConfig.ErrorFormatOption.JSON) {
+    if (config.streamErrors) {
+      StreamingErrorManager printer;
+      if (config.errorFormat == CommandLineConfig.ErrorFormatOption.JSON) {
+        printer = StreamingErrorManager.json(getErrorPrintStream(), compiler);
+      } else {
+        printer =
+            StreamingErrorManager.text(
+                options.errorFormat.toFormatter(compiler, options.shouldColorizeErrorOutput()),
+                getErrorPrintStream());
+        printer.setSummaryDetailLevel(options.summaryDetailLevel);
+      }
+      // Only the number of errors, up to the largest exit code, is read from the result.
+      printer.setMaxRetained(0x7f);
+      compiler.setErrorManager(printer);
+    } else if (config.errorFormat == CommandLineConfig.ErrorFormatOption.JSON) {
       PrintStreamJSONErrorManager printer =
           new PrintStreamJSONErrorManager(getErrorPrintStream(), compiler);
       compiler.setErrorManager(printer);
@@ -957,9 +1004,27 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     return wrappers;
   }
 
+  /**
+   * Returns the output file name of a module. If the path prefix contains a hash placeholder, it
+   * is only expanded once the module's output has been written and hashed.
+   */
   @GwtIncompatible("Unnecessary")
   private String getModuleOutputFileName(JSModule m) {
-    return config.moduleOutputPathPrefix + m.getName() + ".js";
+    String prefix = config.moduleOutputPathPrefix;
+    ModuleOutputHash hash = moduleOutputHashes.get(m.getName());
+    if (hash != null) {
+      prefix =
+          prefix.replace(
+              MODULE_HASH_PLACEHOLDER,
+              hash.hash.substring(0, MODULE_HASH_PLACEHOLDER_LENGTH));
+    }
+    return prefix + m.getName() + ".js";
+  }
+
+  @GwtIncompatible("Unnecessary")
+  private boolean shouldHashModuleOutput() {
+    return !Strings.isNullOrEmpty(config.outputModuleHashes)
+        || config.moduleOutputPathPrefix.contains(MODULE_HASH_PLACEHOLDER);
   }
 
   @VisibleForTesting
@@ -1495,6 +1560,8 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     for (JSModule m : modules) {
       if (isOutputInJson()) {
         this.filesToStreamOut.add(createJsonFileFromModule(m));
+      } else if (shouldHashModuleOutput()) {
+        writeHashedModuleOutputAndSourceMap(m, options);
       } else {
         if (shouldGenerateMapPerModule(options)) {
           mapFileOut = fileNameToOutputWriter2(expandSourceMapPath(options, m));
@@ -1521,9 +1588,100 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     if (mapFileOut != null) {
       mapFileOut.close();
     }
+    outputModuleHashes();
     return null;
   }
 
+  /**
+   * Writes a module and its source map, hashing the bytes as they are written. If the module file
+   * name contains the hash placeholder, the module is written under the unexpanded name and then
+   * renamed, so the output is never buffered or read back.
+   */
+  @GwtIncompatible("Unnecessary")
+  private void writeHashedModuleOutputAndSourceMap(JSModule m, B options) throws IOException {
+    if (options.sourceMapOutputPath != null) {
+      compiler.getSourceMap().reset();
+    }
+
+    String unhashedFilename = getModuleOutputFileName(m);
+    HashingOutputStream moduleStream = hashingOutputStream(unhashedFilename);
+    try (Writer writer = streamToLegacyOutputWriter(moduleStream)) {
+      writeModuleOutput(writer, m);
+    }
+    ModuleOutputHash hash = new ModuleOutputHash(moduleStream.hash().toString());
+    moduleOutputHashes.put(m.getName(), hash);
+
+    String moduleFilename = getModuleOutputFileName(m);
+    if (!moduleFilename.equals(unhashedFilename) && !isInTestMode()) {
+      Files.move(
+          Paths.get(unhashedFilename),
+          Paths.get(moduleFilename),
+          StandardCopyOption.REPLACE_EXISTING);
+    }
+    hash.path = moduleFilename;
+
+    if (shouldGenerateMapPerModule(options)) {
+      String mapFilename = expandSourceMapPath(options, m);
+      HashingOutputStream mapStream = hashingOutputStream(mapFilename);
+      try (Writer mapFileOut = streamToOutputWriter2(mapStream)) {
+        compiler.getSourceMap().appendTo(mapFileOut, moduleFilename);
+      }
+      hash.sourceMapPath = mapFilename;
+      hash.sourceMapHash = mapStream.hash().toString();
+    }
+  }
+
+  /** Opens a file for writing, hashing everything written to it with SHA-256. */
+  @GwtIncompatible("Unnecessary")
+  private HashingOutputStream hashingOutputStream(String fileName) throws IOException {
+    OutputStream out =
+        isInTestMode() ? ByteStreams.nullOutputStream() : filenameToOutputStream(fileName);
+    return new HashingOutputStream(Hashing.sha256(), out);
+  }
+
+  /** Creates a JSON file listing the output files and content hashes of the modules. */
+  @GwtIncompatible("Unnecessary")
+  private void outputModuleHashes() throws IOException {
+    if (!Strings.isNullOrEmpty(config.outputModuleHashes)) {
+      try (Writer out = fileNameToOutputWriter2(config.outputModuleHashes)) {
+        printModuleHashesTo(out);
+      }
+    }
+  }
+
+  /**
+   * Prints the output file, content hash, source map and dependencies of each module written so
+   * far as JSON.
+   */
+  @VisibleForTesting
+  @GwtIncompatible("Unnecessary")
+  void printModuleHashesTo(Appendable out) throws IOException {
+    JsonArray modules = new JsonArray();
+    for (JSModule module : compiler.getDegenerateModuleGraph().getAllModules()) {
+      ModuleOutputHash hash = moduleOutputHashes.get(module.getName());
+      if (hash == null) {
+        continue;
+      }
+      JsonObject node = new JsonObject();
+      node.add("name", new JsonPrimitive(module.getName()));
+      node.add("path", new JsonPrimitive(hash.path));
+      node.add("hash", new JsonPrimitive(hash.hash));
+      if (hash.sourceMapPath != null) {
+        node.add("source-map-path", new JsonPrimitive(hash.sourceMapPath));
+      }
+      if (hash.sourceMapHash != null) {
+        node.add("source-map-hash", new JsonPrimitive(hash.sourceMapHash));
+      }
+      JsonArray deps = new JsonArray();
+      for (JSModule m : module.getDependencies()) {
+        deps.add(new JsonPrimitive(m.getName()));
+      }
+      node.add("dependencies", deps);
+      modules.add(node);
+    }
+    out.append(modules.toString());
+  }
+
   /** Given an output module, convert it to a JSONFileSpec with associated sourcemap */
   @GwtIncompatible("Unnecessary")
   private JsonFileSpec createJsonFileFromModule(JSModule module) throws IOException {
@@ -1532,6 +1690,13 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
     StringBuilder output = new StringBuilder();
     writeModuleOutput(output, module);
 
+    ModuleOutputHash hash = null;
+    if (shouldHashModuleOutput()) {
+      hash = new ModuleOutputHash(Hashing.sha256().hashString(output, UTF_8).toString());
+      moduleOutputHashes.put(module.getName(), hash);
+      hash.path = getModuleOutputFileName(module);
+    }
+
     JsonFileSpec jsonFile = new JsonFileSpec(output.toString(),
         getModuleOutputFileName(module));
 
@@ -1541,6 +1706,9 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
         getModuleOutputFileName(module));
 
     jsonFile.setSourceMap(moduleSourceMap.toString());
+    if (hash != null) {
+      hash.sourceMapHash = Hashing.sha256().hashString(moduleSourceMap, UTF_8).toString();
+    }
 
     return jsonFile;
   }
@@ -1657,7 +1825,7 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
   private String expandCommandLinePath(String path, JSModule forModule) {
     String sub;
     if (forModule != null) {
-      sub = config.moduleOutputPathPrefix + forModule.getName() + ".js";
+      sub = getModuleOutputFileName(forModule);
     } else if (!config.module.isEmpty()) {
       sub = config.moduleOutputPathPrefix;
     } else {
@@ -2655,6 +2823,17 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       return this;
     }
 
+    private String outputModuleHashes = null;
+
+    /**
+     * Sets the path of a JSON file listing the output file, content hash, source map and
+     * dependencies of each module.
+     */
+    public CommandLineConfig setOutputModuleHashes(String outputModuleHashes) {
+      this.outputModuleHashes = outputModuleHashes;
+      return this;
+    }
+
     private List<String> outputBundles = ImmutableList.of();
 
     /**
@@ -2774,6 +2953,30 @@ public abstract class AbstractCommandLineRunner<A extends Compiler,
       this.errorFormat = errorFormat;
       return this;
     }
+
+    private boolean streamErrors = false;
+
+    /**
+     * Sets whether errors and warnings are printed as soon as they are reported, with a {@link
+     * StreamingErrorManager}, instead of all sorted at the end.
+     */
+    public CommandLineConfig setStreamErrors(boolean streamErrors) {
+      this.streamErrors = streamErrors;
+      return this;
+    }
+  }
+
+  /** The content hashes of a module's output file and source map. */
+  @GwtIncompatible("Unnecessary")
+  private static class ModuleOutputHash {
+    final String hash;
+    String path;
+    @Nullable String sourceMapPath;
+    @Nullable String sourceMapHash;
+
+    ModuleOutputHash(String hash) {
+      this.hash = hash;
+    }
   }
 
   /** Representation of a source file from an encoded json stream input */
@@ -182,6 +182,12 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
    */
   public abstract void report(JSError error);
 
+  /**
+   * Returns whether errors of the given type in the given source are known to be suppressed, so
+   * that reporting them can be skipped without making them.
+   */
+  abstract boolean isKnownToSuppress(@Nullable String sourceName, DiagnosticType type);
+
   /**
    * Report an internal error.
    */
@@ -300,6 +306,20 @@ public abstract class AbstractCompiler implements SourceExcerptProvider {
    */
   abstract Supplier<String> getUniqueNameIdSupplier();
 
+  /** Returns the id that {@link #getUniqueNameIdSupplier} hands out next, without using it. */
+  abstract int getNextUniqueNameId();
+
+  /**
+   * Reserves the next {@code count} ids of {@link #getUniqueNameIdSupplier}, for a caller that
+   * hands them out itself. Returns the first reserved id. The ids are consecutive, unless the
+   * compiler documents that it hands out ids in another order.
+   */
+  abstract int reserveUniqueNameIds(int count);
+
+  /** Returns the tracker of the passes' performance, or null if the tracer is off. */
+  @Nullable
+  abstract PerformanceTracker getPerformanceTracker();
+
   /**
    * @return Whether any errors have been encountered that
    *     should stop the compilation process.
@@ -119,7 +119,7 @@ class AggressiveInlineAliases implements CompilerPass {
   public void process(Node externs, Node root) {
     while (this.codeChanged) {
       this.codeChanged = false;
-      GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+      GlobalNamespace namespace = GlobalNamespaceProvider.getNamespaceFor(compiler, root);
       inlineAliases(namespace);
     }
   }
@@ -319,16 +319,23 @@ class AggressiveInlineAliases implements CompilerPass {
 
       Var aliasVar = alias.scope.getVar(aliasVarName);
       checkState(aliasVar != null, "Expected variable to be defined in scope", aliasVarName);
-      ReferenceCollectingCallback collector =
-          new ReferenceCollectingCallback(
-              compiler,
-              ReferenceCollectingCallback.DO_NOTHING_BEHAVIOR,
-              new Es6SyntacticScopeCreator(compiler),
-              Predicates.equalTo(aliasVar));
       Scope aliasScope = aliasVar.getScope();
-      collector.processScope(aliasScope);
-
-      ReferenceCollection aliasRefs = collector.getReferences(aliasVar);
+      ReferenceCollection aliasRefs;
+      if (aliasScope.isHoistScope()) {
+        // The shared index collects the references of the whole enclosing function, which is
+        // equivalent for variables hoisted to the function scope, and is reused as long as the
+        // function doesn't change.
+        aliasRefs = ReferenceIndex.getInstance(compiler).getReferences(aliasVar);
+      } else {
+        ReferenceCollectingCallback collector =
+            new ReferenceCollectingCallback(
+                compiler,
+                ReferenceCollectingCallback.DO_NOTHING_BEHAVIOR,
+                new Es6SyntacticScopeCreator(compiler),
+                Predicates.equalTo(aliasVar));
+        collector.processScope(aliasScope);
+        aliasRefs = collector.getReferences(aliasVar);
+      }
       Set<AstChange> newNodes = new LinkedHashSet<>();
 
       if (aliasRefs.isWellDefined() && aliasRefs.isAssignedOnceInLifetime()) {
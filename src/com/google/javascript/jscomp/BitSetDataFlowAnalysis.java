@@ -0,0 +1,471 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
+import com.google.javascript.jscomp.DataFlowAnalysis.MaxIterationsExceededException;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import com.google.javascript.jscomp.graph.LatticeElement;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A data flow analysis framework specialized for analyses whose lattice is the power set of a
+ * finite set of facts (such as "local variable 3 is live"), joined by union, and whose initial
+ * estimate is the empty set.
+ *
+ * <p>Unlike {@link DataFlowAnalysis}, which allocates new {@link LatticeElement}s whenever a node
+ * is flowed through, this framework stores the state of every node as a slice of two {@code long[]}
+ * arrays that are reused across calls to {@link #analyze()}. The nodes of the control flow graph
+ * are numbered in reverse postorder of the direction of the analysis, and the work list is a binary
+ * heap of those numbers, so that a node is usually visited after the nodes it reads from.
+ *
+ * <p>A subclass numbers its facts densely and precomputes the effect of each node once in {@link
+ * #computeTransfers}, so that {@link #flowThrough} only has to do bitwise operations.
+ *
+ * <p>Upon execution of the {@link #analyze()} method, nodes of the control flow graph will be
+ * annotated with a {@link FlowState} whose lattice elements are read-only views of the computed
+ * states. Any previous annotations at the nodes of the control flow graph will be lost.
+ *
+ * @param <L> The type of the views of the computed states.
+ */
+abstract class BitSetDataFlowAnalysis<L extends BitSetDataFlowAnalysis.BitSetLattice> {
+
+  private final ControlFlowGraph<Node> cfg;
+
+  // The number of longs needed to store a state.
+  private int words;
+
+  // The states of the nodes in the direction of the analysis: the state a node reads and the state
+  // it computes. The state of node i is stored at offset i * words.
+  private long[] inputStates = new long[0];
+  private long[] outputStates = new long[0];
+
+  // The nodes whose state node i reads are inputs[inputsStart[i]] to inputs[inputsStart[i + 1]],
+  // and the nodes that read the state of node i are dependents[dependentsStart[i]] to
+  // dependents[dependentsStart[i + 1]].
+  private int[] inputsStart;
+  private int[] inputs;
+  private int[] dependentsStart;
+  private int[] dependents;
+
+  // A min-heap of the nodes that have to be flowed through again.
+  private int[] workList;
+  private int workListSize;
+  private boolean[] inWorkList;
+
+  private long[] entryState;
+  private int entry;
+  private int implicitReturn;
+
+  /**
+   * Constructs a data flow analysis of the given control flow graph. Modification of the graph
+   * requires a separate call to {@link #analyze()}.
+   */
+  BitSetDataFlowAnalysis(ControlFlowGraph<Node> targetCfg) {
+    this.cfg = targetCfg;
+  }
+
+  /**
+   * Returns the control flow graph that this analysis was performed on. The annotations are only
+   * correct after {@link #analyze()} is called and before the graph has been modified.
+   */
+  final ControlFlowGraph<Node> getCfg() {
+    return cfg;
+  }
+
+  /** Checks whether the analysis is a forward flow analysis or backward flow analysis. */
+  abstract boolean isForward();
+
+  /**
+   * Precomputes whatever {@link #flowThrough} needs to compute the state of each node.
+   *
+   * @param nodes The values of the control flow graph nodes, indexed by the node numbers passed to
+   *     {@link #flowThrough}. The implicit return has a null value and is never flowed through.
+   * @return The number of facts, that is, the number of bits in a state.
+   */
+  abstract int computeTransfers(List<Node> nodes);
+
+  /**
+   * Computes the state after a node (before it, for a backward analysis) in place.
+   *
+   * @param node The number of the node.
+   * @param state The state before the node (after it, for a backward analysis). Only the bits of
+   *     the facts are meaningful; any other bit is zero and must stay zero.
+   */
+  abstract void flowThrough(int node, long[] state);
+
+  /**
+   * Sets the facts that hold at the entry of the function (at the implicit return, for a backward
+   * analysis). By default, no fact holds.
+   */
+  void initializeEntryState(long[] state) {}
+
+  /** Creates a read-only view of the state stored in the given array at the given offset. */
+  abstract L createLattice(long[] storage, int offset, int words);
+
+  /**
+   * Finds a fixed-point solution using at most {@link DataFlowAnalysis#MAX_STEPS} iterations.
+   *
+   * @see #analyze(int)
+   */
+  final void analyze() {
+    analyze(DataFlowAnalysis.MAX_STEPS);
+  }
+
+  /**
+   * Finds a fixed-point solution and annotates each node of the control flow graph with its
+   * {@link FlowState}.
+   *
+   * @param maxSteps Max number of iterations before the method stops and throws a {@link
+   *     MaxIterationsExceededException}.
+   */
+  final void analyze(int maxSteps) {
+    List<DiGraphNode<Node, Branch>> nodes = initialize();
+    long[] state = new long[words];
+    int step = 0;
+    while (workListSize > 0) {
+      if (step > maxSteps) {
+        throw new MaxIterationsExceededException(
+            "Analysis did not terminate after " + maxSteps + " iterations");
+      }
+      int node = removeFirst();
+      joinInputs(node);
+      System.arraycopy(inputStates, node * words, state, 0, words);
+      flowThrough(node, state);
+      if (!equals(state, outputStates, node * words)) {
+        System.arraycopy(state, 0, outputStates, node * words, words);
+        for (int i = dependentsStart[node]; i < dependentsStart[node + 1]; i++) {
+          add(dependents[i]);
+        }
+      }
+      step++;
+    }
+    if (isForward()) {
+      joinInputs(implicitReturn);
+    }
+    annotate(nodes);
+  }
+
+  /**
+   * Numbers the nodes, sets up the states, the edges and the work list, and returns the nodes by
+   * number.
+   */
+  private List<DiGraphNode<Node, Branch>> initialize() {
+    List<DiGraphNode<Node, Branch>> nodes = getReversePostorder();
+    int nodeCount = nodes.size();
+    Map<DiGraphNode<Node, Branch>, Integer> indexes = new IdentityHashMap<>();
+    List<Node> values = new ArrayList<>(nodeCount);
+    for (DiGraphNode<Node, Branch> node : nodes) {
+      indexes.put(node, indexes.size());
+      values.add(node.getValue());
+    }
+    entry = indexes.get(cfg.getEntry());
+    implicitReturn = indexes.get(cfg.getImplicitReturn());
+
+    inputsStart = new int[nodeCount + 1];
+    dependentsStart = new int[nodeCount + 1];
+    List<Integer> inputList = new ArrayList<>();
+    List<Integer> dependentList = new ArrayList<>();
+    for (int i = 0; i < nodeCount; i++) {
+      DiGraphNode<Node, Branch> node = nodes.get(i);
+      for (DiGraphEdge<Node, Branch> edge : isForward() ? node.getInEdges() : node.getOutEdges()) {
+        inputList.add(indexes.get(isForward() ? edge.getSource() : edge.getDestination()));
+      }
+      for (DiGraphEdge<Node, Branch> edge : isForward() ? node.getOutEdges() : node.getInEdges()) {
+        dependentList.add(indexes.get(isForward() ? edge.getDestination() : edge.getSource()));
+      }
+      inputsStart[i + 1] = inputList.size();
+      dependentsStart[i + 1] = dependentList.size();
+    }
+    inputs = toIntArray(inputList);
+    dependents = toIntArray(dependentList);
+
+    words = (computeTransfers(values) + 63) >>> 6;
+    int size = nodeCount * words;
+    if (inputStates.length < size) {
+      inputStates = new long[size];
+      outputStates = new long[size];
+    } else {
+      Arrays.fill(inputStates, 0, size, 0L);
+      Arrays.fill(outputStates, 0, size, 0L);
+    }
+    entryState = new long[words];
+    initializeEntryState(entryState);
+    if (!isForward()) {
+      // Backward analyses read the state of the implicit return, which is never flowed through.
+      System.arraycopy(entryState, 0, outputStates, implicitReturn * words, words);
+    }
+
+    // The node numbers in increasing order already form a heap.
+    workList = new int[nodeCount];
+    inWorkList = new boolean[nodeCount];
+    workListSize = 0;
+    for (int i = 0; i < nodeCount; i++) {
+      if (i != implicitReturn) {
+        workList[workListSize++] = i;
+        inWorkList[i] = true;
+      }
+    }
+    return nodes;
+  }
+
+  /**
+   * Returns the nodes of the control flow graph in reverse postorder of a depth first search that
+   * starts at the entry (the implicit return, for a backward analysis) and follows the edges in
+   * the direction of the analysis. The nodes that are not reached by that search come next, in
+   * reverse postorder of further searches started in the order of the graph.
+   */
+  private List<DiGraphNode<Node, Branch>> getReversePostorder() {
+    List<DiGraphNode<Node, Branch>> reversePostorder = new ArrayList<>();
+    Map<DiGraphNode<Node, Branch>, Boolean> visited = new IdentityHashMap<>();
+    addReversePostorder(
+        isForward() ? cfg.getEntry() : cfg.getImplicitReturn(), visited, reversePostorder);
+    for (DiGraphNode<Node, Branch> node : cfg.getDirectedGraphNodes()) {
+      addReversePostorder(node, visited, reversePostorder);
+    }
+    return reversePostorder;
+  }
+
+  /**
+   * Appends the nodes reached from the given root that haven't been visited yet in reverse
+   * postorder.
+   */
+  private void addReversePostorder(
+      DiGraphNode<Node, Branch> root,
+      Map<DiGraphNode<Node, Branch>, Boolean> visited,
+      List<DiGraphNode<Node, Branch>> reversePostorder) {
+    if (visited.put(root, true) != null) {
+      return;
+    }
+    List<DiGraphNode<Node, Branch>> postorder = new ArrayList<>();
+    // The graphs can be too deep to recurse, so the search keeps an explicit stack of the nodes
+    // and of the number of edges that have been followed from each of them.
+    List<DiGraphNode<Node, Branch>> stack = new ArrayList<>();
+    List<Integer> followedEdges = new ArrayList<>();
+    stack.add(root);
+    followedEdges.add(0);
+    while (!stack.isEmpty()) {
+      int top = stack.size() - 1;
+      DiGraphNode<Node, Branch> node = stack.get(top);
+      List<DiGraphEdge<Node, Branch>> edges = isForward() ? node.getOutEdges() : node.getInEdges();
+      int edge = followedEdges.get(top);
+      if (edge == edges.size()) {
+        stack.remove(top);
+        followedEdges.remove(top);
+        postorder.add(node);
+        continue;
+      }
+      followedEdges.set(top, edge + 1);
+      DiGraphNode<Node, Branch> next =
+          isForward() ? edges.get(edge).getDestination() : edges.get(edge).getSource();
+      if (visited.put(next, true) == null) {
+        stack.add(next);
+        followedEdges.add(0);
+      }
+    }
+    for (int i = postorder.size() - 1; i >= 0; i--) {
+      reversePostorder.add(postorder.get(i));
+    }
+  }
+
+  /** Computes the state that the given node reads by joining the states of its inputs. */
+  private void joinInputs(int node) {
+    int offset = node * words;
+    if (isForward() && node == entry) {
+      System.arraycopy(entryState, 0, inputStates, offset, words);
+      return;
+    }
+    Arrays.fill(inputStates, offset, offset + words, 0L);
+    for (int i = inputsStart[node]; i < inputsStart[node + 1]; i++) {
+      int inputOffset = inputs[i] * words;
+      for (int w = 0; w < words; w++) {
+        inputStates[offset + w] |= outputStates[inputOffset + w];
+      }
+    }
+  }
+
+  private void annotate(List<DiGraphNode<Node, Branch>> nodes) {
+    for (int i = 0; i < nodes.size(); i++) {
+      L input = createLattice(inputStates, i * words, words);
+      L output = createLattice(outputStates, i * words, words);
+      nodes.get(i).setAnnotation(
+          isForward() ? new FlowState<>(input, output) : new FlowState<>(output, input));
+    }
+  }
+
+  private void add(int node) {
+    if (inWorkList[node] || node == implicitReturn) {
+      // The implicit return is never flowed through.
+      return;
+    }
+    inWorkList[node] = true;
+    int i = workListSize++;
+    while (i > 0) {
+      int parent = (i - 1) >>> 1;
+      if (workList[parent] <= node) {
+        break;
+      }
+      workList[i] = workList[parent];
+      i = parent;
+    }
+    workList[i] = node;
+  }
+
+  private int removeFirst() {
+    int first = workList[0];
+    inWorkList[first] = false;
+    int last = workList[--workListSize];
+    int i = 0;
+    while (true) {
+      int child = 2 * i + 1;
+      if (child >= workListSize) {
+        break;
+      }
+      if (child + 1 < workListSize && workList[child + 1] < workList[child]) {
+        child++;
+      }
+      if (last <= workList[child]) {
+        break;
+      }
+      workList[i] = workList[child];
+      i = child;
+    }
+    workList[i] = last;
+    return first;
+  }
+
+  private boolean equals(long[] state, long[] storage, int offset) {
+    for (int w = 0; w < words; w++) {
+      if (state[w] != storage[offset + w]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int[] toIntArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  /**
+   * Applies a GEN and KILL set, given as arrays of words that may be shorter than the state, to a
+   * state: {@code state = state - kill + gen}.
+   */
+  static void applyGenKill(long[] state, long[] gen, long[] kill) {
+    for (int w = 0; w < kill.length; w++) {
+      state[w] &= ~kill[w];
+    }
+    for (int w = 0; w < gen.length; w++) {
+      state[w] |= gen[w];
+    }
+  }
+
+  /**
+   * A read-only view of a state computed by a {@link BitSetDataFlowAnalysis}. The view reflects the
+   * state until the analysis is run again.
+   */
+  static class BitSetLattice implements LatticeElement {
+    private final long[] storage;
+    private final int offset;
+    private final int words;
+
+    BitSetLattice(long[] storage, int offset, int words) {
+      this.storage = storage;
+      this.offset = offset;
+      this.words = words;
+    }
+
+    /** Whether the fact with the given number holds. */
+    final boolean get(int fact) {
+      int w = fact >>> 6;
+      return w < words && (storage[offset + w] & (1L << fact)) != 0;
+    }
+
+    /**
+     * Returns the number of the first fact that holds starting from the given number, or -1 if
+     * there is none.
+     */
+    final int nextSetBit(int fromFact) {
+      int w = fromFact >>> 6;
+      if (w >= words) {
+        return -1;
+      }
+      long word = storage[offset + w] & (-1L << fromFact);
+      while (true) {
+        if (word != 0) {
+          return (w << 6) + Long.numberOfTrailingZeros(word);
+        }
+        if (++w == words) {
+          return -1;
+        }
+        word = storage[offset + w];
+      }
+    }
+
+    /** Returns the word with the facts {@code 64 * w} to {@code 64 * w + 63}. */
+    final long getWord(int w) {
+      return w < words ? storage[offset + w] : 0L;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof BitSetLattice)) {
+        return false;
+      }
+      BitSetLattice that = (BitSetLattice) other;
+      for (int w = 0; w < Math.max(words, that.words); w++) {
+        if (getWord(w) != that.getWord(w)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      // The same hash as a java.util.BitSet with the same bits.
+      long h = 1234;
+      for (int w = words; --w >= 0; ) {
+        h ^= storage[offset + w] * (w + 1);
+      }
+      return (int) ((h >> 32) ^ h);
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder("{");
+      for (int fact = nextSetBit(0); fact >= 0; fact = nextSetBit(fact + 1)) {
+        if (sb.length() > 1) {
+          sb.append(", ");
+        }
+        sb.append(fact);
+      }
+      return sb.append("}").toString();
+    }
+  }
+}
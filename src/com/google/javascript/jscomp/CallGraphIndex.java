@@ -0,0 +1,339 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.javascript.jscomp.OptimizeCalls.ReferenceMap;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A compiler-owned index of the program-wide call graph of the code (but not the externs): for
+ * each name and property name, the nodes that reference it, from which {@link ReferenceMap}
+ * derives the definitions and the call sites. It is kept up to date between passes, so that the
+ * passes that need it don't each traverse the whole AST to build it.
+ *
+ * <p>Names are interned in a table and each script remembers its references as arrays of name
+ * indices and nodes, in traversal order. When the index is used, only the scripts that contain a
+ * change reported since the previous use, such as the changes made by {@link FunctionInjector}
+ * when it inlines a call, are collected again. The references of the other scripts are replayed in
+ * their original order, which produces the same {@link ReferenceMap} as a fresh build.
+ */
+final class CallGraphIndex implements IndexProvider<CallGraphIndex>, CodeChangeHandler {
+
+  private static final String TIMELINE_MARK = "CallGraphIndex";
+
+  private final AbstractCompiler compiler;
+
+  // The name table. Names and property names share the same indices.
+  private final Map<String, Integer> nameIndices = new HashMap<>();
+  private final List<String> names = new ArrayList<>();
+
+  private final Map<Node, ScriptReferences> referencesByScript = new HashMap<>();
+
+  // Whether a change may have been reported since the index last caught up with the change
+  // timeline. Starts as true so that the first request sets up the timeline mark.
+  private boolean hasUnseenChanges = true;
+
+  // Whether to check the references of every reused script against a fresh collection.
+  private boolean verify = false;
+
+  private CallGraphIndex(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /** Returns the index owned by the given compiler, creating and registering it if necessary. */
+  static CallGraphIndex getInstance(AbstractCompiler compiler) {
+    CallGraphIndex index = compiler.getIndex(CallGraphIndex.class);
+    if (index == null) {
+      index = new CallGraphIndex(compiler);
+      compiler.addIndexProvider(index);
+      compiler.addChangeHandler(index);
+    }
+    return index;
+  }
+
+  /**
+   * Returns a reference map of the global names and properties under the given roots: one built
+   * from the compiler-owned index if the roots are the roots of all the externs and code, or one
+   * built from scratch otherwise.
+   */
+  static ReferenceMap getReferenceMapFor(AbstractCompiler compiler, Node externs, Node root) {
+    if (root != compiler.getJsRoot() || externs != root.getParent().getFirstChild()) {
+      return OptimizeCalls.buildPropAndGlobalNameReferenceMap(compiler, externs, root);
+    }
+    return getInstance(compiler).getReferenceMap();
+  }
+
+  /**
+   * Makes this index check the references of every script it reuses against a fresh collection,
+   * throwing an {@link IllegalStateException} when they differ. This is expensive and intended for
+   * tests.
+   */
+  CallGraphIndex enableVerification() {
+    this.verify = true;
+    return this;
+  }
+
+  @Override
+  public CallGraphIndex get() {
+    return this;
+  }
+
+  @Override
+  public Class<CallGraphIndex> getType() {
+    return CallGraphIndex.class;
+  }
+
+  @Override
+  public void reportChange() {
+    hasUnseenChanges = true;
+  }
+
+  /**
+   * Returns a new reference map of all the code, with the same contents as the map built by
+   * {@link OptimizeCalls#buildPropAndGlobalNameReferenceMap}.
+   */
+  ReferenceMap getReferenceMap() {
+    Node root = compiler.getJsRoot();
+    List<ScriptReferences> scripts = update(root);
+
+    ReferenceMap referenceMap = new ReferenceMap();
+    Scope globalScope =
+        new Es6SyntacticScopeCreator(compiler).createScope(root.getParent(), null);
+    referenceMap.setGlobalScope(globalScope);
+    Set<String> externProps = compiler.getExternProperties();
+    if (externProps == null) {
+      externProps = ImmutableSet.of();
+    }
+
+    // Whether each name is a global, non-extern name or a non-extern property, computed on first
+    // use: 0 if unknown, 1 if true and 2 if false.
+    byte[] isGlobalName = new byte[names.size()];
+    byte[] isNonExternProp = new byte[names.size()];
+    for (ScriptReferences references : scripts) {
+      if (references.isExtern) {
+        // Like OptimizeCalls.ReferenceMapBuildingCallback, skip code marked as externs.
+        continue;
+      }
+      for (int i = 0; i < references.nameCount; i++) {
+        int nameIndex = references.nameIndices[i];
+        if (isGlobalName[nameIndex] == 0) {
+          Var v = globalScope.getSlot(names.get(nameIndex));
+          isGlobalName[nameIndex] = (byte) (v != null && !v.isExtern() ? 1 : 2);
+        }
+        if (isGlobalName[nameIndex] == 1) {
+          referenceMap.addNameReference(names.get(nameIndex), references.nameNodes[i]);
+        }
+      }
+      for (int i = 0; i < references.propCount; i++) {
+        int nameIndex = references.propIndices[i];
+        if (isNonExternProp[nameIndex] == 0) {
+          isNonExternProp[nameIndex] =
+              (byte) (externProps.contains(names.get(nameIndex)) ? 2 : 1);
+        }
+        if (isNonExternProp[nameIndex] == 1) {
+          referenceMap.addPropReference(names.get(nameIndex), references.propNodes[i]);
+        }
+      }
+    }
+    return referenceMap;
+  }
+
+  /**
+   * Returns the scripts that contain a NAME node with one of the given names. Since normalization
+   * makes every name unique, these are the scripts that reference the variables of those names.
+   */
+  Set<Node> getScriptsReferencingNames(Collection<String> namesToFind) {
+    List<ScriptReferences> scripts = update(compiler.getJsRoot());
+
+    BitSet nameIndicesToFind = new BitSet(names.size());
+    for (String name : namesToFind) {
+      Integer nameIndex = nameIndices.get(name);
+      if (nameIndex != null) {
+        nameIndicesToFind.set(nameIndex);
+      }
+    }
+
+    Set<Node> result = new LinkedHashSet<>();
+    for (ScriptReferences references : scripts) {
+      for (int i = 0; i < references.nameCount; i++) {
+        if (nameIndicesToFind.get(references.nameIndices[i])) {
+          result.add(references.script);
+          break;
+        }
+      }
+    }
+    return result;
+  }
+
+  /** Brings the index up to date and returns the references of each script, in script order. */
+  private List<ScriptReferences> update(Node root) {
+    if (hasUnseenChanges) {
+      invalidateChangedScripts();
+      hasUnseenChanges = false;
+    }
+
+    List<ScriptReferences> scripts = new ArrayList<>(root.getChildCount());
+    for (Node script : root.children()) {
+      ScriptReferences references = referencesByScript.get(script);
+      if (references == null) {
+        references = collect(script);
+        referencesByScript.put(script, references);
+      } else if (verify) {
+        references.verify(collect(script));
+      }
+      scripts.add(references);
+    }
+
+    // Forget the scripts that have been removed from the AST.
+    Iterator<Node> it = referencesByScript.keySet().iterator();
+    while (it.hasNext()) {
+      if (it.next().getParent() != root) {
+        it.remove();
+      }
+    }
+    return scripts;
+  }
+
+  /** Forgets the references of every script that contains a change reported since the last use. */
+  private void invalidateChangedScripts() {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(TIMELINE_MARK);
+    if (changedScopeNodes == null) {
+      // This is the first time the timeline is consulted, so nothing can be trusted.
+      referencesByScript.clear();
+      return;
+    }
+    for (Node changed : changedScopeNodes) {
+      // Nodes that have been detached from the AST are skipped: their removal is reported as a
+      // change to the scope that contained them.
+      Node script = NodeUtil.getEnclosingScript(changed);
+      if (script != null) {
+        referencesByScript.remove(script);
+      }
+    }
+  }
+
+  /**
+   * Collects the references of a script in the order in which {@link
+   * OptimizeCalls.ReferenceMapBuildingCallback} visits them.
+   */
+  private ScriptReferences collect(Node script) {
+    CompilerInput input = compiler.getInput(script.getInputId());
+    ScriptReferences references =
+        new ScriptReferences(script, input != null && input.isExtern());
+    collect(script, references);
+    return references;
+  }
+
+  private void collect(Node n, ScriptReferences references) {
+    for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+      collect(child, references);
+    }
+    switch (n.getToken()) {
+      case NAME:
+        if (!n.getString().isEmpty()) {
+          references.addName(getNameIndex(n.getString()), n);
+        }
+        break;
+      case GETPROP:
+        references.addProp(getNameIndex(n.getLastChild().getString()), n);
+        break;
+      case STRING_KEY:
+      case GETTER_DEF:
+      case SETTER_DEF:
+      case MEMBER_FUNCTION_DEF:
+        // ignore quoted keys.
+        if (!n.isQuotedString()) {
+          references.addProp(getNameIndex(n.getString()), n);
+        }
+        break;
+      default:
+        break;
+    }
+  }
+
+  private int getNameIndex(String name) {
+    Integer nameIndex = nameIndices.get(name);
+    if (nameIndex == null) {
+      nameIndex = names.size();
+      names.add(name);
+      nameIndices.put(name, nameIndex);
+    }
+    return nameIndex;
+  }
+
+  /** The name and property references of a script, in traversal order. */
+  private static final class ScriptReferences {
+    final Node script;
+    final boolean isExtern;
+
+    int[] nameIndices = new int[16];
+    Node[] nameNodes = new Node[16];
+    int nameCount = 0;
+
+    int[] propIndices = new int[16];
+    Node[] propNodes = new Node[16];
+    int propCount = 0;
+
+    ScriptReferences(Node script, boolean isExtern) {
+      this.script = script;
+      this.isExtern = isExtern;
+    }
+
+    void addName(int nameIndex, Node n) {
+      if (nameCount == nameIndices.length) {
+        nameIndices = Arrays.copyOf(nameIndices, nameCount * 2);
+        nameNodes = Arrays.copyOf(nameNodes, nameCount * 2);
+      }
+      nameIndices[nameCount] = nameIndex;
+      nameNodes[nameCount++] = n;
+    }
+
+    void addProp(int nameIndex, Node n) {
+      if (propCount == propIndices.length) {
+        propIndices = Arrays.copyOf(propIndices, propCount * 2);
+        propNodes = Arrays.copyOf(propNodes, propCount * 2);
+      }
+      propIndices[propCount] = nameIndex;
+      propNodes[propCount++] = n;
+    }
+
+    void verify(ScriptReferences expected) {
+      boolean same = nameCount == expected.nameCount && propCount == expected.propCount;
+      for (int i = 0; same && i < nameCount; i++) {
+        same = nameIndices[i] == expected.nameIndices[i] && nameNodes[i] == expected.nameNodes[i];
+      }
+      for (int i = 0; same && i < propCount; i++) {
+        same = propIndices[i] == expected.propIndices[i] && propNodes[i] == expected.propNodes[i];
+      }
+      checkState(
+          same, "The references of %s differ from a fresh collection", script.getSourceFileName());
+    }
+  }
+}
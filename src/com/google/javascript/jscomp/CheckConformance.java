@@ -16,18 +16,28 @@
 
 package com.google.javascript.jscomp;
 
+import static com.google.common.base.Preconditions.checkState;
+
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Sets;
+import com.google.common.primitives.Ints;
 import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.Descriptors;
 import com.google.protobuf.TextFormat;
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Predicate;
+import javax.annotation.Nullable;
 
 /**
  * Provides a framework for checking code against a set of user configured
@@ -38,7 +48,7 @@ import java.util.Set;
  *
  */
 @GwtIncompatible("com.google.protobuf")
-public final class CheckConformance implements Callback, CompilerPass {
+public final class CheckConformance implements CompilerPass {
   static final DiagnosticType CONFORMANCE_ERROR =
       DiagnosticType.error("JSC_CONFORMANCE_ERROR", "Violation: {0}{1}{2}");
 
@@ -57,12 +67,57 @@ public final class CheckConformance implements Callback, CompilerPass {
           "JSC_INVALID_REQUIREMENT_SPEC",
           "Invalid requirement. Reason: {0}\nRequirement spec:\n{1}");
 
+  // The tokens of the nodes that rules can dispatch on by name, see getDispatchName.
+  private static final ImmutableSet<Token> NAMED_TOKENS =
+      Sets.immutableEnumSet(Token.NAME, Token.GETPROP, Token.GETELEM);
+
+  private static final ImmutableSet<Token> ALL_TOKENS =
+      Sets.immutableEnumSet(EnumSet.allOf(Token.class));
+
   private final AbstractCompiler compiler;
   private final ImmutableList<Rule> rules;
+  // The names the rules are reported under by the performance tracker, parallel to rules.
+  private final ImmutableList<String> ruleNames;
+  private final DispatchTable allRules;
+  // The rules that aren't script local, and those that are, for checking scripts in parallel.
+  private final DispatchTable globalRules;
+  private final DispatchTable scriptLocalRules;
 
+  /**
+   * A conformance rule. Rules are only checked on the nodes they declare they may find violations
+   * in, and rules declaring that they are script local may be checked on several scripts at once.
+   */
   public static interface Rule {
     /** Perform conformance check */
     void check(NodeTraversal t, Node n);
+
+    /**
+     * Returns the tokens of the nodes this rule may find violations in, or null if it may find them
+     * in any node.
+     */
+    @Nullable
+    default ImmutableSet<Token> getTokens() {
+      return null;
+    }
+
+    /**
+     * Returns the names of the nodes this rule may find violations in, or null if it may find them
+     * whatever their name. The name of a NAME node is its string, and that of a GETPROP or GETELEM
+     * node is its property's, so a rule with names must have NAME, GETPROP or GETELEM tokens only.
+     */
+    @Nullable
+    default ImmutableSet<String> getNames() {
+      return null;
+    }
+
+    /**
+     * Whether this rule only depends on the script of the node it checks, and may be checked on
+     * several scripts at once. Such a rule must not use the scope of the traversal, which only
+     * covers its script, and must be safe to call from several threads.
+     */
+    default boolean isScriptLocal() {
+      return false;
+    }
   }
 
   /**
@@ -72,28 +127,219 @@ public final class CheckConformance implements Callback, CompilerPass {
       AbstractCompiler compiler,
       ImmutableList<ConformanceConfig> configs) {
     this.compiler = compiler;
-    // Initialize the map of functions to inspect for renaming candidates.
-    this.rules = initRules(compiler, configs);
+    ImmutableList.Builder<Rule> rules = ImmutableList.builder();
+    ImmutableList.Builder<String> ruleNames = ImmutableList.builder();
+    initRules(compiler, configs, rules, ruleNames);
+    this.rules = rules.build();
+    this.ruleNames = ruleNames.build();
+    this.allRules = new DispatchTable(this.rules, rule -> true);
+    this.globalRules = new DispatchTable(this.rules, rule -> !rule.isScriptLocal());
+    this.scriptLocalRules = new DispatchTable(this.rules, Rule::isScriptLocal);
   }
 
   @Override
   public void process(Node externs, Node root) {
-    if (!rules.isEmpty()) {
-      NodeTraversal.traverseRoots(compiler, this, externs, root);
+    if (rules.isEmpty()) {
+      return;
+    }
+    PerformanceTracker tracker = compiler.getPerformanceTracker();
+    boolean parallel =
+        compiler.getOptions().numParallelThreads > 1
+            && root.hasMoreThanOneChild()
+            && !scriptLocalRules.isEmpty();
+    List<RuleChecker> checkers = new ArrayList<>();
+    DispatchTable serialRules = parallel ? globalRules : allRules;
+    if (!serialRules.isEmpty()) {
+      RuleChecker checker = new RuleChecker(serialRules, rules.size(), tracker != null);
+      NodeTraversal.traverseRoots(compiler, checker, externs, root);
+      checkers.add(checker);
+    }
+
+    if (parallel) {
+      List<Node> scripts = ImmutableList.copyOf(root.children());
+      List<ScriptCompiler> results =
+          ParallelScriptTasks.run(
+              compiler,
+              "conformance",
+              scripts,
+              script -> {
+                ScriptCompiler scriptCompiler =
+                    new ScriptCompiler(
+                        new RuleChecker(scriptLocalRules, rules.size(), tracker != null));
+                NodeTraversal.traverse(scriptCompiler, script, scriptCompiler.checker);
+                return scriptCompiler;
+              });
+      // Report the violations in script order, whichever thread found them.
+      for (ScriptCompiler result : results) {
+        for (JSError error : result.errors) {
+          compiler.report(error);
+        }
+        checkers.add(result.checker);
+      }
+    }
+
+    if (tracker != null) {
+      for (int i = 0; i < rules.size(); i++) {
+        long runtime = 0;
+        for (RuleChecker c : checkers) {
+          runtime += c.runtimes[i];
+        }
+        tracker.recordConformanceRuleRuntime(ruleNames.get(i), runtime);
+      }
     }
   }
 
-  @Override
-  public final boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
-    // Don't inspect extern files
-    return !n.isScript() || !t.getInput().getSourceFile().isExtern();
+  /**
+   * Returns the name that rules with names are dispatched on for the given node, or null if the
+   * node has none.
+   */
+  @Nullable
+  private static String getDispatchName(Node n) {
+    switch (n.getToken()) {
+      case NAME:
+        return n.getString();
+      case GETPROP:
+        return n.getLastChild().getString();
+      case GETELEM:
+        return n.getLastChild().isString() ? n.getLastChild().getString() : null;
+      default:
+        return null;
+    }
   }
 
-  @Override
-  public void visit(NodeTraversal t, Node n, Node parent) {
-    for (int i = 0, len = rules.size(); i < len; i++) {
-      Rule rule = rules.get(i);
-      rule.check(t, n);
+  /**
+   * The indices of the rules to check on the nodes with each token, in the order the rules are
+   * configured. Rules with names are only listed for the nodes with one of their names.
+   */
+  private static final class DispatchTable {
+    private final int[][] ruleIdsByToken;
+    private final ImmutableList<ImmutableMap<String, int[]>> ruleIdsByTokenAndName;
+    private final boolean isEmpty;
+
+    DispatchTable(List<Rule> rules, Predicate<Rule> included) {
+      // The tokens and names of the included rules, or null for the others.
+      List<ImmutableSet<Token>> ruleTokens = new ArrayList<>();
+      List<ImmutableSet<String>> ruleNames = new ArrayList<>();
+      boolean isEmpty = true;
+      for (Rule rule : rules) {
+        ImmutableSet<Token> tokens = rule.getTokens();
+        ImmutableSet<String> names = rule.getNames();
+        if (names != null) {
+          checkState(
+              tokens != null && NAMED_TOKENS.containsAll(tokens),
+              "A rule with names must have NAME, GETPROP or GETELEM tokens only: %s",
+              rule);
+        }
+        if (included.test(rule)) {
+          ruleTokens.add(tokens != null ? tokens : ALL_TOKENS);
+          ruleNames.add(names);
+          isEmpty = false;
+        } else {
+          ruleTokens.add(ImmutableSet.<Token>of());
+          ruleNames.add(null);
+        }
+      }
+
+      Token[] tokens = Token.values();
+      ruleIdsByToken = new int[tokens.length][];
+      ImmutableList.Builder<ImmutableMap<String, int[]>> byTokenAndName = ImmutableList.builder();
+      for (Token token : tokens) {
+        List<Integer> ruleIds = new ArrayList<>();
+        Set<String> names = new LinkedHashSet<>();
+        for (int i = 0; i < rules.size(); i++) {
+          if (ruleTokens.get(i).contains(token)) {
+            if (ruleNames.get(i) == null) {
+              ruleIds.add(i);
+            } else {
+              names.addAll(ruleNames.get(i));
+            }
+          }
+        }
+        ruleIdsByToken[token.ordinal()] = Ints.toArray(ruleIds);
+
+        ImmutableMap.Builder<String, int[]> byName = ImmutableMap.builder();
+        for (String name : names) {
+          List<Integer> namedRuleIds = new ArrayList<>();
+          for (int i = 0; i < rules.size(); i++) {
+            if (ruleTokens.get(i).contains(token)
+                && (ruleNames.get(i) == null || ruleNames.get(i).contains(name))) {
+              namedRuleIds.add(i);
+            }
+          }
+          byName.put(name, Ints.toArray(namedRuleIds));
+        }
+        byTokenAndName.add(byName.build());
+      }
+      this.ruleIdsByTokenAndName = byTokenAndName.build();
+      this.isEmpty = isEmpty;
+    }
+
+    boolean isEmpty() {
+      return isEmpty;
+    }
+
+    int[] getRuleIds(Node n) {
+      int token = n.getToken().ordinal();
+      ImmutableMap<String, int[]> byName = ruleIdsByTokenAndName.get(token);
+      if (!byName.isEmpty()) {
+        String name = getDispatchName(n);
+        int[] ruleIds = name != null ? byName.get(name) : null;
+        if (ruleIds != null) {
+          return ruleIds;
+        }
+      }
+      return ruleIdsByToken[token];
+    }
+  }
+
+  /** Checks the rules of a dispatch table on the nodes it lists them for. */
+  private final class RuleChecker implements Callback {
+    private final DispatchTable table;
+    // The time spent in each rule, in nanoseconds, or null if it isn't measured.
+    @Nullable private final long[] runtimes;
+
+    RuleChecker(DispatchTable table, int ruleCount, boolean measureRuntimes) {
+      this.table = table;
+      this.runtimes = measureRuntimes ? new long[ruleCount] : null;
+    }
+
+    @Override
+    public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+      // Don't inspect extern files
+      return !n.isScript() || !t.getInput().getSourceFile().isExtern();
+    }
+
+    @Override
+    public void visit(NodeTraversal t, Node n, Node parent) {
+      int[] ruleIds = table.getRuleIds(n);
+      if (runtimes == null) {
+        for (int ruleId : ruleIds) {
+          rules.get(ruleId).check(t, n);
+        }
+      } else {
+        for (int ruleId : ruleIds) {
+          long start = System.nanoTime();
+          rules.get(ruleId).check(t, n);
+          runtimes[ruleId] += System.nanoTime() - start;
+        }
+      }
+    }
+  }
+
+  /** The compiler as seen by the script-local rules checking one script. */
+  private final class ScriptCompiler extends ForwardingCompiler {
+    private final List<JSError> errors = new ArrayList<>();
+    private final RuleChecker checker;
+
+    ScriptCompiler(RuleChecker checker) {
+      super(compiler);
+      this.checker = checker;
+    }
+
+    /** Records the error, to be reported once all scripts are checked. */
+    @Override
+    public void report(JSError error) {
+      errors.add(error);
     }
   }
 
@@ -101,17 +347,35 @@ public final class CheckConformance implements Callback, CompilerPass {
    * Build the data structures need by this pass from the provided
    * configurations.
    */
-  private static ImmutableList<Rule> initRules(
-      AbstractCompiler compiler, ImmutableList<ConformanceConfig> configs) {
-    ImmutableList.Builder<Rule> builder = ImmutableList.builder();
+  private static void initRules(
+      AbstractCompiler compiler,
+      ImmutableList<ConformanceConfig> configs,
+      ImmutableList.Builder<Rule> rules,
+      ImmutableList.Builder<String> ruleNames) {
     List<Requirement> requirements = mergeRequirements(compiler, configs);
-    for (Requirement requirement : requirements) {
+    for (int i = 0; i < requirements.size(); i++) {
+      Requirement requirement = requirements.get(i);
       Rule rule = initRule(compiler, requirement);
       if (rule != null) {
-        builder.add(rule);
+        rules.add(rule);
+        ruleNames.add(getRuleName(requirement, i));
       }
     }
-    return builder.build();
+  }
+
+  /**
+   * Returns the rule id of the requirement, or else its Java class or type and its index among
+   * the requirements.
+   */
+  private static String getRuleName(Requirement requirement, int index) {
+    if (requirement.hasRuleId()) {
+      return requirement.getRuleId();
+    }
+    String kind =
+        requirement.getType() == Requirement.Type.CUSTOM
+            ? requirement.getJavaClass()
+            : requirement.getType().name();
+    return kind + "#" + index;
   }
 
   private static final ImmutableSet<String> EXTENDABLE_FIELDS =
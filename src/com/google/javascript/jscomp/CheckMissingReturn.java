@@ -114,15 +114,16 @@ class CheckMissingReturn implements ScopedCallback {
       }
     }
 
-    if (fastAllPathsReturnCheck(t.getControlFlowGraph())) {
+    ControlFlowGraph<Node> cfg = ControlFlowGraphCache.getInstance(compiler).getCfg(n);
+    if (fastAllPathsReturnCheck(cfg)) {
       return;
     }
 
     CheckPathsBetweenNodes<Node, ControlFlowGraph.Branch> test =
         new CheckPathsBetweenNodes<>(
-            t.getControlFlowGraph(),
-            t.getControlFlowGraph().getEntry(),
-            t.getControlFlowGraph().getImplicitReturn(),
+            cfg,
+            cfg.getEntry(),
+            cfg.getImplicitReturn(),
             IS_RETURN, GOES_THROUGH_TRUE_CONDITION_PREDICATE);
 
     if (!test.allPathsSatisfyPredicate()) {
@@ -132,7 +132,8 @@ class CoalesceVariableNames extends AbstractPostOrderCallback implements
     checkState(scope.isFunctionScope(), scope);
 
     // live variables analysis is based off of the control flow graph
-    ControlFlowGraph<Node> cfg = t.getControlFlowGraph();
+    ControlFlowGraph<Node> cfg =
+        ControlFlowGraphCache.getInstance(compiler).getCfg(scope.getRootNode());
 
     liveness =
         new LiveVariablesAnalysis(
@@ -16,6 +16,8 @@
 
 package com.google.javascript.jscomp;
 
+import com.google.javascript.rhino.Node;
+
 /**
  * A simple listener for code change events.
  * @author nicksantos@google.com (Nick Santos)
@@ -24,4 +26,14 @@ package com.google.javascript.jscomp;
 interface CodeChangeHandler {
   /** Report a change to some unspecified node of the AST. */
   public void reportChange();
+
+  /**
+   * Report a change near the given node of the AST: the node passed to {@link
+   * AbstractCompiler#reportChangeToEnclosingScope} or the root passed to {@link
+   * AbstractCompiler#reportChangeToChangeScope}. Handlers that don't care where changes happen
+   * only need to implement {@link #reportChange()}.
+   */
+  public default void reportChangeAt(Node n) {
+    reportChange();
+  }
 }
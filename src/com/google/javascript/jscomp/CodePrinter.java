@@ -17,11 +17,13 @@
 package com.google.javascript.jscomp;
 
 import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.CharMatcher;
 import com.google.common.base.Preconditions;
-import com.google.common.collect.ImmutableList;
 import com.google.debugging.sourcemap.FilePosition;
+import com.google.debugging.sourcemap.Util;
 import com.google.javascript.jscomp.CodePrinter.Builder.CodeGeneratorFactory;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.rhino.Node;
@@ -29,8 +31,10 @@ import com.google.javascript.rhino.StaticSourceFile;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.JSTypeRegistry;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Deque;
 import java.util.List;
 
@@ -47,21 +51,329 @@ public final class CodePrinter {
   // potentially has a very different implementation to the pretty
   // version.
 
+  /**
+   * The code printed so far, either as chars or as encoded bytes. Positions in the code are counted
+   * in the units of the buffer, while the lengths of its lines are counted in chars, like the
+   * columns of source maps. The lengths are kept up to date while printing, so generating the
+   * source map doesn't take another pass over the code.
+   */
+  private abstract static class CodeBuffer {
+    // The positions at which the lines start.
+    private int[] lineStarts = new int[64];
+    // The lengths of the lines that end with a newline, in chars.
+    private int[] lineLengths = new int[64];
+    private int lineCount = 1;
+    // The length of the last line, in chars.
+    private int lastLineLength = 0;
+    private char lastChar = '\0';
+
+    /** Returns the length of the code, in the units of the buffer. */
+    abstract int length();
+
+    /** Adds the given part of a string that has no newlines to the end of the code. */
+    abstract void write(String str, int start, int end);
+
+    /** Adds a newline to the end of the code. */
+    abstract void writeNewline();
+
+    /** Inserts a newline at the given position. */
+    abstract void writeNewlineAt(int position);
+
+    /** Replaces the newline at the given position with a space. */
+    abstract void writeSpaceAt(int position);
+
+    /** Returns the number of chars between the given positions. */
+    abstract int countChars(int start, int end);
+
+    /**
+     * Returns the string as the buffer will store it. It only differs when the buffer escapes some
+     * characters, so that the lengths of the strings printers append are the lengths in the code.
+     */
+    String escape(String str) {
+      return str;
+    }
+
+    /** Adds a string, which may have newlines, to the end of the code. */
+    final void append(String str) {
+      int start = 0;
+      for (int newline = str.indexOf('\n'); newline != -1; newline = str.indexOf('\n', start)) {
+        write(str, start, newline);
+        lastLineLength += newline - start;
+        appendNewline();
+        start = newline + 1;
+      }
+      write(str, start, str.length());
+      lastLineLength += str.length() - start;
+      if (!str.isEmpty()) {
+        lastChar = str.charAt(str.length() - 1);
+      }
+    }
+
+    /** Adds a newline to the end of the code. */
+    final void appendNewline() {
+      writeNewline();
+      ensureLineCapacity();
+      lineLengths[lineCount - 1] = lastLineLength;
+      lineStarts[lineCount] = length();
+      lineCount++;
+      lastLineLength = 0;
+      lastChar = '\n';
+    }
+
+    /** Inserts a newline at a position before the end of the code. */
+    final void insertNewline(int position) {
+      checkState(position < length(), position);
+      int line = getLineAt(position);
+      int before = countChars(lineStarts[line], position);
+      writeNewlineAt(position);
+      ensureLineCapacity();
+      System.arraycopy(lineStarts, line + 1, lineStarts, line + 2, lineCount - line - 1);
+      System.arraycopy(lineLengths, line, lineLengths, line + 1, lineCount - line - 1);
+      lineCount++;
+      for (int i = line + 2; i < lineCount; i++) {
+        lineStarts[i]++;
+      }
+      lineStarts[line + 1] = position + 1;
+      lineLengths[line] = before;
+      if (line + 1 == lineCount - 1) {
+        lastLineLength -= before;
+      } else {
+        lineLengths[line + 1] -= before;
+      }
+    }
+
+    /** Replaces the newline at the given position with a space, joining its line and the next. */
+    final void replaceNewline(int position) {
+      int line = getLineAt(position);
+      checkState(line + 1 < lineCount && lineStarts[line + 1] == position + 1, position);
+      writeSpaceAt(position);
+      if (line + 1 == lineCount - 1) {
+        lastLineLength += lineLengths[line] + 1;
+      } else {
+        lineLengths[line] += lineLengths[line + 1] + 1;
+        System.arraycopy(lineLengths, line + 2, lineLengths, line + 1, lineCount - line - 3);
+      }
+      System.arraycopy(lineStarts, line + 2, lineStarts, line + 1, lineCount - line - 2);
+      lineCount--;
+      if (position == length() - 1) {
+        lastChar = ' ';
+      }
+    }
+
+    final char getLastChar() {
+      return lastChar;
+    }
+
+    /** Returns the lengths, in chars, of the lines that end with a newline. */
+    final int[] getLineLengths() {
+      return Arrays.copyOf(lineLengths, lineCount - 1);
+    }
+
+    private int getLineAt(int position) {
+      int low = 0;
+      int high = lineCount - 1;
+      while (low < high) {
+        int middle = (low + high + 1) >>> 1;
+        if (lineStarts[middle] <= position) {
+          low = middle;
+        } else {
+          high = middle - 1;
+        }
+      }
+      return low;
+    }
+
+    private void ensureLineCapacity() {
+      if (lineCount == lineStarts.length) {
+        lineStarts = Arrays.copyOf(lineStarts, lineCount * 2);
+        lineLengths = Arrays.copyOf(lineLengths, lineCount * 2);
+      }
+    }
+  }
+
+  /** A buffer of the code as chars. */
+  private static final class CharCodeBuffer extends CodeBuffer {
+    private final StringBuilder code = new StringBuilder(1024);
+
+    @Override
+    int length() {
+      return code.length();
+    }
+
+    @Override
+    void write(String str, int start, int end) {
+      if (start == 0 && end == str.length()) {
+        // Appending a whole String copies its chars at once, unlike appending a part of it.
+        code.append(str);
+      } else {
+        code.append(str, start, end);
+      }
+    }
+
+    @Override
+    void writeNewline() {
+      code.append('\n');
+    }
+
+    @Override
+    void writeNewlineAt(int position) {
+      code.insert(position, '\n');
+    }
+
+    @Override
+    void writeSpaceAt(int position) {
+      code.setCharAt(position, ' ');
+    }
+
+    @Override
+    int countChars(int start, int end) {
+      return end - start;
+    }
+
+    @Override
+    public String toString() {
+      return code.toString();
+    }
+  }
+
+  /**
+   * A buffer of the code encoded in UTF-8 as it is printed, or in ASCII, in which case the
+   * characters outside of ASCII are escaped the way {@link CodeGenerator} escapes them in strings.
+   */
+  private static final class ByteCodeBuffer extends CodeBuffer {
+    private final boolean escapeNonAscii;
+    private byte[] bytes = new byte[1024];
+    private int length = 0;
+
+    ByteCodeBuffer(boolean escapeNonAscii) {
+      this.escapeNonAscii = escapeNonAscii;
+    }
+
+    @Override
+    String escape(String str) {
+      if (!escapeNonAscii) {
+        return str;
+      }
+      for (int i = 0; i < str.length(); i++) {
+        if (str.charAt(i) >= 0x80) {
+          StringBuilder sb = new StringBuilder(str.length() + 16).append(str, 0, i);
+          for (; i < str.length(); i++) {
+            char c = str.charAt(i);
+            if (c < 0x80) {
+              sb.append(c);
+            } else {
+              Util.appendHexJavaScriptRepresentation(sb, c);
+            }
+          }
+          return sb.toString();
+        }
+      }
+      return str;
+    }
+
+    @Override
+    int length() {
+      return length;
+    }
+
+    @Override
+    void write(String str, int start, int end) {
+      // A char takes at most three bytes, and a surrogate pair four.
+      ensureCapacity(length + 3 * (end - start));
+      byte[] bytes = this.bytes;
+      int pos = length;
+      for (int i = start; i < end; i++) {
+        char c = str.charAt(i);
+        if (c < 0x80) {
+          bytes[pos++] = (byte) c;
+        } else if (c < 0x800) {
+          bytes[pos++] = (byte) (0xc0 | (c >> 6));
+          bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+        } else if (!Character.isSurrogate(c)) {
+          bytes[pos++] = (byte) (0xe0 | (c >> 12));
+          bytes[pos++] = (byte) (0x80 | ((c >> 6) & 0x3f));
+          bytes[pos++] = (byte) (0x80 | (c & 0x3f));
+        } else if (Character.isHighSurrogate(c)
+            && i + 1 < end
+            && Character.isLowSurrogate(str.charAt(i + 1))) {
+          int codePoint = Character.toCodePoint(c, str.charAt(++i));
+          bytes[pos++] = (byte) (0xf0 | (codePoint >> 18));
+          bytes[pos++] = (byte) (0x80 | ((codePoint >> 12) & 0x3f));
+          bytes[pos++] = (byte) (0x80 | ((codePoint >> 6) & 0x3f));
+          bytes[pos++] = (byte) (0x80 | (codePoint & 0x3f));
+        } else {
+          // Like the encoders of the JDK, replace a lone surrogate.
+          bytes[pos++] = '?';
+        }
+      }
+      length = pos;
+    }
+
+    @Override
+    void writeNewline() {
+      ensureCapacity(length + 1);
+      bytes[length++] = '\n';
+    }
+
+    @Override
+    void writeNewlineAt(int position) {
+      ensureCapacity(length + 1);
+      System.arraycopy(bytes, position, bytes, position + 1, length - position);
+      bytes[position] = '\n';
+      length++;
+    }
+
+    @Override
+    void writeSpaceAt(int position) {
+      bytes[position] = ' ';
+    }
+
+    @Override
+    int countChars(int start, int end) {
+      int chars = 0;
+      for (int i = start; i < end; i++) {
+        int b = bytes[i] & 0xff;
+        if ((b & 0xc0) != 0x80) {
+          // The first byte of a character, which is a surrogate pair if it takes four bytes.
+          chars += (b & 0xf8) == 0xf0 ? 2 : 1;
+        }
+      }
+      return chars;
+    }
+
+    private void ensureCapacity(int capacity) {
+      if (capacity > bytes.length) {
+        bytes = Arrays.copyOf(bytes, Math.max(capacity, bytes.length * 2));
+      }
+    }
+
+    byte[] toByteArray() {
+      return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, 0, length, UTF_8);
+    }
+  }
+
   private abstract static class MappedCodePrinter extends CodeConsumer {
     private final Deque<Mapping> mappings;
     private final List<Mapping> allMappings;
     private final boolean createSrcMap;
     private final SourceMap.DetailLevel sourceMapDetailLevel;
-    protected final StringBuilder code = new StringBuilder(1024);
+    protected final CodeBuffer code;
     protected final int lineLengthThreshold;
     protected int lineLength = 0;
     protected int lineIndex = 0;
 
     MappedCodePrinter(
+        CodeBuffer code,
         int lineLengthThreshold,
         boolean createSrcMap,
         SourceMap.DetailLevel sourceMapDetailLevel) {
       checkState(sourceMapDetailLevel != null);
+      this.code = code;
       this.lineLengthThreshold = lineLengthThreshold <= 0 ? Integer.MAX_VALUE :
         lineLengthThreshold;
       this.createSrcMap = createSrcMap;
@@ -134,9 +446,9 @@ public final class CodePrinter {
      * appending the information it saved to the SourceMap
      * object given.
      */
-    void generateSourceMap(String code, SourceMap map) {
+    void generateSourceMap(SourceMap map) {
       if (createSrcMap) {
-        List<Integer> lineLengths = computeLineLengths(code);
+        int[] lineLengths = code.getLineLengths();
         for (Mapping mapping : allMappings) {
           map.addMapping(
               mapping.node, mapping.start, adjustEndPosition(lineLengths, mapping.end));
@@ -215,7 +527,7 @@ public final class CodePrinter {
 
     @Override
     char getLastChar() {
-      return (code.length() > 0) ? code.charAt(code.length() - 1) : '\0';
+      return code.getLastChar();
     }
 
     protected final int getCurrentCharIndex() {
@@ -226,20 +538,6 @@ public final class CodePrinter {
       return lineIndex;
     }
 
-    /** Calculates length of each line in compiled code. */
-    private static ImmutableList<Integer> computeLineLengths(String code) {
-      ImmutableList.Builder<Integer> builder = ImmutableList.<Integer>builder();
-      int lineStartPos = 0;
-      int lineEndPos = code.indexOf('\n');
-      while (lineEndPos > -1) {
-        builder.add(lineEndPos - lineStartPos);
-        // Next line starts where current line ends + 1 to skip "\n" character.
-        lineStartPos = lineEndPos + 1;
-        lineEndPos = code.indexOf('\n', lineStartPos);
-      }
-      return builder.build();
-    }
-
     /**
      * Adjusts end position of a mapping. End position points to a column *after* the last character
      * that is covered by a mapping. And if it's end of the line there are 2 possibilities: either
@@ -251,26 +549,25 @@ public final class CodePrinter {
      * This method adjusts all such end positions, so if it points to the non-existing character
      * at the end of line - it is changed to point to the first character on the next line.
      *
-     * @param lineLengths List of all line lengths in compiled code.
+     * @param lineLengths All line lengths in compiled code.
      * @param endPosition End position of a mapping.
      */
-    private static FilePosition adjustEndPosition(
-        List<Integer> lineLengths, FilePosition endPosition) {
+    private static FilePosition adjustEndPosition(int[] lineLengths, FilePosition endPosition) {
       int line = endPosition.getLine();
       // if position points to non-existing line, return it unmodified
-      if (line >= lineLengths.size()) {
+      if (line >= lineLengths.length) {
         return endPosition;
       }
 
       Preconditions.checkState(
-          endPosition.getColumn() <= lineLengths.get(line),
+          endPosition.getColumn() <= lineLengths[line],
           "End position %s points to a column larger than line length %s",
           endPosition,
-          lineLengths.get(line));
+          lineLengths[line]);
 
       // if end position points to the column just after the last character on the line -
       // change it to point the first character on the next line
-      if (endPosition.getColumn() == lineLengths.get(line)) {
+      if (endPosition.getColumn() == lineLengths[line]) {
         return new FilePosition(line + 1, 0);
       }
       return endPosition;
@@ -283,6 +580,7 @@ public final class CodePrinter {
     private int indent = 0;
 
     /**
+     * @param code The buffer to print the code into.
      * @param lineLengthThreshold The length of a line after which we force
      *                            a newline when possible.
      * @param createSourceMap Whether to generate source map data.
@@ -290,10 +588,11 @@ public final class CodePrinter {
      *     into the source map.
      */
     private PrettyCodePrinter(
+        CodeBuffer code,
         int lineLengthThreshold,
         boolean createSourceMap,
         SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
+      super(code, lineLengthThreshold, createSourceMap, sourceMapDetailLevel);
     }
 
     /**
@@ -301,6 +600,7 @@ public final class CodePrinter {
      */
     @Override
     void append(String str) {
+      str = code.escape(str);
       // For pretty printing: indent at the beginning of the line
       if (lineLength == 0) {
         for (int i = 0; i < indent; i++) {
@@ -365,7 +665,7 @@ public final class CodePrinter {
     @Override
     void startNewLine() {
       if (lineLength > 0) {
-        code.append('\n');
+        code.appendNewline();
         lineIndex++;
         lineLength = 0;
       }
@@ -567,6 +867,7 @@ public final class CodePrinter {
     private int prevLineStartPosition = 0;
 
   /**
+   * @param code The buffer to print the code into.
    * @param lineBreak break the lines a bit more aggressively
    * @param lineLengthThreshold The length of a line after which we force
    *                            a newline when possible.
@@ -575,10 +876,10 @@ public final class CodePrinter {
    * @param sourceMapDetailLevel A filter to control which nodes get mapped into
    *     the source map.
    */
-    private CompactCodePrinter(boolean lineBreak,
+    private CompactCodePrinter(CodeBuffer code, boolean lineBreak,
         boolean preferLineBreakAtEndOfFile, int lineLengthThreshold,
         boolean createSrcMap, SourceMap.DetailLevel sourceMapDetailLevel) {
-      super(lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
+      super(code, lineLengthThreshold, createSrcMap, sourceMapDetailLevel);
       this.lineBreak = lineBreak;
       this.preferLineBreakAtEndOfFile = preferLineBreakAtEndOfFile;
     }
@@ -588,6 +889,7 @@ public final class CodePrinter {
      */
     @Override
     void append(String str) {
+      str = code.escape(str);
       code.append(str);
       lineLength += str.length();
       // Correct lineIndex and lineLength if there were newlines in the string.
@@ -606,7 +908,7 @@ public final class CodePrinter {
       if (lineLength > 0) {
         prevCutPosition = code.length();
         prevLineStartPosition = lineStartPosition;
-        code.append('\n');
+        code.appendNewline();
         lineLength = 0;
         lineIndex++;
         lineStartPosition = code.length();
@@ -626,11 +928,8 @@ public final class CodePrinter {
       // preferred break position?  We prefer to break after a
       // semicolon rather than before it.
       int len = code.length();
-      if (preferredBreakPosition == len - 1) {
-        char ch = code.charAt(len - 1);
-        if (ch == ';') {
-          preferredBreakPosition = len;
-        }
+      if (preferredBreakPosition == len - 1 && code.getLastChar() == ';') {
+        preferredBreakPosition = len;
       }
       maybeCutLine();
     }
@@ -643,14 +942,17 @@ public final class CodePrinter {
     void maybeCutLine() {
       if (lineLength > lineLengthThreshold) {
         // Use the preferred position provided it will break the line.
-        if (preferredBreakPosition > lineStartPosition &&
-            preferredBreakPosition < lineStartPosition + lineLength) {
+        int column =
+            preferredBreakPosition > lineStartPosition
+                ? code.countChars(lineStartPosition, preferredBreakPosition)
+                : 0;
+        if (column > 0 && column < lineLength) {
           int position = preferredBreakPosition;
-          code.insert(position, '\n');
+          code.insertNewline(position);
           prevCutPosition = position;
-          reportLineCut(lineIndex, position - lineStartPosition, true);
+          reportLineCut(lineIndex, column, true);
           lineIndex++;
-          lineLength -= (position - lineStartPosition);
+          lineLength -= column;
           prevLineStartPosition = lineStartPosition;
           lineStartPosition = position + 1;
         } else {
@@ -678,11 +980,11 @@ public final class CodePrinter {
         // Shift the previous break to end of file by replacing it with a
         // <space> and adding a new break at end of file. Adding the space
         // handles cases like instanceof\nfoo. (it would be nice to avoid this)
-        code.setCharAt(prevCutPosition, ' ');
+        code.replaceNewline(prevCutPosition);
         lineStartPosition = prevLineStartPosition;
-        lineLength = code.length() - lineStartPosition;
+        lineLength = code.countChars(lineStartPosition, code.length());
         // We need +1 to account for the space added few lines above.
-        int prevLineEndPosition = prevCutPosition - prevLineStartPosition + 1;
+        int prevLineEndPosition = code.countChars(prevLineStartPosition, prevCutPosition) + 1;
         reportLineCut(lineIndex, prevLineEndPosition, false);
         lineIndex--;
         prevCutPosition = 0;
@@ -808,13 +1110,34 @@ public final class CodePrinter {
      * Generates the source code and returns it.
      */
     public String build() {
+      return print(new CharCodeBuffer()).toString();
+    }
+
+    /**
+     * Generates the source code and returns it encoded in the output charset of the compiler
+     * options. With UTF-8, or no charset, the code is encoded as it is printed, and with US-ASCII,
+     * the characters outside of ASCII are escaped as it is printed, so no String of the code is
+     * made. Other charsets encode the String that {@link #build} returns.
+     */
+    public byte[] buildBytes() {
+      Charset charset = options.getOutputCharset();
+      if (charset != null && !charset.equals(UTF_8) && !charset.equals(US_ASCII)) {
+        return build().getBytes(charset);
+      }
+      ByteCodeBuffer code = new ByteCodeBuffer(US_ASCII.equals(charset));
+      print(code);
+      return code.toByteArray();
+    }
+
+    private CodeBuffer print(CodeBuffer code) {
       if (root == null) {
         throw new IllegalStateException(
             "Cannot build without root node being specified");
       }
 
-      return toSource(
+      toSource(
           root,
+          code,
           Format.fromOptions(options, outputTypes, prettyPrint),
           options,
           sourceMap,
@@ -822,6 +1145,7 @@ public final class CodePrinter {
           tagAsStrict,
           lineBreak,
           codeGeneratorFactory);
+      return code;
     }
   }
 
@@ -844,9 +1168,10 @@ public final class CodePrinter {
     }
   }
 
-  /** Converts a tree to JS code */
-  private static String toSource(
+  /** Converts a tree to JS code, printed into the given buffer. */
+  private static void toSource(
       Node root,
+      CodeBuffer code,
       Format outputFormat,
       CompilerOptions options,
       SourceMap sourceMap,
@@ -860,12 +1185,14 @@ public final class CodePrinter {
     MappedCodePrinter mcp =
         outputFormat == Format.COMPACT
         ? new CompactCodePrinter(
+            code,
             lineBreak,
             options.preferLineBreakAtEndOfFile,
             options.lineLengthThreshold,
             createSourceMap,
             options.sourceMapDetailLevel)
         : new PrettyCodePrinter(
+            code,
             options.lineLengthThreshold,
             createSourceMap,
             options.sourceMapDetailLevel);
@@ -881,12 +1208,8 @@ public final class CodePrinter {
     cg.add(root);
     mcp.endFile();
 
-    String code = mcp.getCode();
-
     if (createSourceMap) {
-      mcp.generateSourceMap(code, sourceMap);
+      mcp.generateSourceMap(sourceMap);
     }
-
-    return code;
   }
 }
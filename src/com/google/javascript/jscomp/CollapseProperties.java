@@ -99,7 +99,7 @@ class CollapseProperties implements CompilerPass {
 
   @Override
   public void process(Node externs, Node root) {
-    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    GlobalNamespace namespace = GlobalNamespaceProvider.getNamespaceFor(compiler, root);
     nameMap = namespace.getNameIndex();
     globalNames = namespace.getNameForest();
     checkNamespaces();
@@ -332,7 +332,9 @@ public class CommandLineRunner extends
     @Option(name = "--chunk_output_path_prefix",
         usage = "Prefix for filenames of compiled JS chunks. "
         + "<chunk-name>.js will be appended to this prefix. Directories "
-        + "will be created as needed. Use with --chunk",
+        + "will be created as needed. Use with --chunk. A [hash] placeholder "
+        + "in the file name part expands to the first 16 hex digits of the "
+        + "SHA-256 hash of the chunk's contents.",
         aliases = "--module_output_path_prefix")
     private String chunkOutputPathPrefix = "./";
 
@@ -625,6 +627,12 @@ public class CommandLineRunner extends
         aliases = "--output_module_dependencies")
     private String outputChunkDependencies = "";
 
+    @Option(name = "--output_chunk_hashes",
+        usage = "Prints out a JSON file listing the output file, SHA-256 content "
+        + "hash, source map and dependencies of each chunk. Use with --chunk",
+        aliases = "--output_module_hashes")
+    private String outputChunkHashes = "";
+
     @Option(
         name = "--language_in",
         usage =
@@ -683,7 +691,7 @@ public class CommandLineRunner extends
         hidden = true,
         usage = "Shows the duration of each compiler pass and the impact to "
         + "the compiled output size. "
-        + "Options: ALL, AST_SIZE, RAW_SIZE, TIMING_ONLY, OFF")
+        + "Options: ALL, ESTIMATED_SIZE, AST_SIZE, RAW_SIZE, TIMING_ONLY, OFF")
     private CompilerOptions.TracerMode tracerMode =
         CompilerOptions.TracerMode.OFF;
 
@@ -821,6 +829,16 @@ public class CommandLineRunner extends
     @Option(name = "--error_format", usage = "Specifies format for error messages.")
     private ErrorFormatOption errorFormat = ErrorFormatOption.STANDARD;
 
+    @Option(
+      name = "--stream_errors",
+      handler = BooleanOptionHandler.class,
+      usage =
+          "Prints each error and warning as soon as it is reported, in the order they are "
+              + "reported, instead of sorting them all at the end. Uses less memory when there "
+              + "are very many warnings."
+    )
+    private boolean streamErrors = false;
+
     @Option(name = "--renaming",
         handler = BooleanOptionHandler.class,
         usage = "Disables variable renaming. Cannot be used with ADVANCED optimizations.")
@@ -859,10 +877,12 @@ public class CommandLineRunner extends
         ImmutableSet.of(
             "conformance_configs",
             "error_format",
+            "stream_errors",
             "warnings_whitelist_file",
             "output_wrapper_file",
             "output_manifest",
             "output_chunk_dependencies",
+            "output_chunk_hashes",
             "property_renaming_report",
             "source_map_input",
             "source_map_location_mapping",
@@ -895,6 +915,7 @@ public class CommandLineRunner extends
                     "jscomp_error",
                     "jscomp_off",
                     "jscomp_warning",
+                    "stream_errors",
                     "strict_mode_input",
                     "warnings_whitelist_file"))
             .putAll(
@@ -937,6 +958,7 @@ public class CommandLineRunner extends
                     "create_source_map",
                     "output_manifest",
                     "output_chunk_dependencies",
+                    "output_chunk_hashes",
                     "property_renaming_report",
                     "source_map_input",
                     "source_map_include_content",
@@ -1725,6 +1747,7 @@ public class CommandLineRunner extends
           .setOutputBundle(bundleFiles)
           .setSkipNormalOutputs(skipNormalOutputs)
           .setOutputModuleDependencies(flags.outputChunkDependencies)
+          .setOutputModuleHashes(flags.outputChunkHashes)
           .setProcessCommonJSModules(flags.processCommonJsModules)
           .setModuleRoots(moduleRoots)
           .setTransformAMDToCJSModules(flags.transformAmdModules)
@@ -1733,7 +1756,8 @@ public class CommandLineRunner extends
           .setAngularPass(flags.angularPass)
           .setInstrumentationTemplateFile(flags.instrumentationFile)
           .setJsonStreamMode(flags.jsonStreamMode)
-          .setErrorFormat(flags.errorFormat);
+          .setErrorFormat(flags.errorFormat)
+          .setStreamErrors(flags.streamErrors);
     }
     errorStream = null;
   }
@@ -15,6 +15,7 @@
  */
 package com.google.javascript.jscomp;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -25,6 +26,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.base.Splitter;
 import com.google.common.base.Supplier;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
@@ -155,12 +157,24 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   private ErrorManager errorManager;
 
   // Warnings guard for filtering warnings.
-  private WarningsGuard warningsGuard;
+  private ComposeWarningsGuard warningsGuard;
 
   // Compile-time injected libraries. The node points to the last node of
   // the library, so code can be inserted after.
   private final Map<String, Node> injectedLibraries = new LinkedHashMap<>();
 
+  /**
+   * The runtime libraries parsed so far, by parser config and resource name. They are shared by all
+   * compilers as templates that are never changed: a compilation injects a copy of a library with
+   * its own source file and JSDoc, so it never sees the mutable state of another one. Only the
+   * libraries of the most recently used parser configs are kept.
+   */
+  private static final Map<Config, Map<String, RuntimeLibrary>> runtimeLibraries =
+      CacheBuilder.newBuilder()
+          .maximumSize(8)
+          .<Config, Map<String, RuntimeLibrary>>build()
+          .asMap();
+
   // Node of the final injected library. Future libraries will be injected
   // after this node.
   private Node lastInjectedLibrary;
@@ -1316,6 +1330,24 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     };
   }
 
+  @Override
+  int getNextUniqueNameId() {
+    return uniqueNameId;
+  }
+
+  @Override
+  int reserveUniqueNameIds(int count) {
+    checkArgument(count >= 0, count);
+    int first = uniqueNameId;
+    uniqueNameId += count;
+    return first;
+  }
+
+  @Override
+  PerformanceTracker getPerformanceTracker() {
+    return tracker;
+  }
+
   @Override
   boolean areNodesEqualForInlining(Node n1, Node n2) {
     if (options.shouldAmbiguateProperties() || options.shouldDisambiguateProperties()) {
@@ -1632,6 +1664,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
           options.getTracerOutput() == null ? this.outStream : options.getTracerOutput();
       tracker = new PerformanceTracker(externsRoot, jsRoot, options.getTracerMode(), tracerOutput);
       addChangeHandler(tracker.getCodeChangeHandler());
+      tracker.setControlFlowGraphCache(ControlFlowGraphCache.getInstance(this));
     }
   }
 
@@ -1750,6 +1783,9 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
 
       if (this.moduleLoader != null) {
         this.moduleLoader.setErrorHandler(this);
+        if (tracker != null) {
+          tracker.setModuleLoader(this.moduleLoader);
+        }
       }
 
       orderInputs();
@@ -2626,7 +2662,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   public void reportChangeToChangeScope(Node changeScopeRoot) {
     checkState(changeScopeRoot.isScript() || changeScopeRoot.isFunction());
     recordChange(changeScopeRoot);
-    notifyChangeHandlers();
+    notifyChangeHandlers(changeScopeRoot);
   }
 
   @Override
@@ -2640,12 +2676,12 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
   @Override
   public void reportChangeToEnclosingScope(Node n) {
     recordChange(getChangeScopeForNode(n));
-    notifyChangeHandlers();
+    notifyChangeHandlers(n);
   }
 
-  private void notifyChangeHandlers() {
+  private void notifyChangeHandlers(Node n) {
     for (CodeChangeHandler handler : codeChangeHandlers) {
-      handler.reportChange();
+      handler.reportChangeAt(n);
     }
   }
 
@@ -2753,6 +2789,11 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
   }
 
+  @Override
+  boolean isKnownToSuppress(@Nullable String sourceName, DiagnosticType type) {
+    return warningsGuard != null && warningsGuard.isKnownToSuppress(sourceName, type);
+  }
+
   @Override
   public void report(CheckLevel ignoredLevel, JSError error) {
     report(error);
@@ -3340,9 +3381,7 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     }
 
     // Load/parse the code.
-    String originalCode = ResourceLoader.loadTextResource(
-        Compiler.class, "js/" + resourceName + ".js");
-    Node ast = parseSyntheticCode(SYNTHETIC_CODE_PREFIX + resourceName + "] ", originalCode);
+    Node ast = parseRuntimeLibrary(resourceName);
 
     // Look for string literals of the form 'require foo bar' or 'externs baz' or 'normalize'.
     // As we process each one, remove it from its parent.
@@ -3407,6 +3446,86 @@ public class Compiler extends AbstractCompiler implements ErrorHandler, SourceFi
     return lastChild;
   }
 
+  /**
+   * Parses a runtime library, or copies the template of an earlier compilation that parsed it with
+   * the same parser config.
+   */
+  private Node parseRuntimeLibrary(String resourceName) {
+    initCompilerOptionsIfTesting();
+    String fileName = SYNTHETIC_CODE_PREFIX + resourceName + "] ";
+    if (options.preservesDetailedSourceInfo()) {
+      // Parsing also records the comments of the library, so it can't be skipped.
+      return parseSyntheticCode(fileName, loadRuntimeLibrary(resourceName));
+    }
+
+    // Not computeIfAbsent, which can fail an assertion in Guava when it evicts a config.
+    Config config = getParserConfig(ConfigContext.DEFAULT);
+    Map<String, RuntimeLibrary> libraries = runtimeLibraries.get(config);
+    if (libraries == null) {
+      Map<String, RuntimeLibrary> added = new ConcurrentHashMap<>();
+      libraries = runtimeLibraries.putIfAbsent(config, added);
+      if (libraries == null) {
+        libraries = added;
+      }
+    }
+    RuntimeLibrary library = libraries.get(resourceName);
+    if (library == null) {
+      String code = loadRuntimeLibrary(resourceName);
+      Node ast = parseSyntheticCode(fileName, code);
+      // Parse errors are reported while parsing, so don't skip it for libraries that have any.
+      if (ast.getProp(Node.PARSE_RESULTS) == null) {
+        Node template = copyRuntimeLibrary(ast, SourceFile.fromCode(fileName, code));
+        template.setInputId(null);
+        libraries.putIfAbsent(resourceName, new RuntimeLibrary(code, template));
+      }
+      return ast;
+    }
+
+    SourceFile source = SourceFile.fromCode(fileName, library.code);
+    Node ast = copyRuntimeLibrary(library.template, source);
+    addFilesToSourceMap(ImmutableList.of(source));
+    CompilerInput input = new CompilerInput(new JsAst(source, ast));
+    putCompilerInput(input.getInputId(), input);
+    return ast;
+  }
+
+  private static String loadRuntimeLibrary(String resourceName) {
+    return ResourceLoader.loadTextResource(Compiler.class, "js/" + resourceName + ".js");
+  }
+
+  /**
+   * Returns a copy of the AST of a runtime library that is in the given source file, and has its
+   * own copy of the JSDoc, so that the copy shares nothing mutable with the original.
+   */
+  private static Node copyRuntimeLibrary(Node ast, SourceFile source) {
+    Node copy = ast.cloneTree();
+    NodeUtil.visitPreOrder(
+        copy,
+        n -> {
+          n.setStaticSourceFile(source);
+          JSDocInfo info = n.getJSDocInfo();
+          if (info != null) {
+            info = info.clone(true);
+            for (Node typeNode : info.getTypeNodes()) {
+              NodeUtil.visitPreOrder(typeNode, t -> t.setStaticSourceFile(source));
+            }
+            n.setJSDocInfo(info);
+          }
+        });
+    return copy;
+  }
+
+  /** A parsed runtime library, and its source code. */
+  private static final class RuntimeLibrary {
+    final String code;
+    final Node template;
+
+    RuntimeLibrary(String code, Node template) {
+      this.code = code;
+      this.template = template;
+    }
+  }
+
   /** Returns the compiler version baked into the jar. */
   @GwtIncompatible("java.util.ResourceBundle")
   public static String getReleaseVersion() {
@@ -550,6 +550,12 @@ public class CompilerOptions implements Serializable {
 
   boolean useSizeHeuristicToStopOptimizationLoop = true;
 
+  /**
+   * Whether peephole optimizations, after the first traversal of a changed scope, revisit only the
+   * nodes around the changes of the previous traversal. The output is the same either way.
+   */
+  boolean usePeepholeWorklist = false;
+
   /**
    * Do up to this many iterations of the optimization loop.
    * Setting this field to some small number, say 3 or 4, allows a large project to build faster,
@@ -652,6 +658,12 @@ public class CompilerOptions implements Serializable {
    */
   String debugFunctionSideEffectsPath;
 
+  /**
+   * Where to save and load the per-file summaries used to compute function side effects, so that
+   * unchanged files don't need to be analyzed again.
+   */
+  String functionSideEffectsCachePath;
+
   /**
    * Rename private properties to disambiguate between unrelated fields based on
    * the coding convention.
@@ -1357,6 +1369,7 @@ public class CompilerOptions implements Serializable {
     colorizeErrorOutput = false;
     errorFormat = ErrorFormat.SINGLELINE;
     debugFunctionSideEffectsPath = null;
+    functionSideEffectsCachePath = null;
     externExports = false;
 
     // Debugging
@@ -2427,6 +2440,10 @@ public class CompilerOptions implements Serializable {
     this.debugFunctionSideEffectsPath = debugFunctionSideEffectsPath;
   }
 
+  public void setFunctionSideEffectsCachePath(String functionSideEffectsCachePath) {
+    this.functionSideEffectsCachePath = functionSideEffectsCachePath;
+  }
+
   /**
    * @return Whether disambiguate private properties is enabled.
    */
@@ -2917,6 +2934,10 @@ public class CompilerOptions implements Serializable {
     this.useSizeHeuristicToStopOptimizationLoop = mayStopEarly;
   }
 
+  public void setUsePeepholeWorklist(boolean usePeepholeWorklist) {
+    this.usePeepholeWorklist = usePeepholeWorklist;
+  }
+
   public void setMaxOptimizationLoopIterations(int maxIterations) {
     this.optimizationLoopMaxIterations = maxIterations;
   }
@@ -3006,6 +3027,7 @@ public class CompilerOptions implements Serializable {
             .add("flowSensitiveInlineVariables", flowSensitiveInlineVariables)
             .add("foldConstants", foldConstants)
             .add("forceLibraryInjection", forceLibraryInjection)
+            .add("functionSideEffectsCachePath", functionSideEffectsCachePath)
             .add("gatherCssNames", gatherCssNames)
             .add("generateExportsAfterTypeChecking", generateExportsAfterTypeChecking)
             .add("generateExports", generateExports)
@@ -3281,6 +3303,9 @@ public class CompilerOptions implements Serializable {
   /** How much tracing we want to do */
   public static enum TracerMode {
     ALL, // Collect all timing and size metrics. Very slow.
+    // Collect all timing and size metrics, estimating the sizes after each pass from the scripts
+    // it changed. Much faster than ALL.
+    ESTIMATED_SIZE,
     RAW_SIZE, // Collect all timing and size metrics, except gzipped size. Slow.
     AST_SIZE, // For size data, don't serialize the AST, just count the number of nodes.
     TIMING_ONLY, // Collect timing metrics only.
@@ -17,6 +17,7 @@
 package com.google.javascript.jscomp;
 
 import com.google.common.base.Joiner;
+import com.google.common.base.Optional;
 import com.google.common.collect.ImmutableList;
 import java.io.Serializable;
 import java.util.ArrayList;
@@ -25,7 +26,10 @@ import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
 
 /**
  * WarningsGuard that represents just a chain of other guards. For example we
@@ -36,6 +40,10 @@ import java.util.TreeSet;
  *
  * This class is designed for such behavior.
  *
+ * <p>The results of consecutive guards that only depend on the source name, type and default level
+ * of errors are memoized, so that the many errors that share them are looked up rather than
+ * matched against each guard.
+ *
  * @author anatol@google.com (Anatol Pomazau)
  */
 public class ComposeWarningsGuard extends WarningsGuard {
@@ -74,6 +82,76 @@ public class ComposeWarningsGuard extends WarningsGuard {
   // The order that the guards are applied in.
   private final TreeSet<WarningsGuard> guards = new TreeSet<>(guardComparator);
 
+  // The guards split into runs, in the order they are applied, or null if they need splitting
+  // again since a guard was added.
+  @Nullable private transient ImmutableList<GuardRun> runs;
+
+  /**
+   * Either a single guard, or a maximal sequence of guards that depend only on the source name,
+   * type and default level of errors, whose results are memoized.
+   */
+  private static final class GuardRun {
+    final ImmutableList<WarningsGuard> guards;
+    // The first result of the guards for each key, or null if they aren't memoized.
+    @Nullable final Map<MemoKey, Optional<CheckLevel>> memo;
+
+    GuardRun(List<WarningsGuard> guards, boolean memoized) {
+      this.guards = ImmutableList.copyOf(guards);
+      this.memo = memoized ? new ConcurrentHashMap<MemoKey, Optional<CheckLevel>>() : null;
+    }
+
+    CheckLevel level(JSError error) {
+      if (memo == null) {
+        return levelOfGuards(error);
+      }
+      MemoKey key = new MemoKey(error.sourceName, error.getType(), error.getDefaultLevel());
+      Optional<CheckLevel> level = memo.get(key);
+      if (level == null) {
+        level = Optional.fromNullable(levelOfGuards(error));
+        memo.put(key, level);
+      }
+      return level.orNull();
+    }
+
+    private CheckLevel levelOfGuards(JSError error) {
+      for (WarningsGuard guard : guards) {
+        CheckLevel newLevel = guard.level(error);
+        if (newLevel != null) {
+          return newLevel;
+        }
+      }
+      return null;
+    }
+  }
+
+  private static final class MemoKey {
+    @Nullable final String sourceName;
+    final DiagnosticType type;
+    final CheckLevel defaultLevel;
+
+    MemoKey(@Nullable String sourceName, DiagnosticType type, CheckLevel defaultLevel) {
+      this.sourceName = sourceName;
+      this.type = type;
+      this.defaultLevel = defaultLevel;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof MemoKey)) {
+        return false;
+      }
+      MemoKey other = (MemoKey) o;
+      return Objects.equals(sourceName, other.sourceName)
+          && type.equals(other.type)
+          && defaultLevel == other.defaultLevel;
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(sourceName, type, defaultLevel);
+    }
+  }
+
   public ComposeWarningsGuard(List<WarningsGuard> guards) {
     addGuards(guards);
   }
@@ -96,7 +174,32 @@ public class ComposeWarningsGuard extends WarningsGuard {
       orderOfAddition.put(guard, numberOfAdds);
       guards.remove(guard);
       guards.add(guard);
+      runs = null;
+    }
+  }
+
+  private ImmutableList<GuardRun> getRuns() {
+    ImmutableList<GuardRun> runs = this.runs;
+    if (runs == null) {
+      ImmutableList.Builder<GuardRun> builder = ImmutableList.builder();
+      List<WarningsGuard> memoized = new ArrayList<>();
+      for (WarningsGuard guard : guards) {
+        if (guard.dependsOnlyOnSourceAndType()) {
+          memoized.add(guard);
+          continue;
+        }
+        if (!memoized.isEmpty()) {
+          builder.add(new GuardRun(memoized, true));
+          memoized.clear();
+        }
+        builder.add(new GuardRun(ImmutableList.of(guard), false));
+      }
+      if (!memoized.isEmpty()) {
+        builder.add(new GuardRun(memoized, true));
+      }
+      this.runs = runs = builder.build();
     }
+    return runs;
   }
 
   private void addGuards(Iterable<WarningsGuard> guards) {
@@ -107,8 +210,8 @@ public class ComposeWarningsGuard extends WarningsGuard {
 
   @Override
   public CheckLevel level(JSError error) {
-    for (WarningsGuard guard : guards) {
-      CheckLevel newLevel = guard.level(error);
+    for (GuardRun run : getRuns()) {
+      CheckLevel newLevel = run.level(error);
       if (newLevel != null) {
         if (demoteErrors && newLevel == CheckLevel.ERROR) {
           return CheckLevel.WARNING;
@@ -119,6 +222,28 @@ public class ComposeWarningsGuard extends WarningsGuard {
     return null;
   }
 
+  /**
+   * Returns whether errors with the given source name and type and their type's default level are
+   * known to be turned off, from the results memoized for earlier errors, so that they need not
+   * be made. Guards that only suppress errors are skipped, since they can't turn an error on.
+   */
+  boolean isKnownToSuppress(@Nullable String sourceName, DiagnosticType type) {
+    MemoKey key = new MemoKey(sourceName, type, type.level);
+    for (GuardRun run : getRuns()) {
+      if (run.memo != null) {
+        Optional<CheckLevel> level = run.memo.get(key);
+        if (level == null) {
+          return false;
+        } else if (level.isPresent()) {
+          return level.get() == CheckLevel.OFF;
+        }
+      } else if (!run.guards.get(0).onlySuppresses()) {
+        return false;
+      }
+    }
+    return type.level == CheckLevel.OFF;
+  }
+
   @Override
   public boolean disables(DiagnosticGroup group) {
     nextSingleton:
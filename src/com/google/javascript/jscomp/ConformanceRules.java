@@ -67,6 +67,16 @@ public final class ConformanceRules {
 
   private ConformanceRules() {}
 
+  // The tokens of the nodes that the standard rules check.
+  private static final ImmutableSet<Token> SCRIPT_TOKENS = Sets.immutableEnumSet(Token.SCRIPT);
+  private static final ImmutableSet<Token> THROW_TOKENS = Sets.immutableEnumSet(Token.THROW);
+  private static final ImmutableSet<Token> CALL_TOKENS = Sets.immutableEnumSet(Token.CALL);
+  private static final ImmutableSet<Token> GETPROP_TOKENS = Sets.immutableEnumSet(Token.GETPROP);
+  private static final ImmutableSet<Token> QUALIFIED_NAME_TOKENS =
+      Sets.immutableEnumSet(Token.NAME, Token.GETPROP);
+  private static final ImmutableSet<Token> PROPERTY_ACCESS_TOKENS =
+      Sets.immutableEnumSet(Token.GETPROP, Token.GETELEM);
+
   /**
    * Classes extending AbstractRule must return ConformanceResult
    * from their checkConformance implementation. For simple rules, the
@@ -416,6 +426,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return SCRIPT_TOKENS;
+    }
+
+    @Override
+    public boolean isScriptLocal() {
+      return true;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -437,6 +457,7 @@ public final class ConformanceRules {
   static class BannedName extends AbstractRule {
     private final Requirement.Type requirementType;
     private final ImmutableList<Node> names;
+    @Nullable private final ImmutableSet<String> lastNames;
 
     BannedName(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -450,6 +471,17 @@ public final class ConformanceRules {
         builder.add(NodeUtil.newQName(compiler, name));
       }
       names = builder.build();
+      lastNames = ConformanceUtil.getLastNames(names);
+    }
+
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return QUALIFIED_NAME_TOKENS;
+    }
+
+    @Override
+    public ImmutableSet<String> getNames() {
+      return lastNames;
     }
 
     @Override
@@ -505,6 +537,7 @@ public final class ConformanceRules {
       }
     }
     private final ImmutableList<Property> props;
+    private final ImmutableSet<String> propertyNames;
     private final Requirement.Type requirementType;
 
     BannedProperty(AbstractCompiler compiler, Requirement requirement)
@@ -535,6 +568,21 @@ public final class ConformanceRules {
       }
 
       props = builder.build();
+      ImmutableSet.Builder<String> propertyNames = ImmutableSet.builder();
+      for (Property prop : props) {
+        propertyNames.add(prop.property);
+      }
+      this.propertyNames = propertyNames.build();
+    }
+
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return PROPERTY_ACCESS_TOKENS;
+    }
+
+    @Override
+    public ImmutableSet<String> getNames() {
+      return propertyNames;
     }
 
     @Override
@@ -668,6 +716,25 @@ public final class ConformanceRules {
 
   private static class ConformanceUtil {
 
+    /**
+     * Returns the last component of each of the qualified names, or null if one of them isn't a
+     * NAME or GETPROP node.
+     */
+    @Nullable
+    static ImmutableSet<String> getLastNames(Collection<Node> qualifiedNames) {
+      ImmutableSet.Builder<String> lastNames = ImmutableSet.builder();
+      for (Node name : qualifiedNames) {
+        if (name.isName()) {
+          lastNames.add(name.getString());
+        } else if (name.isGetProp()) {
+          lastNames.add(name.getLastChild().getString());
+        } else {
+          return null;
+        }
+      }
+      return lastNames.build();
+    }
+
     static boolean isCallTarget(Node n) {
       Node parent = n.getParent();
       return (parent.isCall() || parent.isNew())
@@ -762,6 +829,7 @@ public final class ConformanceRules {
     }
 
     private final ImmutableList<Restriction> restrictions;
+    @Nullable private final ImmutableSet<String> lastNames;
 
     RestrictedNameCall(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -786,6 +854,27 @@ public final class ConformanceRules {
         builder.add(new Restriction(name, restrictedCallType));
       }
       restrictions = builder.build();
+
+      List<Node> names = new ArrayList<>();
+      for (Restriction r : restrictions) {
+        names.add(r.name);
+      }
+      ImmutableSet<String> lastNames = ConformanceUtil.getLastNames(names);
+      // The restricted names may also be called through their "call" property.
+      this.lastNames =
+          lastNames != null
+              ? ImmutableSet.<String>builder().addAll(lastNames).add("call").build()
+              : null;
+    }
+
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return lastNames != null ? QUALIFIED_NAME_TOKENS : null;
+    }
+
+    @Override
+    public ImmutableSet<String> getNames() {
+      return lastNames;
     }
 
     @Override
@@ -847,6 +936,7 @@ public final class ConformanceRules {
     }
 
     private final ImmutableList<Restriction> restrictions;
+    private final ImmutableSet<String> propertyNames;
 
     RestrictedMethodCall(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
@@ -874,6 +964,22 @@ public final class ConformanceRules {
       }
 
       restrictions = builder.build();
+      // The restricted methods may also be called through their "call" property.
+      ImmutableSet.Builder<String> propertyNames = ImmutableSet.builder();
+      for (Restriction r : restrictions) {
+        propertyNames.add(r.property);
+      }
+      this.propertyNames = propertyNames.add("call").build();
+    }
+
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return PROPERTY_ACCESS_TOKENS;
+    }
+
+    @Override
+    public ImmutableSet<String> getNames() {
+      return propertyNames;
     }
 
     @Override
@@ -1046,6 +1152,21 @@ public final class ConformanceRules {
       customRule.check(t, n);
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return customRule.getTokens();
+    }
+
+    @Override
+    public ImmutableSet<String> getNames() {
+      return customRule.getNames();
+    }
+
+    @Override
+    public boolean isScriptLocal() {
+      return customRule.isScriptLocal();
+    }
+
     private Rule createRule(AbstractCompiler compiler, Requirement requirement)
         throws InvalidRequirementSpec {
       try {
@@ -1118,6 +1239,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    public boolean isScriptLocal() {
+      return true;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       JSDocInfo info = n.getJSDocInfo();
@@ -1141,6 +1267,16 @@ public final class ConformanceRules {
       }
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return SCRIPT_TOKENS;
+    }
+
+    @Override
+    public boolean isScriptLocal() {
+      return true;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isScript()) {
@@ -1164,6 +1300,11 @@ public final class ConformanceRules {
       errorObjType = compiler.getTypeRegistry().getGlobalType("Error");
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return THROW_TOKENS;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (errorObjType != null && n.isThrow()) {
@@ -1272,6 +1413,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return GETPROP_TOKENS;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp()
@@ -1305,6 +1451,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return GETPROP_TOKENS;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp()
@@ -1373,6 +1524,11 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return GETPROP_TOKENS;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isGetProp()) {
@@ -1481,6 +1637,16 @@ public final class ConformanceRules {
       super(compiler, requirement);
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return SCRIPT_TOKENS;
+    }
+
+    @Override
+    public boolean isScriptLocal() {
+      return true;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (!n.isScript()) {
@@ -1523,6 +1689,11 @@ public final class ConformanceRules {
       documentType = compiler.getTypeRegistry().getGlobalType("Document");
     }
 
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return CALL_TOKENS;
+    }
+
     @Override
     protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
       if (n.isCall()) {
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.javascript.rhino.Node;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A compiler-owned cache of the control flow graphs of functions, so that a pass analyzing a
+ * function that hasn't changed since another pass analyzed it doesn't build its graph again.
+ *
+ * <p>Graphs are keyed by the FUNCTION node and the change time it had when the graph was built.
+ * Every change to the body of a function is reported to the function, which gives it a new change
+ * time, so a graph whose function has a different change time is out of date and is built again.
+ * Changes inside nested functions don't matter, since the graph doesn't include their bodies.
+ *
+ * <p>The cached graphs have at most a fixed number of nodes in total. When a new graph doesn't fit,
+ * the least recently used graphs are evicted.
+ *
+ * <p>Graphs are built like {@link NodeTraversal#getControlFlowGraph()} builds them. A graph is
+ * shared by the passes that get it, so they must not modify it; the annotations of its nodes and
+ * edges are cleared whenever it is handed out again.
+ */
+final class ControlFlowGraphCache implements IndexProvider<ControlFlowGraphCache> {
+
+  static final int DEFAULT_MAX_CACHED_NODES = 100000;
+
+  private final AbstractCompiler compiler;
+  private final int maxCachedNodes;
+
+  // The cached graphs, from the least to the most recently used.
+  private final Map<Node, CachedGraph> graphs = new LinkedHashMap<>(16, 0.75f, true);
+  private int cachedNodes = 0;
+
+  private int hits = 0;
+  private int misses = 0;
+
+  @VisibleForTesting
+  ControlFlowGraphCache(AbstractCompiler compiler, int maxCachedNodes) {
+    this.compiler = compiler;
+    this.maxCachedNodes = maxCachedNodes;
+  }
+
+  /** Returns the cache owned by the given compiler, creating and registering it if necessary. */
+  static ControlFlowGraphCache getInstance(AbstractCompiler compiler) {
+    ControlFlowGraphCache cache = compiler.getIndex(ControlFlowGraphCache.class);
+    if (cache == null) {
+      cache = new ControlFlowGraphCache(compiler, DEFAULT_MAX_CACHED_NODES);
+      compiler.addIndexProvider(cache);
+    }
+    return cache;
+  }
+
+  @Override
+  public ControlFlowGraphCache get() {
+    return this;
+  }
+
+  @Override
+  public Class<ControlFlowGraphCache> getType() {
+    return ControlFlowGraphCache.class;
+  }
+
+  /** Returns the control flow graph of the given function, building it if necessary. */
+  ControlFlowGraph<Node> getCfg(Node function) {
+    checkArgument(function.isFunction(), function);
+    CachedGraph cached = graphs.get(function);
+    if (cached != null && cached.changeTime == function.getChangeTime()) {
+      hits++;
+      cached.cfg.clearNodeAnnotations();
+      cached.cfg.clearEdgeAnnotations();
+      return cached.cfg;
+    }
+
+    misses++;
+    if (cached != null) {
+      remove(function);
+    }
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
+    cfa.process(null, function);
+    ControlFlowGraph<Node> cfg = cfa.getCfg();
+    int nodeCount = cfg.getNodeCount();
+    if (nodeCount <= maxCachedNodes) {
+      evict(maxCachedNodes - nodeCount);
+      graphs.put(function, new CachedGraph(function.getChangeTime(), cfg));
+      cachedNodes += nodeCount;
+    }
+    return cfg;
+  }
+
+  /** Returns the number of requests answered with a cached graph. */
+  int getHits() {
+    return hits;
+  }
+
+  /** Returns the number of requests that required building a graph. */
+  int getMisses() {
+    return misses;
+  }
+
+  @VisibleForTesting
+  int getCachedNodeCount() {
+    return cachedNodes;
+  }
+
+  /** Evicts the least recently used graphs until at most the given number of nodes is cached. */
+  private void evict(int maxNodes) {
+    Iterator<CachedGraph> it = graphs.values().iterator();
+    while (cachedNodes > maxNodes) {
+      cachedNodes -= it.next().cfg.getNodeCount();
+      it.remove();
+    }
+  }
+
+  private void remove(Node function) {
+    cachedNodes -= graphs.remove(function).cfg.getNodeCount();
+  }
+
+  private static final class CachedGraph {
+    final int changeTime;
+    final ControlFlowGraph<Node> cfg;
+
+    CachedGraph(int changeTime, ControlFlowGraph<Node> cfg) {
+      this.changeTime = changeTime;
+      this.cfg = cfg;
+    }
+  }
+}
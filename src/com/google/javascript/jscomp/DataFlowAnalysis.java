@@ -326,12 +326,12 @@ abstract class DataFlowAnalysis<N, L extends LatticeElement> {
     private L out;
 
     /**
-     * Private constructor. No other classes should create new states.
+     * Package-private constructor. Only data flow analyses should create new states.
      *
      * @param inState Input.
      * @param outState Output.
      */
-    private FlowState(L inState, L outState) {
+    FlowState(L inState, L outState) {
       checkNotNull(inState);
       checkNotNull(outState);
       this.in = inState;
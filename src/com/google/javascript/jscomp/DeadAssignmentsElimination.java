@@ -120,7 +120,8 @@ class DeadAssignmentsElimination extends AbstractScopedCallback implements Compi
     }
 
     // Computes liveness information first.
-    ControlFlowGraph<Node> cfg = t.getControlFlowGraph();
+    ControlFlowGraph<Node> cfg =
+        ControlFlowGraphCache.getInstance(compiler).getCfg(functionScope.getRootNode());
     liveness =
         new LiveVariablesAnalysis(
             cfg, functionScope, blockScope, compiler, new Es6SyntacticScopeCreator(compiler));
@@ -94,6 +94,12 @@ final class DefaultNameGenerator implements NameGenerator {
     "abcdefghijklmnopqrstuvwxyzABCDEFGHIJKLMNOPQRSTUVWXYZ_0123456789$"
         .toCharArray();
 
+  /**
+   * The number of candidate names kept in a table: with the default characters and no prefix, all
+   * the names of one and two characters.
+   */
+  private static final int CANDIDATE_TABLE_SIZE = FIRST_CHAR.length * (NONFIRST_CHAR.length + 1);
+
   private Set<String> reservedNames;
   private String prefix;
   private int nameCount;
@@ -101,6 +107,17 @@ final class DefaultNameGenerator implements NameGenerator {
   private CharPriority[] firstChars;
   private CharPriority[] nonFirstChars;
 
+  // The characters of firstChars and nonFirstChars, in the same order.
+  private char[] firstCharNames;
+  private char[] nonFirstCharNames;
+
+  /**
+   * The first candidate names for the current characters and prefix, by name count, before the
+   * reserved names and keywords are skipped. Filled on demand, except for the table shared by all
+   * the generators that use the default characters and no prefix.
+   */
+  private String[] candidateNames;
+
   public DefaultNameGenerator() {
     buildPriorityLookupMap();
     Set<String> reservedNames = Sets.newHashSetWithExpectedSize(0);
@@ -186,6 +203,34 @@ final class DefaultNameGenerator implements NameGenerator {
     Arrays.sort(nonFirstChars);
 
     checkPrefix(prefix);
+    resetCandidateNames();
+  }
+
+  /** Reuses the table of candidate names if the characters and prefix allow it. */
+  private void resetCandidateNames() {
+    char[] oldFirstCharNames = firstCharNames;
+    char[] oldNonFirstCharNames = nonFirstCharNames;
+    firstCharNames = getNames(firstChars);
+    nonFirstCharNames = getNames(nonFirstChars);
+
+    if (prefix.isEmpty()
+        && Arrays.equals(firstCharNames, FIRST_CHAR)
+        && Arrays.equals(nonFirstCharNames, NONFIRST_CHAR)) {
+      candidateNames = DefaultCandidateNames.TABLE;
+    } else if (candidateNames == null
+        || candidateNames == DefaultCandidateNames.TABLE
+        || !Arrays.equals(firstCharNames, oldFirstCharNames)
+        || !Arrays.equals(nonFirstCharNames, oldNonFirstCharNames)) {
+      candidateNames = new String[CANDIDATE_TABLE_SIZE];
+    }
+  }
+
+  private static char[] getNames(CharPriority[] chars) {
+    char[] names = new char[chars.length];
+    for (int i = 0; i < chars.length; i++) {
+      names[i] = chars[i].name;
+    }
+    return names;
   }
 
   @Override
@@ -282,22 +327,7 @@ final class DefaultNameGenerator implements NameGenerator {
   public String generateNextName() {
     String name;
     do {
-      name = prefix;
-      int i = nameCount;
-
-      if (name.isEmpty()) {
-        int pos = i % firstChars.length;
-        name = String.valueOf(firstChars[pos].name);
-        i /= firstChars.length;
-      }
-
-      while (i > 0) {
-        i--;
-        int pos = i % nonFirstChars.length;
-        name += nonFirstChars[pos].name;
-        i /= nonFirstChars.length;
-      }
-
+      name = getCandidateName(nameCount);
       nameCount++;
 
       // Make sure it's not a JS keyword or reserved name.
@@ -305,4 +335,44 @@ final class DefaultNameGenerator implements NameGenerator {
 
     return name;
   }
+
+  private String getCandidateName(int i) {
+    if (i >= candidateNames.length) {
+      return buildCandidateName(prefix, firstCharNames, nonFirstCharNames, i);
+    }
+    String name = candidateNames[i];
+    if (name == null) {
+      name = buildCandidateName(prefix, firstCharNames, nonFirstCharNames, i);
+      candidateNames[i] = name;
+    }
+    return name;
+  }
+
+  /** Builds the i-th name made of the given characters, starting with the prefix. */
+  private static String buildCandidateName(
+      String prefix, char[] firstChars, char[] nonFirstChars, int i) {
+    StringBuilder name = new StringBuilder(prefix);
+    if (prefix.isEmpty()) {
+      name.append(firstChars[i % firstChars.length]);
+      i /= firstChars.length;
+    }
+
+    while (i > 0) {
+      i--;
+      name.append(nonFirstChars[i % nonFirstChars.length]);
+      i /= nonFirstChars.length;
+    }
+    return name.toString();
+  }
+
+  /** The candidate names with the default characters and no prefix, built once. */
+  private static final class DefaultCandidateNames {
+    static final String[] TABLE = new String[CANDIDATE_TABLE_SIZE];
+
+    static {
+      for (int i = 0; i < TABLE.length; i++) {
+        TABLE[i] = buildCandidateName("", FIRST_CHAR, NONFIRST_CHAR, i);
+      }
+    }
+  }
 }
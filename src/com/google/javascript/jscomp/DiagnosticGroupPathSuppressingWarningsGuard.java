@@ -41,6 +41,11 @@ public class DiagnosticGroupPathSuppressingWarningsGuard extends DiagnosticGroup
         : null /** proceed */;
   }
 
+  @Override protected boolean dependsOnlyOnSourceAndType() {
+    // Subclasses may look at more of the error.
+    return getClass() == DiagnosticGroupPathSuppressingWarningsGuard.class;
+  }
+
   @Override public String toString() {
     return super.toString() + "(" + part + ")";
   }
@@ -52,6 +52,12 @@ class ForwardingCompiler extends AbstractCompiler {
     abstractCompiler.report(error);
   }
 
+  /** Returns false, since subclasses may want to see every error reported to them. */
+  @Override
+  boolean isKnownToSuppress(String sourceName, DiagnosticType type) {
+    return false;
+  }
+
   @Override
   public void beforePass(String passName) {
     abstractCompiler.beforePass(passName);
@@ -305,6 +311,21 @@ class ForwardingCompiler extends AbstractCompiler {
     return abstractCompiler.getUniqueNameIdSupplier();
   }
 
+  @Override
+  int getNextUniqueNameId() {
+    return abstractCompiler.getNextUniqueNameId();
+  }
+
+  @Override
+  int reserveUniqueNameIds(int count) {
+    return abstractCompiler.reserveUniqueNameIds(count);
+  }
+
+  @Override
+  PerformanceTracker getPerformanceTracker() {
+    return abstractCompiler.getPerformanceTracker();
+  }
+
   @Override
   public boolean hasHaltingErrors() {
     return abstractCompiler.hasHaltingErrors();
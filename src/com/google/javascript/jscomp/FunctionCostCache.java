@@ -0,0 +1,219 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiler-owned cache of the estimates that {@link FunctionInjector} makes about functions: the
+ * size of a function, as measured by {@link InlineCostEstimator}, and the number of its return
+ * statements.
+ *
+ * <p>Both depend only on the contents of the function, so they are kept until a change is reported
+ * within the function, or within a function nested in it. This way, the functions that {@link
+ * InlineFunctions} considers again in each round of the optimization loop are only printed again
+ * if the previous rounds changed them.
+ *
+ * <p>The estimates of functions that are removed from the AST are dropped as well: right away for
+ * functions reported as deleted, and for the others whenever the cache has doubled in size since it
+ * last looked for them.
+ */
+final class FunctionCostCache implements IndexProvider<FunctionCostCache>, CodeChangeHandler {
+
+  private static final String TIMELINE_MARK = "FunctionCostCache";
+
+  // The least number of cached functions for which removed functions are looked for.
+  private static final int MIN_SWEEP_SIZE = 64;
+
+  private final AbstractCompiler compiler;
+
+  private final Map<Node, Estimates> estimatesByFunction = new HashMap<>();
+
+  // The number of cached functions at which to look for removed functions again.
+  private int sweepSize = MIN_SWEEP_SIZE;
+
+  // Whether a change may have been reported since the cache last caught up with the change
+  // timeline. Starts as true so that the first request sets up the timeline mark.
+  private boolean hasUnseenChanges = true;
+
+  // Whether to check every cached estimate against a fresh one.
+  private boolean verify = false;
+
+  private FunctionCostCache(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /** Returns the cache owned by the given compiler, creating and registering it if necessary. */
+  static FunctionCostCache getInstance(AbstractCompiler compiler) {
+    FunctionCostCache cache = compiler.getIndex(FunctionCostCache.class);
+    if (cache == null) {
+      cache = new FunctionCostCache(compiler);
+      compiler.addIndexProvider(cache);
+      compiler.addChangeHandler(cache);
+    }
+    return cache;
+  }
+
+  /**
+   * Makes this cache check every estimate it reuses against a fresh one, throwing an {@link
+   * IllegalStateException} when they differ. This is expensive and intended for tests.
+   */
+  FunctionCostCache enableVerification() {
+    this.verify = true;
+    return this;
+  }
+
+  @Override
+  public FunctionCostCache get() {
+    return this;
+  }
+
+  @Override
+  public Class<FunctionCostCache> getType() {
+    return FunctionCostCache.class;
+  }
+
+  @Override
+  public void reportChange() {
+    hasUnseenChanges = true;
+  }
+
+  /**
+   * Returns the estimated size of the function, like {@link InlineCostEstimator#getCost(Node,
+   * int)}: the estimate may stop at any value that reaches the threshold.
+   */
+  int getCost(Node fnNode, int costThreshold) {
+    Estimates estimates = getEstimates(fnNode);
+    if (estimates.hasCost
+        && (estimates.isCostExact() || costThreshold <= estimates.costThreshold)) {
+      if (verify) {
+        int cost = InlineCostEstimator.getCost(fnNode, estimates.costThreshold);
+        checkState(cost == estimates.cost, "The cost of %s has changed", fnNode);
+      }
+      return estimates.cost;
+    }
+    estimates.cost = InlineCostEstimator.getCost(fnNode, costThreshold);
+    estimates.costThreshold = costThreshold;
+    estimates.hasCost = true;
+    return estimates.cost;
+  }
+
+  /** Returns the number of return statements of the function, excluding nested functions. */
+  int getReturnCount(Node fnNode) {
+    Estimates estimates = getEstimates(fnNode);
+    if (estimates.returnCount >= 0) {
+      if (verify) {
+        checkState(
+            countReturns(fnNode) == estimates.returnCount,
+            "The returns of %s have changed",
+            fnNode);
+      }
+      return estimates.returnCount;
+    }
+    estimates.returnCount = countReturns(fnNode);
+    return estimates.returnCount;
+  }
+
+  private static int countReturns(Node fnNode) {
+    return NodeUtil.getNodeTypeReferenceCount(
+        fnNode.getLastChild(), Token.RETURN, new NodeUtil.MatchShallowStatement());
+  }
+
+  private Estimates getEstimates(Node fnNode) {
+    checkArgument(fnNode.isFunction(), fnNode);
+    if (hasUnseenChanges) {
+      invalidateChangedFunctions();
+      hasUnseenChanges = false;
+    }
+    Estimates estimates = estimatesByFunction.get(fnNode);
+    if (estimates == null) {
+      estimates = new Estimates();
+      estimatesByFunction.put(fnNode, estimates);
+    }
+    return estimates;
+  }
+
+  /**
+   * Forgets the estimates of every function that contains a change reported since the last use,
+   * and of the functions removed from the AST.
+   */
+  private void invalidateChangedFunctions() {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(TIMELINE_MARK);
+    List<Node> deletedScopeNodes = compiler.getDeletedScopeNodesForPass(TIMELINE_MARK);
+    if (changedScopeNodes == null) {
+      // This is the first time the timeline is consulted, so nothing can be trusted.
+      estimatesByFunction.clear();
+      return;
+    }
+    if (deletedScopeNodes != null) {
+      for (Node deleted : deletedScopeNodes) {
+        estimatesByFunction.remove(deleted);
+      }
+    }
+    // Functions that are detached without being reported as deleted can only be found by looking
+    // at all of them, so that is only done once the cache has doubled in size.
+    if (estimatesByFunction.size() >= sweepSize) {
+      estimatesByFunction.keySet().removeIf(fnNode -> !isInAst(fnNode));
+      sweepSize = Math.max(MIN_SWEEP_SIZE, 2 * estimatesByFunction.size());
+    }
+    for (Node changed : changedScopeNodes) {
+      for (Node n = changed; n != null; n = n.getParent()) {
+        if (n.isFunction()) {
+          estimatesByFunction.remove(n);
+        } else if (n.isScript()) {
+          break;
+        }
+      }
+    }
+  }
+
+  private static boolean isInAst(Node n) {
+    while (n.getParent() != null) {
+      n = n.getParent();
+    }
+    return n.isRoot();
+  }
+
+  @VisibleForTesting
+  int size() {
+    return estimatesByFunction.size();
+  }
+
+  /** The estimates of a function, computed on demand. */
+  private static final class Estimates {
+    // The estimated cost, computed with the given threshold. The cost is exact if it is below the
+    // threshold.
+    boolean hasCost = false;
+    int cost;
+    int costThreshold;
+
+    // The number of return statements, or -1 if it hasn't been counted.
+    int returnCount = -1;
+
+    boolean isCostExact() {
+      return cost < costThreshold;
+    }
+  }
+}
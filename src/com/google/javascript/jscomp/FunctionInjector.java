@@ -27,7 +27,6 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.ExpressionDecomposer.DecompositionType;
 import com.google.javascript.rhino.Node;
-import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.JSType;
 import java.util.Collection;
 import java.util.HashSet;
@@ -854,7 +853,7 @@ class FunctionInjector {
   /**
    * @return Whether inlining will lower cost.
    */
-  private static boolean doesLowerCost(
+  private boolean doesLowerCost(
       Node fnNode, int callCost,
       int directInlines, int costDeltaDirect,
       int blockInlines, int costDeltaBlock,
@@ -877,7 +876,7 @@ class FunctionInjector {
     int costDelta = (directInlines * -costDeltaDirect) + (blockInlines * -costDeltaBlock);
     int threshold = (callCost + costDelta) / fnInstanceCount;
 
-    return InlineCostEstimator.getCost(fnNode, threshold + 1) <= threshold;
+    return FunctionCostCache.getInstance(compiler).getCost(fnNode, threshold + 1) <= threshold;
   }
 
   /**
@@ -909,7 +908,7 @@ class FunctionInjector {
    * @return The difference between the function definition cost and
    *     inline cost.
    */
-  private static int inlineCostDelta(
+  private int inlineCostDelta(
       Node fnNode, Set<String> namesToAlias, InliningMode mode) {
     // The part of the function that is never inlined:
     //    "function xx(xx,xx){}" (15 + (param count * 3) -1;
@@ -945,10 +944,8 @@ class FunctionInjector {
       final int perReturnResultOverhead = 3; // "XX="
       final int perAliasOverhead = 3; // "XX="
 
-      // TODO(johnlenz): Counting the number of returns is relatively expensive.
-      //   This information should be determined during the traversal and cached.
-      int returnCount = NodeUtil.getNodeTypeReferenceCount(
-          block, Token.RETURN, new NodeUtil.MatchShallowStatement());
+      // Counting the number of returns is relatively expensive, so it is cached.
+      int returnCount = FunctionCostCache.getInstance(compiler).getReturnCount(fnNode);
       int resultCount = (returnCount > 0) ? returnCount - 1 : 0;
       int baseOverhead = (returnCount > 0) ? inlineBlockOverhead : 0;
 
@@ -239,6 +239,42 @@ class GlobalNamespace
     builder.collect(module, scope, n);
   }
 
+  /**
+   * Builds the namespace of the code one script at a time, producing the same namespace as {@link
+   * #process}. Scripts that have an entry in {@code collectedNodesByScript} are not traversed:
+   * the recorded nodes are collected again instead, in the scopes they were first collected in.
+   * The nodes of the other scripts that contribute to the namespace are recorded into {@code
+   * collectedNodesByScript}.
+   *
+   * @param globalScope The global scope of the code, which must be consistent with the scopes of
+   *     the recorded nodes.
+   * @param collectedNodesByScript The nodes recorded by previous builds for scripts that haven't
+   *     changed since.
+   */
+  void processScripts(Scope globalScope, Map<Node, List<AstChange>> collectedNodesByScript) {
+    checkState(!generated && !hasExternsRoot());
+    checkArgument(globalScope.getRootNode() == root, globalScope);
+    sourceKind = SourceKind.CODE;
+
+    BuildGlobalNamespace builder = new BuildGlobalNamespace();
+    for (Node script = root.getFirstChild(); script != null; script = script.getNext()) {
+      List<AstChange> collectedNodes = collectedNodesByScript.get(script);
+      if (collectedNodes == null) {
+        collectedNodes = new ArrayList<>();
+        builder.collectedNodes = collectedNodes;
+        new NodeTraversal(compiler, builder, new Es6SyntacticScopeCreator(compiler))
+            .traverseInnerNode(script, root, globalScope);
+        builder.collectedNodes = null;
+        collectedNodesByScript.put(script, collectedNodes);
+      } else {
+        for (AstChange info : collectedNodes) {
+          builder.collect(info.module, info.scope, info.node);
+        }
+      }
+    }
+    generated = true;
+  }
+
   /**
    * Builds the namespace lazily.
    */
@@ -298,6 +334,9 @@ class GlobalNamespace
 
   /** Builds a tree representation of the global namespace. Omits prototypes. */
   private class BuildGlobalNamespace extends NodeTraversal.AbstractPreOrderCallback {
+    /** If non-null, the nodes that contribute to the namespace are recorded here. */
+    @Nullable List<AstChange> collectedNodes;
+
     /** Collect the references in pre-order. */
     @Override
     public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
@@ -313,12 +352,20 @@ class GlobalNamespace
         }
       }
 
-      collect(t.getModule(), t.getScope(), n);
+      if (collect(t.getModule(), t.getScope(), n) && collectedNodes != null) {
+        collectedNodes.add(new AstChange(t.getModule(), t.getScope(), n));
+      }
 
       return true;
     }
 
-    public void collect(JSModule module, Scope scope, Node n) {
+    /**
+     * Updates the namespace to reflect the given node.
+     *
+     * @return Whether the node may contribute to the namespace. Nodes for which this returns false
+     *     don't contribute to it as long as the code around them doesn't change.
+     */
+    public boolean collect(JSModule module, Scope scope, Node n) {
       Node parent = n.getParent();
 
       String name;
@@ -340,7 +387,7 @@ class GlobalNamespace
             name = getNameForClassMembers(n);
           }
           if (name == null) {
-            return;
+            return false;
           }
           isSet = true;
           switch (n.getToken()) {
@@ -380,11 +427,11 @@ class GlobalNamespace
               }
               break;
             case GETPROP:
-              return;
+              return false;
             case FUNCTION:
               Node grandparent = parent.getParent();
               if (grandparent == null || NodeUtil.isFunctionExpression(parent)) {
-                return;
+                return false;
               }
               isSet = true;
               type = Name.Type.FUNCTION;
@@ -432,7 +479,7 @@ class GlobalNamespace
                 type = Name.Type.OTHER;
                 break;
               case GETPROP:
-                return;
+                return false;
               default:
                 if (NodeUtil.isAssignmentOp(parent) && parent.getFirstChild() == n) {
                   isSet = true;
@@ -441,7 +488,7 @@ class GlobalNamespace
             }
           }
           if (!n.isQualifiedName()) {
-            return;
+            return false;
           }
           name = n.getQualifiedName();
           break;
@@ -450,15 +497,16 @@ class GlobalNamespace
             String qname = n.getFirstFirstChild().getQualifiedName();
             Name globalName = getOrCreateName(qname, true);
             globalName.usedHasOwnProperty = true;
+            return true;
           }
-          return;
+          return false;
         default:
-          return;
+          return false;
       }
 
       // We are only interested in global names.
       if (!isGlobalNameReference(name, scope)) {
-        return;
+        return false;
       }
 
 
@@ -474,6 +522,7 @@ class GlobalNamespace
       } else {
         handleGet(module, scope, n, parent, name);
       }
+      return true;
     }
 
     /**
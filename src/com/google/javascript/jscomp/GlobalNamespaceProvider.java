@@ -0,0 +1,260 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.GlobalNamespace.AstChange;
+import com.google.javascript.jscomp.GlobalNamespace.Name;
+import com.google.javascript.jscomp.GlobalNamespace.Ref;
+import com.google.javascript.rhino.Node;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Provides a compiler-owned {@link GlobalNamespace} of the code (but not the externs) that is
+ * kept up to date between passes, so that the passes that need one don't each build it from
+ * scratch.
+ *
+ * <p>Building a namespace requires traversing every script and creating every scope. Instead, this
+ * provider remembers, for each script, the nodes that contributed to the namespace and the scopes
+ * in which they were collected. When a namespace is requested, only the scripts that contain a
+ * change reported since the previous request are traversed again; the remembered nodes of the
+ * other scripts are collected again in their original order, which produces the same namespace as
+ * a fresh build. If a change added, removed or replaced a global declaration, the remembered scopes
+ * are out of date and every script is traversed again.
+ *
+ * <p>Each request returns a new {@link GlobalNamespace}, so callers are free to update the one
+ * they get as they change the AST, as {@link AggressiveInlineAliases} does.
+ */
+final class GlobalNamespaceProvider
+    implements IndexProvider<GlobalNamespaceProvider>, CodeChangeHandler {
+
+  private static final String TIMELINE_MARK = "GlobalNamespace";
+
+  private final AbstractCompiler compiler;
+  private final Map<Node, List<AstChange>> collectedNodesByScript = new HashMap<>();
+  private Scope globalScope = null;
+
+  // Whether a change may have been reported since the provider last caught up with the change
+  // timeline. Starts as true so that the first request sets up the timeline mark.
+  private boolean hasUnseenChanges = true;
+
+  // Whether to check every namespace handed out against a namespace built from scratch.
+  private boolean verify = false;
+
+  private GlobalNamespaceProvider(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /** Returns the provider owned by the given compiler, creating and registering it if necessary. */
+  static GlobalNamespaceProvider getInstance(AbstractCompiler compiler) {
+    GlobalNamespaceProvider provider = compiler.getIndex(GlobalNamespaceProvider.class);
+    if (provider == null) {
+      provider = new GlobalNamespaceProvider(compiler);
+      compiler.addIndexProvider(provider);
+      compiler.addChangeHandler(provider);
+    }
+    return provider;
+  }
+
+  /**
+   * Returns a namespace of the code under the given root: an up-to-date copy of the compiler-owned
+   * namespace if the root is the root of all the code, or a namespace built from scratch otherwise.
+   */
+  static GlobalNamespace getNamespaceFor(AbstractCompiler compiler, Node root) {
+    if (root != compiler.getJsRoot()) {
+      return new GlobalNamespace(compiler, root);
+    }
+    return getInstance(compiler).getNamespace();
+  }
+
+  /**
+   * Makes this provider check each namespace it hands out against a namespace built from scratch,
+   * throwing an {@link IllegalStateException} when they differ. This is expensive and intended for
+   * tests.
+   */
+  GlobalNamespaceProvider enableVerification() {
+    this.verify = true;
+    return this;
+  }
+
+  @Override
+  public GlobalNamespaceProvider get() {
+    return this;
+  }
+
+  @Override
+  public Class<GlobalNamespaceProvider> getType() {
+    return GlobalNamespaceProvider.class;
+  }
+
+  @Override
+  public void reportChange() {
+    hasUnseenChanges = true;
+  }
+
+  /** Returns an up-to-date namespace of all the code. */
+  GlobalNamespace getNamespace() {
+    Node root = compiler.getJsRoot();
+    if (globalScope == null || globalScope.getRootNode() != root) {
+      reset(root);
+    } else if (hasUnseenChanges) {
+      invalidateChangedScripts(root);
+    }
+    hasUnseenChanges = false;
+
+    GlobalNamespace namespace = new GlobalNamespace(compiler, root);
+    namespace.processScripts(globalScope, collectedNodesByScript);
+    removeDetachedScripts(root);
+
+    if (verify) {
+      verify(new GlobalNamespace(compiler, root), namespace);
+    }
+    return namespace;
+  }
+
+  private void reset(Node root) {
+    collectedNodesByScript.clear();
+    globalScope = createGlobalScope(root);
+    // Move the timeline mark to the present.
+    compiler.getChangedScopeNodesForPass(TIMELINE_MARK);
+  }
+
+  /** Forgets the nodes of every script that contains a change reported since the last request. */
+  private void invalidateChangedScripts(Node root) {
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(TIMELINE_MARK);
+    if (changedScopeNodes == null) {
+      // This is the first time the timeline is consulted, so nothing can be trusted.
+      reset(root);
+      return;
+    } else if (changedScopeNodes.isEmpty()) {
+      return;
+    }
+
+    for (Node changed : changedScopeNodes) {
+      // Nodes that have been detached from the AST are skipped: their removal is reported as a
+      // change to the scope that contained them.
+      Node script = NodeUtil.getEnclosingScript(changed);
+      if (script != null) {
+        collectedNodesByScript.remove(script);
+      }
+    }
+
+    // The nodes of the unchanged scripts were collected in scopes whose outermost scope is the
+    // current global scope. They can only be reused if the global scope is still accurate.
+    Scope newGlobalScope = createGlobalScope(root);
+    if (!hasSameDeclarations(globalScope, newGlobalScope)) {
+      collectedNodesByScript.clear();
+      globalScope = newGlobalScope;
+    }
+  }
+
+  private void removeDetachedScripts(Node root) {
+    Iterator<Node> scripts = collectedNodesByScript.keySet().iterator();
+    while (scripts.hasNext()) {
+      if (scripts.next().getParent() != root) {
+        scripts.remove();
+      }
+    }
+  }
+
+  private Scope createGlobalScope(Node root) {
+    return new Es6SyntacticScopeCreator(compiler).createScope(root, null);
+  }
+
+  /** Whether the given scopes declare the same variables, in the same order, at the same nodes. */
+  private static boolean hasSameDeclarations(Scope scope, Scope otherScope) {
+    if (scope.getVarCount() != otherScope.getVarCount()) {
+      return false;
+    }
+    Iterator<Var> otherVars = otherScope.getVarIterable().iterator();
+    for (Var v : scope.getVarIterable()) {
+      Var otherVar = otherVars.next();
+      if (!v.getName().equals(otherVar.getName()) || v.getNameNode() != otherVar.getNameNode()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static void verify(GlobalNamespace expected, GlobalNamespace actual) {
+    checkState(
+        expected.getNameIndex().keySet().equals(actual.getNameIndex().keySet()),
+        "Expected names %s but found %s",
+        expected.getNameIndex().keySet(),
+        actual.getNameIndex().keySet());
+    verifyNames(expected.getNameForest(), actual.getNameForest());
+  }
+
+  private static void verifyNames(List<Name> expected, List<Name> actual) {
+    checkState(
+        expected.size() == actual.size(), "Expected names %s but found %s", expected, actual);
+    for (int i = 0; i < expected.size(); i++) {
+      verifyName(expected.get(i), actual.get(i));
+    }
+  }
+
+  private static void verifyName(Name expected, Name actual) {
+    // The string representation includes the name, its type and its reference counts.
+    checkState(
+        expected.toString().equals(actual.toString()),
+        "Expected %s but found %s",
+        expected,
+        actual);
+    checkState(
+        expected.isDeclaredType() == actual.isDeclaredType()
+            && expected.isNamespaceObjectLit() == actual.isNamespaceObjectLit()
+            && expected.isModuleExport() == actual.isModuleExport()
+            && expected.getJSDocInfo() == actual.getJSDocInfo(),
+        "Name %s differs from a fresh build",
+        actual);
+
+    List<Ref> expectedRefs = expected.getRefs();
+    List<Ref> actualRefs = actual.getRefs();
+    checkState(
+        expectedRefs.size() == actualRefs.size(),
+        "Expected %s references to %s but found %s",
+        expectedRefs.size(),
+        actual,
+        actualRefs.size());
+    for (int i = 0; i < expectedRefs.size(); i++) {
+      Ref expectedRef = expectedRefs.get(i);
+      Ref actualRef = actualRefs.get(i);
+      checkState(
+          expectedRef.node == actualRef.node
+              && expectedRef.type == actualRef.type
+              && expectedRef.module == actualRef.module
+              && expectedRef.preOrderIndex == actualRef.preOrderIndex
+              && expectedRef.scope.getRootNode() == actualRef.scope.getRootNode()
+              && (expectedRef.getTwin() == null) == (actualRef.getTwin() == null),
+          "Reference %s to %s differs from a fresh build",
+          i,
+          actual);
+    }
+
+    verifyNames(nullToEmpty(expected.props), nullToEmpty(actual.props));
+    verifyNames(nullToEmpty(expected.subclasses), nullToEmpty(actual.subclasses));
+  }
+
+  private static List<Name> nullToEmpty(List<Name> names) {
+    return names == null ? ImmutableList.<Name>of() : names;
+  }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Estimates the raw and gzipped size of the code for {@link PerformanceTracker}, measuring only the
+ * scripts that changed since the previous estimate.
+ *
+ * <p>Each script is measured, and gzipped, on its own, and remembered with the time of the last
+ * change to it or to one of its functions. The raw size of the code is the sum of the sizes of the
+ * scripts. Since gzipping the scripts separately loses the redundancy between them, the gzipped
+ * size of the code is the sum of the gzipped sizes of the scripts, scaled by the ratio observed
+ * the last time the whole code was gzipped. The whole code is measured again when most of it
+ * changed, as that costs about as much as measuring the changed scripts.
+ */
+final class IncrementalCodeSizeEstimator {
+
+  private Map<Node, ScriptSize> sizesByScript = new HashMap<>();
+
+  // The differences between the sizes of the whole code and the sums of the sizes of the scripts,
+  // observed the last time the whole code was measured.
+  private int codeSizeAdjustment = 0;
+  private double gzCodeSizeRatio = 1.0;
+
+  private int codeSize = 0;
+  private int gzCodeSize = 0;
+
+  /** Measures the whole code, and calibrates the estimates made by {@link #update}. */
+  void measure(Node jsRoot) {
+    PerformanceTrackerCodeSizeEstimator estimator =
+        PerformanceTrackerCodeSizeEstimator.estimate(jsRoot, true);
+    codeSize = estimator.getCodeSize();
+    gzCodeSize = estimator.getZippedCodeSize();
+
+    sizesByScript.clear();
+    int scriptsSize = 0;
+    int scriptsGzSize = 0;
+    for (Node script : jsRoot.children()) {
+      ScriptSize size = new ScriptSize(script);
+      sizesByScript.put(script, size);
+      scriptsSize += size.size;
+      scriptsGzSize += size.gzSize;
+    }
+    codeSizeAdjustment = codeSize - scriptsSize;
+    gzCodeSizeRatio = scriptsGzSize == 0 ? 1.0 : (double) gzCodeSize / scriptsGzSize;
+  }
+
+  /** Estimates the size of the code, measuring only the scripts that changed. */
+  void update(Node jsRoot) {
+    Map<Node, ScriptSize> current = new HashMap<>();
+    int scriptsSize = 0;
+    int scriptsGzSize = 0;
+    int measuredSize = 0;
+    for (Node script : jsRoot.children()) {
+      ScriptSize size = sizesByScript.get(script);
+      if (size == null || size.changeTime != getLastChangeTime(script)) {
+        size = new ScriptSize(script);
+        measuredSize += size.size;
+      }
+      current.put(script, size);
+      scriptsSize += size.size;
+      scriptsGzSize += size.gzSize;
+    }
+    sizesByScript = current;
+
+    if (measuredSize > scriptsSize / 2) {
+      measure(jsRoot);
+      return;
+    }
+    codeSize = scriptsSize + codeSizeAdjustment;
+    gzCodeSize = (int) Math.round(scriptsGzSize * gzCodeSizeRatio);
+  }
+
+  int getCodeSize() {
+    return codeSize;
+  }
+
+  int getZippedCodeSize() {
+    return gzCodeSize;
+  }
+
+  /** Returns the time of the last change to the script or to one of its functions. */
+  private static int getLastChangeTime(Node n) {
+    int changeTime = n.getChangeTime();
+    for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+      // Only scripts and functions have change times, and they always have children.
+      if (child.hasChildren()) {
+        changeTime = Math.max(changeTime, getLastChangeTime(child));
+      }
+    }
+    return changeTime;
+  }
+
+  /** The measured size of a script. */
+  private static final class ScriptSize {
+    final int changeTime;
+    final int size;
+    final int gzSize;
+
+    ScriptSize(Node script) {
+      this.changeTime = getLastChangeTime(script);
+      PerformanceTrackerCodeSizeEstimator estimator =
+          PerformanceTrackerCodeSizeEstimator.estimate(script, true);
+      this.size = estimator.getCodeSize();
+      this.gzSize = estimator.getZippedCodeSize();
+    }
+  }
+}
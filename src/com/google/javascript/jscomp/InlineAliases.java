@@ -55,7 +55,7 @@ final class InlineAliases implements CompilerPass {
 
   @Override
   public void process(Node externs, Node root) {
-    namespace = new GlobalNamespace(compiler, root);
+    namespace = GlobalNamespaceProvider.getNamespaceFor(compiler, root);
     NodeTraversal.traverseRoots(compiler, new AliasesCollector(), externs, root);
     NodeTraversal.traverseRoots(compiler, new AliasesInliner(), externs, root);
   }
@@ -28,6 +28,7 @@ import com.google.javascript.jscomp.CompilerOptions.Reach;
 import com.google.javascript.jscomp.FunctionInjector.CanInlineResult;
 import com.google.javascript.jscomp.FunctionInjector.InliningMode;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
@@ -40,6 +41,7 @@ import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import javax.annotation.Nullable;
 
 /**
  * Inlines functions that are divided into two types: "direct call node replacement" (aka "direct")
@@ -117,7 +119,10 @@ class InlineFunctions implements CompilerPass {
     if (fns.isEmpty()) {
       return; // Nothing left to do.
     }
-    NodeTraversal.traverse(compiler, root, new FindCandidatesReferences(fns, anonFns));
+    // Only the scripts that reference a candidate can contain calls to inline.
+    Set<Node> scripts = getScriptsReferencingCandidates(root);
+    NodeTraversal.traverse(
+        compiler, root, filterScripts(scripts, new FindCandidatesReferences(fns, anonFns)));
     trimCandidatesNotMeetingMinimumRequirements();
     if (fns.isEmpty()) {
       return; // Nothing left to do.
@@ -140,11 +145,50 @@ class InlineFunctions implements CompilerPass {
     }
     resolveInlineConflicts();
     decomposeExpressions();
-    NodeTraversal.traverse(compiler, root, new CallVisitor(fns, anonFns, new Inline(injector)));
+    NodeTraversal.traverse(
+        compiler,
+        root,
+        filterScripts(scripts, new CallVisitor(fns, anonFns, new Inline(injector))));
 
     removeInlinedFunctions();
   }
 
+  /**
+   * Returns the scripts that reference a candidate function, or null if they are not known and
+   * every script must be traversed.
+   */
+  @Nullable
+  private Set<Node> getScriptsReferencingCandidates(Node root) {
+    if (root != compiler.getJsRoot()) {
+      return null;
+    }
+    Set<Node> scripts =
+        CallGraphIndex.getInstance(compiler).getScriptsReferencingNames(fns.keySet());
+    for (Node fnNode : anonFns.keySet()) {
+      scripts.add(NodeUtil.getEnclosingScript(fnNode));
+    }
+    return scripts;
+  }
+
+  /** Returns a callback that only visits the given scripts, or all of them if scripts is null. */
+  private static Callback filterScripts(
+      @Nullable final Set<Node> scripts, final Callback callback) {
+    if (scripts == null) {
+      return callback;
+    }
+    return new Callback() {
+      @Override
+      public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+        return (!n.isScript() || scripts.contains(n)) && callback.shouldTraverse(t, n, parent);
+      }
+
+      @Override
+      public void visit(NodeTraversal t, Node n, Node parent) {
+        callback.visit(t, n, parent);
+      }
+    };
+  }
+
   private static boolean isAlwaysInlinable(Node fn) {
     checkArgument(fn.isFunction());
     Node body = NodeUtil.getFunctionBody(fn);
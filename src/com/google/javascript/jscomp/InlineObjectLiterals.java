@@ -20,7 +20,6 @@ import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Supplier;
 import com.google.common.collect.Lists;
-import com.google.javascript.jscomp.ReferenceCollectingCallback.Behavior;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
@@ -61,17 +60,23 @@ class InlineObjectLiterals implements CompilerPass {
 
   @Override
   public void process(Node externs, Node root) {
-    ReferenceCollectingCallback callback = new ReferenceCollectingCallback(
-        compiler, new InliningBehavior(), new Es6SyntacticScopeCreator(compiler));
-    callback.process(externs, root);
+    // Variables in the externs and in the global scope are never inlined, so only the
+    // references indexed per function and script are needed.
+    ReferenceIndex referenceIndex = ReferenceIndex.getInstance(compiler);
+    InliningBehavior behavior = new InliningBehavior();
+    for (Node owner : ReferenceIndex.getOwnersInPostOrder(root)) {
+      ReferenceIndex.OwnedReferences references = referenceIndex.getReferencesOwnedBy(owner);
+      for (Scope scope : references.getScopes()) {
+        behavior.afterExitScope(scope, references);
+      }
+    }
   }
 
   /**
-   * Builds up information about nodes in each scope. When exiting the
-   * scope, inspects all variables in that scope, and inlines any
-   * that we can.
+   * Uses the reference information of each scope to inspect all variables
+   * in that scope, and inlines any that we can.
    */
-  private class InliningBehavior implements Behavior {
+  private class InliningBehavior {
 
     /**
      * A list of variables that should not be inlined, because their
@@ -79,9 +84,8 @@ class InlineObjectLiterals implements CompilerPass {
      */
     private final Set<Var> staleVars = new HashSet<>();
 
-    @Override
-    public void afterExitScope(NodeTraversal t, ReferenceMap referenceMap) {
-      for (Var v : t.getScope().getVarIterable()) {
+    void afterExitScope(Scope scope, ReferenceMap referenceMap) {
+      for (Var v : scope.getVarIterable()) {
         if (isVarInlineForbidden(v)) {
           continue;
         }
@@ -30,6 +30,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonPrimitive;
 import com.google.javascript.jscomp.deps.Es6SortedDependencies;
+import com.google.javascript.jscomp.deps.InputDependencyGraph;
 import com.google.javascript.jscomp.deps.SortedDependencies;
 import com.google.javascript.jscomp.deps.SortedDependencies.MissingProvideException;
 import com.google.javascript.jscomp.graph.LinkedDirectedGraph;
@@ -75,6 +76,26 @@ public final class JSModuleGraph implements Serializable {
    */
   private final List<List<JSModule>> modulesByDepth;
 
+  /**
+   * The modules sorted by depth, and in their original order for the same depth. The position of a
+   * module in this order is its rank: a module always has a greater rank than its dependencies,
+   * and the deepest of two modules, or the later one when they have the same depth, has the greater
+   * rank.
+   */
+  private final JSModule[] modulesByRank;
+
+  /** rankByIndex[i] = rank of modules[i]. */
+  private final int[] rankByIndex;
+
+  /**
+   * selfPlusTransitiveDepsByRank[i] = ranks of all modules that modules[i] depends on, including
+   * itself, as the words of a bitset.
+   *
+   * <p>The deepest common dependency of two modules is the common dependency with the greatest
+   * rank, which is found by scanning the intersection of their bitsets from the top.
+   */
+  private final long[][] selfPlusTransitiveDepsByRank;
+
   /**
    * dependencyMap is a cache of dependencies that makes the dependsOn function faster. Each map
    * entry associates a starting JSModule with the set of JSModules that are transitively dependent
@@ -115,6 +136,20 @@ public final class JSModuleGraph implements Serializable {
 
     // O(n*m)
     subtreeSize = initSubtreeSize();
+
+    // O(n)
+    modulesByRank = new JSModule[modules.length];
+    rankByIndex = new int[modules.length];
+    int rank = 0;
+    for (List<JSModule> modulesAtDepth : modulesByDepth) {
+      for (JSModule module : modulesAtDepth) {
+        modulesByRank[rank] = module;
+        rankByIndex[module.getIndex()] = rank++;
+      }
+    }
+
+    // O(n^2) in the worst case, but usually much less
+    selfPlusTransitiveDepsByRank = initTransitiveDepsByRank();
   }
 
   private List<List<JSModule>> initModulesByDepth() {
@@ -160,6 +195,23 @@ public final class JSModuleGraph implements Serializable {
     return array;
   }
 
+  private long[][] initTransitiveDepsByRank() {
+    long[][] array = new long[modules.length][];
+    for (int moduleIndex = 0; moduleIndex < modules.length; ++moduleIndex) {
+      // All the dependencies of a module have a smaller rank.
+      long[] words = new long[(rankByIndex[moduleIndex] >> 6) + 1];
+      BitSet dependencies = selfPlusTransitiveDeps[moduleIndex];
+      for (int requiredIndex = dependencies.nextSetBit(0);
+          requiredIndex >= 0;
+          requiredIndex = dependencies.nextSetBit(requiredIndex + 1)) {
+        int requiredRank = rankByIndex[requiredIndex];
+        words[requiredRank >> 6] |= 1L << requiredRank;
+      }
+      array[moduleIndex] = words;
+    }
+    return array;
+  }
+
   private int[] initSubtreeSize() {
     int[] subtreeSize = new int[modules.length];
     for (int dependentIndex = 0; dependentIndex < modules.length; ++dependentIndex) {
@@ -326,19 +378,25 @@ public final class JSModuleGraph implements Serializable {
    *     they have no common dependencies
    */
   JSModule getDeepestCommonDependency(JSModule m1, JSModule m2) {
-    int m1Depth = m1.getDepth();
-    int m2Depth = m2.getDepth();
-    // According our definition of depth, the result must have a strictly
-    // smaller depth than either m1 or m2.
-    for (int depth = Math.min(m1Depth, m2Depth) - 1; depth >= 0; depth--) {
-      List<JSModule> modulesAtDepth = modulesByDepth.get(depth);
-      // Look at the modules at this depth in reverse order, so that we use the
-      // original ordering of the modules to break ties (later meaning deeper).
-      for (int i = modulesAtDepth.size() - 1; i >= 0; i--) {
-        JSModule m = modulesAtDepth.get(i);
-        if (dependsOn(m1, m) && dependsOn(m2, m)) {
-          return m;
-        }
+    long[] m1Deps = selfPlusTransitiveDepsByRank[m1.getIndex()];
+    long[] m2Deps = selfPlusTransitiveDepsByRank[m2.getIndex()];
+    // The result must be a dependency of both m1 and m2, so it has a smaller
+    // rank than either of them. Among the common dependencies, the one with the
+    // greatest rank is the deepest one, using the original ordering of the
+    // modules to break ties (later meaning deeper).
+    int maxRank = Math.min(rankByIndex[m1.getIndex()], rankByIndex[m2.getIndex()]) - 1;
+    if (maxRank < 0) {
+      return null;
+    }
+    int maxWord = maxRank >> 6;
+    for (int word = maxWord; word >= 0; word--) {
+      long common = m1Deps[word] & m2Deps[word];
+      if (word == maxWord) {
+        // Ignore the ranks greater than maxRank.
+        common &= -1L >>> (63 - (maxRank & 63));
+      }
+      if (common != 0) {
+        return modulesByRank[(word << 6) + 63 - Long.numberOfLeadingZeros(common)];
       }
     }
     return null;
@@ -453,18 +511,24 @@ public final class JSModuleGraph implements Serializable {
     // of that module's dependencies.
     List<CompilerInput> orderedInputs = new ArrayList<>();
     Set<CompilerInput> reachedInputs = new HashSet<>();
+    InputDependencyGraph<CompilerInput> dependencyGraph = null;
+    InputDependencyGraph<CompilerInput>.Traversal depthFirstTraversal = null;
+    if (depOptions.shouldSortDependencies() && depOptions.shouldPruneDependencies()) {
+      dependencyGraph =
+          new InputDependencyGraph<>(inputs, inputsByProvide, CompilerInput::getRequiredSymbols);
+      depthFirstTraversal = dependencyGraph.newTraversal();
+    }
     for (JSModule module : entryPointInputsPerModule.keySet()) {
       List<CompilerInput> transitiveClosure;
       // Prefer a depth first ordering of dependencies from entry points.
       // Always orders in a deterministic fashion regardless of the order of provided inputs
       // given the same entry points in the same order.
-      if (depOptions.shouldSortDependencies() && depOptions.shouldPruneDependencies()) {
+      if (depthFirstTraversal != null) {
         transitiveClosure = new ArrayList<>();
-        // We need the ful set of dependencies for each module, so start with the full input set
-        Set<CompilerInput> inputsNotYetReached = new HashSet<>(inputs);
+        // We need the full set of dependencies for each module, so start with no input reached
+        depthFirstTraversal.reset();
         for (CompilerInput entryPoint : entryPointInputsPerModule.get(module)) {
-          transitiveClosure.addAll(
-              getDepthFirstDependenciesOf(entryPoint, inputsNotYetReached, inputsByProvide));
+          depthFirstTraversal.visit(dependencyGraph.getId(entryPoint), transitiveClosure);
         }
         // For any input we have not yet reached, add them to the ordered list
         for (CompilerInput orderedInput : transitiveClosure) {
@@ -513,36 +577,6 @@ public final class JSModuleGraph implements Serializable {
     return result.build();
   }
 
-  /**
-   * Given an input and set of unprocessed inputs, return the input and it's dependencies by
-   * performing a recursive, depth-first traversal.
-   */
-  private List<CompilerInput> getDepthFirstDependenciesOf(
-      CompilerInput rootInput,
-      Set<CompilerInput> unreachedInputs,
-      Map<String, CompilerInput> inputsByProvide) {
-    List<CompilerInput> orderedInputs = new ArrayList<>();
-    if (!unreachedInputs.remove(rootInput)) {
-      return orderedInputs;
-    }
-
-    for (String importedNamespace : rootInput.getRequiredSymbols()) {
-      CompilerInput dependency = null;
-      if (inputsByProvide.containsKey(importedNamespace)
-          && unreachedInputs.contains(inputsByProvide.get(importedNamespace))) {
-        dependency = inputsByProvide.get(importedNamespace);
-      }
-
-      if (dependency != null) {
-        orderedInputs.addAll(
-            getDepthFirstDependenciesOf(dependency, unreachedInputs, inputsByProvide));
-      }
-    }
-
-    orderedInputs.add(rootInput);
-    return orderedInputs;
-  }
-
   private Set<CompilerInput> createEntryPointInputs(
       DependencyOptions depOptions,
       List<CompilerInput> inputs,
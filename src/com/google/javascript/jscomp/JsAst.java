@@ -50,6 +50,14 @@ public class JsAst implements SourceAst {
     this.fileName = sourceFile.getName();
   }
 
+  /** Creates an AST for a source file that has already been parsed into {@code root}. */
+  JsAst(SourceFile sourceFile, Node root) {
+    this(sourceFile);
+    this.root = root;
+    this.features = NodeUtil.getFeatureSetOfScript(root);
+    root.setInputId(inputId);
+  }
+
   @Override
   public Node getAstRoot(AbstractCompiler compiler) {
     if (!isParsed()) {
@@ -15,12 +15,11 @@
  */
 package com.google.javascript.jscomp;
 
-import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.javascript.jscomp.BitSetDataFlowAnalysis.BitSetLattice;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
-import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
 import java.util.BitSet;
@@ -47,63 +46,27 @@ import javax.annotation.Nullable;
  * @author simranarora@google.com (Simran Arora)
  */
 class LiveVariablesAnalysis
-    extends DataFlowAnalysis<Node, LiveVariablesAnalysis.LiveVariableLattice> {
+    extends BitSetDataFlowAnalysis<LiveVariablesAnalysis.LiveVariableLattice> {
 
   static final int MAX_VARIABLES_TO_ANALYZE = 100;
 
   public static final String ARGUMENT_ARRAY_ALIAS = "arguments";
 
-  private static class LiveVariableJoinOp implements JoinOp<LiveVariableLattice> {
-    @Override
-    public LiveVariableLattice apply(List<LiveVariableLattice> in) {
-      LiveVariableLattice result = new LiveVariableLattice(in.get(0));
-      for (int i = 1; i < in.size(); i++) {
-        result.liveSet.or(in.get(i).liveSet);
-      }
-      return result;
-    }
-  }
-
   /**
    * The lattice that stores the liveness of all local variables at a given point in the program.
    * The whole lattice is the power set of all local variables and a variable is live if it is in
    * the set.
    */
-  static class LiveVariableLattice implements LatticeElement {
-    private final BitSet liveSet;
-
-    /** @param numVars Number of all local variables. */
-    private LiveVariableLattice(int numVars) {
-      this.liveSet = new BitSet(numVars);
-    }
-
-    private LiveVariableLattice(LiveVariableLattice other) {
-      checkNotNull(other);
-      this.liveSet = (BitSet) other.liveSet.clone();
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      checkNotNull(other);
-      return (other instanceof LiveVariableLattice)
-          && this.liveSet.equals(((LiveVariableLattice) other).liveSet);
+  static class LiveVariableLattice extends BitSetLattice {
+    private LiveVariableLattice(long[] storage, int offset, int words) {
+      super(storage, offset, words);
     }
 
     // There is only a version of this function with index since var.index will
     // return the wrong one. Use an instantiation of
     // LiveVariablesAnalysis and getVarIndex(var) to get the right index.
     public boolean isLive(int index) {
-      return liveSet.get(index);
-    }
-
-    @Override
-    public String toString() {
-      return liveSet.toString();
-    }
-
-    @Override
-    public int hashCode() {
-      return liveSet.hashCode();
+      return get(index);
     }
   }
 
@@ -123,6 +86,11 @@ class LiveVariablesAnalysis
   private final List<Var> orderedVars;
 
   private final Map<String, Var> allVarsInFn;
+
+  // The GEN and KILL sets of each CFG node, indexed by node number.
+  private long[][] genSets;
+  private long[][] killSets;
+
   /**
    * Live Variables Analysis using the ES6 scope creator. This analysis should only be done on
    * function where jsScope is the function scope. If we call LiveVariablesAnalysis from the
@@ -145,7 +113,7 @@ class LiveVariablesAnalysis
       @Nullable Scope jsScopeChild,
       AbstractCompiler compiler,
       Es6SyntacticScopeCreator scopeCreator) {
-    super(cfg, new LiveVariableJoinOp());
+    super(cfg);
     checkState(jsScope.isFunctionScope(), jsScope);
 
     this.jsScope = jsScope;
@@ -155,7 +123,7 @@ class LiveVariablesAnalysis
     this.allVarsInFn = new HashMap<>();
     this.orderedVars = new ArrayList<>();
 
-    computeEscaped(jsScope, escaped, compiler, scopeCreator);
+    DataFlowAnalysis.computeEscaped(jsScope, escaped, compiler, scopeCreator);
 
     NodeUtil.getAllVarsDeclaredInFunction(
         allVarsInFn, orderedVars, compiler, scopeCreator, jsScope);
@@ -197,34 +165,54 @@ class LiveVariablesAnalysis
   }
 
   @Override
-  LiveVariableLattice createEntryLattice() {
-    return new LiveVariableLattice(orderedVars.size());
+  LiveVariableLattice createLattice(long[] storage, int offset, int words) {
+    return new LiveVariableLattice(storage, offset, words);
   }
 
   @Override
-  LiveVariableLattice createInitialEstimateLattice() {
-    return new LiveVariableLattice(orderedVars.size());
+  int computeTransfers(List<Node> nodes) {
+    int escapedCount = escaped.size();
+    computeGenKillSets(nodes);
+    if (escaped.size() != escapedCount) {
+      // A read of "arguments" escaped the parameters, which changes the sets of the nodes that
+      // were visited before it.
+      computeGenKillSets(nodes);
+    }
+    return orderedVars.size();
   }
 
-  @Override
-  LiveVariableLattice flowThrough(Node node, LiveVariableLattice input) {
-    final BitSet gen = new BitSet(input.liveSet.size());
-    final BitSet kill = new BitSet(input.liveSet.size());
-
-    // Make kills conditional if the node can end abruptly by an exception.
-    boolean conditional = false;
-    List<DiGraphEdge<Node, Branch>> edgeList = getCfg().getOutEdges(node);
-    for (DiGraphEdge<Node, Branch> edge : edgeList) {
-      if (Branch.ON_EX.equals(edge.getValue())) {
-        conditional = true;
+  private void computeGenKillSets(List<Node> nodes) {
+    genSets = new long[nodes.size()][];
+    killSets = new long[nodes.size()][];
+    BitSet gen = new BitSet(orderedVars.size());
+    BitSet kill = new BitSet(orderedVars.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      Node node = nodes.get(i);
+      if (node == null) {
+        // The implicit return.
+        continue;
       }
+
+      // Make kills conditional if the node can end abruptly by an exception.
+      boolean conditional = false;
+      List<DiGraphEdge<Node, Branch>> edgeList = getCfg().getOutEdges(node);
+      for (DiGraphEdge<Node, Branch> edge : edgeList) {
+        if (Branch.ON_EX.equals(edge.getValue())) {
+          conditional = true;
+        }
+      }
+      gen.clear();
+      kill.clear();
+      computeGenKill(node, gen, kill, conditional);
+      genSets[i] = gen.toLongArray();
+      killSets[i] = kill.toLongArray();
     }
-    computeGenKill(node, gen, kill, conditional);
-    LiveVariableLattice result = new LiveVariableLattice(input);
+  }
+
+  @Override
+  void flowThrough(int node, long[] state) {
     // L_in = L_out - Kill + Gen
-    result.liveSet.andNot(kill);
-    result.liveSet.or(gen);
-    return result;
+    applyGenKill(state, genSets[node], killSets[node]);
   }
 
   /**
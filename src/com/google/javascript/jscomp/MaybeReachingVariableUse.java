@@ -19,15 +19,14 @@ package com.google.javascript.jscomp;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Multimap;
-import com.google.common.collect.MultimapBuilder;
+import com.google.javascript.jscomp.BitSetDataFlowAnalysis.BitSetLattice;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
 import com.google.javascript.jscomp.graph.DiGraph.DiGraphEdge;
 import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -44,29 +43,46 @@ import java.util.Set;
  * the use on that path.
  *
  */
-class MaybeReachingVariableUse extends
-    DataFlowAnalysis<Node, MaybeReachingVariableUse.ReachingUses> {
+class MaybeReachingVariableUse extends BitSetDataFlowAnalysis<BitSetLattice> {
 
   // The scope of the function that we are analyzing.
   private final Set<Var> escaped;
   private final Map<String, Var> allVarsInFn;
   private final List<Var> orderedVars;
 
+  // Dense indexes of the variables in orderedVars.
+  private final Map<Var, Integer> varIndexes = new HashMap<>();
+
+  // Each fact of the analysis is a use of a variable that may be reached. Fact i is a use in CFG
+  // node useNodes.get(i).
+  private final List<Node> useNodes = new ArrayList<>();
+
+  // The facts of each variable, and the fact of each of its uses, by variable index.
+  private final List<BitSet> usesByVar = new ArrayList<>();
+  private final List<Map<Node, Integer>> useIndexesByVar = new ArrayList<>();
+
+  // The GEN and KILL sets of each CFG node, indexed by node number.
+  private long[][] genSets;
+  private long[][] killSets;
+
   MaybeReachingVariableUse(
       ControlFlowGraph<Node> cfg,
       Scope jsScope,
       AbstractCompiler compiler,
       Es6SyntacticScopeCreator scopeCreator) {
-    super(cfg, new ReachingUsesJoinOp());
+    super(cfg);
     this.escaped = new HashSet<>();
     this.allVarsInFn = new HashMap<>();
     this.orderedVars = new ArrayList<>();
 
     // TODO(user): Maybe compute it somewhere else and re-use the escape
     // local set here.
-    computeEscaped(jsScope.getParent(), escaped, compiler, scopeCreator);
+    DataFlowAnalysis.computeEscaped(jsScope.getParent(), escaped, compiler, scopeCreator);
     NodeUtil.getAllVarsDeclaredInFunction(
         allVarsInFn, orderedVars, compiler, scopeCreator, jsScope.getParent());
+    for (Var v : orderedVars) {
+      varIndexes.put(v, varIndexes.size());
+    }
   }
 
   /**
@@ -91,51 +107,21 @@ class MaybeReachingVariableUse extends
    * N_7: print(A);
    *
    * At N_3, reads of A in {N_4, N_5} are said to be upward exposed.
-   */
-  static final class ReachingUses implements LatticeElement {
-    final Multimap<Var, Node> mayUseMap;
-
-    public ReachingUses() {
-      mayUseMap = HashMultimap.create();
-    }
-
-    /**
-     * Copy constructor.
-     *
-     * @param other The constructed object is a replicated copy of this element.
-     */
-    public ReachingUses(ReachingUses other) {
-      mayUseMap = MultimapBuilder.hashKeys().hashSetValues().build(other.mayUseMap);
-    }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof ReachingUses)
-          && ((ReachingUses) other).mayUseMap.equals(this.mayUseMap);
-    }
-
-    @Override
-    public int hashCode() {
-      return mayUseMap.hashCode();
-    }
-  }
-
-  /**
-   * The join is a simple union because of the "may be" nature of the analysis.
+   *
+   * <p>The product lattice is stored as the set of (variable, use) pairs
+   * that are upward exposed, and the join is a simple union because of the
+   * "may be" nature of the analysis.
    *
    * Consider: A = 1; if (x) { A = 2 }; alert(A);
    *
    * The read of A "may be" exposed to A = 1 in the beginning.
+   *
+   * <p>An instance of this class records how a single CFG node changes that
+   * set: the uses it exposes and the variables whose uses it hides.
    */
-  private static class ReachingUsesJoinOp implements JoinOp<ReachingUses> {
-    @Override
-    public ReachingUses apply(List<ReachingUses> from) {
-      ReachingUses result = new ReachingUses();
-      for (ReachingUses uses : from) {
-        result.mayUseMap.putAll(uses.mayUseMap);
-      }
-      return result;
-    }
+  private static final class ReachingUses {
+    final BitSet gen = new BitSet();
+    final BitSet killedVars = new BitSet();
   }
 
   @Override
@@ -144,26 +130,58 @@ class MaybeReachingVariableUse extends
   }
 
   @Override
-  ReachingUses createEntryLattice() {
-    return new ReachingUses();
+  BitSetLattice createLattice(long[] storage, int offset, int words) {
+    return new BitSetLattice(storage, offset, words);
   }
 
   @Override
-  ReachingUses createInitialEstimateLattice() {
-    return new ReachingUses();
-  }
+  int computeTransfers(List<Node> nodes) {
+    useNodes.clear();
+    usesByVar.clear();
+    useIndexesByVar.clear();
+    for (int i = 0; i < orderedVars.size(); i++) {
+      usesByVar.add(new BitSet());
+      useIndexesByVar.add(new HashMap<Node, Integer>());
+    }
 
-  @Override
-  ReachingUses flowThrough(Node n, ReachingUses input) {
-    ReachingUses output = new ReachingUses(input);
+    List<ReachingUses> outputs = new ArrayList<>(nodes.size());
+    for (Node n : nodes) {
+      if (n == null) {
+        // The implicit return.
+        outputs.add(new ReachingUses());
+        continue;
+      }
+      ReachingUses output = new ReachingUses();
+
+      // If there's an ON_EX edge, this cfgNode may or may not get executed.
+      // We can express this concisely by just pretending this happens in
+      // a conditional.
+      boolean conditional = hasExceptionHandler(n);
+      computeMayUse(n, n, output, conditional);
+      outputs.add(output);
+    }
 
-    // If there's an ON_EX edge, this cfgNode may or may not get executed.
-    // We can express this concisely by just pretending this happens in
-    // a conditional.
-    boolean conditional = hasExceptionHandler(n);
-    computeMayUse(n, n, output, conditional);
+    // The uses of the killed variables are only known once every node has been visited.
+    genSets = new long[nodes.size()][];
+    killSets = new long[nodes.size()][];
+    BitSet kill = new BitSet(useNodes.size());
+    for (int i = 0; i < nodes.size(); i++) {
+      ReachingUses output = outputs.get(i);
+      kill.clear();
+      for (int v = output.killedVars.nextSetBit(0);
+          v >= 0;
+          v = output.killedVars.nextSetBit(v + 1)) {
+        kill.or(usesByVar.get(v));
+      }
+      genSets[i] = output.gen.toLongArray();
+      killSets[i] = kill.toLongArray();
+    }
+    return useNodes.size();
+  }
 
-    return output;
+  @Override
+  void flowThrough(int node, long[] state) {
+    applyGenKill(state, genSets[node], killSets[node]);
   }
 
   private boolean hasExceptionHandler(Node cfgNode) {
@@ -314,10 +332,23 @@ class MaybeReachingVariableUse extends
       return;
     }
     if (!escaped.contains(var)) {
-      use.mayUseMap.put(var, node);
+      use.gen.set(getUseIndex(varIndexes.get(var), node));
     }
   }
 
+  /** Returns the fact of the given use of the variable with the given index. */
+  private int getUseIndex(int varIndex, Node node) {
+    Map<Node, Integer> useIndexes = useIndexesByVar.get(varIndex);
+    Integer index = useIndexes.get(node);
+    if (index == null) {
+      index = useNodes.size();
+      useNodes.add(node);
+      useIndexes.put(node, index);
+      usesByVar.get(varIndex).set(index);
+    }
+    return index;
+  }
+
   /**
    * Removes the variable for the given name from the node value in the upward
    * exposed lattice. Do nothing if the variable name is one of the escaped
@@ -329,7 +360,9 @@ class MaybeReachingVariableUse extends
       return;
     }
     if (!escaped.contains(var)) {
-      use.mayUseMap.removeAll(var);
+      int varIndex = varIndexes.get(var);
+      use.gen.andNot(usesByVar.get(varIndex));
+      use.killedVars.set(varIndex);
     }
   }
 
@@ -346,7 +379,19 @@ class MaybeReachingVariableUse extends
   Collection<Node> getUses(String name, Node defNode) {
     GraphNode<Node, Branch> n = getCfg().getNode(defNode);
     checkNotNull(n);
-    FlowState<ReachingUses> state = n.getAnnotation();
-    return state.getOut().mayUseMap.get(allVarsInFn.get(name));
+    FlowState<BitSetLattice> state = n.getAnnotation();
+    List<Node> uses = new ArrayList<>();
+    Integer varIndex = varIndexes.get(allVarsInFn.get(name));
+    if (varIndex == null) {
+      return uses;
+    }
+    BitSetLattice out = state.getOut();
+    BitSet varUses = usesByVar.get(varIndex);
+    for (int use = varUses.nextSetBit(0); use >= 0; use = varUses.nextSetBit(use + 1)) {
+      if (out.get(use)) {
+        uses.add(useNodes.get(use));
+      }
+    }
+    return uses;
   }
 }
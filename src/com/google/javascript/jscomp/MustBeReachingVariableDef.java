@@ -19,18 +19,18 @@ package com.google.javascript.jscomp;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 
+import com.google.javascript.jscomp.BitSetDataFlowAnalysis.BitSetLattice;
 import com.google.javascript.jscomp.ControlFlowGraph.AbstractCfgNodeTraversalCallback;
 import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
 import com.google.javascript.jscomp.graph.GraphNode;
-import com.google.javascript.jscomp.graph.LatticeElement;
 import com.google.javascript.rhino.Node;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import java.util.Set;
 import javax.annotation.Nullable;
 
@@ -42,8 +42,13 @@ import javax.annotation.Nullable;
  * reaches that definition and it is the last definition before the use.
  *
  */
-final class MustBeReachingVariableDef extends
-    DataFlowAnalysis<Node, MustBeReachingVariableDef.MustDef> {
+final class MustBeReachingVariableDef extends BitSetDataFlowAnalysis<BitSetLattice> {
+
+  // The operations that a CFG node applies to the state, each followed by its operands.
+  private static final int DEFINE = 0; // variable index, definition fact
+  private static final int DEFINE_CONDITIONALLY = 1; // variable index
+  private static final int DEFINE_ESCAPED = 2; // variable index
+  private static final int ESCAPE_PARAMETERS = 3;
 
   // The scope of the function that we are analyzing.
   private final AbstractCompiler compiler;
@@ -51,19 +56,53 @@ final class MustBeReachingVariableDef extends
   private final Map<String, Var> allVarsInFn;
   private final List<Var> orderedVars;
 
+  // Dense indexes of the variables in allVarsInFn, in the order of orderedVars.
+  private final Map<Var, Integer> varIndexes = new HashMap<>();
+  private final List<Var> indexedVars = new ArrayList<>();
+  private final List<Integer> parameterIndexes = new ArrayList<>();
+
+  // Fact i for i < indexedVars.size() means that the variable with index i has more than one
+  // possible definition (see MustDef). Any other fact i means that the definition
+  // definitions.get(i - indexedVars.size()) of variable definitionVars.get(i - indexedVars.size())
+  // reaches.
+  private final List<Definition> definitions = new ArrayList<>();
+  private final List<Integer> definitionVars = new ArrayList<>();
+
+  // The definition facts of each variable, and the definition facts that depend on each variable,
+  // by variable index. Only their non-zero words are stored, so that operations on a variable take
+  // time in the number of its own facts rather than of all the facts.
+  private FactWords[] definitionsByVar;
+  private FactWords[] dependentsByVar;
+
+  // The definition fact at the entry of each variable, by variable index.
+  private int[] entryDefinitions;
+
+  // The operations of each CFG node, indexed by node number.
+  private int[][] operations;
+
   MustBeReachingVariableDef(
       ControlFlowGraph<Node> cfg,
       Scope jsScope,
       AbstractCompiler compiler,
       Es6SyntacticScopeCreator scopeCreator) {
-    super(cfg, new MustDefJoin());
+    super(cfg);
     this.compiler = compiler;
     this.escaped = new HashSet<>();
     this.allVarsInFn = new HashMap<>();
     this.orderedVars = new ArrayList<>();
-    computeEscaped(jsScope.getParent(), escaped, compiler, scopeCreator);
+    DataFlowAnalysis.computeEscaped(jsScope.getParent(), escaped, compiler, scopeCreator);
     NodeUtil.getAllVarsDeclaredInFunction(
         allVarsInFn, orderedVars, compiler, scopeCreator, jsScope.getParent());
+    for (Var v : orderedVars) {
+      // Only the last of several variables with the same name is visible by name.
+      if (allVarsInFn.get(v.getName()) == v) {
+        varIndexes.put(v, indexedVars.size());
+        if (isParameter(v)) {
+          parameterIndexes.add(indexedVars.size());
+        }
+        indexedVars.add(v);
+      }
+    }
   }
 
   /**
@@ -119,117 +158,187 @@ final class MustBeReachingVariableDef extends
    *      \    |   |      /
    *          (BOTTOM)
    *
+   * <p>The lattice isn't a separate object: the state of a CFG node is a
+   * {@link BitSetLattice}, and the sub-lattice of each variable is a set of
+   * its facts, which are its definitions that may reach and its BOTTOM fact.
+   * The empty set is TOP, a single definition is that definition, and any
+   * other set is BOTTOM. The join of the sub-lattice then becomes a union.
+   * Each definition that a CFG node makes is a separate fact, but only the
+   * last definition of a variable in a CFG node can reach the end of the
+   * node, so two facts never represent equal definitions.
+   *
+   * <p>An instance of this class records the operations that a single CFG
+   * node applies to those facts, which {@link #flowThrough} replays.
    */
-  static final class MustDef implements LatticeElement {
+  private static final class MustDef {
+    final List<Integer> operations = new ArrayList<>();
+  }
+
+  /** A set of facts, as its non-zero words and their indexes in a state. */
+  private static final class FactWords {
+    final int[] indexes;
+    final long[] words;
+
+    FactWords(BitSet facts) {
+      long[] allWords = facts.toLongArray();
+      int count = 0;
+      for (long word : allWords) {
+        if (word != 0) {
+          count++;
+        }
+      }
+      indexes = new int[count];
+      words = new long[count];
+      for (int w = 0, i = 0; w < allWords.length; w++) {
+        if (allWords[w] != 0) {
+          indexes[i] = w;
+          words[i++] = allWords[w];
+        }
+      }
+    }
+  }
 
-    // TODO(user): Use bit vector instead of maps might get better
-    // performance. Change it after this is tested to be fully functional.
+  @Override
+  boolean isForward() {
+    return true;
+  }
 
-    // When a Var "A" = "TOP", "A" does not exist in reachingDef's keySet.
-    // When a Var "A" = Node N, "A" maps to that node.
-    // When a Var "A" = "BOTTOM", "A" maps to null.
-    final Map<Var, Definition> reachingDef;
+  @Override
+  BitSetLattice createLattice(long[] storage, int offset, int words) {
+    return new BitSetLattice(storage, offset, words);
+  }
 
-    public MustDef() {
-      reachingDef = new HashMap<>();
+  @Override
+  int computeTransfers(List<Node> nodes) {
+    definitions.clear();
+    definitionVars.clear();
+    entryDefinitions = new int[indexedVars.size()];
+    for (int i = 0; i < indexedVars.size(); i++) {
+      Var var = indexedVars.get(i);
+      entryDefinitions[i] = addDefinition(i, new Definition(var.scope.getRootNode()));
     }
 
-    public MustDef(Collection<Var> vars) {
-      this();
-      for (Var var : vars) {
-        reachingDef.put(var, new Definition(var.scope.getRootNode()));
+    operations = new int[nodes.size()][];
+    for (int i = 0; i < nodes.size(); i++) {
+      Node n = nodes.get(i);
+      MustDef output = new MustDef();
+      if (n != null) {
+        // TODO(user): This must know about ON_EX edges but it should handle
+        // it better than what we did in liveness. Because we are in a forward mode,
+        // we can used the branched forward analysis.
+        computeMustDef(n, n, output, false);
+      }
+      operations[i] = new int[output.operations.size()];
+      for (int j = 0; j < operations[i].length; j++) {
+        operations[i][j] = output.operations.get(j);
       }
     }
 
-    /**
-     * Copy constructor.
-     *
-     * @param other The constructed object is a replicated copy of this element.
-     */
-    public MustDef(MustDef other) {
-      reachingDef = new HashMap<>(other.reachingDef);
+    // The definitions are only known once every node has been visited.
+    List<BitSet> definitionsByVarSets = new ArrayList<>();
+    List<BitSet> dependentsByVarSets = new ArrayList<>();
+    for (int i = 0; i < indexedVars.size(); i++) {
+      definitionsByVarSets.add(new BitSet());
+      dependentsByVarSets.add(new BitSet());
     }
-
-    @Override
-    public boolean equals(Object other) {
-      return (other instanceof MustDef) && ((MustDef) other).reachingDef.equals(this.reachingDef);
+    for (int i = 0; i < definitions.size(); i++) {
+      int fact = indexedVars.size() + i;
+      definitionsByVarSets.get(definitionVars.get(i)).set(fact);
+      for (Var dep : definitions.get(i).depends) {
+        dependentsByVarSets.get(varIndexes.get(dep)).set(fact);
+      }
     }
-
-    @Override
-    public int hashCode() {
-      return reachingDef.hashCode();
+    definitionsByVar = new FactWords[indexedVars.size()];
+    dependentsByVar = new FactWords[indexedVars.size()];
+    for (int i = 0; i < indexedVars.size(); i++) {
+      definitionsByVar[i] = new FactWords(definitionsByVarSets.get(i));
+      dependentsByVar[i] = new FactWords(dependentsByVarSets.get(i));
     }
+    return indexedVars.size() + definitions.size();
   }
 
-  private static class MustDefJoin extends JoinOp.BinaryJoinOp<MustDef> {
-    @Override
-    public MustDef apply(MustDef a, MustDef b) {
-      MustDef result = new MustDef();
-      Map<Var, Definition> resultMap = result.reachingDef;
-
-      // Take the join of all variables that are not TOP in this.
-      for (Map.Entry<Var, Definition> varEntry : a.reachingDef.entrySet()) {
-        Var var = varEntry.getKey();
-        Definition aDef = varEntry.getValue();
-
-        if (aDef == null) {
-          // "a" is BOTTOM implies that the variable has more than one possible
-          // definition. We set the join of this to be BOTTOM regardless of what
-          // "b" might be.
-          resultMap.put(var, null);
-          continue;
-        }
-
-        if (b.reachingDef.containsKey(var)) {
-          Definition bDef = b.reachingDef.get(var);
-
-          if (aDef.equals(bDef)) {
-            resultMap.put(var, aDef);
-          } else {
-            resultMap.put(var, null);
-          }
-        } else {
-          resultMap.put(var, aDef);
-        }
-      }
+  private int addDefinition(int varIndex, Definition definition) {
+    definitions.add(definition);
+    definitionVars.add(varIndex);
+    return indexedVars.size() + definitions.size() - 1;
+  }
 
-      // Take the join of all variables that are not TOP in other but it is TOP
-      // in this.
-      for (Map.Entry<Var, Definition> entry : b.reachingDef.entrySet()) {
-        Var var = entry.getKey();
-        if (!a.reachingDef.containsKey(var)) {
-          resultMap.put(var, entry.getValue());
-        }
-      }
-      return result;
+  @Override
+  void initializeEntryState(long[] state) {
+    for (int fact : entryDefinitions) {
+      set(state, fact);
     }
   }
 
   @Override
-  boolean isForward() {
-    return true;
+  void flowThrough(int node, long[] state) {
+    int[] ops = operations[node];
+    int i = 0;
+    while (i < ops.length) {
+      switch (ops[i]) {
+        case DEFINE:
+          killDependents(ops[i + 1], state);
+          clearDefinitions(ops[i + 1], state);
+          set(state, ops[i + 2]);
+          i += 3;
+          break;
+        case DEFINE_CONDITIONALLY:
+          killDependents(ops[i + 1], state);
+          clearDefinitions(ops[i + 1], state);
+          set(state, ops[i + 1]);
+          i += 2;
+          break;
+        case DEFINE_ESCAPED:
+          killDependents(ops[i + 1], state);
+          i += 2;
+          break;
+        case ESCAPE_PARAMETERS:
+          // Assume we no longer know where the parameters come from anymore,
+          // nor anything that depends on a parameter.
+          for (int param : parameterIndexes) {
+            clearDefinitions(param, state);
+            set(state, param);
+          }
+          for (int param : parameterIndexes) {
+            killDependents(param, state);
+          }
+          i += 1;
+          break;
+        default:
+          throw new IllegalStateException("Unexpected operation " + ops[i]);
+      }
+    }
   }
 
-  @Override
-  MustDef createEntryLattice() {
-    return new MustDef(allVarsInFn.values());
+  /**
+   * Replaces the reaching definitions that read the variable with the given index with BOTTOM,
+   * since the variable is being redefined.
+   */
+  private void killDependents(int varIndex, long[] state) {
+    FactWords dependents = dependentsByVar[varIndex];
+    for (int i = 0; i < dependents.indexes.length; i++) {
+      int w = dependents.indexes[i];
+      long killed = state[w] & dependents.words[i];
+      state[w] &= ~killed;
+      while (killed != 0) {
+        int fact = (w << 6) + Long.numberOfTrailingZeros(killed);
+        set(state, definitionVars.get(fact - indexedVars.size()));
+        killed &= killed - 1;
+      }
+    }
   }
 
-  @Override
-  MustDef createInitialEstimateLattice() {
-    return new MustDef();
+  /** Removes the definitions and the BOTTOM fact of the variable with the given index. */
+  private void clearDefinitions(int varIndex, long[] state) {
+    FactWords varDefinitions = definitionsByVar[varIndex];
+    for (int i = 0; i < varDefinitions.indexes.length; i++) {
+      state[varDefinitions.indexes[i]] &= ~varDefinitions.words[i];
+    }
+    state[varIndex >>> 6] &= ~(1L << varIndex);
   }
 
-  @Override
-  MustDef flowThrough(Node n, MustDef input) {
-    // TODO(user): We are doing a straight copy from input to output. There
-    // might be some opportunities to cut down overhead.
-    MustDef output = new MustDef(input);
-    // TODO(user): This must know about ON_EX edges but it should handle
-    // it better than what we did in liveness. Because we are in a forward mode,
-    // we can used the branched forward analysis.
-    computeMustDef(n, n, output, false);
-    return output;
+  private static void set(long[] state, int fact) {
+    state[fact >>> 6] |= 1L << fact;
   }
 
   /**
@@ -384,50 +493,27 @@ final class MustBeReachingVariableDef extends
       return;
     }
 
-    for (Var other : def.reachingDef.keySet()) {
-      Definition otherDef = def.reachingDef.get(other);
-      if (otherDef == null) {
-        continue;
-      }
-      if (otherDef.depends.contains(var)) {
-        def.reachingDef.put(other, null);
-      }
-    }
-
-    if (!escaped.contains(var)) {
-      if (node == null) {
-        def.reachingDef.put(var, null);
-      } else {
-        Definition definition = new Definition(node);
-        if (rValue != null) {
-          computeDependence(definition, rValue);
-        }
-        def.reachingDef.put(var, definition);
+    // Every definition that depends on the variable no longer holds.
+    int varIndex = varIndexes.get(var);
+    if (escaped.contains(var)) {
+      def.operations.add(DEFINE_ESCAPED);
+      def.operations.add(varIndex);
+    } else if (node == null) {
+      def.operations.add(DEFINE_CONDITIONALLY);
+      def.operations.add(varIndex);
+    } else {
+      Definition definition = new Definition(node);
+      if (rValue != null) {
+        computeDependence(definition, rValue);
       }
+      def.operations.add(DEFINE);
+      def.operations.add(varIndex);
+      def.operations.add(addDefinition(varIndex, definition));
     }
   }
 
   private void escapeParameters(MustDef output) {
-    for (Var v : allVarsInFn.values()) {
-      if (isParameter(v)) {
-        // Assume we no longer know where the parameter comes from
-        // anymore.
-        output.reachingDef.put(v, null);
-      }
-    }
-
-    // Also, assume we no longer know anything that depends on a parameter.
-    for (Entry<Var, Definition> pair : output.reachingDef.entrySet()) {
-      Definition value = pair.getValue();
-      if (value == null) {
-        continue;
-      }
-      for (Var dep : value.depends) {
-        if (isParameter(dep)) {
-          output.reachingDef.put(pair.getKey(), null);
-        }
-      }
-    }
+    output.operations.add(ESCAPE_PARAMETERS);
   }
 
   private static boolean isParameter(Var v) {
@@ -468,8 +554,30 @@ final class MustBeReachingVariableDef extends
   Definition getDef(String name, Node useNode) {
     checkArgument(getCfg().hasNode(useNode));
     GraphNode<Node, Branch> n = getCfg().getNode(useNode);
-    FlowState<MustDef> state = n.getAnnotation();
-    return state.getIn().reachingDef.get(allVarsInFn.get(name));
+    FlowState<BitSetLattice> state = n.getAnnotation();
+    Var var = allVarsInFn.get(name);
+    BitSetLattice in = state.getIn();
+    if (var == null || in.get(varIndexes.get(var))) {
+      return null;
+    }
+    // Only the words holding the variable's own definitions are read.
+    int varIndex = varIndexes.get(var);
+    FactWords varDefinitions = definitionsByVar[varIndex];
+    Definition def = null;
+    for (int i = 0; i < varDefinitions.indexes.length; i++) {
+      int w = varDefinitions.indexes[i];
+      long reaching = in.getWord(w) & varDefinitions.words[i];
+      if (reaching == 0) {
+        continue;
+      }
+      if (def != null || (reaching & (reaching - 1)) != 0) {
+        // More than one definition may reach.
+        return null;
+      }
+      int fact = (w << 6) + Long.numberOfTrailingZeros(reaching);
+      def = definitions.get(fact - indexedVars.size());
+    }
+    return def;
   }
 
   Node getDefNode(String name, Node useNode) {
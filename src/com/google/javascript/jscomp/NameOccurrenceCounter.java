@@ -0,0 +1,107 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import java.util.Arrays;
+
+/**
+ * Counts the occurrences of names, remembering the order in which the names first occurred. The
+ * counts are kept in primitive arrays, indexed by first occurrence, and the names are found through
+ * an open-addressing hash table, so counting an occurrence allocates nothing.
+ */
+final class NameOccurrenceCounter {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  // The hash table: the index of a name plus one, or zero for an empty slot. Its length is a power
+  // of two and it is kept at most half full.
+  private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+  private String[] names = new String[INITIAL_CAPACITY];
+  private int[] counts = new int[INITIAL_CAPACITY];
+  private int size = 0;
+
+  /** Counts one occurrence of the given name. */
+  void increment(String name) {
+    add(name, 1);
+  }
+
+  /** Counts the given number of occurrences of the given name. */
+  void add(String name, int count) {
+    int mask = slots.length - 1;
+    int slot = name.hashCode() & mask;
+    while (slots[slot] != 0) {
+      int index = slots[slot] - 1;
+      if (names[index].equals(name)) {
+        counts[index] += count;
+        return;
+      }
+      slot = (slot + 1) & mask;
+    }
+
+    if (size == names.length) {
+      names = Arrays.copyOf(names, size * 2);
+      counts = Arrays.copyOf(counts, size * 2);
+    }
+    names[size] = name;
+    counts[size] = count;
+    size++;
+    slots[slot] = size;
+    if (size * 2 > slots.length) {
+      rehash();
+    }
+  }
+
+  /** Returns the number of distinct names. */
+  int size() {
+    return size;
+  }
+
+  /** Returns the name that was the i-th to occur for the first time. */
+  String getName(int i) {
+    return names[i];
+  }
+
+  /** Returns the number of occurrences of the i-th name. */
+  int getCount(int i) {
+    return counts[i];
+  }
+
+  /** Returns the number of occurrences of the given name. */
+  int getCount(String name) {
+    int mask = slots.length - 1;
+    for (int slot = name.hashCode() & mask; slots[slot] != 0; slot = (slot + 1) & mask) {
+      int index = slots[slot] - 1;
+      if (names[index].equals(name)) {
+        return counts[index];
+      }
+    }
+    return 0;
+  }
+
+  private void rehash() {
+    slots = new int[slots.length * 2];
+    int mask = slots.length - 1;
+    for (int i = 0; i < size; i++) {
+      int slot = names[i].hashCode() & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = i + 1;
+    }
+  }
+}
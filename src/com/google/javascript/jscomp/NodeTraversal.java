@@ -1233,6 +1233,10 @@ public class NodeTraversal {
   /** Reports a diagnostic (error or warning) */
   public void report(Node n, DiagnosticType diagnosticType,
       String... arguments) {
+    // Don't format the message of an error that is known to be suppressed.
+    if (compiler.isKnownToSuppress(n.getSourceFileName(), diagnosticType)) {
+      return;
+    }
     JSError error = JSError.make(n, diagnosticType, arguments);
     compiler.report(error);
   }
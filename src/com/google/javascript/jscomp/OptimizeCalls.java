@@ -57,8 +57,7 @@ class OptimizeCalls implements CompilerPass {
   @Override
   public void process(Node externs, Node root) {
     if (!passes.isEmpty()) {
-      ReferenceMap refMap = buildPropAndGlobalNameReferenceMap(
-          compiler, externs, root);
+      ReferenceMap refMap = CallGraphIndex.getReferenceMapFor(compiler, externs, root);
       for (CallGraphCompilerPass pass : passes) {
         pass.process(externs, root, refMap);
       }
@@ -94,6 +93,10 @@ class OptimizeCalls implements CompilerPass {
       return globalScope;
     }
 
+    void setGlobalScope(Scope globalScope) {
+      this.globalScope = globalScope;
+    }
+
     Iterable<Map.Entry<String, ArrayList<Node>>> getNameReferences() {
       return names.entrySet();
     }
@@ -346,7 +349,7 @@ class OptimizeCalls implements CompilerPass {
     public void enterScope(NodeTraversal t) {
       if (t.inGlobalScope()) {
         this.globalScope = t.getScope();
-        references.globalScope = this.globalScope;
+        references.setGlobalScope(this.globalScope);
       }
     }
 
@@ -53,8 +53,7 @@ class OptimizeParameters implements CompilerPass, OptimizeCalls.CallGraphCompile
   @VisibleForTesting
   public void process(Node externs, Node root) {
     checkState(compiler.getLifeCycleStage() == LifeCycleStage.NORMALIZED);
-    ReferenceMap refMap = OptimizeCalls.buildPropAndGlobalNameReferenceMap(
-        compiler, externs, root);
+    ReferenceMap refMap = CallGraphIndex.getReferenceMapFor(compiler, externs, root);
     process(externs, root, refMap);
   }
 
@@ -47,8 +47,7 @@ class OptimizeReturns implements OptimizeCalls.CallGraphCompilerPass, CompilerPa
   @Override
   @VisibleForTesting
   public void process(Node externs, Node root) {
-    ReferenceMap refMap = OptimizeCalls.buildPropAndGlobalNameReferenceMap(
-        compiler, externs, root);
+    ReferenceMap refMap = CallGraphIndex.getReferenceMapFor(compiler, externs, root);
     process(externs, root, refMap);
   }
 
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Runs a task on each of a list of scripts, on as many threads as {@link
+ * CompilerOptions#setNumParallelThreads} allows. The tasks must not modify the compiler or any
+ * script but their own, since several of them may run at the same time.
+ */
+@GwtIncompatible("java.util.concurrent")
+final class ParallelScriptTasks {
+
+  private ParallelScriptTasks() {}
+
+  /**
+   * Returns the results of the task for each script, in the same order as the scripts.
+   *
+   * @param name A name for the threads, to tell them apart in stack traces.
+   */
+  static <T> List<T> run(
+      AbstractCompiler compiler, String name, List<Node> scripts, Function<Node, T> task) {
+    int numThreads = Math.min(compiler.getOptions().numParallelThreads, scripts.size());
+    if (numThreads <= 1) {
+      List<T> results = new ArrayList<>(scripts.size());
+      for (Node script : scripts) {
+        results.add(task.apply(script));
+      }
+      return results;
+    }
+
+    final String threadName = "jscompiler-" + name;
+    ThreadFactory threadFactory = new ThreadFactory() {
+        @Override
+        public Thread newThread(Runnable r) {
+          Thread t = new Thread(null, r, threadName, CompilerExecutor.COMPILER_STACK_SIZE);
+          t.setDaemon(true);  // Do not prevent the JVM from exiting.
+          return t;
+        }
+    };
+    ThreadPoolExecutor poolExecutor = new ThreadPoolExecutor(
+        numThreads,
+        numThreads,
+        Integer.MAX_VALUE,
+        TimeUnit.SECONDS,
+        new LinkedBlockingQueue<Runnable>(),
+        threadFactory);
+    ListeningExecutorService executorService = MoreExecutors.listeningDecorator(poolExecutor);
+    List<ListenableFuture<T>> futureList = new ArrayList<>(scripts.size());
+    for (final Node script : scripts) {
+      futureList.add(executorService.submit(() -> task.apply(script)));
+    }
+
+    poolExecutor.shutdown();
+    try {
+      return Futures.allAsList(futureList).get();
+    } catch (InterruptedException | ExecutionException e) {
+      throw new RuntimeException(e);
+    }
+  }
+}
@@ -0,0 +1,323 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.TranspilationPasses.ScriptLocalPassFactory;
+import com.google.javascript.jscomp.parsing.parser.FeatureSet;
+import com.google.javascript.rhino.InputId;
+import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.jstype.JSTypeRegistry;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs a sequence of script-local transpilation passes on several scripts at once, on as many
+ * threads as {@link CompilerOptions#setNumParallelThreads} allows.
+ *
+ * <p>Each script is taken through all of the passes by a single thread, with a new instance of
+ * each pass. The passes see the compiler through a {@link ScriptCompiler}, which makes what they
+ * share safe to use concurrently:
+ *
+ * <ul>
+ *   <li>Change reports, errors and the compiler's lazily computed state are only used while holding
+ *       a lock.
+ *   <li>Script {@code i} of {@code n} gets the unique name ids {@code first + i}, {@code first + i
+ *       + n}, {@code first + i + 2n}..., so the ids don't depend on how the threads are scheduled.
+ *   <li>Runtime libraries are injected once all scripts are done, in the order the passes would
+ *       have asked for them running one after another, since injection changes the first script.
+ *   <li>Each script tracks the features transpiled away on its own, and the compiler's feature set
+ *       is updated at the end.
+ *   <li>Each script tracks its halting errors on its own, so an error in one script stops the
+ *       passes on that script only, and the other scripts are transpiled the same on every run.
+ * </ul>
+ *
+ * <p>The output only differs from running the passes one after another in the ids of the made up
+ * names. There, ids are handed out in the order the passes visit the whole program, while here
+ * they depend on the number of scripts, and the ids up to {@code n} times the most any script
+ * needed are used up. Only their uniqueness, not their values, is relied upon.
+ *
+ * <p>The passes run one after another over the whole program instead when the compiler may only
+ * use one thread, when type checking has run, since the passes then share the type registry, and
+ * when an externs file needs transpiling, since only the passes' {@code process} methods handle
+ * externs.
+ */
+final class ParallelTranspilation implements CompilerPass {
+
+  private final AbstractCompiler compiler;
+  private final ImmutableList<ScriptLocalPassFactory> factories;
+
+  // Guards the compiler state the script compilers share, and their unique name ids.
+  private final Object lock = new Object();
+
+  ParallelTranspilation(AbstractCompiler compiler, List<ScriptLocalPassFactory> factories) {
+    this.compiler = compiler;
+    this.factories = ImmutableList.copyOf(factories);
+  }
+
+  @Override
+  public void process(Node externs, Node root) {
+    List<Node> scripts = ImmutableList.copyOf(root.children());
+    if (compiler.getOptions().numParallelThreads <= 1
+        || scripts.size() <= 1
+        || compiler.hasTypeCheckingRun()
+        || needsTranspilation(externs)) {
+      processSerially(externs, root);
+      return;
+    }
+
+    // The registry is created lazily, so create it before the passes share it.
+    compiler.getTypeRegistry();
+    int firstNameId = compiler.getNextUniqueNameId();
+    FeatureSet initialFeatures = compiler.getFeatureSet();
+    Map<Node, ScriptCompiler> scriptCompilers = new IdentityHashMap<>();
+    for (int i = 0; i < scripts.size(); i++) {
+      scriptCompilers.put(
+          scripts.get(i),
+          new ScriptCompiler(firstNameId + i, scripts.size(), initialFeatures));
+    }
+
+    List<ScriptCompiler> results =
+        ParallelScriptTasks.run(
+            compiler,
+            "transpilation",
+            scripts,
+            script -> transpile(script, scriptCompilers.get(script)));
+
+    int maxNameIds = 0;
+    List<LibraryRequest> libraries = new ArrayList<>();
+    FeatureSet features = initialFeatures;
+    for (ScriptCompiler result : results) {
+      maxNameIds = Math.max(maxNameIds, result.nameIdCount);
+      libraries.addAll(result.libraries);
+      features = features.without(initialFeatures.without(result.featureSet));
+    }
+    compiler.reserveUniqueNameIds(maxNameIds * scripts.size());
+
+    // A stable sort, so the requests of each pass stay in script order.
+    libraries.sort((a, b) -> Integer.compare(a.passIndex, b.passIndex));
+    for (LibraryRequest library : libraries) {
+      compiler.ensureLibraryInjected(library.resourceName, library.force);
+    }
+
+    if (!compiler.hasHaltingErrors()) {
+      compiler.setFeatureSet(features);
+    }
+  }
+
+  private void processSerially(Node externs, Node root) {
+    for (ScriptLocalPassFactory factory : factories) {
+      if (factory.featureSet().contains(compiler.getFeatureSet())) {
+        factory.create(compiler).process(externs, root);
+        if (compiler.hasHaltingErrors()) {
+          return;
+        }
+      }
+    }
+  }
+
+  private ScriptCompiler transpile(Node script, ScriptCompiler scriptCompiler) {
+    for (int i = 0; i < factories.size(); i++) {
+      ScriptLocalPassFactory factory = factories.get(i);
+      if (factory.featureSet().contains(scriptCompiler.featureSet)) {
+        scriptCompiler.passIndex = i;
+        factory.create(scriptCompiler).hotSwapScript(script, null);
+        if (scriptCompiler.hasHaltingErrors()) {
+          break;
+        }
+      }
+    }
+    return scriptCompiler;
+  }
+
+  private boolean needsTranspilation(Node externs) {
+    FeatureSet outputFeatures = compiler.getOptions().getOutputFeatureSet();
+    for (Node script : externs.children()) {
+      if (TranspilationPasses.doesScriptHaveUnsupportedFeatures(script, outputFeatures)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** A runtime library that a pass asked for. */
+  private static final class LibraryRequest {
+    final int passIndex;
+    final String resourceName;
+    final boolean force;
+
+    LibraryRequest(int passIndex, String resourceName, boolean force) {
+      this.passIndex = passIndex;
+      this.resourceName = resourceName;
+      this.force = force;
+    }
+  }
+
+  /**
+   * The compiler as seen by the passes running on one script.
+   *
+   * <p>What the passes change is either kept for the script alone, or changed in the compiler while
+   * holding {@link #lock}, as is what the compiler computes lazily. The other calls are forwarded
+   * without the lock, since they only read what is fixed while the passes run, like the options,
+   * the coding convention and the AST roots.
+   */
+  private final class ScriptCompiler extends ForwardingCompiler {
+    private final int firstNameId;
+    private final int nameIdStride;
+    private int nameIdCount = 0;
+    private FeatureSet featureSet;
+    private boolean hasHaltingErrors = false;
+    private int passIndex;
+    private final List<LibraryRequest> libraries = new ArrayList<>();
+
+    ScriptCompiler(int firstNameId, int nameIdStride, FeatureSet featureSet) {
+      super(compiler);
+      this.firstNameId = firstNameId;
+      this.nameIdStride = nameIdStride;
+      this.featureSet = featureSet;
+    }
+
+    @Override
+    public Supplier<String> getUniqueNameIdSupplier() {
+      return () -> String.valueOf(reserveUniqueNameIds(1));
+    }
+
+    @Override
+    int getNextUniqueNameId() {
+      synchronized (lock) {
+        return firstNameId + nameIdStride * nameIdCount;
+      }
+    }
+
+    /** Reserves the next ids of the script, which are {@code nameIdStride} apart. */
+    @Override
+    int reserveUniqueNameIds(int count) {
+      checkArgument(count >= 0, count);
+      synchronized (lock) {
+        int first = firstNameId + nameIdStride * nameIdCount;
+        nameIdCount += count;
+        return first;
+      }
+    }
+
+    @Override
+    public FeatureSet getFeatureSet() {
+      return featureSet;
+    }
+
+    @Override
+    public void setFeatureSet(FeatureSet featureSet) {
+      this.featureSet = featureSet;
+    }
+
+    /** Returns null, since the library is only injected once all scripts are done. */
+    @Override
+    public Node ensureLibraryInjected(String resourceName, boolean force) {
+      libraries.add(new LibraryRequest(passIndex, resourceName, force));
+      return null;
+    }
+
+    @Override
+    public void report(JSError error) {
+      synchronized (lock) {
+        // The level the compiler reports the error at, and what BasicErrorManager halts on.
+        CheckLevel level = super.getErrorLevel(error);
+        if (level == null) {
+          level = error.getDefaultLevel();
+        }
+        if (level == CheckLevel.ERROR && error.getType().level == CheckLevel.ERROR) {
+          hasHaltingErrors = true;
+        }
+        super.report(error);
+      }
+    }
+
+    /** Returns whether this script has errors that halt the compilation. */
+    @Override
+    public boolean hasHaltingErrors() {
+      return hasHaltingErrors && !getOptions().canContinueAfterErrors();
+    }
+
+    @Override
+    public CheckLevel getErrorLevel(JSError error) {
+      synchronized (lock) {
+        return super.getErrorLevel(error);
+      }
+    }
+
+    @Override
+    boolean isKnownToSuppress(String sourceName, DiagnosticType type) {
+      synchronized (lock) {
+        return super.isKnownToSuppress(sourceName, type);
+      }
+    }
+
+    @Override
+    public String getSourceLine(String sourceName, int lineNumber) {
+      synchronized (lock) {
+        return super.getSourceLine(sourceName, lineNumber);
+      }
+    }
+
+    @Override
+    public CompilerInput getInput(InputId inputId) {
+      synchronized (lock) {
+        return super.getInput(inputId);
+      }
+    }
+
+    @Override
+    public JSTypeRegistry getTypeRegistry() {
+      synchronized (lock) {
+        return super.getTypeRegistry();
+      }
+    }
+
+    @Override
+    public boolean hasScopeChanged(Node n) {
+      synchronized (lock) {
+        return super.hasScopeChanged(n);
+      }
+    }
+
+    @Override
+    public void reportChangeToEnclosingScope(Node n) {
+      synchronized (lock) {
+        super.reportChangeToEnclosingScope(n);
+      }
+    }
+
+    @Override
+    public void reportChangeToChangeScope(Node changeScopeRoot) {
+      synchronized (lock) {
+        super.reportChangeToChangeScope(changeScopeRoot);
+      }
+    }
+
+    @Override
+    public void reportFunctionDeleted(Node node) {
+      synchronized (lock) {
+        super.reportFunctionDeleted(node);
+      }
+    }
+  }
+}
@@ -18,14 +18,24 @@ package com.google.javascript.jscomp;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
+import com.google.javascript.jscomp.NodeTraversal.Callback;
 import com.google.javascript.rhino.Node;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * A compiler pass to run various peephole optimizations (e.g. constant folding,
  * some useless code removal, some minimizations).
  *
+ * <p>The pass traverses the changed scopes until none of the optimizations changes anything. In
+ * worklist mode, every traversal after the first one only visits the nodes near the changes made
+ * by the previous traversal: the nodes where changes were reported with their descendants, their
+ * siblings and their ancestors, and the statements that weren't visited before. Those nodes are
+ * visited in the same order as a full traversal would visit them, and the other nodes are skipped
+ * because the optimizations already left them unchanged.
+ *
  * @author dcc@google.com (Devin Coughlin)
  */
 class PeepholeOptimizationsPass implements CompilerPass {
@@ -34,6 +44,7 @@ class PeepholeOptimizationsPass implements CompilerPass {
   private final String passName;
   private final List<AbstractPeepholeOptimization> peepholeOptimizations;
   private boolean retraverseOnChange;
+  private boolean useWorklist;
 
   /** Creates a peephole optimization pass that runs the given optimizations. */
   PeepholeOptimizationsPass(
@@ -49,6 +60,7 @@ class PeepholeOptimizationsPass implements CompilerPass {
     this.passName = passName;
     this.peepholeOptimizations = optimizations;
     this.retraverseOnChange = true;
+    this.useWorklist = compiler.getOptions().usePeepholeWorklist;
   }
 
   @VisibleForTesting
@@ -56,16 +68,36 @@ class PeepholeOptimizationsPass implements CompilerPass {
     this.retraverseOnChange = retraverse;
   }
 
+  @VisibleForTesting
+  void setUseWorklist(boolean useWorklist) {
+    this.useWorklist = useWorklist;
+  }
+
   @Override
   public void process(Node externs, Node root) {
     beginTraversal();
 
+    // The nodes to visit in the current traversal, or null to visit every node.
+    Worklist worklist = null;
+    Set<Node> visitedStatements = new HashSet<>();
+
     // Repeat to an internal fixed point.
     for (List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(passName);
         changedScopeNodes == null || !changedScopeNodes.isEmpty();
         changedScopeNodes = compiler.getChangedScopeNodesForPass(passName)) {
-      NodeTraversal.traverseScopeRoots(
-          compiler, root, changedScopeNodes, new PeepCallback(), false);
+      if (!useWorklist) {
+        NodeTraversal.traverseScopeRoots(
+            compiler, root, changedScopeNodes, new PeepCallback(), false);
+      } else {
+        WorklistCallback callback = new WorklistCallback(worklist, visitedStatements);
+        compiler.addChangeHandler(callback);
+        try {
+          NodeTraversal.traverseScopeRoots(compiler, root, changedScopeNodes, callback, false);
+        } finally {
+          compiler.removeChangeHandler(callback);
+        }
+        worklist = callback.nextWorklist;
+      }
 
       // Cancel the fixed point if requested.
       if (!retraverseOnChange) {
@@ -77,14 +109,138 @@ class PeepholeOptimizationsPass implements CompilerPass {
   private class PeepCallback extends AbstractPostOrderCallback {
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
-      Node currentNode = n;
-      for (AbstractPeepholeOptimization optim : peepholeOptimizations) {
-        currentNode = optim.optimizeSubtree(currentNode);
-        if (currentNode == null) {
-          return;
+      optimize(n);
+    }
+  }
+
+  private void optimize(Node n) {
+    Node currentNode = n;
+    for (AbstractPeepholeOptimization optim : peepholeOptimizations) {
+      currentNode = optim.optimizeSubtree(currentNode);
+      if (currentNode == null) {
+        return;
+      }
+    }
+  }
+
+  /**
+   * Visits the nodes of a worklist, and collects the worklist of the next traversal from the
+   * changes reported while visiting them.
+   *
+   * <p>Adding to the current worklist as well makes the traversal visit the nodes that follow a
+   * change, like a full traversal would.
+   */
+  private class WorklistCallback implements Callback, CodeChangeHandler {
+    // Null when every node is visited.
+    private final Worklist worklist;
+    private final Worklist nextWorklist = new Worklist();
+
+    // The statements visited by the previous traversals. A statement that isn't one of them is
+    // new, so its descendants are visited as well.
+    private final Set<Node> visitedStatements;
+
+    // The root of the subtree being traversed whose nodes are all in the worklist, if any.
+    private Node subtreeRoot = null;
+
+    WorklistCallback(Worklist worklist, Set<Node> visitedStatements) {
+      this.worklist = worklist;
+      this.visitedStatements = visitedStatements;
+    }
+
+    @Override
+    public boolean shouldTraverse(NodeTraversal t, Node n, Node parent) {
+      if (worklist == null || subtreeRoot != null) {
+        return true;
+      } else if (worklist.subtreeRoots.contains(n) || isNewStatement(n, parent)) {
+        subtreeRoot = n;
+        return true;
+      }
+      return worklist.nodes.contains(n) || (parent != null && worklist.parents.contains(parent));
+    }
+
+    private boolean isNewStatement(Node n, Node parent) {
+      return parent != null
+          && worklist.parents.contains(parent)
+          && NodeUtil.isStatementBlock(parent)
+          && !visitedStatements.contains(n);
+    }
+
+    @Override
+    public void visit(NodeTraversal t, Node n, Node parent) {
+      if (n == subtreeRoot) {
+        subtreeRoot = null;
+      }
+      if (parent != null && NodeUtil.isStatementBlock(parent)) {
+        visitedStatements.add(n);
+      }
+      Node previous = n.getParent() != null ? n.getPrevious() : null;
+      Node next = n.getNext();
+      int changeStamp = compiler.getChangeStamp();
+      optimize(n);
+      if (changeStamp == compiler.getChangeStamp()) {
+        return;
+      }
+
+      // The optimizations report changes where they make them, but the node being visited is the
+      // most likely place, so it is added too, or whatever replaced it.
+      if (n.getParent() != null) {
+        reportChangeAt(n);
+      } else if (parent != null && parent.getParent() != null) {
+        reportChangeAt(parent);
+        Node replacement =
+            previous != null && previous.getParent() == parent
+                ? previous.getNext()
+                : parent.getFirstChild();
+        for (; replacement != null && replacement != next; replacement = replacement.getNext()) {
+          reportChangeAt(replacement);
         }
       }
     }
+
+    @Override
+    public void reportChange() {}
+
+    @Override
+    public void reportChangeAt(Node n) {
+      nextWorklist.addNeighborhood(n);
+      if (worklist != null) {
+        worklist.addNeighborhood(n);
+      }
+    }
+  }
+
+  /**
+   * A set of nodes closed under taking parents, so that a traversal can skip every subtree whose
+   * root is not in the set. Children and subtrees are added lazily, so that the nodes added to
+   * them later are in the set as well.
+   */
+  private static class Worklist {
+    private final Set<Node> nodes = new HashSet<>();
+    // The nodes whose children are all in the worklist.
+    private final Set<Node> parents = new HashSet<>();
+    // The nodes whose descendants are all in the worklist.
+    private final Set<Node> subtreeRoots = new HashSet<>();
+
+    /**
+     * Adds the given node, its siblings and its ancestors, as well as its descendants if it is an
+     * expression or a statement, or its children if it is a list of statements. The descendants
+     * of an expression or a statement are mostly new or moved nodes, or nodes whose context has
+     * changed, while the statements of a list are only affected by their neighbors.
+     */
+    void addNeighborhood(Node n) {
+      if (NodeUtil.isStatementBlock(n)) {
+        parents.add(n);
+      } else {
+        subtreeRoots.add(n);
+      }
+      Node parent = n.getParent();
+      if (parent != null) {
+        parents.add(parent);
+      }
+      for (Node ancestor = n; ancestor != null; ancestor = ancestor.getParent()) {
+        nodes.add(ancestor);
+      }
+    }
   }
 
   /** Make sure that all the optimizations have the current compiler so they can report errors. */
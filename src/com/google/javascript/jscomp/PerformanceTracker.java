@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableMap;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
+import com.google.javascript.jscomp.deps.ModuleLoader;
 import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.StaticSourceFile;
@@ -36,6 +37,7 @@ import java.util.Comparator;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
 /**
@@ -56,6 +58,9 @@ public final class PerformanceTracker {
   // if there is any.
   private final RecentChange codeChange = new RecentChange();
 
+  // Estimates the sizes from the changed scripts, in ESTIMATED_SIZE mode.
+  private final IncrementalCodeSizeEstimator sizeEstimator;
+
   private Node jsRoot;
 
   private int initAstSize = DEFAULT_WHEN_SIZE_UNTRACKED;
@@ -86,9 +91,20 @@ public final class PerformanceTracker {
   private int astDiff = 0;
   private int diff = 0;
   private int gzDiff = 0;
+  private int cfgCacheHits = 0;
+  private int cfgCacheMisses = 0;
+
+  // The cache whose hits and misses are attributed to the passes, if any.
+  private ControlFlowGraphCache cfgCache = null;
+
+  // The module loader whose resolution lookups are reported, if any.
+  private ModuleLoader moduleLoader = null;
 
   private final Deque<Stats> currentPass = new ArrayDeque<>();
 
+  // The total runtime of each conformance rule, in nanoseconds.
+  private final Map<String, Long> conformanceRuleRuntimes = new HashMap<>();
+
   /** Cumulative stats for each compiler pass. */
   private ImmutableMap<String, Stats> summary;
 
@@ -102,14 +118,42 @@ public final class PerformanceTracker {
     this.jsRoot = jsRoot;
     this.output = printStream == null ? System.out : printStream;
     this.mode = mode;
+    this.sizeEstimator =
+        mode == TracerMode.ESTIMATED_SIZE ? new IncrementalCodeSizeEstimator() : null;
   }
 
   CodeChangeHandler getCodeChangeHandler() {
     return this.codeChange;
   }
 
+  /** Makes the report include the hits and misses of the given cache during each pass. */
+  void setControlFlowGraphCache(ControlFlowGraphCache cfgCache) {
+    this.cfgCache = cfgCache;
+  }
+
+  /** Makes the report include the module resolution lookups of the given loader. */
+  void setModuleLoader(ModuleLoader moduleLoader) {
+    this.moduleLoader = moduleLoader;
+  }
+
+  /** Adds to the total runtime of a conformance rule, which is reported apart from the passes. */
+  void recordConformanceRuleRuntime(String ruleName, long runtimeNanos) {
+    conformanceRuleRuntimes.merge(ruleName, runtimeNanos, Long::sum);
+  }
+
+  /** Returns the total runtime of each conformance rule, in nanoseconds. */
+  @VisibleForTesting
+  ImmutableMap<String, Long> getConformanceRuleRuntimes() {
+    return ImmutableMap.copyOf(conformanceRuleRuntimes);
+  }
+
   void recordPassStart(String passName, boolean isOneTime) {
-    this.currentPass.push(new Stats(passName, isOneTime));
+    Stats stats = new Stats(passName, isOneTime);
+    if (this.cfgCache != null) {
+      stats.cfgCacheHitsAtStart = this.cfgCache.getHits();
+      stats.cfgCacheMissesAtStart = this.cfgCache.getMisses();
+    }
+    this.currentPass.push(stats);
     // In Compiler, toSource may be called after every pass X. We don't want it
     // to reset the handler, because recordPassStop for pass X has not been
     // called, so we are falsely logging that pass X didn't make changes.
@@ -132,11 +176,10 @@ public final class PerformanceTracker {
     if (!tracksSize()) {
       return;
     }
-    PerformanceTrackerCodeSizeEstimator estimator =
-        PerformanceTrackerCodeSizeEstimator.estimate(this.jsRoot, tracksGzSize());
-    this.initCodeSize = this.codeSize = estimator.getCodeSize();
+    measureCodeSize(true);
+    this.initCodeSize = this.codeSize;
     if (tracksGzSize()) {
-      this.initGzCodeSize = this.gzCodeSize = estimator.getZippedCodeSize();
+      this.initGzCodeSize = this.gzCodeSize;
     }
   }
 
@@ -160,6 +203,10 @@ public final class PerformanceTracker {
     if (this.codeChange.hasCodeChanged()) {
       logStats.changes = 1;
     }
+    if (this.cfgCache != null) {
+      logStats.cfgCacheHits = this.cfgCache.getHits() - logStats.cfgCacheHitsAtStart;
+      logStats.cfgCacheMisses = this.cfgCache.getMisses() - logStats.cfgCacheMissesAtStart;
+    }
     if (passName.equals(PassNames.PARSE_INPUTS)) {
       recordParsingStop(logStats);
     } else if (this.codeChange.hasCodeChanged() && tracksAstSize()) {
@@ -176,11 +223,10 @@ public final class PerformanceTracker {
     if (!tracksSize()) {
       return;
     }
-    PerformanceTrackerCodeSizeEstimator estimator =
-        PerformanceTrackerCodeSizeEstimator.estimate(this.jsRoot, tracksGzSize());
-    logStats.size = this.initCodeSize = this.codeSize = estimator.getCodeSize();
+    measureCodeSize(true);
+    logStats.size = this.initCodeSize = this.codeSize;
     if (tracksGzSize()) {
-      logStats.gzSize = this.initGzCodeSize = this.gzCodeSize = estimator.getZippedCodeSize();
+      logStats.gzSize = this.initGzCodeSize = this.gzCodeSize;
     }
   }
 
@@ -191,15 +237,38 @@ public final class PerformanceTracker {
     if (!tracksSize()) {
       return;
     }
+    int oldCodeSize = this.codeSize;
+    int oldGzCodeSize = this.gzCodeSize;
+    measureCodeSize(false);
+    logStats.diff = oldCodeSize - this.codeSize;
+    logStats.size = this.codeSize;
+    if (tracksGzSize()) {
+      logStats.gzDiff = oldGzCodeSize - this.gzCodeSize;
+      logStats.gzSize = this.gzCodeSize;
+    }
+  }
+
+  /**
+   * Updates codeSize, and gzCodeSize if it is tracked.
+   *
+   * @param full Whether to measure the whole code even when the sizes are estimated.
+   */
+  private void measureCodeSize(boolean full) {
+    if (this.sizeEstimator != null) {
+      if (full) {
+        this.sizeEstimator.measure(this.jsRoot);
+      } else {
+        this.sizeEstimator.update(this.jsRoot);
+      }
+      this.codeSize = this.sizeEstimator.getCodeSize();
+      this.gzCodeSize = this.sizeEstimator.getZippedCodeSize();
+      return;
+    }
     PerformanceTrackerCodeSizeEstimator estimator =
         PerformanceTrackerCodeSizeEstimator.estimate(this.jsRoot, tracksGzSize());
-    newSize = estimator.getCodeSize();
-    logStats.diff = this.codeSize - newSize;
-    this.codeSize = logStats.size = newSize;
+    this.codeSize = estimator.getCodeSize();
     if (tracksGzSize()) {
-      newSize = estimator.getZippedCodeSize();
-      logStats.gzDiff = this.gzCodeSize - newSize;
-      this.gzCodeSize = logStats.gzSize = newSize;
+      this.gzCodeSize = estimator.getZippedCodeSize();
     }
   }
 
@@ -234,11 +303,13 @@ public final class PerformanceTracker {
   }
 
   public boolean tracksSize() {
-    return this.mode == TracerMode.RAW_SIZE || this.mode == TracerMode.ALL;
+    return this.mode == TracerMode.RAW_SIZE
+        || this.mode == TracerMode.ALL
+        || this.mode == TracerMode.ESTIMATED_SIZE;
   }
 
   public boolean tracksGzSize() {
-    return this.mode == TracerMode.ALL;
+    return this.mode == TracerMode.ALL || this.mode == TracerMode.ESTIMATED_SIZE;
   }
 
   public boolean tracksAstSize() {
@@ -316,6 +387,8 @@ public final class PerformanceTracker {
       this.astDiff += stats.astDiff;
       this.diff += stats.diff;
       this.gzDiff += stats.gzDiff;
+      this.cfgCacheHits += stats.cfgCacheHits;
+      this.cfgCacheMisses += stats.cfgCacheMisses;
     }
     checkState(!tracksAstSize() || this.initAstSize == this.astDiff + this.astSize);
     checkState(!tracksSize() || this.initCodeSize == this.diff + this.codeSize);
@@ -339,6 +412,8 @@ public final class PerformanceTracker {
       entry.astDiff += logStat.astDiff;
       entry.diff += logStat.diff;
       entry.gzDiff += logStat.gzDiff;
+      entry.cfgCacheHits += logStat.cfgCacheHits;
+      entry.cfgCacheMisses += logStat.cfgCacheMisses;
       // We don't populate the size fields in the summary stats.
       // We used to put the size after the last time a pass was run, but that is
       // a pretty meaningless thing to measure.
@@ -382,7 +457,13 @@ public final class PerformanceTracker {
         "Estimated GzReduction(bytes): " + this.gzDiff,
         "Estimated AST size(#nodes): " + this.astSize,
         "Estimated Size(bytes): " + this.codeSize,
-        "Estimated GzSize(bytes): " + this.gzCodeSize));
+        "Estimated GzSize(bytes): " + this.gzCodeSize,
+        "CFG cache hits: " + this.cfgCacheHits,
+        "CFG cache misses: " + this.cfgCacheMisses,
+        "Module resolution lookups: "
+            + (this.moduleLoader == null ? 0 : this.moduleLoader.getResolutionLookups()),
+        "Module resolution memo hits: "
+            + (this.moduleLoader == null ? 0 : this.moduleLoader.getResolutionMemoHits())));
 
     this.output.print(Joiner.on("\n").join(
         "\n\nInputs:",
@@ -392,22 +473,37 @@ public final class PerformanceTracker {
         "Extern sources: " + this.externSources + "\n\n"));
 
     this.output.print("Summary:\n"
-        + "pass,runtime,allocMem,runs,changingRuns,astReduction,reduction,gzReduction\n");
+        + "pass,runtime,allocMem,runs,changingRuns,astReduction,reduction,gzReduction,"
+        + "cfgCacheHits,cfgCacheMisses\n");
     for (Entry<String, Stats> entry : statEntries) {
       String key = entry.getKey();
       Stats stats = entry.getValue();
-      this.output.print(SimpleFormat.format("%s,%d,%d,%d,%d,%d,%d,%d\n", key, stats.runtime,
-            stats.allocMem, stats.runs, stats.changes, stats.astDiff, stats.diff, stats.gzDiff));
+      this.output.print(SimpleFormat.format("%s,%d,%d,%d,%d,%d,%d,%d,%d,%d\n", key, stats.runtime,
+            stats.allocMem, stats.runs, stats.changes, stats.astDiff, stats.diff, stats.gzDiff,
+            stats.cfgCacheHits, stats.cfgCacheMisses));
     }
     this.output.print("\n");
 
+    if (!conformanceRuleRuntimes.isEmpty()) {
+      List<Entry<String, Long>> ruleEntries = new ArrayList<>(conformanceRuleRuntimes.entrySet());
+      Collections.sort(ruleEntries, Entry.comparingByValue());
+      this.output.print("Conformance rules:\nrule,runtime(us)\n");
+      for (Entry<String, Long> entry : ruleEntries) {
+        this.output.print(
+            SimpleFormat.format("%s,%d\n", entry.getKey(), entry.getValue() / 1000));
+      }
+      this.output.print("\n");
+    }
+
     this.output.print(Joiner.on("\n").join(
         "Log:",
-        "pass,runtime,allocMem,codeChanged,astReduction,reduction,gzReduction,astSize,size,gzSize\n"));
+        "pass,runtime,allocMem,codeChanged,astReduction,reduction,gzReduction,astSize,size,gzSize,"
+            + "cfgCacheHits,cfgCacheMisses\n"));
     for (Stats stats : this.log) {
-      this.output.print(SimpleFormat.format("%s,%d,%d,%b,%d,%d,%d,%d,%d,%d\n",
+      this.output.print(SimpleFormat.format("%s,%d,%d,%b,%d,%d,%d,%d,%d,%d,%d,%d\n",
           stats.pass, stats.runtime, stats.allocMem, stats.changes == 1,
-          stats.astDiff, stats.diff, stats.gzDiff, stats.astSize, stats.size, stats.gzSize));
+          stats.astDiff, stats.diff, stats.gzDiff, stats.astSize, stats.size, stats.gzSize,
+          stats.cfgCacheHits, stats.cfgCacheMisses));
     }
     this.output.print("\n");
     // this.output can be System.out, so don't close it to not lose subsequent
@@ -442,5 +538,11 @@ public final class PerformanceTracker {
     public int gzSize = 0;
     public int astDiff = 0;
     public int astSize = 0;
+    public int cfgCacheHits = 0;
+    public int cfgCacheMisses = 0;
+
+    // The counters of the control flow graph cache when the pass started.
+    private int cfgCacheHitsAtStart = 0;
+    private int cfgCacheMissesAtStart = 0;
   }
 }
@@ -60,81 +60,10 @@ public class PrintStreamJSONErrorManager extends BasicErrorManager {
     try (JsonWriter jsonWriter = new JsonWriter(new OutputStreamWriter(bufferedStream, "UTF-8"))) {
       jsonWriter.beginArray();
       for (ErrorWithLevel message = messages.poll(); message != null; message = messages.poll()) {
-        String sourceName = message.error.sourceName;
-        int lineNumber = message.error.getLineNumber();
-        int charno = message.error.getCharno();
-
-        jsonWriter.beginObject();
-        jsonWriter.name("level").value(message.level == CheckLevel.ERROR ? "error" : "warning");
-        jsonWriter.name("description").value(message.error.description);
-        jsonWriter.name("source").value(sourceName);
-        jsonWriter.name("line").value(lineNumber);
-        jsonWriter.name("column").value(charno);
-
-        // extract source excerpt
-        String sourceExcerpt =
-            SourceExcerpt.LINE.get(sourceExcerptProvider, sourceName, lineNumber, excerptFormatter);
-        if (sourceExcerpt != null) {
-          StringBuilder b = new StringBuilder(sourceExcerpt);
-          b.append("\n");
-
-          // padding equal to the excerpt and arrow at the end
-          // charno == sourceExcerpt.length() means something is missing
-          // at the end of the line
-          if (0 <= charno && charno <= sourceExcerpt.length()) {
-            for (int i = 0; i < charno; i++) {
-              char c = sourceExcerpt.charAt(i);
-              if (TokenUtil.isWhitespace(c)) {
-                b.append(c);
-              } else {
-                b.append(' ');
-              }
-            }
-            if (message.error.node == null) {
-              b.append("^");
-            } else {
-              int length =
-                  Math.max(
-                      1, Math.min(message.error.node.getLength(), sourceExcerpt.length() - charno));
-              for (int i = 0; i < length; i++) {
-                b.append("^");
-              }
-            }
-          }
-
-          jsonWriter.name("context").value(b.toString());
-        }
-
-        OriginalMapping mapping =
-            sourceExcerptProvider.getSourceMapping(
-                sourceName, message.error.lineNumber, message.error.getCharno());
-
-        if (mapping != null) {
-          jsonWriter.name("originalLocation").beginObject();
-          jsonWriter.name("source").value(mapping.getOriginalFile());
-          jsonWriter.name("line").value(mapping.getLineNumber());
-          jsonWriter.name("column").value(mapping.getColumnPosition());
-          jsonWriter.endObject();
-        }
-
-        jsonWriter.endObject();
+        writeError(jsonWriter, sourceExcerptProvider, message.level, message.error);
         list.add(message);
       }
-
-      StringBuilder summaryBuilder = new StringBuilder();
-      if (getTypedPercent() > 0.0) {
-        summaryBuilder.append(
-            SimpleFormat.format(
-                "%d error(s), %d warning(s), %.1f%% typed",
-                getErrorCount(), getWarningCount(), getTypedPercent()));
-      } else {
-        summaryBuilder.append(
-            SimpleFormat.format("%d error(s), %d warning(s)", getErrorCount(), getWarningCount()));
-      }
-      jsonWriter.beginObject();
-      jsonWriter.name("level").value("info");
-      jsonWriter.name("description").value(summaryBuilder.toString());
-      jsonWriter.endObject();
+      writeSummary(jsonWriter, this);
 
       jsonWriter.endArray();
       jsonWriter.flush();
@@ -148,6 +77,99 @@ public class PrintStreamJSONErrorManager extends BasicErrorManager {
     messages.addAll(list);
   }
 
+  /**
+   * Writes an error or warning as a JSON object with its level, description and position, and the
+   * source line and original location when they're known.
+   */
+  @GwtIncompatible
+  static void writeError(
+      JsonWriter jsonWriter,
+      SourceExcerptProvider sourceExcerptProvider,
+      CheckLevel level,
+      JSError error)
+      throws IOException {
+    String sourceName = error.sourceName;
+    int lineNumber = error.getLineNumber();
+    int charno = error.getCharno();
+
+    jsonWriter.beginObject();
+    jsonWriter.name("level").value(level == CheckLevel.ERROR ? "error" : "warning");
+    jsonWriter.name("description").value(error.description);
+    jsonWriter.name("source").value(sourceName);
+    jsonWriter.name("line").value(lineNumber);
+    jsonWriter.name("column").value(charno);
+
+    // extract source excerpt
+    String sourceExcerpt =
+        SourceExcerpt.LINE.get(sourceExcerptProvider, sourceName, lineNumber, excerptFormatter);
+    if (sourceExcerpt != null) {
+      StringBuilder b = new StringBuilder(sourceExcerpt);
+      b.append("\n");
+
+      // padding equal to the excerpt and arrow at the end
+      // charno == sourceExcerpt.length() means something is missing
+      // at the end of the line
+      if (0 <= charno && charno <= sourceExcerpt.length()) {
+        for (int i = 0; i < charno; i++) {
+          char c = sourceExcerpt.charAt(i);
+          if (TokenUtil.isWhitespace(c)) {
+            b.append(c);
+          } else {
+            b.append(' ');
+          }
+        }
+        if (error.node == null) {
+          b.append("^");
+        } else {
+          int length =
+              Math.max(1, Math.min(error.node.getLength(), sourceExcerpt.length() - charno));
+          for (int i = 0; i < length; i++) {
+            b.append("^");
+          }
+        }
+      }
+
+      jsonWriter.name("context").value(b.toString());
+    }
+
+    OriginalMapping mapping =
+        sourceExcerptProvider.getSourceMapping(sourceName, error.lineNumber, error.getCharno());
+
+    if (mapping != null) {
+      jsonWriter.name("originalLocation").beginObject();
+      jsonWriter.name("source").value(mapping.getOriginalFile());
+      jsonWriter.name("line").value(mapping.getLineNumber());
+      jsonWriter.name("column").value(mapping.getColumnPosition());
+      jsonWriter.endObject();
+    }
+
+    jsonWriter.endObject();
+  }
+
+  /** Writes the number of errors and warnings as a JSON object with the "info" level. */
+  @GwtIncompatible
+  static void writeSummary(JsonWriter jsonWriter, ErrorManager errorManager) throws IOException {
+    String summary;
+    if (errorManager.getTypedPercent() > 0.0) {
+      summary =
+          SimpleFormat.format(
+              "%d error(s), %d warning(s), %.1f%% typed",
+              errorManager.getErrorCount(),
+              errorManager.getWarningCount(),
+              errorManager.getTypedPercent());
+    } else {
+      summary =
+          SimpleFormat.format(
+              "%d error(s), %d warning(s)",
+              errorManager.getErrorCount(),
+              errorManager.getWarningCount());
+    }
+    jsonWriter.beginObject();
+    jsonWriter.name("level").value("info");
+    jsonWriter.name("description").value(summary);
+    jsonWriter.endObject();
+  }
+
   // This class overrides generateReport(), so nothing will call println().
   @Override
   public void println(CheckLevel level, JSError error) {
@@ -128,8 +128,19 @@ class PureFunctionIdentifier implements CompilerPass {
 
     buildGraph();
 
-    NodeTraversal.traverse(compiler, externs, new FunctionAnalyzer(true));
-    NodeTraversal.traverse(compiler, root, new FunctionAnalyzer(false));
+    new CallSiteCollector(null).collect(externs, null);
+
+    // The local side effects of each script are computed separately, which allows them to be
+    // cached and computed in parallel. Connecting the calls to the functions they call needs the
+    // definitions of the whole program, so it is done afterwards.
+    List<Node> scripts =
+        root.isScript() ? ImmutableList.of(root) : ImmutableList.copyOf(root.children());
+    List<int[]> localSideEffects =
+        SideEffectSummaryCache.getInstance(compiler)
+            .getSummaries(scripts, script -> new FunctionAnalyzer().analyze(compiler, script));
+    for (int i = 0; i < scripts.size(); i++) {
+      new CallSiteCollector(localSideEffects.get(i)).collect(scripts.get(i), null);
+    }
 
     propagateSideEffects();
 
@@ -445,48 +456,104 @@ class PureFunctionIdentifier implements CompilerPass {
 
 
   /**
-   * Gather list of functions, functions with @nosideeffects annotations, call sites, and functions
-   * that may mutate variables not defined in the local scope.
+   * Adds the functions of a script that weren't part of a definition to the side effect graph, sets
+   * the local side effects of its functions and connects its call sites to the functions they call.
    */
-  private class FunctionAnalyzer implements ScopedCallback {
+  private class CallSiteCollector {
+    // The local side effects of the functions of the script in preorder, or null for externs.
+    @Nullable private final int[] localSideEffects;
+    private int nextFunction = 0;
+
+    CallSiteCollector(@Nullable int[] localSideEffects) {
+      this.localSideEffects = localSideEffects;
+    }
+
+    void collect(Node node, @Nullable Node enclosingFunction) {
+      if (node.isFunction()) {
+        if (!functionSideEffectMap.containsKey(node)) {
+          // This function was not part of a definition which is why it was not created by
+          // {@link buildGraph}. For example, an anonymous function.
+          FunctionInformation functionInfo = new FunctionInformation();
+          functionSideEffectMap.put(node, functionInfo);
+          functionInfo.graphNode = sideEffectGraph.createNode(functionInfo);
+        }
+        if (localSideEffects != null) {
+          int localMask = localSideEffects[nextFunction++];
+          for (FunctionInformation sideEffectInfo : functionSideEffectMap.get(node)) {
+            sideEffectInfo.setMask(localMask);
+          }
+        }
+        enclosingFunction = node;
+      }
+
+      for (Node child = node.getFirstChild(); child != null; child = child.getNext()) {
+        collect(child, enclosingFunction);
+      }
+
+      if (localSideEffects != null
+          && NodeUtil.isCallOrNew(node)
+          && NodeUtil.nodeTypeMayHaveSideEffects(node, compiler)) {
+        allFunctionCalls.add(node);
+        if (enclosingFunction != null) {
+          for (FunctionInformation sideEffectInfo : functionSideEffectMap.get(enclosingFunction)) {
+            checkNotNull(sideEffectInfo);
+            visitCall(sideEffectInfo, node);
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Computes the local side effects of the functions of a script: the side effects of their own
+   * statements, before the side effects of the functions they call are propagated to them. These
+   * depend only on the script itself, which lets {@link SideEffectSummaryCache} cache them and
+   * analyze several scripts at the same time.
+   */
+  private static class FunctionAnalyzer implements ScopedCallback {
+    private final Map<Node, FunctionInformation> localSideEffects = new HashMap<>();
     private final SetMultimap<Node, Var> blacklistedVarsByFunction = HashMultimap.create();
     private final SetMultimap<Node, Var> taintedVarsByFunction = HashMultimap.create();
 
-    private final boolean inExterns;
-
-    FunctionAnalyzer(boolean inExterns) {
-      this.inExterns = inExterns;
+    /** Returns the local side effects of the functions of the script, in preorder. */
+    int[] analyze(AbstractCompiler compiler, Node script) {
+      NodeTraversal.traverse(compiler, script, this);
+      final List<FunctionInformation> functions = new ArrayList<>();
+      NodeUtil.visitPreOrder(
+          script,
+          node -> {
+            if (node.isFunction()) {
+              functions.add(localSideEffects.get(node));
+            }
+          });
+      int[] masks = new int[functions.size()];
+      for (int i = 0; i < masks.length; i++) {
+        masks[i] = functions.get(i).bitmask;
+      }
+      return masks;
     }
 
     @Override
     public boolean shouldTraverse(NodeTraversal traversal, Node node, Node parent) {
       // Functions need to be processed as part of pre-traversal so that an entry for the function
-      // exists in the functionSideEffectMap map when processing assignments and calls within the
-      // body.
-      if (node.isFunction() && !functionSideEffectMap.containsKey(node)) {
-        // This function was not part of a definition which is why it was not created by
-        // {@link buildGraph}. For example, an anonymous function.
-        FunctionInformation functionInfo = new FunctionInformation();
-        functionSideEffectMap.put(node, functionInfo);
-        functionInfo.graphNode = sideEffectGraph.createNode(functionInfo);
+      // exists when processing assignments within the body.
+      if (node.isFunction()) {
+        localSideEffects.put(node, new FunctionInformation());
       }
       return true;
     }
 
     @Override
     public void visit(NodeTraversal traversal, Node node, Node parent) {
-      if (inExterns) {
+      if (NodeUtil.isCallOrNew(node)) {
+        // Calls are connected to the functions they call by the CallSiteCollector.
         return;
       }
 
-      if (!NodeUtil.nodeTypeMayHaveSideEffects(node, compiler) && !node.isReturn()) {
+      if (!NodeUtil.nodeTypeMayHaveSideEffects(node) && !node.isReturn()) {
         return;
       }
 
-      if (NodeUtil.isCallOrNew(node)) {
-        allFunctionCalls.add(node);
-      }
-
       Scope containerScope = traversal.getScope().getClosestContainerScope();
       if (!containerScope.isFunctionScope()) {
         // We only need to look at nodes in function scopes.
@@ -494,10 +561,9 @@ class PureFunctionIdentifier implements CompilerPass {
       }
       Node enclosingFunction = containerScope.getRootNode();
 
-      for (FunctionInformation sideEffectInfo : functionSideEffectMap.get(enclosingFunction)) {
-        checkNotNull(sideEffectInfo);
-        updateSideEffectsForNode(sideEffectInfo, traversal, node, enclosingFunction);
-      }
+      FunctionInformation sideEffectInfo = localSideEffects.get(enclosingFunction);
+      checkNotNull(sideEffectInfo);
+      updateSideEffectsForNode(sideEffectInfo, traversal, node, enclosingFunction);
     }
 
     public void updateSideEffectsForNode(
@@ -563,8 +629,6 @@ class PureFunctionIdentifier implements CompilerPass {
             NodeUtil.findLhsNodesInNode(node),
             // A for-in always assigns a string, which is a local value by definition.
             RHS_IS_ALWAYS_LOCAL);
-      } else if (NodeUtil.isCallOrNew(node)) {
-        visitCall(sideEffectInfo, node);
       } else if (node.isName()) {
         // Variable definition are not side effects. Check that the name appears in the context of a
         // variable declaration.
@@ -610,13 +674,10 @@ class PureFunctionIdentifier implements CompilerPass {
       Node function = closestContainerScope.getRootNode();
 
       // Handle deferred local variable modifications:
-      for (FunctionInformation sideEffectInfo : functionSideEffectMap.get(function)) {
-        checkNotNull(sideEffectInfo, "%s has no side effect info.", function);
-
-        if (sideEffectInfo.mutatesGlobalState()) {
-          continue;
-        }
+      FunctionInformation sideEffectInfo = localSideEffects.get(function);
+      checkNotNull(sideEffectInfo, "%s has no side effect info.", function);
 
+      if (!sideEffectInfo.mutatesGlobalState()) {
         for (Var v : t.getScope().getVarIterable()) {
           if (v.isParam()
               && !blacklistedVarsByFunction.containsEntry(function, v)
@@ -710,31 +771,31 @@ class PureFunctionIdentifier implements CompilerPass {
         }
       }
     }
+  }
 
-    /** Record information about a call site. */
-    private void visitCall(FunctionInformation sideEffectInfo, Node node) {
-      // Handle special cases (Math, RegExp)
-      // TODO: This logic can probably be replaced with @nosideeffects annotations in externs.
-      if (node.isCall() && !NodeUtil.functionCallHasSideEffects(node, compiler)) {
-        return;
-      }
+  /** Record information about a call site. */
+  private void visitCall(FunctionInformation sideEffectInfo, Node node) {
+    // Handle special cases (Math, RegExp)
+    // TODO: This logic can probably be replaced with @nosideeffects annotations in externs.
+    if (node.isCall() && !NodeUtil.functionCallHasSideEffects(node, compiler)) {
+      return;
+    }
 
-      // Handle known cases now (Object, Date, RegExp, etc)
-      if (node.isNew() && !NodeUtil.constructorCallHasSideEffects(node)) {
-        return;
-      }
+    // Handle known cases now (Object, Date, RegExp, etc)
+    if (node.isNew() && !NodeUtil.constructorCallHasSideEffects(node)) {
+      return;
+    }
 
-      List<FunctionInformation> possibleSideEffects = getSideEffectsForCall(node);
-      if (possibleSideEffects == null) {
-        sideEffectInfo.setTaintsGlobalState();
-        sideEffectInfo.setFunctionThrows();
-        return;
-      }
+    List<FunctionInformation> possibleSideEffects = getSideEffectsForCall(node);
+    if (possibleSideEffects == null) {
+      sideEffectInfo.setTaintsGlobalState();
+      sideEffectInfo.setFunctionThrows();
+      return;
+    }
 
-      for (FunctionInformation sideEffectNode : possibleSideEffects) {
-        CallSitePropagationInfo edge = CallSitePropagationInfo.computePropagationType(node);
-        sideEffectGraph.connect(sideEffectNode.graphNode, edge, sideEffectInfo.graphNode);
-      }
+    for (FunctionInformation sideEffectNode : possibleSideEffects) {
+      CallSitePropagationInfo edge = CallSitePropagationInfo.computePropagationType(node);
+      sideEffectGraph.connect(sideEffectNode.graphNode, edge, sideEffectInfo.graphNode);
     }
   }
 
@@ -1036,6 +1097,7 @@ class PureFunctionIdentifier implements CompilerPass {
       PureFunctionIdentifier pureFunctionIdentifier =
           new PureFunctionIdentifier(compiler, defFinder);
       pureFunctionIdentifier.process(externs, root);
+      SideEffectSummaryCache.getInstance(compiler).save();
 
       if (reportPath != null) {
         try {
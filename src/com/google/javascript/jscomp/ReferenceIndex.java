@@ -0,0 +1,326 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.base.Predicate;
+import com.google.common.collect.Lists;
+import com.google.javascript.jscomp.ReferenceCollectingCallback.Behavior;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compiler-owned index from variables to their {@link ReferenceCollection}s, shared by passes
+ * that would otherwise each run their own {@link ReferenceCollectingCallback} traversal.
+ *
+ * <p>Variables are grouped by the "change scope" (SCRIPT or FUNCTION) that contains their declaring
+ * scope, called the owner below. Every reference to such a variable is lexically inside its owner,
+ * so the references of a group stay accurate until a change is reported to the owner or to a change
+ * scope nested inside it. Groups are collected on first request and recollected on the first
+ * request after such a change; the groups of unchanged owners are reused, even across passes.
+ *
+ * <p>Variables declared in the global scope are not indexed, since a change anywhere in the program
+ * may add a reference to them. Callers use a {@link ReferenceCollectingCallback} for those.
+ *
+ * <p>Scopes are obtained from the {@link IncrementalScopeCreator}, so the {@link Var}s of an
+ * unchanged owner keep their identity between requests. The result of a request is only
+ * guaranteed to be consistent with the AST until the next change is made to the owner.
+ */
+final class ReferenceIndex implements IndexProvider<ReferenceIndex>, CodeChangeHandler {
+
+  private static final String TIMELINE_MARK = "ReferenceIndex";
+
+  private final AbstractCompiler compiler;
+  private final Map<Node, OwnedReferences> referencesByOwner = new HashMap<>();
+
+  // Whether a change may have been reported since the index last caught up with the change
+  // timeline. Starts as true so that the first request sets up the timeline mark.
+  private boolean hasUnseenChanges = true;
+
+  private ReferenceIndex(AbstractCompiler compiler) {
+    this.compiler = compiler;
+  }
+
+  /** Returns the index owned by the given compiler, creating and registering it if necessary. */
+  static ReferenceIndex getInstance(AbstractCompiler compiler) {
+    ReferenceIndex index = compiler.getIndex(ReferenceIndex.class);
+    if (index == null) {
+      index = new ReferenceIndex(compiler);
+      compiler.addIndexProvider(index);
+      compiler.addChangeHandler(index);
+    }
+    return index;
+  }
+
+  @Override
+  public ReferenceIndex get() {
+    return this;
+  }
+
+  @Override
+  public Class<ReferenceIndex> getType() {
+    return ReferenceIndex.class;
+  }
+
+  @Override
+  public void reportChange() {
+    hasUnseenChanges = true;
+  }
+
+  /**
+   * Returns the references to the given variable, or null if the variable is declared in the
+   * global scope and is therefore not indexed. The variable may come from any scope creator; it is
+   * matched by its declaring scope root and name.
+   */
+  ReferenceCollection getReferences(Var var) {
+    Node owner = NodeUtil.getEnclosingChangeScopeRoot(var.getScopeRoot());
+    if (owner == null) {
+      // The global scope root is the only scope root that isn't inside a SCRIPT.
+      return null;
+    }
+    return getReferencesOwnedBy(owner).getReferences(var);
+  }
+
+  /**
+   * Returns the references to all variables whose declaring scope is contained in the given SCRIPT
+   * or FUNCTION node, but not in a FUNCTION nested inside it.
+   */
+  OwnedReferences getReferencesOwnedBy(Node owner) {
+    checkArgument(NodeUtil.isChangeScopeRoot(owner), owner);
+    Node script = NodeUtil.getEnclosingScript(owner);
+    checkState(script != null, "Expected an owner attached to the AST: %s", owner);
+    invalidateChangedOwners();
+
+    IncrementalScopeCreator scopeCreator = IncrementalScopeCreator.getInstance(compiler).freeze();
+    try {
+      OwnedReferences references = referencesByOwner.get(owner);
+      if (references == null || references.script != script) {
+        references = collect(owner, script, scopeCreator);
+        referencesByOwner.put(owner, references);
+      } else {
+        // The owned scopes are still valid, but the scopes enclosing them may have been rebuilt
+        // since they were last handed out. Reattach them so that lookups into enclosing scopes
+        // work.
+        for (Node scopeRoot : references.scopeRoots) {
+          createScopeChain(scopeRoot, scopeCreator);
+        }
+      }
+      return references;
+    } finally {
+      scopeCreator.thaw();
+    }
+  }
+
+  /**
+   * Returns the SCRIPT and FUNCTION nodes under the given root in post order, so that nested
+   * functions come before the functions and scripts containing them.
+   */
+  static List<Node> getOwnersInPostOrder(Node root) {
+    final List<Node> owners = new ArrayList<>();
+    NodeUtil.visitPostOrder(
+        root,
+        new NodeUtil.Visitor() {
+          @Override
+          public void visit(Node n) {
+            if (NodeUtil.isChangeScopeRoot(n)) {
+              owners.add(n);
+            }
+          }
+        });
+    return owners;
+  }
+
+  /** Drops the references of every owner that contains a change reported since the last call. */
+  private void invalidateChangedOwners() {
+    if (!hasUnseenChanges) {
+      return;
+    }
+    hasUnseenChanges = false;
+
+    List<Node> changedScopeNodes = compiler.getChangedScopeNodesForPass(TIMELINE_MARK);
+    if (changedScopeNodes == null) {
+      // This is the first time the timeline is consulted, so nothing can be trusted.
+      referencesByOwner.clear();
+    } else {
+      for (Node changed : changedScopeNodes) {
+        for (Node owner = changed;
+            owner != null;
+            owner = NodeUtil.getEnclosingChangeScopeRoot(owner.getParent())) {
+          referencesByOwner.remove(owner);
+        }
+      }
+    }
+
+    List<Node> deletedScopeNodes = compiler.getDeletedScopeNodesForPass(TIMELINE_MARK);
+    if (deletedScopeNodes != null) {
+      for (Node deleted : deletedScopeNodes) {
+        referencesByOwner.remove(deleted);
+      }
+    }
+  }
+
+  private OwnedReferences collect(
+      Node owner, Node script, IncrementalScopeCreator scopeCreator) {
+    List<Node> scopeRoots = new ArrayList<>();
+    if (owner.isFunction()) {
+      scopeRoots.add(owner);
+    } else {
+      findOutermostScopeRoots(owner, scopeRoots);
+    }
+
+    OwnedReferences references = new OwnedReferences(owner, script, scopeRoots);
+    ReferenceCollectingCallback collector =
+        new ReferenceCollectingCallback(compiler, references, scopeCreator, references);
+    for (Node scopeRoot : scopeRoots) {
+      collector.processScope(createScopeChain(scopeRoot, scopeCreator));
+    }
+    for (Var v : collector.getAllSymbols()) {
+      references.referenceMap.put(v, collector.getReferences(v));
+    }
+    return references;
+  }
+
+  /**
+   * Finds the scope roots below the given node that are not nested in another scope, skipping
+   * functions since they own their scopes.
+   */
+  private static void findOutermostScopeRoots(Node n, List<Node> scopeRoots) {
+    for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+      if (child.isFunction()) {
+        continue;
+      } else if (child.isClass()) {
+        scopeRoots.add(child);
+        // The extends clause and computed member names are in the scope containing the class.
+        findOutermostScopeRoots(child.getSecondChild(), scopeRoots);
+        for (Node member : child.getLastChild().children()) {
+          if (member.isComputedProp()) {
+            findOutermostScopeRoots(member.getFirstChild(), scopeRoots);
+          }
+        }
+      } else if (NodeUtil.createsScope(child)) {
+        scopeRoots.add(child);
+      } else {
+        findOutermostScopeRoots(child, scopeRoots);
+      }
+    }
+  }
+
+  /** Creates (or refreshes) the scope for the given root and all scopes enclosing it. */
+  private static Scope createScopeChain(Node scopeRoot, IncrementalScopeCreator scopeCreator) {
+    Scope scope = null;
+    for (Node enclosingRoot : getEnclosingScopeRoots(scopeRoot)) {
+      scope = scopeCreator.createScope(enclosingRoot, scope);
+    }
+    return scopeCreator.createScope(scopeRoot, scope);
+  }
+
+  /**
+   * Returns the roots of the scopes enclosing the given node, outermost first, in the way that
+   * {@link NodeTraversal} enters them.
+   */
+  private static List<Node> getEnclosingScopeRoots(Node n) {
+    List<Node> scopeRoots = new ArrayList<>();
+    boolean inComputedMemberName = false;
+    Node child = n;
+    for (Node ancestor = n.getParent();
+        ancestor != null;
+        child = ancestor, ancestor = ancestor.getParent()) {
+      if (ancestor.isComputedProp()
+          && child == ancestor.getFirstChild()
+          && ancestor.getParent().isClassMembers()) {
+        inComputedMemberName = true;
+      } else if (ancestor.isClass()) {
+        // The extends clause and computed member names are traversed in the enclosing scope.
+        boolean inClassScope = child != ancestor.getSecondChild() && !inComputedMemberName;
+        inComputedMemberName = false;
+        if (inClassScope) {
+          scopeRoots.add(ancestor);
+        }
+      } else if (NodeUtil.createsScope(ancestor)) {
+        scopeRoots.add(ancestor);
+      }
+    }
+    return Lists.reverse(scopeRoots);
+  }
+
+  /**
+   * The references to the variables owned by a single SCRIPT or FUNCTION node, together with the
+   * owned scopes in the order a {@link ReferenceCollectingCallback} exits them.
+   */
+  static final class OwnedReferences implements ReferenceMap, Behavior, Predicate<Var> {
+    private final Node owner;
+    private final Node script;
+    private final List<Node> scopeRoots;
+    private final List<Scope> scopes = new ArrayList<>();
+    private final Map<Node, Scope> scopesByRoot = new HashMap<>();
+    private final Map<Var, ReferenceCollection> referenceMap = new LinkedHashMap<>();
+
+    private OwnedReferences(Node owner, Node script, List<Node> scopeRoots) {
+      this.owner = owner;
+      this.script = script;
+      this.scopeRoots = scopeRoots;
+    }
+
+    /** Returns the owned scopes, innermost scopes first. */
+    List<Scope> getScopes() {
+      return scopes;
+    }
+
+    /** Returns the owned variables that are referenced at least once. */
+    Iterable<Var> getAllSymbols() {
+      return referenceMap.keySet();
+    }
+
+    @Override
+    public ReferenceCollection getReferences(Var var) {
+      ReferenceCollection references = referenceMap.get(var);
+      if (references == null) {
+        // The variable may come from a different scope creator.
+        Scope scope = scopesByRoot.get(var.getScopeRoot());
+        Var ownVar = scope != null ? scope.getOwnSlot(var.getName()) : null;
+        if (ownVar != null) {
+          references = referenceMap.get(ownVar);
+        }
+      }
+      return references;
+    }
+
+    @Override
+    public boolean apply(Var var) {
+      return isOwned(var.getScopeRoot());
+    }
+
+    @Override
+    public void afterExitScope(NodeTraversal t, ReferenceMap referenceMap) {
+      Scope scope = t.getScope();
+      if (isOwned(scope.getRootNode())) {
+        scopes.add(scope);
+        scopesByRoot.put(scope.getRootNode(), scope);
+      }
+    }
+
+    private boolean isOwned(Node scopeRoot) {
+      return NodeUtil.getEnclosingChangeScopeRoot(scopeRoot) == owner;
+    }
+  }
+}
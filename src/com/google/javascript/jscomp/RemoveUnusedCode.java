@@ -20,23 +20,18 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 
-import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Multimap;
 import com.google.javascript.jscomp.CodingConvention.SubclassRelationship;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import com.google.javascript.rhino.jstype.JSType;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -93,6 +88,10 @@ class RemoveUnusedCode implements CompilerPass {
   private static final ImmutableSet<String> IMPLICITLY_USED_PROPERTIES =
       ImmutableSet.of("length", "toString", "valueOf", "constructor");
 
+  private static final int INITIAL_CAPACITY = 64;
+
+  private static final int[] NO_CONTINUATIONS = new int[0];
+
   private final AbstractCompiler compiler;
 
   private final CodingConvention codingConvention;
@@ -109,18 +108,50 @@ class RemoveUnusedCode implements CompilerPass {
    * for it. If we later discover that we do need to traverse it, we add it to this worklist
    * rather than traversing it immediately. If we invoked the traversal immediately, we could
    * end up modifying a data structure in the traversal as we're iterating over it.
+   *
+   * <p>A continuation is identified by its index in {@link #continuationNodes} and
+   * {@link #continuationScopes}. Each continuation is added to the worklist at most once, so the
+   * worklist is simply the indices of the continuations in the order they were added.
    */
-  private final Deque<Continuation> worklist = new ArrayDeque<>();
+  private int[] worklist = new int[INITIAL_CAPACITY];
+  private int worklistHead = 0;
+  private int worklistSize = 0;
 
-  private final Map<Var, VarInfo> varInfoMap = new HashMap<>();
+  private Node[] continuationNodes = new Node[INITIAL_CAPACITY];
+  private Scope[] continuationScopes = new Scope[INITIAL_CAPACITY];
+  private int continuationCount = 0;
 
-  private final Set<String> referencedPropertyNames = new HashSet<>(IMPLICITLY_USED_PROPERTIES);
+  /**
+   * Dense ids for the vars we may remove, in the order they are first seen. The state of each var
+   * is kept in the bitsets and lists below, indexed by its id.
+   *
+   * <p>Id 0 is shared by all vars for which we cannot remove anything at all.
+   */
+  private final Map<Var, Integer> varIds = new HashMap<>();
+  private final List<Var> varsById = new ArrayList<>();
 
-  /** Stores Removable objects for each property name that is currently considered removable. */
-  private final Multimap<String, Removable> removablesForPropertyNames = HashMultimap.create();
+  /** Vars that are still entirely removable. */
+  private final BitSet removableVars = new BitSet();
+
+  private final BitSet varsWithNonLocalOrNonLiteralValue = new BitSet();
+  private final BitSet varsRequiringLocalLiteralValueForRemoval = new BitSet();
+
+  /**
+   * Objects that represent variable declarations, assignments, or class setup calls that can be
+   * removed, for each var that is still entirely removable.
+   *
+   * <p>NOTE: Once we realize that we cannot remove a variable, its list will be cleared and no
+   * more will be added.
+   */
+  private final RemovableLists removablesForVars = new RemovableLists();
+
+  /** Dense ids for property names, which index the state below. */
+  private final Map<String, Integer> propertyNameIds = new HashMap<>();
 
-  /** Single value to use for all vars for which we cannot remove anything at all. */
-  private final VarInfo canonicalUnremovableVarInfo;
+  private final BitSet referencedPropertyNames = new BitSet();
+
+  /** Stores Removable objects for each property name that is currently considered removable. */
+  private final RemovableLists removablesForPropertyNames = new RemovableLists();
 
   /**
    * Keep track of scopes that we've traversed.
@@ -149,9 +180,11 @@ class RemoveUnusedCode implements CompilerPass {
         builder.removeUnusedObjectDefinePropertiesDefinitions;
     this.scopeCreator = new Es6SyntacticScopeCreator(builder.compiler);
 
-    // All Vars that are completely unremovable will share this VarInfo instance.
-    canonicalUnremovableVarInfo = new VarInfo();
-    canonicalUnremovableVarInfo.setIsExplicitlyNotRemovable();
+    // All Vars that are completely unremovable will share id 0, which is never removable.
+    varsById.add(null);
+    for (String propertyName : IMPLICITLY_USED_PROPERTIES) {
+      referencedPropertyNames.set(getPropertyNameId(propertyName));
+    }
   }
 
   public static class Builder {
@@ -223,7 +256,9 @@ class RemoveUnusedCode implements CompilerPass {
   public void process(Node externs, Node root) {
     checkState(compiler.getLifeCycleStage().isNormalized());
     if (!allowRemovalOfExternProperties) {
-      referencedPropertyNames.addAll(compiler.getExternProperties());
+      for (String propertyName : compiler.getExternProperties()) {
+        referencedPropertyNames.set(getPropertyNameId(propertyName));
+      }
     }
     traverseAndRemoveUnusedReferences(root);
   }
@@ -241,10 +276,9 @@ class RemoveUnusedCode implements CompilerPass {
       scope.declare(
           NodeUtil.JSC_PROPERTY_NAME_FN, /* no declaration node */ null, /* no input */ null);
     }
-    worklist.add(new Continuation(root, scope));
-    while (!worklist.isEmpty()) {
-      Continuation continuation = worklist.remove();
-      continuation.apply();
+    enqueueContinuation(newContinuation(root, scope));
+    while (worklistHead < worklistSize) {
+      applyContinuation(worklist[worklistHead++]);
     }
 
     removeUnreferencedVars();
@@ -255,8 +289,13 @@ class RemoveUnusedCode implements CompilerPass {
   }
 
   private void removeIndependentlyRemovableProperties() {
-    for (Removable removable : removablesForPropertyNames.values()) {
-      removable.remove(compiler);
+    for (int propertyNameId = 0; propertyNameId < propertyNameIds.size(); propertyNameId++) {
+      Removable removable = removablesForPropertyNames.removeAll(propertyNameId);
+      while (removable != null) {
+        Removable next = removable.takeNext();
+        removable.remove(compiler);
+        removable = next;
+      }
     }
   }
 
@@ -279,18 +318,17 @@ class RemoveUnusedCode implements CompilerPass {
 
       case FUNCTION:
         {
-          VarInfo varInfo = null;
           // If this function is a removable var, then create a continuation
           // for it instead of traversing immediately.
           if (NodeUtil.isFunctionDeclaration(n)) {
-            varInfo = traverseNameNode(n.getFirstChild(), scope);
+            int varId = traverseNameNode(n.getFirstChild(), scope);
             FunctionDeclaration functionDeclaration =
                 new RemovableBuilder()
-                    .addContinuation(new Continuation(n, scope))
+                    .addContinuation(newContinuation(n, scope))
                     .buildFunctionDeclaration(n);
-            varInfo.addRemovable(functionDeclaration);
+            addRemovable(varId, functionDeclaration);
             if (parent.isExport()) {
-              varInfo.markAsReferenced();
+              markAsReferenced(varId);
             }
           } else {
             traverseFunction(n, scope);
@@ -401,7 +439,7 @@ class RemoveUnusedCode implements CompilerPass {
           // class name() {}
           // handled at a higher level
           checkState(!((parent.isFunction() || parent.isClass()) && parent.getFirstChild() == n));
-          traverseNameNode(n, scope).markAsReferenced();
+          markAsReferenced(traverseNameNode(n, scope));
         }
         break;
 
@@ -421,9 +459,9 @@ class RemoveUnusedCode implements CompilerPass {
     Node rhs = lhs.getNext();
     traverseNode(lhs, scope);
     if (rhs.isName()) {
-      VarInfo varInfo = traverseNameNode(rhs, scope);
+      int varId = traverseNameNode(rhs, scope);
       RemovableBuilder builder = new RemovableBuilder();
-      varInfo.addRemovable(builder.buildInstanceofName(instanceofNode));
+      addRemovable(varId, builder.buildInstanceofName(instanceofNode));
     } else {
       traverseNode(rhs, scope);
     }
@@ -448,14 +486,14 @@ class RemoveUnusedCode implements CompilerPass {
       Node objExpression = objectNode.getFirstChild();
       if (objExpression.isName()) {
         // name.prototype.propName;
-        VarInfo varInfo = traverseNameNode(objExpression, scope);
-        varInfo.addRemovable(builder.buildUnusedReadReference(getProp, propertyNameNode));
+        int varId = traverseNameNode(objExpression, scope);
+        addRemovable(varId, builder.buildUnusedReadReference(getProp, propertyNameNode));
       } else {
         // (objExpression).prototype.propName;
         if (NodeUtil.mayHaveSideEffects(objExpression)) {
           traverseNode(objExpression, scope);
         } else {
-          builder.addContinuation(new Continuation(objExpression, scope));
+          builder.addContinuation(newContinuation(objExpression, scope));
         }
         considerForIndependentRemoval(builder.buildUnusedReadReference(getProp, propertyNameNode));
       }
@@ -485,14 +523,14 @@ class RemoveUnusedCode implements CompilerPass {
         RemovableBuilder builder = new RemovableBuilder().setIsPrototypeDotPropertyReference(true);
         if (exprObj.isName()) {
           // varName.prototype.propName++
-          VarInfo varInfo = traverseNameNode(exprObj, scope);
-          varInfo.addRemovable(builder.buildIncOrDepOp(incOrDecOp, propertyNameNode));
+          int varId = traverseNameNode(exprObj, scope);
+          addRemovable(varId, builder.buildIncOrDepOp(incOrDecOp, propertyNameNode));
         } else {
           // (someExpression).prototype.propName++
           if (NodeUtil.mayHaveSideEffects(exprObj)) {
             traverseNode(exprObj, scope);
           } else {
-            builder.addContinuation(new Continuation(exprObj, scope));
+            builder.addContinuation(newContinuation(exprObj, scope));
           }
           considerForIndependentRemoval(builder.buildIncOrDepOp(incOrDecOp, propertyNameNode));
         }
@@ -525,7 +563,7 @@ class RemoveUnusedCode implements CompilerPass {
     }
   }
 
-  private VarInfo traverseNameNode(Node n, Scope scope) {
+  private int traverseNameNode(Node n, Scope scope) {
     return traverseVar(getVarForNameNode(n, scope));
   }
 
@@ -580,9 +618,9 @@ class RemoveUnusedCode implements CompilerPass {
       } else {
         RemovableBuilder builder = new RemovableBuilder();
         for (Node child = callNode.getFirstChild(); child != null; child = child.getNext()) {
-          builder.addContinuation(new Continuation(child, scope));
+          builder.addContinuation(newContinuation(child, scope));
         }
-        traverseVar(classVar).addRemovable(builder.buildClassSetupCall(callNode));
+        addRemovable(traverseVar(classVar), builder.buildClassSetupCall(callNode));
       }
     }
   }
@@ -599,17 +637,17 @@ class RemoveUnusedCode implements CompilerPass {
       // NOTE: Object.defineProperties() returns its first argument, so if its return value is used
       // that counts as a use of the targetObject.
       Node nameNode = targetObject.isName() ? targetObject : targetObject.getFirstChild();
-      VarInfo varInfo = traverseNameNode(nameNode, scope);
+      int varId = traverseNameNode(nameNode, scope);
       RemovableBuilder builder = new RemovableBuilder();
       // TODO(bradfordcsmith): Is it really necessary to traverse the callee
       // (aka. Object.defineProperties)?
-      builder.addContinuation(new Continuation(callee, scope));
+      builder.addContinuation(newContinuation(callee, scope));
       if (NodeUtil.mayHaveSideEffects(propertyDefinitions)) {
         traverseNode(propertyDefinitions, scope);
       } else {
-        builder.addContinuation(new Continuation(propertyDefinitions, scope));
+        builder.addContinuation(newContinuation(propertyDefinitions, scope));
       }
-      varInfo.addRemovable(builder.buildClassSetupCall(callNode));
+      addRemovable(varId, builder.buildClassSetupCall(callNode));
     } else {
       // TODO(bradfordcsmith): Is it really necessary to traverse the callee
       // (aka. Object.defineProperties)?
@@ -635,7 +673,7 @@ class RemoveUnusedCode implements CompilerPass {
         } else {
           considerForIndependentRemoval(
               new RemovableBuilder()
-                  .addContinuation(new Continuation(definition, scope))
+                  .addContinuation(newContinuation(definition, scope))
                   .buildObjectDefinePropertiesDefinition(property));
         }
       } else {
@@ -649,12 +687,12 @@ class RemoveUnusedCode implements CompilerPass {
   private void traverseRest(Node restNode, Scope scope) {
     Node target = restNode.getOnlyChild();
     if (target.isName()) {
-      VarInfo varInfo = traverseNameNode(target, scope);
+      int varId = traverseNameNode(target, scope);
       if (!restNode.getParent().isParamList()) {
         // Parameter removal is done in removeUnreferencedFunctionArgs().
         // TODO(bradfordcsmith): Handle parameter placeholders with removables for better code
         // consistency.
-        varInfo.addRemovable(new RemovableBuilder().buildDestructuringAssign(target));
+        addRemovable(varId, new RemovableBuilder().buildDestructuringAssign(target));
       }
     } else if (isThisDotProperty(target)) {
       considerForIndependentRemoval(new RemovableBuilder().buildDestructuringAssign(target));
@@ -720,7 +758,7 @@ class RemoveUnusedCode implements CompilerPass {
           // but we may be able to remove unreferenced properties in it.
           considerForIndependentRemoval(
               new RemovableBuilder()
-                  .addContinuation(new Continuation(valueNode, scope))
+                  .addContinuation(newContinuation(valueNode, scope))
                   .buildClassOrPrototypeNamedProperty(propertyNode));
         }
       }
@@ -739,8 +777,8 @@ class RemoveUnusedCode implements CompilerPass {
   private void traverseCatch(Node catchNode, Scope scope) {
     Node exceptionNameNode = catchNode.getFirstChild();
     Node block = exceptionNameNode.getNext();
-    VarInfo exceptionVarInfo = traverseNameNode(exceptionNameNode, scope);
-    exceptionVarInfo.setIsExplicitlyNotRemovable();
+    int varId = traverseNameNode(exceptionNameNode, scope);
+    setIsExplicitlyNotRemovable(varId);
     traverseNode(block, scope);
   }
 
@@ -753,8 +791,8 @@ class RemoveUnusedCode implements CompilerPass {
     if (iterationTarget.isName()) {
       // using previously-declared loop variable. e.g.
       // `for (varName of collection) {}`
-      VarInfo varInfo = traverseNameNode(iterationTarget, forScope);
-      varInfo.setIsExplicitlyNotRemovable();
+      int varId = traverseNameNode(iterationTarget, forScope);
+      setIsExplicitlyNotRemovable(varId);
     } else if (NodeUtil.isNameDeclaration(iterationTarget)) {
       // loop has const/var/let declaration
       Node declNode = iterationTarget.getOnlyChild();
@@ -775,8 +813,8 @@ class RemoveUnusedCode implements CompilerPass {
         checkState(!declNode.hasChildren());
         // We can never remove the loop variable of a for-in or for-of loop, because it's
         // essential to loop syntax.
-        VarInfo varInfo = traverseNameNode(declNode, forScope);
-        varInfo.setIsExplicitlyNotRemovable();
+        int varId = traverseNameNode(declNode, forScope);
+        setIsExplicitlyNotRemovable(varId);
       }
     } else {
       // using some general LHS value e.g.
@@ -813,20 +851,20 @@ class RemoveUnusedCode implements CompilerPass {
       } else {
         Node nameNode = child;
         @Nullable Node valueNode = child.getFirstChild();
-        VarInfo varInfo = traverseNameNode(nameNode, scope);
+        int varId = traverseNameNode(nameNode, scope);
         if (valueNode == null) {
-          varInfo.addRemovable(new RemovableBuilder().buildVanillaForNameDeclaration(nameNode));
+          addRemovable(varId, new RemovableBuilder().buildVanillaForNameDeclaration(nameNode));
         } else if (NodeUtil.mayHaveSideEffects(valueNode)) {
           // TODO(bradfordcsmith): Actually allow for removing the variable while keeping the
           // valueNode for its side-effects.
-          varInfo.setIsExplicitlyNotRemovable();
+          setIsExplicitlyNotRemovable(varId);
           traverseNode(valueNode, scope);
         } else {
           VanillaForNameDeclaration vanillaForNameDeclaration =
               new RemovableBuilder()
-                  .addContinuation(new Continuation(valueNode, scope))
+                  .addContinuation(newContinuation(valueNode, scope))
                   .buildVanillaForNameDeclaration(nameNode);
-          varInfo.addRemovable(vanillaForNameDeclaration);
+          addRemovable(varId, vanillaForNameDeclaration);
         }
       }
     }
@@ -840,19 +878,19 @@ class RemoveUnusedCode implements CompilerPass {
       traverseNode(nameNode, scope);
     } else {
       Node valueNode = nameNode.getFirstChild();
-      VarInfo varInfo = traverseNameNode(nameNode, scope);
+      int varId = traverseNameNode(nameNode, scope);
       RemovableBuilder builder = new RemovableBuilder();
       if (valueNode == null) {
-        varInfo.addRemovable(builder.buildNameDeclarationStatement(declarationStatement));
+        addRemovable(varId, builder.buildNameDeclarationStatement(declarationStatement));
       } else {
         if (NodeUtil.mayHaveSideEffects(valueNode)) {
           traverseNode(valueNode, scope);
         } else {
-          builder.addContinuation(new Continuation(valueNode, scope));
+          builder.addContinuation(newContinuation(valueNode, scope));
         }
         NameDeclarationStatement removable =
             builder.buildNameDeclarationStatement(declarationStatement);
-        varInfo.addRemovable(removable);
+        addRemovable(varId, removable);
       }
     }
   }
@@ -864,10 +902,10 @@ class RemoveUnusedCode implements CompilerPass {
     Node valueNode = assignNode.getLastChild();
     if (lhs.isName()) {
       // varName = something
-      VarInfo varInfo = traverseNameNode(lhs, scope);
+      int varId = traverseNameNode(lhs, scope);
       RemovableBuilder builder = new RemovableBuilder();
       traverseRemovableAssignValue(valueNode, builder, scope);
-      varInfo.addRemovable(builder.buildVariableAssign(assignNode));
+      addRemovable(varId, builder.buildVariableAssign(assignNode));
     } else if (lhs.isGetElem()) {
       Node getElemObj = lhs.getFirstChild();
       Node getElemKey = lhs.getLastChild();
@@ -880,15 +918,15 @@ class RemoveUnusedCode implements CompilerPass {
         // varName[someExpression] = someValue
         // OR
         // varName.prototype[someExpression] = someValue
-        VarInfo varInfo = traverseNameNode(varNameNode, scope);
+        int varId = traverseNameNode(varNameNode, scope);
         RemovableBuilder builder = new RemovableBuilder();
         if (NodeUtil.mayHaveSideEffects(getElemKey)) {
           traverseNode(getElemKey, scope);
         } else {
-          builder.addContinuation(new Continuation(getElemKey, scope));
+          builder.addContinuation(newContinuation(getElemKey, scope));
         }
         traverseRemovableAssignValue(valueNode, builder, scope);
-        varInfo.addRemovable(builder.buildComputedPropertyAssign(assignNode, getElemKey));
+        addRemovable(varId, builder.buildComputedPropertyAssign(assignNode, getElemKey));
       } else {
         traverseNode(getElemObj, scope);
         traverseNode(getElemKey, scope);
@@ -900,10 +938,10 @@ class RemoveUnusedCode implements CompilerPass {
 
       if (getPropLhs.isName()) {
         // varName.propertyName = someValue
-        VarInfo varInfo = traverseNameNode(getPropLhs, scope);
+        int varId = traverseNameNode(getPropLhs, scope);
         RemovableBuilder builder = new RemovableBuilder();
         traverseRemovableAssignValue(valueNode, builder, scope);
-        varInfo.addRemovable(builder.buildNamedPropertyAssign(assignNode, propNameNode));
+        addRemovable(varId, builder.buildNamedPropertyAssign(assignNode, propNameNode));
       } else if (isDotPrototype(getPropLhs)) {
         // objExpression.prototype.propertyName = someValue
         Node objExpression = getPropLhs.getFirstChild();
@@ -911,14 +949,14 @@ class RemoveUnusedCode implements CompilerPass {
         traverseRemovableAssignValue(valueNode, builder, scope);
         if (objExpression.isName()) {
           // varName.prototype.propertyName = someValue
-          VarInfo varInfo = traverseNameNode(getPropLhs.getFirstChild(), scope);
-          varInfo.addRemovable(builder.buildNamedPropertyAssign(assignNode, propNameNode));
+          int varId = traverseNameNode(getPropLhs.getFirstChild(), scope);
+          addRemovable(varId, builder.buildNamedPropertyAssign(assignNode, propNameNode));
         } else {
           // (someExpression).prototype.propertyName = someValue
           if (NodeUtil.mayHaveSideEffects(objExpression)) {
             traverseNode(objExpression, scope);
           } else {
-            builder.addContinuation(new Continuation(objExpression, scope));
+            builder.addContinuation(newContinuation(objExpression, scope));
           }
           considerForIndependentRemoval(
               builder.buildAnonymousPrototypeNamedPropertyAssign(
@@ -945,7 +983,7 @@ class RemoveUnusedCode implements CompilerPass {
         || NodeUtil.isExpressionResultUsed(valueNode.getParent())) {
       traverseNode(valueNode, scope);
     } else {
-      builder.addContinuation(new Continuation(valueNode, scope));
+      builder.addContinuation(newContinuation(valueNode, scope));
     }
   }
 
@@ -964,16 +1002,16 @@ class RemoveUnusedCode implements CompilerPass {
       traverseNode(target, scope);
       traverseNode(value, scope);
     } else if (target.isName()) {
-      VarInfo varInfo = traverseNameNode(target, scope);
+      int varId = traverseNameNode(target, scope);
       DestructuringAssign assign =
           new RemovableBuilder()
-              .addContinuation(new Continuation(value, scope))
+              .addContinuation(newContinuation(value, scope))
               .buildDestructuringAssign(target);
-      varInfo.addRemovable(assign);
+      addRemovable(varId, assign);
     } else if (isThisDotProperty(target)) {
       DestructuringAssign assign =
           new RemovableBuilder()
-              .addContinuation(new Continuation(value, scope))
+              .addContinuation(newContinuation(value, scope))
               .buildDestructuringAssign(target);
       considerForIndependentRemoval(assign);
     } else {
@@ -985,8 +1023,8 @@ class RemoveUnusedCode implements CompilerPass {
   private void traverseArrayPattern(Node arrayPattern, Scope scope) {
     for (Node c = arrayPattern.getFirstChild(); c != null; c = c.getNext()) {
       if (c.isName()) {
-        VarInfo varInfo = traverseNameNode(c, scope);
-        varInfo.addRemovable(new RemovableBuilder().buildDestructuringAssign(c));
+        int varId = traverseNameNode(c, scope);
+        addRemovable(varId, new RemovableBuilder().buildDestructuringAssign(c));
       } else if (isThisDotProperty(c)) {
         considerForIndependentRemoval(new RemovableBuilder().buildDestructuringAssign(c));
       } else if (c.isDefaultValue()) {
@@ -1040,16 +1078,16 @@ class RemoveUnusedCode implements CompilerPass {
       }
       traverseNode(target, scope);
     } else if (target.isName()) {
-      VarInfo varInfo = traverseNameNode(target, scope);
+      int varId = traverseNameNode(target, scope);
       RemovableBuilder builder = new RemovableBuilder();
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
-      varInfo.addRemovable(builder.buildDestructuringAssign(target));
+      addRemovable(varId, builder.buildDestructuringAssign(target));
     } else if (isThisDotProperty(target)) {
       RemovableBuilder builder = new RemovableBuilder();
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
       considerForIndependentRemoval(builder.buildDestructuringAssign(target));
     } else {
@@ -1085,19 +1123,19 @@ class RemoveUnusedCode implements CompilerPass {
       }
       traverseNode(target, scope);
     } else if (target.isName()) {
-      VarInfo varInfo = traverseNameNode(target, scope);
+      int varId = traverseNameNode(target, scope);
 
       RemovableBuilder builder = new RemovableBuilder();
-      builder.addContinuation(new Continuation(propertyExpression, scope));
+      builder.addContinuation(newContinuation(propertyExpression, scope));
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
-      varInfo.addRemovable(builder.buildDestructuringAssign(target));
+      addRemovable(varId, builder.buildDestructuringAssign(target));
     } else if (isNameDotPrototype(target)) {
       RemovableBuilder builder = new RemovableBuilder();
-      builder.addContinuation(new Continuation(propertyExpression, scope));
+      builder.addContinuation(newContinuation(propertyExpression, scope));
       if (defaultValue != null) {
-        builder.addContinuation(new Continuation(defaultValue, scope));
+        builder.addContinuation(newContinuation(defaultValue, scope));
       }
       considerForIndependentRemoval(builder.buildDestructuringAssign(target));
     } else {
@@ -1141,25 +1179,25 @@ class RemoveUnusedCode implements CompilerPass {
     Node classBodyNode = baseClassExpression.getNext();
     Scope classScope = scopeCreator.createScope(classNode, scope);
 
-    VarInfo varInfo = traverseNameNode(classNameNode, scope);
+    int varId = traverseNameNode(classNameNode, scope);
     if (classNode.getParent().isExport()) {
       // Cannot remove an exported class.
-      varInfo.setIsExplicitlyNotRemovable();
+      setIsExplicitlyNotRemovable(varId);
       traverseNode(baseClassExpression, scope);
       // Use traverseChildren() here, because we should not consider any properties on the exported
       // class to be removable.
       traverseChildren(classBodyNode, classScope);
     } else if (NodeUtil.mayHaveSideEffects(baseClassExpression)) {
       // TODO(bradfordcsmith): implement removal without losing side-effects for this case
-      varInfo.setIsExplicitlyNotRemovable();
+      setIsExplicitlyNotRemovable(varId);
       traverseNode(baseClassExpression, scope);
       traverseClassMembers(classBodyNode, classScope);
     } else {
       RemovableBuilder builder =
           new RemovableBuilder()
-              .addContinuation(new Continuation(baseClassExpression, classScope))
-              .addContinuation(new Continuation(classBodyNode, classScope));
-      varInfo.addRemovable(builder.buildClassDeclaration(classNode));
+              .addContinuation(newContinuation(baseClassExpression, classScope))
+              .addContinuation(newContinuation(classBodyNode, classScope));
+      addRemovable(varId, builder.buildClassDeclaration(classNode));
     }
   }
 
@@ -1172,8 +1210,8 @@ class RemoveUnusedCode implements CompilerPass {
 
     if (classNameNode.isName()) {
       // We may be able to remove the name node if nothing ends up referring to it.
-      VarInfo varInfo = traverseNameNode(classNameNode, classScope);
-      varInfo.addRemovable(new RemovableBuilder().buildNamedClassExpression(classNode));
+      int varId = traverseNameNode(classNameNode, classScope);
+      addRemovable(varId, new RemovableBuilder().buildNamedClassExpression(classNode));
     }
     // If we're traversing the class expression, we've already decided we cannot remove it.
     traverseNode(baseClassExpression, scope);
@@ -1189,7 +1227,7 @@ class RemoveUnusedCode implements CompilerPass {
           // we cannot remove the class itself, so just consider individual members for removal.
           considerForIndependentRemoval(
               new RemovableBuilder()
-                  .addContinuation(new Continuation(member, scope))
+                  .addContinuation(newContinuation(member, scope))
                   .buildClassOrPrototypeNamedProperty(member));
         } else {
           checkState(member.isComputedProp());
@@ -1229,12 +1267,12 @@ class RemoveUnusedCode implements CompilerPass {
     Node nameNode = function.getFirstChild();
     if (!nameNode.getString().isEmpty()) {
       // var x = function funcName() {};
-      // make sure funcName gets into the varInfoMap so it will be considered for removal.
-      VarInfo varInfo = traverseNameNode(nameNode, fparamScope);
+      // make sure funcName gets an id so it will be considered for removal.
+      int varId = traverseNameNode(nameNode, fparamScope);
       if (NodeUtil.isExpressionResultUsed(function)) {
         // var f = function g() {};
         // The f is an alias for g, so g escapes from the scope where it is defined.
-        varInfo.hasNonLocalOrNonLiteralValue = true;
+        varsWithNonLocalOrNonLiteralValue.set(varId);
       }
     }
 
@@ -1286,12 +1324,26 @@ class RemoveUnusedCode implements CompilerPass {
     markUnusedParameters(argList, fparamScope);
   }
 
+  private int getPropertyNameId(String propertyName) {
+    Integer propertyNameId = propertyNameIds.get(propertyName);
+    if (propertyNameId == null) {
+      propertyNameId = propertyNameIds.size();
+      propertyNameIds.put(propertyName, propertyNameId);
+    }
+    return propertyNameId;
+  }
+
   private void markPropertyNameReferenced(String propertyName) {
-    if (referencedPropertyNames.add(propertyName)) {
+    int propertyNameId = getPropertyNameId(propertyName);
+    if (!referencedPropertyNames.get(propertyNameId)) {
+      referencedPropertyNames.set(propertyNameId);
       // Continue traversal of all of the property name's values and no longer consider them for
       // removal.
-      for (Removable removable : removablesForPropertyNames.removeAll(propertyName)) {
+      Removable removable = removablesForPropertyNames.removeAll(propertyNameId);
+      while (removable != null) {
+        Removable next = removable.takeNext();
         removable.applyContinuations();
+        removable = next;
       }
     }
   }
@@ -1299,14 +1351,15 @@ class RemoveUnusedCode implements CompilerPass {
   private void considerForIndependentRemoval(Removable removable) {
     if (removable.isNamedProperty()) {
       String propertyName = removable.getPropertyName();
+      int propertyNameId = getPropertyNameId(propertyName);
 
-      if (referencedPropertyNames.contains(propertyName)
+      if (referencedPropertyNames.get(propertyNameId)
           || codingConvention.isExported(propertyName)) {
         // Referenced or exported, so not removable.
         removable.applyContinuations();
       } else if (isIndependentlyRemovable(removable)) {
         // Store for possible removal later.
-        removablesForPropertyNames.put(propertyName, removable);
+        removablesForPropertyNames.add(propertyNameId, removable);
       } else {
         removable.applyContinuations();
         // This assignment counts as a reference, since we won't be removing it.
@@ -1345,8 +1398,8 @@ class RemoveUnusedCode implements CompilerPass {
         if (lValue.isDestructuringPattern()) {
           continue;
         }
-        VarInfo varInfo = traverseNameNode(lValue, fparamScope);
-        if (varInfo.isRemovable()) {
+        int varId = traverseNameNode(lValue, fparamScope);
+        if (isRemovable(varId)) {
           param.setUnusedParameter(true);
           compiler.reportChangeToEnclosingScope(paramList);
         }
@@ -1392,8 +1445,8 @@ class RemoveUnusedCode implements CompilerPass {
         }
       }
 
-      VarInfo varInfo = getVarInfo(getVarForNameNode(lValue, fparamScope));
-      if (varInfo.isRemovable()) {
+      int varId = getVarId(getVarForNameNode(lValue, fparamScope));
+      if (isRemovable(varId)) {
         NodeUtil.deleteNode(lastArg, compiler);
       } else {
         break;
@@ -1402,13 +1455,13 @@ class RemoveUnusedCode implements CompilerPass {
   }
 
   /**
-   * Handles a variable reference seen during traversal and returns a {@link VarInfo} object
-   * appropriate for the given {@link Var}.
+   * Handles a variable reference seen during traversal and returns the id appropriate for the
+   * given {@link Var}.
    *
-   * <p>This is a wrapper for {@link #getVarInfo} that handles additional logic needed when we're
-   * getting the {@link VarInfo} during traversal.
+   * <p>This is a wrapper for {@link #getVarId} that handles additional logic needed when we're
+   * getting the id during traversal.
    */
-  private VarInfo traverseVar(Var var) {
+  private int traverseVar(Var var) {
     checkNotNull(var);
     if (removeLocalVars && var.isArguments()) {
       // If we are considering removing local variables, that includes parameters.
@@ -1426,45 +1479,101 @@ class RemoveUnusedCode implements CompilerPass {
         if (lValue.isDestructuringPattern()) {
           continue;
         }
-        getVarInfo(getVarForNameNode(lValue, functionScope)).markAsReferenced();
+        markAsReferenced(getVarId(getVarForNameNode(lValue, functionScope)));
       }
       // `arguments` is never removable.
-      return canonicalUnremovableVarInfo;
+      return 0;
     } else {
-      return getVarInfo(var);
+      return getVarId(var);
     }
   }
 
   /**
-   * Get the right {@link VarInfo} object to use for the given {@link Var}.
+   * Get the right id to use for the given {@link Var}.
    *
-   * <p>This method is responsible for managing the entries in {@link #varInfoMap}.
-   * <p>Note: Several {@link Var}s may share the same {@link VarInfo} when they should be treated
-   * the same way.
+   * <p>This method is responsible for managing the entries in {@link #varIds}.
+   * <p>Note: Several {@link Var}s may share the same id when they should be treated the same way.
    */
-  private VarInfo getVarInfo(Var var) {
+  private int getVarId(Var var) {
     checkNotNull(var);
     boolean isGlobal = var.isGlobal();
     if (var.isExtern()) {
-      return canonicalUnremovableVarInfo;
+      return 0;
     } else if (isGlobal && !removeGlobals) {
-      return canonicalUnremovableVarInfo;
+      return 0;
     } else if (!isGlobal && !removeLocalVars) {
-      return canonicalUnremovableVarInfo;
+      return 0;
     } else if (codingConvention.isExported(var.getName(), !isGlobal)) {
-      return canonicalUnremovableVarInfo;
+      return 0;
     } else if (var.isArguments()) {
-      return canonicalUnremovableVarInfo;
+      return 0;
     } else {
-      VarInfo varInfo = varInfoMap.get(var);
-      if (varInfo == null) {
-        varInfo = new VarInfo();
+      Integer varId = varIds.get(var);
+      if (varId == null) {
+        varId = varsById.size();
+        varsById.add(var);
+        varIds.put(var, varId);
+        removableVars.set(varId);
         if (var.getParentNode().isParamList()) {
-          varInfo.hasNonLocalOrNonLiteralValue = true;
+          varsWithNonLocalOrNonLiteralValue.set(varId);
         }
-        varInfoMap.put(var, varInfo);
       }
-      return varInfo;
+      return varId;
+    }
+  }
+
+  private void addRemovable(int varId, Removable removable) {
+    if (!removable.isAssignedValueLocal()
+        && (removable.isVariableAssignment() || removable.isPrototypeAssignment())) {
+      varsWithNonLocalOrNonLiteralValue.set(varId);
+    }
+    if (removable.preventsRemovalOfVariableWithNonLocalValueOrPrototype()) {
+      varsRequiringLocalLiteralValueForRemoval.set(varId);
+    }
+    if (varsWithNonLocalOrNonLiteralValue.get(varId)
+        && varsRequiringLocalLiteralValueForRemoval.get(varId)) {
+      setIsExplicitlyNotRemovable(varId);
+    }
+
+    if (removableVars.get(varId)) {
+      // Store for possible removal later.
+      removablesForVars.add(varId, removable);
+    } else {
+      considerForIndependentRemoval(removable);
+    }
+  }
+
+  /**
+   * Marks the variable as referenced and evaluates any continuations if not previously marked as
+   * referenced.
+   */
+  private void markAsReferenced(int varId) {
+    setIsExplicitlyNotRemovable(varId);
+  }
+
+  private boolean isRemovable(int varId) {
+    return removableVars.get(varId);
+  }
+
+  private void setIsExplicitlyNotRemovable(int varId) {
+    if (removableVars.get(varId)) {
+      removableVars.clear(varId);
+      Removable removable = removablesForVars.removeAll(varId);
+      while (removable != null) {
+        Removable next = removable.takeNext();
+        considerForIndependentRemoval(removable);
+        removable = next;
+      }
+    }
+  }
+
+  private void removeAllRemovables(int varId) {
+    checkState(removableVars.get(varId));
+    Removable removable = removablesForVars.removeAll(varId);
+    while (removable != null) {
+      Removable next = removable.takeNext();
+      removable.remove(compiler);
+      removable = next;
     }
   }
 
@@ -1473,23 +1582,20 @@ class RemoveUnusedCode implements CompilerPass {
    * variables as well.
    */
   private void removeUnreferencedVars() {
-    for (Entry<Var, VarInfo>entry : varInfoMap.entrySet()) {
-      Var var = entry.getKey();
-      VarInfo varInfo = entry.getValue();
-
-      if (!varInfo.isRemovable()) {
-        continue;
-      }
+    for (int varId = removableVars.nextSetBit(0);
+        varId >= 0;
+        varId = removableVars.nextSetBit(varId + 1)) {
+      Var var = varsById.get(varId);
 
       // Regardless of what happens to the original declaration,
       // we need to remove all assigns, because they may contain references
       // to other unreferenced variables.
-      varInfo.removeAllRemovables();
+      removeAllRemovables(varId);
 
       Node nameNode = var.nameNode;
       Node toRemove = nameNode.getParent();
       if (toRemove == null || alreadyRemoved(toRemove)) {
-        // assignedVarInfo.removeAllRemovables () already removed it
+        // removeAllRemovables() already removed it
       } else if (NodeUtil.isFunctionExpression(toRemove)) {
         // TODO(bradfordcsmith): Add a Removable for this case.
         if (!preserveFunctionExpressionNames) {
@@ -1514,32 +1620,85 @@ class RemoveUnusedCode implements CompilerPass {
 
   /**
    * Our progress in a traversal can be expressed completely as the
-   * current node and scope. The continuation lets us save that
+   * current node and scope. A continuation lets us save that
    * information so that we can continue the traversal later.
+   *
+   * @return the index of the new continuation
    */
-  private class Continuation {
-    private final Node node;
-    private final Scope scope;
+  private int newContinuation(Node node, Scope scope) {
+    if (continuationCount == continuationNodes.length) {
+      continuationNodes = Arrays.copyOf(continuationNodes, continuationCount * 2);
+      continuationScopes = Arrays.copyOf(continuationScopes, continuationCount * 2);
+    }
+    continuationNodes[continuationCount] = node;
+    continuationScopes[continuationCount] = scope;
+    return continuationCount++;
+  }
 
-    Continuation(Node node, Scope scope) {
-      this.node = node;
-      this.scope = scope;
+  private void enqueueContinuation(int continuation) {
+    if (worklistSize == worklist.length) {
+      worklist = Arrays.copyOf(worklist, worklistSize * 2);
     }
+    worklist[worklistSize++] = continuation;
+  }
 
-    void apply() {
-      if (node.isFunction()) {
-        // Calling traverseNode here would create infinite recursion for a function declaration
-        traverseFunction(node, scope);
+  private void applyContinuation(int continuation) {
+    Node node = continuationNodes[continuation];
+    Scope scope = continuationScopes[continuation];
+    // A continuation is applied only once, so there is no need to hold on to its node and scope.
+    continuationNodes[continuation] = null;
+    continuationScopes[continuation] = null;
+    if (node.isFunction()) {
+      // Calling traverseNode here would create infinite recursion for a function declaration
+      traverseFunction(node, scope);
+    } else {
+      traverseNode(node, scope);
+    }
+  }
+
+  /**
+   * Lists of removables indexed by dense ids. The lists are linked through the removables
+   * themselves, so no collection is created per id. A removable is in at most one list at a time.
+   */
+  private static final class RemovableLists {
+    private Removable[] first = new Removable[INITIAL_CAPACITY];
+    private Removable[] last = new Removable[INITIAL_CAPACITY];
+
+    /** Appends the removable to the list with the given id. */
+    void add(int id, Removable removable) {
+      if (id >= first.length) {
+        int capacity = Math.max(first.length * 2, id + 1);
+        first = Arrays.copyOf(first, capacity);
+        last = Arrays.copyOf(last, capacity);
+      }
+      if (first[id] == null) {
+        first[id] = removable;
       } else {
-        traverseNode(node, scope);
+        last[id].next = removable;
       }
+      last[id] = removable;
+    }
+
+    /**
+     * Empties the list with the given id and returns its first removable, or null if it was empty.
+     * The rest of the list is reached with {@link Removable#takeNext}.
+     */
+    @Nullable
+    Removable removeAll(int id) {
+      if (id >= first.length) {
+        return null;
+      }
+      Removable removable = first[id];
+      first[id] = null;
+      last[id] = null;
+      return removable;
     }
   }
 
   /** Represents a portion of the AST that can be removed. */
   private abstract class Removable {
 
-    private final List<Continuation> continuations;
+    private final int[] continuations;
     @Nullable private final String propertyName;
     private final boolean isPrototypeDotPropertyReference;
     private final boolean isThisDotPropertyReference;
@@ -1547,8 +1706,14 @@ class RemoveUnusedCode implements CompilerPass {
     private boolean continuationsAreApplied = false;
     private boolean isRemoved = false;
 
+    /** The next removable in the {@link RemovableLists} list this removable is in. */
+    @Nullable private Removable next = null;
+
     Removable(RemovableBuilder builder) {
-      continuations = builder.continuations;
+      continuations =
+          builder.continuationCount == 0
+              ? NO_CONTINUATIONS
+              : Arrays.copyOf(builder.continuations, builder.continuationCount);
       propertyName = builder.propertyName;
       isPrototypeDotPropertyReference = builder.isPrototypeDotPropertyReference;
       isThisDotPropertyReference = builder.isThisDotPropertyReference;
@@ -1558,6 +1723,14 @@ class RemoveUnusedCode implements CompilerPass {
       return checkNotNull(propertyName);
     }
 
+    /** Unlinks this removable from the rest of its list and returns the next removable. */
+    @Nullable
+    Removable takeNext() {
+      Removable result = next;
+      next = null;
+      return result;
+    }
+
     /** Remove the associated nodes from the AST. */
     abstract void removeInternal(AbstractCompiler compiler);
 
@@ -1572,13 +1745,12 @@ class RemoveUnusedCode implements CompilerPass {
     public void applyContinuations() {
       if (!continuationsAreApplied) {
         continuationsAreApplied = true;
-        for (Continuation c : continuations) {
+        for (int continuation : continuations) {
           // Enqueue the continuation for processing.
           // Don't invoke the continuation immediately, because that can lead to concurrent
           // modification of data structures.
-          worklist.add(c);
+          enqueueContinuation(continuation);
         }
-        continuations.clear();
       }
     }
 
@@ -1656,14 +1828,18 @@ class RemoveUnusedCode implements CompilerPass {
   }
 
   private class RemovableBuilder {
-    final List<Continuation> continuations = new ArrayList<>();
+    int[] continuations = NO_CONTINUATIONS;
+    int continuationCount = 0;
 
     @Nullable String propertyName = null;
     boolean isPrototypeDotPropertyReference = false;
     boolean isThisDotPropertyReference = false;
 
-    RemovableBuilder addContinuation(Continuation continuation) {
-      continuations.add(continuation);
+    RemovableBuilder addContinuation(int continuation) {
+      if (continuationCount == continuations.length) {
+        continuations = Arrays.copyOf(continuations, Math.max(2, continuationCount * 2));
+      }
+      continuations[continuationCount++] = continuation;
       return this;
     }
 
@@ -2420,78 +2596,6 @@ class RemoveUnusedCode implements CompilerPass {
     return alreadyRemoved(parent);
   }
 
-  private class VarInfo {
-    /**
-     * Objects that represent variable declarations, assignments, or class setup calls that can
-     * be removed.
-     *
-     * NOTE: Once we realize that we cannot remove the variable, this list will be cleared and
-     * no more will be added.
-     */
-    final List<Removable> removables = new ArrayList<>();
-
-    boolean isEntirelyRemovable = true;
-
-    boolean hasNonLocalOrNonLiteralValue = false;
-    boolean requiresLocalLiteralValueForRemoval = false;
-
-    void addRemovable(Removable removable) {
-      if (!removable.isAssignedValueLocal()
-          && (removable.isVariableAssignment() || removable.isPrototypeAssignment())) {
-        hasNonLocalOrNonLiteralValue = true;
-      }
-      if (removable.preventsRemovalOfVariableWithNonLocalValueOrPrototype()) {
-        requiresLocalLiteralValueForRemoval = true;
-      }
-      if (hasNonLocalOrNonLiteralValue && requiresLocalLiteralValueForRemoval) {
-        setIsExplicitlyNotRemovable();
-      }
-
-      if (isEntirelyRemovable) {
-        // Store for possible removal later.
-        removables.add(removable);
-      } else {
-        considerForIndependentRemoval(removable);
-      }
-    }
-
-    /**
-     * Marks this variable as referenced and evaluates any continuations if not previously marked as
-     * referenced.
-     *
-     * @return true if the variable was not already marked as referenced
-     */
-    boolean markAsReferenced() {
-      return setIsExplicitlyNotRemovable();
-    }
-
-    boolean isRemovable() {
-      return isEntirelyRemovable;
-    }
-
-    boolean setIsExplicitlyNotRemovable() {
-      if (isEntirelyRemovable) {
-        isEntirelyRemovable = false;
-        for (Removable r : removables) {
-          considerForIndependentRemoval(r);
-        }
-        removables.clear();
-        return true;
-      } else {
-        return false;
-      }
-    }
-
-    void removeAllRemovables() {
-      checkState(isEntirelyRemovable);
-      for (Removable removable : removables) {
-        removable.remove(compiler);
-      }
-      removables.clear();
-    }
-
-  }
-
   /**
    * Represents declarations in the standard for-loop initialization.
    *
@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import static com.google.common.base.Preconditions.checkState;
 
 import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Sets;
 import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
@@ -187,7 +188,29 @@ class RenameProperties implements CompilerPass {
   public void process(Node externs, Node root) {
     checkState(compiler.getLifeCycleStage().isNormalized());
 
-    NodeTraversal.traverse(compiler, root, new ProcessProperties());
+    // Collect the property references of each script, possibly in parallel, then
+    // count them in script order.
+    List<Node> scripts =
+        root.isRoot() ? ImmutableList.copyOf(root.children()) : ImmutableList.of(root);
+    List<ProcessProperties> results =
+        ParallelScriptTasks.run(
+            compiler,
+            "RenameProperties",
+            scripts,
+            script -> {
+              ProcessProperties processProperties = new ProcessProperties();
+              NodeTraversal.traverse(compiler, script, processProperties);
+              return processProperties;
+            });
+    NameOccurrenceCounter occurrences = new NameOccurrenceCounter();
+    for (ProcessProperties processProperties : results) {
+      processProperties.apply(occurrences);
+    }
+    for (int i = 0; i < occurrences.size(); i++) {
+      Property prop = new Property(occurrences.getName(i));
+      prop.numOccurrences = occurrences.getCount(i);
+      propertyMap.put(prop.oldName, prop);
+    }
 
     Set<String> reservedNames =
         Sets.newHashSetWithExpectedSize(externedNames.size() + quotedNames.size());
@@ -324,8 +347,62 @@ class RenameProperties implements CompilerPass {
   /**
    * A traversal callback that collects property names and counts how
    * frequently each property name occurs.
+   *
+   * <p>Since scripts are traversed in parallel, the traversal of a script only
+   * records what it finds, in order. {@link #apply} then replays the records in
+   * script order, which gives the same results as a traversal of all the code:
+   * whether a name is externed depends on the names externed before it.
    */
   private class ProcessProperties extends AbstractPostOrderCallback {
+    private static final byte EXTERN = 0;
+    private static final byte QUOTED = 1;
+    private static final byte CANDIDATE = 2;
+    private static final byte CALL = 3;
+    private static final byte REMOVE = 4;
+
+    // The records: what was found and the node, in traversal order.
+    private byte[] kinds = new byte[16];
+    private Node[] nodes = new Node[16];
+    private int size = 0;
+
+    // The parents of the recorded calls.
+    private final Map<Node, Node> callParents = new LinkedHashMap<>();
+
+    private void record(byte kind, Node n) {
+      if (size == kinds.length) {
+        kinds = Arrays.copyOf(kinds, size * 2);
+        nodes = Arrays.copyOf(nodes, size * 2);
+      }
+      kinds[size] = kind;
+      nodes[size++] = n;
+    }
+
+    /** Applies the records of a script, counting the candidates in the given counter. */
+    void apply(NameOccurrenceCounter occurrences) {
+      for (int i = 0; i < size; i++) {
+        Node n = nodes[i];
+        switch (kinds[i]) {
+          case EXTERN:
+            externedNames.add(n.getString());
+            break;
+          case QUOTED:
+            quotedNames.add(n.getString());
+            break;
+          case CANDIDATE:
+            maybeMarkCandidate(n, occurrences);
+            break;
+          case CALL:
+            callNodeToParentMap.put(n, callParents.get(n));
+            countCallCandidates(n, occurrences);
+            break;
+          case REMOVE:
+            toRemove.add(n);
+            break;
+          default:
+            throw new IllegalStateException("Unexpected record " + kinds[i]);
+        }
+      }
+    }
 
     @Override
     public void visit(NodeTraversal t, Node n, Node parent) {
@@ -337,10 +414,10 @@ class RenameProperties implements CompilerPass {
           if (propNode.isString()) {
             if (compiler.getCodingConvention().blockRenamingForProperty(
                 propNode.getString())) {
-              externedNames.add(propNode.getString());
+              record(EXTERN, propNode);
               break;
             }
-            maybeMarkCandidate(propNode);
+            record(CANDIDATE, propNode);
           }
           break;
         case OBJECTLIT:
@@ -351,11 +428,11 @@ class RenameProperties implements CompilerPass {
             } else if (key.isQuotedString()) {
               // Ensure that we never rename some other property in a way
               // that could conflict with this quoted key.
-              quotedNames.add(key.getString());
+              record(QUOTED, key);
             } else if (compiler.getCodingConvention().blockRenamingForProperty(key.getString())) {
-              externedNames.add(key.getString());
+              record(EXTERN, key);
             } else {
-              maybeMarkCandidate(key);
+              record(CANDIDATE, key);
             }
           }
           break;
@@ -368,11 +445,11 @@ class RenameProperties implements CompilerPass {
             } else if (key.isQuotedString()) {
               // Ensure that we never rename some other property in a way
               // that could conflict with this quoted key.
-              quotedNames.add(key.getString());
+              record(QUOTED, key);
             } else if (compiler.getCodingConvention().blockRenamingForProperty(key.getString())) {
-              externedNames.add(key.getString());
+              record(EXTERN, key);
             } else {
-              maybeMarkCandidate(key);
+              record(CANDIDATE, key);
             }
           }
           break;
@@ -382,7 +459,7 @@ class RenameProperties implements CompilerPass {
           // could conflict with this quoted name.
           Node child = n.getLastChild();
           if (child != null && child.isString()) {
-            quotedNames.add(child.getString());
+            record(QUOTED, child);
           }
           break;
         case CALL: {
@@ -392,8 +469,8 @@ class RenameProperties implements CompilerPass {
           if (compiler
               .getCodingConvention()
               .isPropertyRenameFunction(fnName.getOriginalQualifiedName())) {
-            callNodeToParentMap.put(n, parent);
-            countCallCandidates(t, n);
+            callParents.put(n, parent);
+            record(CALL, n);
           }
           break;
         }
@@ -411,13 +488,13 @@ class RenameProperties implements CompilerPass {
                 if (member.isFunction()) {
                   Node fnName = member.getFirstChild();
                   if (compiler.getCodingConvention().blockRenamingForProperty(memberDefName)) {
-                    externedNames.add(fnName.getString());
+                    record(EXTERN, fnName);
                   } else if (memberDefName.equals("constructor")
                       || memberDefName.equals("superClass_")) {
                     // TODO (simarora) is there a better way to identify these externs?
-                    externedNames.add(fnName.getString());
+                    record(EXTERN, fnName);
                   } else {
-                    maybeMarkCandidate(key);
+                    record(CANDIDATE, key);
                   }
                 }
               }
@@ -431,13 +508,13 @@ class RenameProperties implements CompilerPass {
             if (NodeUtil.isFunctionDeclaration(n)) {
               String name = n.getFirstChild().getString();
               if (NodeUtil.JSC_PROPERTY_NAME_FN.equals(name)) {
-                toRemove.add(n);
+                record(REMOVE, n);
               }
             } else if (parent.isName()
                 && NodeUtil.JSC_PROPERTY_NAME_FN.equals(parent.getString())) {
               Node varNode = parent.getParent();
               if (varNode.isVar()) {
-                toRemove.add(parent);
+                record(REMOVE, parent);
               }
             } else if (NodeUtil.isFunctionExpression(n)
                 && parent.isAssign()
@@ -449,7 +526,7 @@ class RenameProperties implements CompilerPass {
               if (exprResult.isExprResult()
                   && NodeUtil.isStatementBlock(exprResult.getParent())
                   && exprResult.getFirstChild().isAssign()) {
-                toRemove.add(exprResult);
+                record(REMOVE, exprResult);
               }
             }
             break;
@@ -465,11 +542,11 @@ class RenameProperties implements CompilerPass {
      *
      * @param n The STRING node for a property
      */
-    private void maybeMarkCandidate(Node n) {
+    private void maybeMarkCandidate(Node n, NameOccurrenceCounter occurrences) {
       String name = n.getString();
       if (!externedNames.contains(name)) {
         stringNodesToRename.add(n);
-        countPropertyOccurrence(name);
+        occurrences.increment(name);
       }
     }
 
@@ -478,43 +555,28 @@ class RenameProperties implements CompilerPass {
      * call.
      *
      * @param callNode The CALL node for a property
-     * @param t The traversal
      */
-    private void countCallCandidates(NodeTraversal t, Node callNode) {
+    private void countCallCandidates(Node callNode, NameOccurrenceCounter occurrences) {
       String fnName = callNode.getFirstChild().getOriginalName();
       if (fnName == null) {
         fnName = callNode.getFirstChild().getString();
       }
       Node firstArg = callNode.getSecondChild();
       if (!firstArg.isString()) {
-        t.report(callNode, BAD_CALL, fnName);
+        compiler.report(JSError.make(callNode, BAD_CALL, fnName));
         return;
       }
 
       for (String name : DOT_SPLITTER.split(firstArg.getString())) {
         if (!TokenStream.isJSIdentifier(name)) {
-          t.report(callNode, BAD_ARG, fnName);
+          compiler.report(JSError.make(callNode, BAD_ARG, fnName));
           continue;
         }
         if (!externedNames.contains(name)) {
-          countPropertyOccurrence(name);
+          occurrences.increment(name);
         }
       }
     }
-
-    /**
-     * Increments the occurrence count for a property name.
-     *
-     * @param name The property name
-     */
-    private void countPropertyOccurrence(String name) {
-      Property prop = propertyMap.get(name);
-      if (prop == null) {
-        prop = new Property(name);
-        propertyMap.put(name, prop);
-      }
-      prop.numOccurrences++;
-    }
   }
 
   // -------------------------------------------------------------------------
@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.nullToEmpty;
 
 import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ListMultimap;
 import com.google.javascript.jscomp.NodeTraversal.AbstractPostOrderCallback;
@@ -85,12 +86,6 @@ final class RenameVars implements CompilerPass {
   /** Counter for each assignment */
   private int assignmentCount = 0;
 
-  // Logic for bleeding functions, where the name leaks into the outer
-  // scope on IE but not on other browsers.
-  private final Set<Var> localBleedingFunctions = new HashSet<>();
-  private final ListMultimap<Scope, Var> localBleedingFunctionsPerScope =
-      ArrayListMultimap.create();
-
   class Assignment {
     final boolean isLocal;
     final String oldName;
@@ -179,8 +174,8 @@ final class RenameVars implements CompilerPass {
   }
 
   /**
-   * Iterate through the nodes, collect all the NAME nodes that need to be
-   * renamed, and count how many times each variable name is referenced.
+   * Iterate through the nodes of a script, collect all the NAME nodes that need
+   * to be renamed, and count how many times each variable name is referenced.
    *
    * Keep track of all name references in globalNameNodes, and localNameNodes.
    *
@@ -197,9 +192,35 @@ final class RenameVars implements CompilerPass {
    * e.g. the final code might look like
    * function x(a,b) { ... }
    * function y(a,b,c) { ... }
+   *
+   * Since scripts are processed in parallel, nothing is changed while
+   * traversing: the results are recorded and applied by {@link #apply}, in
+   * script order.
    */
   class ProcessVars extends AbstractPostOrderCallback implements ScopedCallback {
 
+    // Logic for bleeding functions, where the name leaks into the outer
+    // scope on IE but not on other browsers.
+    private final Set<Var> localBleedingFunctions = new HashSet<>();
+    private final ListMultimap<Scope, Var> localBleedingFunctionsPerScope =
+        ArrayListMultimap.create();
+
+    private final List<String> reservedNames = new ArrayList<>();
+
+    // Local names to blindly de-uniquify, and their original names.
+    private final List<Node> deuniquifiedNodes = new ArrayList<>();
+    private final List<String> deuniquifiedNames = new ArrayList<>();
+
+    private final List<Node> pseudoNameNodes = new ArrayList<>();
+    private final List<Node> globalNameNodes = new ArrayList<>();
+
+    // Local names and their temporary names.
+    private final List<Node> localNameNodes = new ArrayList<>();
+    private final List<String> tempNames = new ArrayList<>();
+
+    // The counts of the global names and the temporary names, in order of first occurrence.
+    private final NameOccurrenceCounter counts = new NameOccurrenceCounter();
+
     @Override
     public void enterScope(NodeTraversal t) {
       if (t.inGlobalHoistScope() || !shouldTemporarilyRenameLocalsInScope(t.getScope())) {
@@ -273,14 +294,15 @@ final class RenameVars implements CompilerPass {
           // http://blickly.github.io/closure-compiler-issues/#103
           String newName = MakeDeclaredNamesUnique.ContextualRenameInverter.getOriginalName(name);
           if (!newName.equals(name)) {
-            n.setString(newName);
+            deuniquifiedNodes.add(n);
+            deuniquifiedNames.add(newName);
           }
         }
         return;
       }
 
       if (pseudoNameMap != null) {
-        recordPseudoName(n);
+        pseudoNameNodes.add(n);
       }
 
       if (local && shouldTemporarilyRenameLocalsInScope(var.getScope())) {
@@ -288,29 +310,78 @@ final class RenameVars implements CompilerPass {
         // variable's index in the scope to enable name reuse across
         // locals in independent scopes.
         String tempName = LOCAL_VAR_PREFIX + getLocalVarIndex(var);
-        incCount(tempName);
+        counts.increment(tempName);
         localNameNodes.add(n);
-        // Remember the original string in a name before it's temporarily filled with an "L".
-        originalNameByNode.put(n, n.getString());
-        n.setString(tempName);
+        tempNames.add(tempName);
       } else if (var != null) { // Not an extern
         // If it's global, increment global count
-        incCount(name);
+        counts.increment(name);
         globalNameNodes.add(n);
       }
     }
 
-    // Increment count of an assignment
-    void incCount(String name) {
-      Assignment s = assignments.get(name);
+    /** Applies the results of the traversal of a script. */
+    void apply() {
+      RenameVars.this.reservedNames.addAll(reservedNames);
+      for (int i = 0; i < deuniquifiedNodes.size(); i++) {
+        deuniquifiedNodes.get(i).setString(deuniquifiedNames.get(i));
+      }
+      for (Node n : pseudoNameNodes) {
+        recordPseudoName(n);
+      }
+      for (int i = 0; i < counts.size(); i++) {
+        incCount(counts.getName(i), counts.getCount(i));
+      }
+      for (int i = 0; i < localNameNodes.size(); i++) {
+        Node n = localNameNodes.get(i);
+        // Remember the original string in a name before it's temporarily filled with an "L".
+        originalNameByNode.put(n, n.getString());
+        n.setString(tempNames.get(i));
+      }
+      RenameVars.this.localNameNodes.addAll(localNameNodes);
+      RenameVars.this.globalNameNodes.addAll(globalNameNodes);
+    }
+
+    /**
+     * Returns the index within the scope stack.
+     * e.g. function Foo(a) { var b; function c(d) { } }
+     * a = 0, b = 1, c = 2, d = 3
+     */
+    private int getLocalVarIndex(Var v) {
+      int num = v.index;
+      Scope s = v.scope.getParent();
       if (s == null) {
-        s = new Assignment(name);
-        assignments.put(name, s);
+        throw new IllegalArgumentException("Var is not local");
       }
-      s.count++;
+
+      boolean isBleedingIntoScope = s.getParent() != null && localBleedingFunctions.contains(v);
+
+      while (s.getParent() != null) {
+        if (isBleedingIntoScope) {
+          num += localBleedingFunctionsPerScope.get(s).indexOf(v) + 1;
+          isBleedingIntoScope = false;
+        } else {
+          num += localBleedingFunctionsPerScope.get(s).size();
+        }
+        if (shouldTemporarilyRenameLocalsInScope(s)) {
+          num += s.getVarCount();
+        }
+        s = s.getParent();
+      }
+      return num;
     }
   }
 
+  // Increment count of an assignment
+  private void incCount(String name, int count) {
+    Assignment s = assignments.get(name);
+    if (s == null) {
+      s = new Assignment(name);
+      assignments.put(name, s);
+    }
+    s.count += count;
+  }
+
   /**
    * Sorts Assignment objects by their count, breaking ties by their order of
    * occurrence in the source to ensure a deterministic total ordering.
@@ -346,8 +417,25 @@ final class RenameVars implements CompilerPass {
 
     originalNameByNode.clear();
 
-    // Do variable reference counting.
-    NodeTraversal.traverse(compiler, root, new ProcessVars());
+    // Do variable reference counting, one script at a time. The scripts share
+    // the global scope.
+    List<Node> scripts =
+        root.isRoot() ? ImmutableList.copyOf(root.children()) : ImmutableList.of(root);
+    final Scope globalScope = new Es6SyntacticScopeCreator(compiler).createScope(root, null);
+    List<ProcessVars> results =
+        ParallelScriptTasks.run(
+            compiler,
+            "RenameVars",
+            scripts,
+            script -> {
+              ProcessVars processVars = new ProcessVars();
+              new NodeTraversal(compiler, processVars, new Es6SyntacticScopeCreator(compiler))
+                  .traverseWithScope(script, globalScope);
+              return processVars;
+            });
+    for (ProcessVars processVars : results) {
+      processVars.apply();
+    }
 
     // Make sure that new names don't overlap with extern names.
     reservedNames.addAll(externNames);
@@ -565,35 +653,6 @@ final class RenameVars implements CompilerPass {
     return !compiler.getCodingConvention().isExported(name, isLocal);
   }
 
-  /**
-   * Returns the index within the scope stack.
-   * e.g. function Foo(a) { var b; function c(d) { } }
-   * a = 0, b = 1, c = 2, d = 3
-   */
-  private int getLocalVarIndex(Var v) {
-    int num = v.index;
-    Scope s = v.scope.getParent();
-    if (s == null) {
-      throw new IllegalArgumentException("Var is not local");
-    }
-
-    boolean isBleedingIntoScope = s.getParent() != null && localBleedingFunctions.contains(v);
-
-    while (s.getParent() != null) {
-      if (isBleedingIntoScope) {
-        num += localBleedingFunctionsPerScope.get(s).indexOf(v) + 1;
-        isBleedingIntoScope = false;
-      } else {
-        num += localBleedingFunctionsPerScope.get(s).size();
-      }
-      if (shouldTemporarilyRenameLocalsInScope(s)) {
-        num += s.getVarCount();
-      }
-      s = s.getParent();
-    }
-    return num;
-  }
-
   /**
    * Returns true if the local variables in a scope should be given
    * temporary names (eg, 'L 123') prior to renaming to allow reuse of
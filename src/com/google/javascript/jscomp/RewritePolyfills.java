@@ -153,10 +153,14 @@ public class RewritePolyfills implements HotSwapCompilerPass {
   private final Polyfills polyfills;
 
   public RewritePolyfills(AbstractCompiler compiler) {
-    this(
-        compiler,
+    this(compiler, DefaultPolyfills.INSTANCE);
+  }
+
+  /** The polyfills of polyfills.txt, read once and shared by all compilations. */
+  private static final class DefaultPolyfills {
+    static final Polyfills INSTANCE =
         Polyfills.fromTable(
-            ResourceLoader.loadTextResource(RewritePolyfills.class, "js/polyfills.txt")));
+            ResourceLoader.loadTextResource(RewritePolyfills.class, "js/polyfills.txt"));
   }
 
   // Visible for testing
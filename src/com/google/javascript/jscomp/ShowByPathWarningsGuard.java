@@ -69,6 +69,11 @@ public final class ShowByPathWarningsGuard extends WarningsGuard {
     return warningsGuard.level(error);
   }
 
+  @Override
+  protected boolean dependsOnlyOnSourceAndType() {
+    return true;
+  }
+
   @Override
   protected int getPriority() {
     return warningsGuard.getPriority();
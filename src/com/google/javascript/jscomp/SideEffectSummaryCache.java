@@ -0,0 +1,259 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.javascript.rhino.Node;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A compiler-owned cache of the per-script summaries computed by {@link PureFunctionIdentifier}:
+ * the local side effects of each function of a script, before the side effects of the functions it
+ * calls are propagated to it.
+ *
+ * <p>A summary depends only on the contents of its script, so summaries are keyed by a hash of
+ * everything the local analysis reads: the tokens and structure of the AST, names and strings,
+ * numbers, and the side effect flags of calls. A script that hasn't changed since its summary was
+ * computed, in an earlier run of the pass or an earlier compilation, isn't analyzed again.
+ *
+ * <p>When {@link CompilerOptions#setFunctionSideEffectsCachePath} is set, the summaries are read
+ * from that file when the cache is created and written back after each run of the pass. The file
+ * is ignored if it was written by another version of the compiler or can't be read, and a file
+ * that can't be written doesn't fail the compilation.
+ *
+ * <p>When {@link CompilerOptions#setNumParallelThreads} allows it, the scripts that need to be
+ * analyzed are analyzed in parallel.
+ */
+@GwtIncompatible("com.google.common.hash.Hashing, ObjectInputStream")
+final class SideEffectSummaryCache implements IndexProvider<SideEffectSummaryCache> {
+
+  private static final Logger logger = Logger.getLogger(SideEffectSummaryCache.class.getName());
+
+  // Increment when the local analysis or the content hash changes.
+  private static final int FORMAT_VERSION = 1;
+
+  private final AbstractCompiler compiler;
+  private final String path;
+
+  // The summaries by content hash. After each request, only the summaries of the requested scripts
+  // are kept.
+  private Map<String, int[]> summaries = new HashMap<>();
+
+  private int hits = 0;
+  private int misses = 0;
+
+  private SideEffectSummaryCache(AbstractCompiler compiler, String path) {
+    this.compiler = compiler;
+    this.path = path;
+    if (path != null) {
+      load();
+    }
+  }
+
+  /** Returns the cache owned by the given compiler, creating and registering it if necessary. */
+  static SideEffectSummaryCache getInstance(AbstractCompiler compiler) {
+    SideEffectSummaryCache cache = compiler.getIndex(SideEffectSummaryCache.class);
+    if (cache == null) {
+      cache =
+          new SideEffectSummaryCache(
+              compiler, compiler.getOptions().functionSideEffectsCachePath);
+      compiler.addIndexProvider(cache);
+    }
+    return cache;
+  }
+
+  @Override
+  public SideEffectSummaryCache get() {
+    return this;
+  }
+
+  @Override
+  public Class<SideEffectSummaryCache> getType() {
+    return SideEffectSummaryCache.class;
+  }
+
+  /**
+   * Returns the summaries of the given scripts, in the same order, using the analyzer to compute
+   * the ones that aren't cached. The analyzer must not modify the AST or the compiler, since it may
+   * be called for several scripts at the same time.
+   */
+  List<int[]> getSummaries(List<Node> scripts, Function<Node, int[]> analyzer) {
+    List<Summary> results =
+        ParallelScriptTasks.run(
+            compiler, "SideEffectSummaryCache", scripts, script -> summarize(script, analyzer));
+
+    Map<String, int[]> current = new HashMap<>();
+    List<int[]> localSideEffects = new ArrayList<>(results.size());
+    for (Summary result : results) {
+      if (result.cached) {
+        hits++;
+      } else {
+        misses++;
+      }
+      current.put(result.hash, result.localSideEffects);
+      localSideEffects.add(result.localSideEffects);
+    }
+    summaries = current;
+    return localSideEffects;
+  }
+
+  /**
+   * Writes the summaries to the cache file, if there is one. They are written to a temporary file
+   * that is then moved into place, so an interrupted compilation can't leave a truncated cache. A
+   * cache that can't be written is only logged, like one that can't be read.
+   */
+  void save() {
+    if (path == null) {
+      return;
+    }
+    Path file = Paths.get(path).toAbsolutePath();
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+      try (ObjectOutputStream out =
+          new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeUTF(Compiler.getReleaseVersion());
+        out.writeObject(new HashMap<>(summaries));
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Couldn't write the function side effects cache " + path, e);
+    } finally {
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e) {
+          // Ignore: a leftover temporary file is harmless.
+        }
+      }
+    }
+  }
+
+  /** Returns the number of scripts whose summary was cached. */
+  int getHits() {
+    return hits;
+  }
+
+  /** Returns the number of scripts that had to be analyzed. */
+  int getMisses() {
+    return misses;
+  }
+
+  @SuppressWarnings("unchecked")
+  private void load() {
+    if (!new File(path).isFile()) {
+      return;
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new BufferedInputStream(new FileInputStream(path)))) {
+      if (in.readInt() == FORMAT_VERSION && in.readUTF().equals(Compiler.getReleaseVersion())) {
+        summaries = (Map<String, int[]>) in.readObject();
+      }
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      // A cache that can't be read is an empty cache.
+      summaries = new HashMap<>();
+    }
+  }
+
+  private Summary summarize(Node script, Function<Node, int[]> analyzer) {
+    String hash = hashContents(script);
+    int[] cached = summaries.get(hash);
+    if (cached != null) {
+      return new Summary(hash, cached, true);
+    }
+    return new Summary(hash, analyzer.apply(script), false);
+  }
+
+  /** Returns a hash of everything the local analysis of {@link PureFunctionIdentifier} reads. */
+  @VisibleForTesting
+  static String hashContents(Node script) {
+    Hasher hasher = Hashing.murmur3_128().newHasher();
+    hashContents(script, hasher);
+    return hasher.hash().toString();
+  }
+
+  private static void hashContents(Node n, Hasher hasher) {
+    hasher.putInt(n.getToken().ordinal());
+    hasher.putInt(n.getChildCount());
+    switch (n.getToken()) {
+      case NAME:
+      case STRING:
+      case STRING_KEY:
+      case IMPORT_STAR:
+      case LABEL_NAME:
+      case GETTER_DEF:
+      case SETTER_DEF:
+      case MEMBER_FUNCTION_DEF:
+        hasher.putInt(n.getString().length()).putUnencodedChars(n.getString());
+        break;
+      case NUMBER:
+        hasher.putDouble(n.getDouble());
+        break;
+      case CALL:
+      case NEW:
+      case TAGGED_TEMPLATELIT:
+        hasher.putInt(n.getSideEffectFlags());
+        break;
+      case FUNCTION:
+        hasher.putBoolean(n.isArrowFunction());
+        break;
+      default:
+        break;
+    }
+    for (Node child = n.getFirstChild(); child != null; child = child.getNext()) {
+      hashContents(child, hasher);
+    }
+  }
+
+  private static final class Summary {
+    final String hash;
+    final int[] localSideEffects;
+    final boolean cached;
+
+    Summary(String hash, int[] localSideEffects, boolean cached) {
+      this.hash = hash;
+      this.localSideEffects = localSideEffects;
+      this.cached = cached;
+    }
+  }
+}
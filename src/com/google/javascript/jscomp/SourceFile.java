@@ -128,17 +128,22 @@ public class SourceFile implements StaticSourceFile, Serializable {
     if (lineOffsets != null) {
       return;
     }
+    int[] offsets;
     try {
-      String[] sourceLines = getCode().split("\n", -1);
-      lineOffsets = new int[sourceLines.length];
-      for (int ii = 1; ii < sourceLines.length; ++ii) {
-        lineOffsets[ii] =
-            lineOffsets[ii - 1] + sourceLines[ii - 1].length() + 1;
+      String js = getCode();
+      int count = 1;
+      for (int pos = js.indexOf('\n'); pos != -1; pos = js.indexOf('\n', pos + 1)) {
+        count++;
+      }
+      offsets = new int[count];
+      for (int ii = 1, pos = js.indexOf('\n'); ii < count; ii++, pos = js.indexOf('\n', pos)) {
+        offsets[ii] = ++pos;
       }
     } catch (IOException e) {
-      lineOffsets = new int[1];
-      lineOffsets[0] = 0;
+      offsets = new int[1];
     }
+    // Only publish the index once it's complete, since excerpts may be read concurrently.
+    lineOffsets = offsets;
   }
 
   private void resetLineOffsets() {
@@ -249,7 +254,8 @@ public class SourceFile implements StaticSourceFile, Serializable {
    */
   public String getLine(int lineNumber) {
     findLineOffsets();
-    if (lineNumber > lineOffsets.length) {
+    int[] offsets = lineOffsets;
+    if (lineNumber > offsets.length) {
       return null;
     }
 
@@ -257,28 +263,21 @@ public class SourceFile implements StaticSourceFile, Serializable {
       lineNumber = 1;
     }
 
-    int pos = lineOffsets[lineNumber - 1];
     String js = "";
     try {
-      // NOTE(nicksantos): Right now, this is optimized for few warnings.
-      // This is probably the right trade-off, but will be slow if there
-      // are lots of warnings in one file.
       js = getCode();
     } catch (IOException e) {
       return null;
     }
 
-    if (js.indexOf('\n', pos) == -1) {
-      // If next new line cannot be found, there are two cases
-      // 1. pos already reaches the end of file, then null should be returned
-      // 2. otherwise, return the contents between pos and the end of file.
-      if (pos >= js.length()) {
-        return null;
-      } else {
-        return js.substring(pos);
-      }
+    // The line ends right before the next one starts, or at the end of the file.
+    int pos = offsets[lineNumber - 1];
+    if (lineNumber < offsets.length) {
+      return js.substring(pos, offsets[lineNumber] - 1);
+    } else if (pos >= js.length()) {
+      return null;
     } else {
-      return js.substring(pos, js.indexOf('\n', pos));
+      return js.substring(pos);
     }
   }
 
@@ -292,44 +291,32 @@ public class SourceFile implements StaticSourceFile, Serializable {
    *     or if there was an IO exception.
    */
   public Region getRegion(int lineNumber) {
+    findLineOffsets();
+    int[] offsets = lineOffsets;
     String js = "";
     try {
       js = getCode();
     } catch (IOException e) {
       return null;
     }
-    int pos = 0;
     int startLine = Math.max(1,
         lineNumber - (SOURCE_EXCERPT_REGION_LENGTH + 1) / 2 + 1);
-    for (int n = 1; n < startLine; n++) {
-      int nextpos = js.indexOf('\n', pos);
-      if (nextpos == -1) {
-        break;
-      }
-      pos = nextpos + 1;
-    }
-    int end = pos;
-    int endLine = startLine;
-    for (int n = 0; n < SOURCE_EXCERPT_REGION_LENGTH; n++, endLine++) {
-      end = js.indexOf('\n', end);
-      if (end == -1) {
-        break;
-      }
-      end++;
-    }
+    // The region spans the lines whose newline is found within the region length.
+    int endLine = startLine + Math.max(0,
+        Math.min(SOURCE_EXCERPT_REGION_LENGTH, offsets.length - startLine));
     if (lineNumber >= endLine) {
       return null;
     }
-    if (end == -1) {
-      int last = js.length() - 1;
-      if (js.charAt(last) == '\n') {
-        return
-            new SimpleRegion(startLine, endLine, js.substring(pos, last));
-      } else {
-        return new SimpleRegion(startLine, endLine, js.substring(pos));
-      }
+    int pos = offsets[startLine - 1];
+    if (endLine - startLine == SOURCE_EXCERPT_REGION_LENGTH) {
+      return new SimpleRegion(startLine, endLine, js.substring(pos, offsets[endLine - 1]));
+    }
+    int last = js.length() - 1;
+    if (js.charAt(last) == '\n') {
+      return
+          new SimpleRegion(startLine, endLine, js.substring(pos, last));
     } else {
-      return new SimpleRegion(startLine, endLine, js.substring(pos, end));
+      return new SimpleRegion(startLine, endLine, js.substring(pos));
     }
   }
 
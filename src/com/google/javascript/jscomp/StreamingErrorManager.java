@@ -0,0 +1,315 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.gson.stream.JsonWriter;
+import com.google.javascript.jscomp.parsing.parser.util.format.SimpleFormat;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.Nullable;
+
+/**
+ * An error manager that prints each error and warning as soon as it is reported, either as text
+ * like {@link PrintStreamErrorManager} or as the JSON objects of {@link
+ * PrintStreamJSONErrorManager}, and prints the summary in {@link #generateReport}.
+ *
+ * <p>Unlike the {@link BasicErrorManager}s, it doesn't keep a sorted queue of every diagnostic
+ * until the end of the compilation:
+ *
+ * <ul>
+ *   <li>Diagnostics are printed in the order they are reported instead of sorted by position.
+ *   <li>Duplicates are dropped across the whole compilation, but only a 64-bit hash of each
+ *       diagnostic's level, type, description and position is kept to find them.
+ *   <li>{@link #getErrors} and {@link #getWarnings} return every diagnostic, unless {@link
+ *       #setMaxRetained} limits how many are kept. {@link #getUnretainedCount} then tells how many
+ *       were left out. The counts always include all of them.
+ * </ul>
+ */
+@GwtIncompatible("com.google.gson.stream.JsonWriter")
+public final class StreamingErrorManager implements ErrorManager {
+
+  // The 64-bit FNV prime.
+  private static final long HASH_MULTIPLIER = 0x100000001b3L;
+
+  private final PrintStream stream;
+  @Nullable private final MessageFormatter formatter;
+  @Nullable private final SourceExcerptProvider sourceExcerptProvider;
+
+  // The writer of the JSON array being printed, or null if it hasn't been started yet.
+  @Nullable private JsonWriter jsonWriter;
+
+  // The hashes of the diagnostics reported so far, see #hash.
+  private final LongSet reported = new LongSet();
+
+  private final List<JSError> errors = new ArrayList<>();
+  private final List<JSError> warnings = new ArrayList<>();
+  private int maxRetained = Integer.MAX_VALUE;
+  private int unretainedCount = 0;
+  private int summaryDetailLevel = 1;
+
+  private int originalErrorCount = 0;
+  private int promotedErrorCount = 0;
+  private int warningCount = 0;
+  private double typedPercent = 0.0;
+
+  private StreamingErrorManager(
+      PrintStream stream,
+      @Nullable MessageFormatter formatter,
+      @Nullable SourceExcerptProvider sourceExcerptProvider) {
+    this.stream = checkNotNull(stream);
+    this.formatter = formatter;
+    this.sourceExcerptProvider = sourceExcerptProvider;
+  }
+
+  /**
+   * Creates an error manager that prints diagnostics as text.
+   *
+   * @param formatter the message formatter used to format the messages
+   * @param stream the stream on which the errors and warnings should be printed. This class does
+   *     not close the stream
+   */
+  public static StreamingErrorManager text(MessageFormatter formatter, PrintStream stream) {
+    return new StreamingErrorManager(stream, checkNotNull(formatter), null);
+  }
+
+  /**
+   * Creates an error manager that prints diagnostics as a JSON array, which is closed by {@link
+   * #generateReport}.
+   *
+   * @param stream the stream on which the errors and warnings should be printed. This class does
+   *     not close the stream
+   * @param sourceExcerptProvider used to retrieve the source context which generated the error
+   */
+  public static StreamingErrorManager json(
+      PrintStream stream, SourceExcerptProvider sourceExcerptProvider) {
+    return new StreamingErrorManager(stream, null, checkNotNull(sourceExcerptProvider));
+  }
+
+  /**
+   * Limits how many errors, and how many warnings, {@link #getErrors} and {@link #getWarnings}
+   * return, so that the diagnostics don't need to be kept in memory. By default all of them are
+   * returned. The limit must be positive, so that whether there were any errors is still known.
+   */
+  public void setMaxRetained(int maxRetained) {
+    checkArgument(maxRetained > 0, "maxRetained must be positive");
+    this.maxRetained = maxRetained;
+  }
+
+  /** Sets when the text summary is printed, as {@link PrintStreamErrorManager} does. */
+  public void setSummaryDetailLevel(int summaryDetailLevel) {
+    this.summaryDetailLevel = summaryDetailLevel;
+  }
+
+  @Override
+  public void report(CheckLevel level, JSError error) {
+    if (!reported.add(hash(level, error))) {
+      return;
+    }
+    if (level == CheckLevel.ERROR) {
+      if (error.getType().level == CheckLevel.ERROR) {
+        originalErrorCount++;
+      } else {
+        promotedErrorCount++;
+      }
+      retain(errors, error);
+    } else if (level == CheckLevel.WARNING) {
+      warningCount++;
+      retain(warnings, error);
+    }
+
+    if (formatter != null) {
+      stream.println(error.format(level, formatter));
+      return;
+    }
+    try {
+      PrintStreamJSONErrorManager.writeError(getJsonWriter(), sourceExcerptProvider, level, error);
+      jsonWriter.flush();
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private JsonWriter getJsonWriter() throws IOException {
+    if (jsonWriter == null) {
+      jsonWriter = new JsonWriter(new OutputStreamWriter(stream, UTF_8));
+      jsonWriter.beginArray();
+    }
+    return jsonWriter;
+  }
+
+  private void retain(List<JSError> retained, JSError error) {
+    if (retained.size() < maxRetained) {
+      retained.add(error);
+    } else {
+      unretainedCount++;
+    }
+  }
+
+  /**
+   * Returns a 64-bit hash of what makes diagnostics duplicates: the same fields {@link
+   * BasicErrorManager} compares, and the type. It is a polynomial hash, which is much cheaper than
+   * the Guava hash functions and, with 64 bits, very unlikely to make distinct diagnostics collide.
+   */
+  private static long hash(CheckLevel level, JSError error) {
+    long h = level.ordinal();
+    h = hash(h, error.getType().key);
+    h = hash(h, error.description);
+    h = hash(h, error.sourceName);
+    h = h * HASH_MULTIPLIER + error.lineNumber;
+    return h * HASH_MULTIPLIER + error.getCharno();
+  }
+
+  private static long hash(long h, @Nullable String s) {
+    if (s == null) {
+      return h * HASH_MULTIPLIER - 1;
+    }
+    for (int i = 0; i < s.length(); i++) {
+      h = h * HASH_MULTIPLIER + s.charAt(i);
+    }
+    return h * HASH_MULTIPLIER + s.length();
+  }
+
+  /**
+   * Returns how many errors and warnings were counted but left out of {@link #getErrors} and
+   * {@link #getWarnings} because of {@link #setMaxRetained}.
+   */
+  public int getUnretainedCount() {
+    return unretainedCount;
+  }
+
+  @Override
+  public void generateReport() {
+    if (formatter != null) {
+      printSummary();
+      return;
+    }
+    try {
+      PrintStreamJSONErrorManager.writeSummary(getJsonWriter(), this);
+      jsonWriter.endArray();
+      jsonWriter.flush();
+      // Not closed, since that would close the stream. Diagnostics reported from now on start a
+      // new array.
+      jsonWriter = null;
+    } catch (IOException e) {
+      throw new RuntimeException(e);
+    }
+  }
+
+  private void printSummary() {
+    if (summaryDetailLevel >= 3
+        || (summaryDetailLevel >= 1 && getErrorCount() + getWarningCount() > 0)
+        || (summaryDetailLevel >= 2 && getTypedPercent() > 0.0)) {
+      if (getTypedPercent() > 0.0) {
+        stream.print(
+            SimpleFormat.format(
+                "%d error(s), %d warning(s), %.1f%% typed%n",
+                getErrorCount(), getWarningCount(), getTypedPercent()));
+      } else {
+        stream.print(
+            SimpleFormat.format(
+                "%d error(s), %d warning(s)%n", getErrorCount(), getWarningCount()));
+      }
+    }
+  }
+
+  @Override
+  public boolean hasHaltingErrors() {
+    return originalErrorCount != 0;
+  }
+
+  @Override
+  public int getErrorCount() {
+    return originalErrorCount + promotedErrorCount;
+  }
+
+  @Override
+  public int getWarningCount() {
+    return warningCount;
+  }
+
+  @Override
+  public JSError[] getErrors() {
+    return errors.toArray(new JSError[0]);
+  }
+
+  @Override
+  public JSError[] getWarnings() {
+    return warnings.toArray(new JSError[0]);
+  }
+
+  @Override
+  public void setTypedPercent(double typedPercent) {
+    this.typedPercent = typedPercent;
+  }
+
+  @Override
+  public double getTypedPercent() {
+    return typedPercent;
+  }
+
+  /** An open-addressing hash set of longs, which takes 16 to 32 bytes per element. */
+  private static final class LongSet {
+    // Zero marks an empty slot, so whether zero is in the set is stored separately.
+    private long[] slots = new long[1024];
+    private int size = 0;
+    private boolean hasZero = false;
+
+    /** Adds the value, and returns whether it wasn't in the set yet. */
+    boolean add(long value) {
+      if (value == 0) {
+        boolean added = !hasZero;
+        hasZero = true;
+        return added;
+      }
+      if (!insert(slots, value)) {
+        return false;
+      }
+      if (++size > slots.length / 2) {
+        long[] grown = new long[slots.length * 2];
+        for (long slot : slots) {
+          if (slot != 0) {
+            insert(grown, slot);
+          }
+        }
+        slots = grown;
+      }
+      return true;
+    }
+
+    private static boolean insert(long[] slots, long value) {
+      int mask = slots.length - 1;
+      // Fibonacci hashing spreads the high bits of the value over the index.
+      int i = (int) ((value * 0x9e3779b97f4a7c15L) >>> 32) & mask;
+      while (slots[i] != 0) {
+        if (slots[i] == value) {
+          return false;
+        }
+        i = (i + 1) & mask;
+      }
+      slots[i] = value;
+      return true;
+    }
+  }
+}
@@ -126,6 +126,11 @@ class SuppressDocWarningsGuard extends FileAwareWarningsGuard {
     return null;
   }
 
+  @Override
+  protected boolean onlySuppresses() {
+    return true;
+  }
+
   @Override
   public int getPriority() {
     // Happens after path-based filtering, but before other times
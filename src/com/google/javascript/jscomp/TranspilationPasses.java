@@ -30,6 +30,7 @@ import com.google.javascript.jscomp.PassFactory.HotSwapPassFactory;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet;
 import com.google.javascript.jscomp.parsing.parser.FeatureSet.Feature;
 import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -75,6 +76,7 @@ public class TranspilationPasses {
   // parameter can be removed.
   static void addPreTypecheckTranspilationPasses(
       List<PassFactory> passes, CompilerOptions options, boolean doEs6ExternsCheck) {
+    int start = passes.size();
 
     if (options.needsTranspilationFrom(ES_NEXT)) {
       passes.add(rewriteAsyncIteration);
@@ -121,6 +123,8 @@ public class TranspilationPasses {
       passes.add(es6SplitVariableDeclarations);
       passes.add(getEs6RewriteDestructuring(ObjectDestructuringRewriteMode.REWRITE_OBJECT_REST));
     }
+
+    maybeRunInParallel(passes, start, options);
   }
 
   public static void addEs6ModuleToCjsPass(List<PassFactory> passes) {
@@ -134,6 +138,8 @@ public class TranspilationPasses {
   /** Adds transpilation passes that should run after all checks are done. */
   public static void addPostCheckTranspilationPasses(
       List<PassFactory> passes, CompilerOptions options) {
+    int start = passes.size();
+
     if (options.needsTranspilationFrom(ES7)) {
       passes.add(rewriteExponentialOperator);
     }
@@ -160,6 +166,66 @@ public class TranspilationPasses {
       passes.add(rewriteGenerators);
       passes.add(es6ConvertSuperConstructorCalls);
     }
+
+    maybeRunInParallel(passes, start, options);
+  }
+
+  /**
+   * If the compiler may use several threads, replaces each run of consecutive script-local passes
+   * among those added since {@code start} by a stage that runs them on several scripts at once.
+   */
+  private static void maybeRunInParallel(
+      List<PassFactory> passes, int start, CompilerOptions options) {
+    if (options.numParallelThreads <= 1) {
+      return;
+    }
+    List<PassFactory> added = passes.subList(start, passes.size());
+    List<PassFactory> grouped = new ArrayList<>();
+    List<ScriptLocalPassFactory> run = new ArrayList<>();
+    for (PassFactory pass : added) {
+      if (pass instanceof ScriptLocalPassFactory) {
+        run.add((ScriptLocalPassFactory) pass);
+      } else {
+        if (!run.isEmpty()) {
+          grouped.add(createParallelTranspilationPass(run));
+          run = new ArrayList<>();
+        }
+        grouped.add(pass);
+      }
+    }
+    if (!run.isEmpty()) {
+      grouped.add(createParallelTranspilationPass(run));
+    }
+    added.clear();
+    passes.addAll(grouped);
+  }
+
+  private static PassFactory createParallelTranspilationPass(
+      final List<ScriptLocalPassFactory> factories) {
+    return new PassFactory("parallelTranspilation", true) {
+      @Override
+      protected CompilerPass create(AbstractCompiler compiler) {
+        return new ParallelTranspilation(compiler, factories);
+      }
+
+      @Override
+      protected FeatureSet featureSet() {
+        // Each pass checks the features it supports itself.
+        return FeatureSet.latest();
+      }
+    };
+  }
+
+  /**
+   * A factory of passes whose {@code hotSwapScript} does what {@code process} does, one script at a
+   * time, and that touch nothing outside the script but the compiler. In particular, the names
+   * they make up must be unique across scripts, so they only come from the compiler's unique name
+   * ids. Runs of these passes can be run by a {@link ParallelTranspilation}.
+   */
+  abstract static class ScriptLocalPassFactory extends HotSwapPassFactory {
+    ScriptLocalPassFactory(String name) {
+      super(name);
+    }
   }
 
   /**
@@ -198,7 +264,7 @@ public class TranspilationPasses {
       };
 
   private static final PassFactory rewriteAsyncFunctions =
-      new HotSwapPassFactory("rewriteAsyncFunctions") {
+      new ScriptLocalPassFactory("rewriteAsyncFunctions") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new RewriteAsyncFunctions(compiler);
@@ -224,7 +290,7 @@ public class TranspilationPasses {
       };
 
   private static final PassFactory rewriteObjRestSpread =
-      new HotSwapPassFactory("rewriteObjRestSpread") {
+      new ScriptLocalPassFactory("rewriteObjRestSpread") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new RewriteObjectSpread(compiler);
@@ -237,7 +303,7 @@ public class TranspilationPasses {
       };
 
   private static final PassFactory rewriteExponentialOperator =
-      new HotSwapPassFactory("rewriteExponentialOperator") {
+      new ScriptLocalPassFactory("rewriteExponentialOperator") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new Es7RewriteExponentialOperator(compiler);
@@ -290,7 +356,7 @@ public class TranspilationPasses {
       };
 
   static final HotSwapPassFactory es6RewriteClass =
-      new HotSwapPassFactory("Es6RewriteClass") {
+      new ScriptLocalPassFactory("Es6RewriteClass") {
         @Override
         protected HotSwapCompilerPass create(AbstractCompiler compiler) {
           return new Es6RewriteClass(compiler);
@@ -320,7 +386,7 @@ public class TranspilationPasses {
   }
 
   static final HotSwapPassFactory es6RenameVariablesInParamLists =
-      new HotSwapPassFactory("Es6RenameVariablesInParamLists") {
+      new ScriptLocalPassFactory("Es6RenameVariablesInParamLists") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new Es6RenameVariablesInParamLists(compiler);
@@ -333,7 +399,7 @@ public class TranspilationPasses {
       };
 
   static final HotSwapPassFactory es6RewriteArrowFunction =
-      new HotSwapPassFactory("Es6RewriteArrowFunction") {
+      new ScriptLocalPassFactory("Es6RewriteArrowFunction") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new Es6RewriteArrowFunction(compiler);
@@ -359,7 +425,7 @@ public class TranspilationPasses {
       };
 
   static final HotSwapPassFactory es6SplitVariableDeclarations =
-      new HotSwapPassFactory("Es6SplitVariableDeclarations") {
+      new ScriptLocalPassFactory("Es6SplitVariableDeclarations") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new Es6SplitVariableDeclarations(compiler);
@@ -413,7 +479,7 @@ public class TranspilationPasses {
 
   /** Transpiles REST parameters and SPREAD in both array literals and function calls. */
   static final HotSwapPassFactory es6RewriteRestAndSpread =
-      new HotSwapPassFactory("es6RewriteRestAndSpread") {
+      new ScriptLocalPassFactory("es6RewriteRestAndSpread") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new Es6RewriteRestAndSpread(compiler);
@@ -430,7 +496,7 @@ public class TranspilationPasses {
    * convert constructs which are not converted by this pass. This pass can run after NTI
    */
   static final HotSwapPassFactory lateConvertEs6ToEs3 =
-      new HotSwapPassFactory("lateConvertEs6") {
+      new ScriptLocalPassFactory("lateConvertEs6") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new LateEs6ToEs3Converter(compiler);
@@ -443,7 +509,7 @@ public class TranspilationPasses {
       };
 
   static final HotSwapPassFactory es6ForOf =
-      new HotSwapPassFactory("es6ForOf") {
+      new ScriptLocalPassFactory("es6ForOf") {
         @Override
         protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
           return new Es6ForOfConverter(compiler);
@@ -456,7 +522,7 @@ public class TranspilationPasses {
       };
 
   static final HotSwapPassFactory rewriteBlockScopedFunctionDeclaration =
-      new HotSwapPassFactory("Es6RewriteBlockScopedFunctionDeclaration") {
+      new ScriptLocalPassFactory("Es6RewriteBlockScopedFunctionDeclaration") {
     @Override
     protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
       return new Es6RewriteBlockScopedFunctionDeclaration(compiler);
@@ -482,7 +548,7 @@ public class TranspilationPasses {
   };
 
   static final HotSwapPassFactory rewriteGenerators =
-      new HotSwapPassFactory("rewriteGenerators") {
+      new ScriptLocalPassFactory("rewriteGenerators") {
     @Override
     protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
       return new Es6RewriteGenerators(compiler);
@@ -589,9 +655,9 @@ public class TranspilationPasses {
    * <p>Doing this indicates that the AST no longer contains uses of the features, or that they are
    * no longer of concern for some other reason.
    */
-  private static HotSwapPassFactory createFeatureRemovalPass(
+  private static ScriptLocalPassFactory createFeatureRemovalPass(
       String passName, final Feature featureToRemove, final Feature... moreFeaturesToRemove) {
-    return new HotSwapPassFactory(passName) {
+    return new ScriptLocalPassFactory(passName) {
       @Override
       protected HotSwapCompilerPass create(final AbstractCompiler compiler) {
         return new HotSwapCompilerPass() {
@@ -83,6 +83,19 @@ public abstract class WarningsGuard implements Serializable {
     return Priority.DEFAULT.value;
   }
 
+  /**
+   * Returns whether {@link #level} only depends on the source name, type and default level of the
+   * error, so that its result for one error can be reused for all errors that share them.
+   */
+  protected boolean dependsOnlyOnSourceAndType() {
+    return false;
+  }
+
+  /** Returns whether {@link #level} only ever returns OFF or null. */
+  protected boolean onlySuppresses() {
+    return false;
+  }
+
   /**
    * Returns whether all warnings in the given diagnostic group will be
    * filtered out. Used to determine which passes to skip.
@@ -16,12 +16,24 @@
 
 package com.google.javascript.jscomp.bundle;
 
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import java.util.Iterator;
+import java.util.Map;
 
-/** A Transformer that caches output from a delegate transformer. */
+/**
+ * A Transformer that caches output from a delegate transformer. May also be given a {@link
+ * PersistentCache} that is consulted on misses of the in-memory cache, so that results survive
+ * restarts.
+ */
 @GwtIncompatible
 public class CachedTransformer implements Source.Transformer {
 
@@ -34,6 +46,27 @@ public class CachedTransformer implements Source.Transformer {
     this.cache = builder.build(CacheLoader.from(delegate::transform));
   }
 
+  /**
+   * @param persistentCache the disk tier under the in-memory cache. It stores the code, source
+   *     map, source URLs, runtimes and load flags of the transformed sources; any other property of
+   *     a source read back from it is copied from the input.
+   * @param configurationKey describes how the delegate transforms sources. It is part of the key
+   *     of every persistent entry, so that different transformers can share a cache directory.
+   */
+  public CachedTransformer(
+      Source.Transformer delegate,
+      CacheBuilder<? super Source, ? super Source> builder,
+      PersistentCache persistentCache,
+      String configurationKey) {
+    checkNotNull(persistentCache);
+    checkNotNull(configurationKey);
+    this.cache =
+        builder.build(
+            CacheLoader.from(
+                input ->
+                    transformPersistently(delegate, persistentCache, configurationKey, input)));
+  }
+
   public CachedTransformer(Source.Transformer delegate, String spec) {
     this(delegate, CacheBuilder.from(spec));
   }
@@ -46,4 +79,63 @@ public class CachedTransformer implements Source.Transformer {
   public Source transform(Source input) {
     return cache.getUnchecked(input);
   }
+
+  private static Source transformPersistently(
+      Source.Transformer delegate,
+      PersistentCache persistentCache,
+      String configurationKey,
+      Source input) {
+    ImmutableList.Builder<String> key =
+        ImmutableList.<String>builder()
+            .add("transform", configurationKey, input.path().toString(), input.code());
+    addProperties(key, input);
+    ImmutableList<String> persistentKey = key.build();
+
+    ImmutableList<String> values = persistentCache.get(persistentKey);
+    if (values != null) {
+      try {
+        return readProperties(input.toBuilder(), values.iterator());
+      } catch (RuntimeException e) {
+        // A malformed entry: transform the input again and overwrite it.
+      }
+    }
+    Source output = delegate.transform(input);
+    ImmutableList.Builder<String> value = ImmutableList.<String>builder().add(output.code());
+    addProperties(value, output);
+    persistentCache.put(persistentKey, value.build());
+    return output;
+  }
+
+  private static void addProperties(ImmutableList.Builder<String> list, Source source) {
+    list.add(
+        source.originalCode(),
+        source.sourceMap(),
+        source.sourceUrl(),
+        source.sourceMappingUrl(),
+        Integer.toString(source.runtimes().size()));
+    list.addAll(source.runtimes());
+    list.add(Integer.toString(source.loadFlags().size()));
+    for (Map.Entry<String, String> flag : source.loadFlags().entrySet()) {
+      list.add(flag.getKey(), flag.getValue());
+    }
+  }
+
+  private static Source readProperties(Source.Builder builder, Iterator<String> values) {
+    builder
+        .setCode(values.next())
+        .setOriginalCode(values.next())
+        .setSourceMap(values.next())
+        .setSourceUrl(values.next())
+        .setSourceMappingUrl(values.next());
+    ImmutableSet.Builder<String> runtimes = ImmutableSet.builder();
+    for (int i = Integer.parseInt(values.next()); i > 0; i--) {
+      runtimes.add(values.next());
+    }
+    ImmutableMap.Builder<String, String> loadFlags = ImmutableMap.builder();
+    for (int i = Integer.parseInt(values.next()); i > 0; i--) {
+      loadFlags.put(values.next(), values.next());
+    }
+    checkState(!values.hasNext());
+    return builder.setRuntimes(runtimes.build()).setLoadFlags(loadFlags.build()).build();
+  }
 }
@@ -0,0 +1,237 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.bundle;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.Hasher;
+import com.google.common.hash.Hashing;
+import com.google.javascript.jscomp.Compiler;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.MissingResourceException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import javax.annotation.Nullable;
+
+/**
+ * A content-addressed cache of string tuples in a directory on disk, used as a second tier under
+ * the in-memory caches of {@link CachedTransformer} and {@code CachingTranspiler} so that their
+ * results survive restarts.
+ *
+ * <p>Each entry is stored in a gzipped file named after a SHA-256 hash of its key and the compiler
+ * version, so results of an older compiler are never reused. Entries are written to a temporary
+ * file and then moved into place, so several processes can share a directory: a reader sees either
+ * a complete entry or none. Reading an entry refreshes its modification time, and when the entries
+ * grow beyond the size limit the least recently used ones are deleted.
+ *
+ * <p>The cache never fails a lookup: entries that can't be read or written are treated as misses.
+ */
+@GwtIncompatible
+public final class PersistentCache {
+
+  private static final Logger logger = Logger.getLogger(PersistentCache.class.getName());
+
+  /** Bump this whenever the format of the entry files changes. */
+  private static final int FORMAT_VERSION = 1;
+
+  private static final String SUFFIX = ".entry";
+
+  private static final String COMPILER_VERSION = compilerVersion();
+
+  private final Path directory;
+  private final long maxSizeInBytes;
+
+  // An estimate of the total size of the entries, or -1 if the directory hasn't been scanned yet.
+  private final AtomicLong size = new AtomicLong(-1);
+
+  /**
+   * @param directory the directory holding the entries, created if it doesn't exist
+   * @param maxSizeInBytes the total size the entries may grow to before old ones are evicted
+   */
+  public PersistentCache(Path directory, long maxSizeInBytes) throws IOException {
+    checkArgument(maxSizeInBytes > 0, "maxSizeInBytes must be positive");
+    this.directory = Files.createDirectories(directory);
+    this.maxSizeInBytes = maxSizeInBytes;
+  }
+
+  /** Returns the values stored for the key, or null if there are none. */
+  @Nullable
+  public ImmutableList<String> get(List<String> key) {
+    Path file = fileFor(key);
+    try (DataInputStream in =
+        new DataInputStream(
+            new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))))) {
+      if (in.readInt() != FORMAT_VERSION) {
+        return null;
+      }
+      int count = in.readInt();
+      ImmutableList.Builder<String> values = ImmutableList.builder();
+      for (int i = 0; i < count; i++) {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        values.add(new String(bytes, UTF_8));
+      }
+      touch(file);
+      return values.build();
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException | RuntimeException e) {
+      logger.log(Level.WARNING, "Ignoring unreadable cache entry " + file, e);
+      return null;
+    }
+  }
+
+  /** Stores the values for the key, replacing any previous ones. */
+  public void put(List<String> key, List<String> values) {
+    Path file = fileFor(key);
+    Path temp = null;
+    try {
+      temp = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+      try (DataOutputStream out =
+          new DataOutputStream(
+              new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(temp))))) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(values.size());
+        for (String value : values) {
+          byte[] bytes = value.getBytes(UTF_8);
+          out.writeInt(bytes.length);
+          out.write(bytes);
+        }
+      }
+      long entrySize = Files.size(temp);
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      if (size.get() < 0) {
+        evictIfNeeded();
+      } else if (size.addAndGet(entrySize) > maxSizeInBytes) {
+        evictIfNeeded();
+      }
+    } catch (IOException e) {
+      logger.log(Level.WARNING, "Couldn't write cache entry " + file, e);
+    } finally {
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (IOException e) {
+          // Ignore: a leftover temporary file is harmless.
+        }
+      }
+    }
+  }
+
+  /**
+   * Recomputes the size of the entries from the directory, which other processes may also have
+   * written to, and deletes the least recently used entries while they're over the size limit.
+   * Entries are deleted down to 90% of the limit, so that eviction doesn't run on every write.
+   */
+  @VisibleForTesting
+  synchronized void evictIfNeeded() throws IOException {
+    List<Path> files = new ArrayList<>();
+    List<BasicFileAttributes> attributes = new ArrayList<>();
+    long total = 0;
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+      for (Path file : entries) {
+        try {
+          BasicFileAttributes attrs = Files.readAttributes(file, BasicFileAttributes.class);
+          files.add(file);
+          attributes.add(attrs);
+          total += attrs.size();
+        } catch (NoSuchFileException e) {
+          // Evicted by another process.
+        }
+      }
+    }
+    if (total > maxSizeInBytes) {
+      List<Integer> order = new ArrayList<>();
+      for (int i = 0; i < files.size(); i++) {
+        order.add(i);
+      }
+      order.sort(Comparator.comparing(i -> attributes.get(i).lastModifiedTime()));
+      long target = maxSizeInBytes - maxSizeInBytes / 10;
+      for (int i : order) {
+        if (total <= target) {
+          break;
+        }
+        Files.deleteIfExists(files.get(i));
+        total -= attributes.get(i).size();
+      }
+    }
+    size.set(total);
+  }
+
+  /** Returns the estimated total size of the entries, or -1 if it isn't known yet. */
+  @VisibleForTesting
+  long getSize() {
+    return size.get();
+  }
+
+  private Path fileFor(List<String> key) {
+    Hasher hasher = Hashing.sha256().newHasher();
+    hasher.putInt(FORMAT_VERSION);
+    putString(hasher, COMPILER_VERSION);
+    hasher.putInt(key.size());
+    for (String part : key) {
+      putString(hasher, part);
+    }
+    return directory.resolve(hasher.hash() + SUFFIX);
+  }
+
+  private static void putString(Hasher hasher, String s) {
+    hasher.putInt(s.length()).putUnencodedChars(s);
+  }
+
+  private static void touch(Path file) {
+    try {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+    } catch (IOException e) {
+      // Ignore: the entry may have been evicted by another process in the meantime.
+    }
+  }
+
+  private static String compilerVersion() {
+    try {
+      return Compiler.getReleaseVersion();
+    } catch (MissingResourceException e) {
+      return "";
+    }
+  }
+}
@@ -60,7 +60,7 @@ public class BrowserModuleResolver extends ModuleResolver {
       return null;
     }
 
-    String loadAddress = locate(scriptAddress, moduleAddress);
+    String loadAddress = resolveMemoized(scriptAddress, moduleAddress, this::locate);
     if (loadAddress == null) {
       errorHandler.report(
           CheckLevel.WARNING,
@@ -146,7 +146,7 @@ public class BrowserWithTransformedPrefixesModuleResolver extends ModuleResolver
       return null;
     }
 
-    String loadAddress = locate(scriptAddress, transformedAddress);
+    String loadAddress = resolveMemoized(scriptAddress, transformedAddress, this::locate);
     if (transformedAddress == null) {
       errorHandler.report(
           CheckLevel.WARNING,
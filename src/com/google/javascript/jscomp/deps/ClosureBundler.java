@@ -15,6 +15,8 @@
  */
 package com.google.javascript.jscomp.deps;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 import com.google.common.base.Strings;
 import com.google.common.io.CharSource;
 import com.google.common.io.Files;
@@ -25,8 +27,13 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -34,6 +41,16 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 public final class ClosureBundler {
 
+  private static final String GOOG_MODULE_PREFIX_STRING =
+      "goog.loadModule(function(exports) {"
+      + "'use strict';";
+  private static final String GOOG_MODULE_SUFFIX_STRING =
+      "\n" // terminate any trailing single line comment.
+      + ";" // terminate any trailing expression.
+      + "return exports;});\n";
+  private static final byte[] GOOG_MODULE_PREFIX = GOOG_MODULE_PREFIX_STRING.getBytes(UTF_8);
+  private static final byte[] GOOG_MODULE_SUFFIX = GOOG_MODULE_SUFFIX_STRING.getBytes(UTF_8);
+
   private final Transpiler transpiler;
   private final Transpiler es6ModuleTranspiler;
 
@@ -46,6 +63,10 @@ public final class ClosureBundler {
   // via just a path (and not the file contents).
   private final Map<String, String> sourceMapCache;
 
+  // The output generated for each file written to a channel, by absolute path. Only the latest
+  // output of each file is kept.
+  private final Map<String, CachedOutput> outputCache;
+
   public ClosureBundler() {
     this(Transpiler.NULL);
   }
@@ -61,6 +82,7 @@ public final class ClosureBundler {
         EvalMode.NORMAL,
         /* sourceUrl= */ null,
         /* path= */ "unknown_source",
+        new ConcurrentHashMap<>(),
         new ConcurrentHashMap<>());
   }
 
@@ -70,19 +92,21 @@ public final class ClosureBundler {
       EvalMode mode,
       String sourceUrl,
       String path,
-      Map<String, String> sourceMapCache) {
+      Map<String, String> sourceMapCache,
+      Map<String, CachedOutput> outputCache) {
     this.transpiler = transpiler;
     this.mode = mode;
     this.sourceUrl = sourceUrl;
     this.path = path;
     this.sourceMapCache = sourceMapCache;
+    this.outputCache = outputCache;
     this.es6ModuleTranspiler = es6ModuleTranspiler;
   }
 
   public ClosureBundler withTranspilers(
       Transpiler newTranspiler, Transpiler newEs6ModuleTranspiler) {
     return new ClosureBundler(
-        newTranspiler, newEs6ModuleTranspiler, mode, sourceUrl, path, sourceMapCache);
+        newTranspiler, newEs6ModuleTranspiler, mode, sourceUrl, path, sourceMapCache, outputCache);
   }
 
   public ClosureBundler withTranspiler(Transpiler newTranspiler) {
@@ -96,17 +120,17 @@ public final class ClosureBundler {
   public final ClosureBundler useEval(boolean useEval) {
     EvalMode newMode = useEval ? EvalMode.EVAL : EvalMode.NORMAL;
     return new ClosureBundler(
-        transpiler, es6ModuleTranspiler, newMode, sourceUrl, path, sourceMapCache);
+        transpiler, es6ModuleTranspiler, newMode, sourceUrl, path, sourceMapCache, outputCache);
   }
 
   public final ClosureBundler withSourceUrl(String newSourceUrl) {
     return new ClosureBundler(
-        transpiler, es6ModuleTranspiler, mode, newSourceUrl, path, sourceMapCache);
+        transpiler, es6ModuleTranspiler, mode, newSourceUrl, path, sourceMapCache, outputCache);
   }
 
   public final ClosureBundler withPath(String newPath) {
     return new ClosureBundler(
-        transpiler, es6ModuleTranspiler, mode, sourceUrl, newPath, sourceMapCache);
+        transpiler, es6ModuleTranspiler, mode, sourceUrl, newPath, sourceMapCache, outputCache);
   }
 
   /** Append the contents of the string to the supplied appendable. */
@@ -140,16 +164,64 @@ public final class ClosureBundler {
       CharSource content) throws IOException {
     if (info.isModule()) {
       mode.appendGoogModule(transpile(content.read()), out, sourceUrl);
-    } else if ("es6".equals(info.getLoadFlags().get("module")) && transpiler == Transpiler.NULL) {
-      // TODO(johnplaisted): Make the default transpiler the ES_MODULE_TO_CJS_TRANSPILER. Currently
-      // some code is passing in unicode identifiers in non-ES6 modules the compiler fails to parse.
-      // Once this compiler bug is fixed we can always transpile.
+    } else if (needsEs6ModuleTranspilation(info)) {
       mode.appendTraditional(transpileEs6Module(content.read()), out, sourceUrl);
     } else {
       mode.appendTraditional(transpile(content.read()), out, sourceUrl);
     }
   }
 
+  /**
+   * Writes the contents of the file to the supplied channel, encoded as UTF-8.
+   *
+   * <p>UTF-8 files that this bundler passes through unchanged, i.e. scripts and goog.modules that
+   * are neither transpiled nor eval-wrapped, are transferred straight from the file to the channel
+   * and only the wrapper around them is generated. The output for any other file is cached until
+   * the size or modification time of the file changes.
+   */
+  public void appendTo(
+      WritableByteChannel out,
+      DependencyInfo info,
+      File content, Charset contentCharset) throws IOException {
+    if (mode == EvalMode.NORMAL
+        && transpiler == Transpiler.NULL
+        && !needsEs6ModuleTranspilation(info)
+        && contentCharset.equals(UTF_8)) {
+      // Transpiler.NULL returns its input and an empty source map.
+      sourceMapCache.put(path, "");
+      if (info.isModule()) {
+        write(out, GOOG_MODULE_PREFIX);
+        transferFile(content, out);
+        write(out, GOOG_MODULE_SUFFIX);
+      } else {
+        transferFile(content, out);
+      }
+      if (sourceUrl != null) {
+        write(out, ("\n//# sourceURL=" + sourceUrl + "\n").getBytes(UTF_8));
+      }
+      return;
+    }
+
+    // Stamp the file before reading it, so that a change made while it is read invalidates the
+    // output.
+    String key = content.getAbsolutePath();
+    long length = content.length();
+    long lastModified = content.lastModified();
+    CachedOutput output = outputCache.get(key);
+    if (output != null && output.isFor(this, info, contentCharset, length, lastModified)) {
+      sourceMapCache.put(path, output.sourceMap);
+    } else {
+      StringBuilder sb = new StringBuilder();
+      appendTo(sb, info, content, contentCharset);
+      output =
+          new CachedOutput(
+              this, info, contentCharset, length, lastModified, sb.toString().getBytes(UTF_8),
+              getSourceMap(path));
+      outputCache.put(key, output);
+    }
+    write(out, output.bytes);
+  }
+
   public void appendRuntimeTo(Appendable out) throws IOException {
     String runtime = transpiler.runtime();
     if (!runtime.isEmpty()) {
@@ -168,6 +240,86 @@ public final class ClosureBundler {
     return Strings.nullToEmpty(sourceMapCache.get(path));
   }
 
+  private boolean needsEs6ModuleTranspilation(DependencyInfo info) {
+    // TODO(johnplaisted): Make the default transpiler the ES_MODULE_TO_CJS_TRANSPILER. Currently
+    // some code is passing in unicode identifiers in non-ES6 modules the compiler fails to parse.
+    // Once this compiler bug is fixed we can always transpile.
+    return "es6".equals(info.getLoadFlags().get("module")) && transpiler == Transpiler.NULL;
+  }
+
+  private static void transferFile(File file, WritableByteChannel out) throws IOException {
+    try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = in.size();
+      long position = 0;
+      while (position < size) {
+        position += in.transferTo(position, size - position, out);
+      }
+    }
+  }
+
+  private static void write(WritableByteChannel out, byte[] bytes) throws IOException {
+    ByteBuffer buffer = ByteBuffer.wrap(bytes);
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+  }
+
+  /** The output of a file for one bundler configuration and one version of the file. */
+  private static final class CachedOutput {
+    final EvalMode mode;
+    final String sourceUrl;
+    final String path;
+    final Transpiler transpiler;
+    final Transpiler es6ModuleTranspiler;
+    final boolean isModule;
+    final boolean isEs6Module;
+    final Charset charset;
+    final long length;
+    final long lastModified;
+    final byte[] bytes;
+    final String sourceMap;
+
+    CachedOutput(
+        ClosureBundler bundler,
+        DependencyInfo info,
+        Charset charset,
+        long length,
+        long lastModified,
+        byte[] bytes,
+        String sourceMap) {
+      this.mode = bundler.mode;
+      this.sourceUrl = bundler.sourceUrl;
+      this.path = bundler.path;
+      this.transpiler = bundler.transpiler;
+      this.es6ModuleTranspiler = bundler.es6ModuleTranspiler;
+      this.isModule = info.isModule();
+      this.isEs6Module = bundler.needsEs6ModuleTranspilation(info);
+      this.charset = charset;
+      this.length = length;
+      this.lastModified = lastModified;
+      this.bytes = bytes;
+      this.sourceMap = sourceMap;
+    }
+
+    boolean isFor(
+        ClosureBundler bundler,
+        DependencyInfo info,
+        Charset charset,
+        long length,
+        long lastModified) {
+      return this.length == length
+          && this.lastModified == lastModified
+          && mode == bundler.mode
+          && Objects.equals(sourceUrl, bundler.sourceUrl)
+          && path.equals(bundler.path)
+          && transpiler == bundler.transpiler
+          && es6ModuleTranspiler == bundler.es6ModuleTranspiler
+          && isModule == info.isModule()
+          && isEs6Module == bundler.needsEs6ModuleTranspilation(info)
+          && this.charset.equals(charset);
+    }
+  }
+
   private String transpile(String s, Transpiler t) {
     TranspileResult result;
     try {
@@ -215,14 +367,9 @@ public final class ClosureBundler {
       @Override
       void appendGoogModule(String s, Appendable out, String sourceUrl) throws IOException {
         // add the prefix on the first line so the line numbers aren't affected.
-        out.append(
-            "goog.loadModule(function(exports) {"
-            + "'use strict';");
+        out.append(GOOG_MODULE_PREFIX_STRING);
         EscapeMode.NORMAL.append(s, out);
-        out.append(
-            "\n" // terminate any trailing single line comment.
-            + ";" // terminate any trailing expression.
-            + "return exports;});\n");
+        out.append(GOOG_MODULE_SUFFIX_STRING);
         appendSourceUrl(out, EscapeMode.NORMAL, sourceUrl);
       }
     };
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.SourceFile;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.annotation.Nullable;
+
+/**
+ * A cache of the dependency information that {@link DepsGenerator} scans from source files.
+ *
+ * <p>Entries are keyed by file path and are only reused while the file has the same size and
+ * modification time, so a generator using a cache that was saved by an earlier run only reads and
+ * scans the files that changed since. Sources that are not backed by a file on disk are never
+ * cached.
+ */
+@GwtIncompatible("java.io.ObjectInputStream")
+public final class DependencyInfoCache {
+
+  private static final Logger logger = Logger.getLogger(DependencyInfoCache.class.getName());
+
+  /** Bump this whenever the serialized form of the cache changes. */
+  private static final int VERSION = 1;
+
+  private final Map<String, Entry> entries;
+
+  /** Paths that were looked up or stored since the cache was created or loaded. */
+  private final Set<String> usedPaths = ConcurrentHashMap.newKeySet();
+
+  public DependencyInfoCache() {
+    this(new ConcurrentHashMap<>());
+  }
+
+  private DependencyInfoCache(Map<String, Entry> entries) {
+    this.entries = entries;
+  }
+
+  /**
+   * Loads a cache saved by {@link #save}. Returns an empty cache if the file doesn't exist or can't
+   * be read.
+   */
+  public static DependencyInfoCache load(File file) {
+    if (!file.isFile()) {
+      return new DependencyInfoCache();
+    }
+    try (ObjectInputStream in =
+        new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+      if (in.readInt() != VERSION) {
+        return new DependencyInfoCache();
+      }
+      @SuppressWarnings("unchecked")
+      Map<String, Entry> entries = (Map<String, Entry>) in.readObject();
+      return new DependencyInfoCache(new ConcurrentHashMap<>(entries));
+    } catch (IOException | ClassNotFoundException | ClassCastException e) {
+      logger.log(Level.WARNING, "Ignoring unreadable dependency cache " + file, e);
+      return new DependencyInfoCache();
+    }
+  }
+
+  /**
+   * Saves the entries of all files that were used since the cache was created or loaded. Entries
+   * of files that are no longer scanned are dropped.
+   */
+  public void save(File file) throws IOException {
+    Map<String, Entry> used = new HashMap<>();
+    for (String path : usedPaths) {
+      Entry entry = entries.get(path);
+      if (entry != null) {
+        used.put(path, entry);
+      }
+    }
+
+    File parent = file.getAbsoluteFile().getParentFile();
+    File temp = File.createTempFile(file.getName(), ".tmp", parent);
+    try {
+      try (ObjectOutputStream out =
+          new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(temp)))) {
+        out.writeInt(VERSION);
+        out.writeObject(used);
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      temp.delete();
+    }
+  }
+
+  /** Returns the number of cached files. */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Returns the current size and modification time of the file behind a source, or null if the
+   * source can't be cached. Call this before reading the source, so that a change made while it
+   * is being scanned invalidates the entry.
+   */
+  @Nullable
+  static Entry stamp(SourceFile source) {
+    File file = new File(source.getName());
+    if (!file.isFile()) {
+      return null;
+    }
+    return new Entry(file.length(), file.lastModified(), null, null);
+  }
+
+  /** Returns the cached entry for a source if the file hasn't changed since it was stored. */
+  @Nullable
+  Entry get(SourceFile source, Entry stamp) {
+    usedPaths.add(source.getName());
+    Entry entry = entries.get(source.getName());
+    return entry != null && entry.hasSameStamp(stamp) ? entry : null;
+  }
+
+  /** Stores the goog.addDependency calls found in a source. */
+  void putDepsFileInfos(SourceFile source, Entry stamp, List<DependencyInfo> depsFileInfos) {
+    put(
+        source,
+        new Entry(
+            stamp.length, stamp.lastModified, ImmutableList.copyOf(depsFileInfos), null));
+  }
+
+  /** Stores the dependency information and load flags scanned from a source. */
+  void putSourceInfo(SourceFile source, Entry stamp, DependencyInfo sourceInfo) {
+    put(source, new Entry(stamp.length, stamp.lastModified, null, sourceInfo));
+  }
+
+  private void put(SourceFile source, Entry entry) {
+    usedPaths.add(source.getName());
+    entries.merge(source.getName(), entry, Entry::merge);
+  }
+
+  /** The information scanned from one version of a file. */
+  static final class Entry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final long length;
+    private final long lastModified;
+
+    /** The goog.addDependency calls in the file, or null if it hasn't been scanned for them. */
+    @Nullable final ImmutableList<DependencyInfo> depsFileInfos;
+
+    /** The provides, requires and final load flags of the file, or null if not scanned yet. */
+    @Nullable final DependencyInfo sourceInfo;
+
+    private Entry(
+        long length,
+        long lastModified,
+        @Nullable ImmutableList<DependencyInfo> depsFileInfos,
+        @Nullable DependencyInfo sourceInfo) {
+      this.length = length;
+      this.lastModified = lastModified;
+      this.depsFileInfos = depsFileInfos;
+      this.sourceInfo = sourceInfo;
+    }
+
+    private boolean hasSameStamp(Entry other) {
+      return length == other.length && lastModified == other.lastModified;
+    }
+
+    /** Combines an existing entry with a newer one, keeping old results for the same file. */
+    private static Entry merge(Entry existing, Entry update) {
+      if (!existing.hasSameStamp(update)) {
+        return update;
+      }
+      return new Entry(
+          update.length,
+          update.lastModified,
+          update.depsFileInfos != null ? update.depsFileInfos : existing.depsFileInfos,
+          update.sourceInfo != null ? update.sourceInfo : existing.sourceInfo);
+    }
+  }
+}
@@ -16,6 +16,7 @@
 
 package com.google.javascript.jscomp.deps;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.collect.ImmutableList;
@@ -23,6 +24,9 @@ import com.google.common.collect.ImmutableMultiset;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.Multiset;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.javascript.jscomp.BlackHoleErrorManager;
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.Compiler;
 import com.google.javascript.jscomp.CompilerOptions;
@@ -45,9 +49,14 @@ import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 
 /**
  * Generates deps.js files by scanning JavaScript files for
@@ -72,6 +81,8 @@ public class DepsGenerator {
   private final InclusionStrategy mergeStrategy;
   private final ModuleLoader loader;
   final ErrorManager errorManager;
+  private int numThreads = 1;
+  @Nullable private DependencyInfoCache cache = null;
 
   static final DiagnosticType ES6_IMPORT_FOR_NON_ES6_MODULE =
       DiagnosticType.warning(
@@ -123,6 +134,25 @@ public class DepsGenerator {
     this.loader = loader;
   }
 
+  /**
+   * Sets the number of threads that scan source files. The module loader's error handler must be
+   * thread-safe when this is more than one.
+   */
+  public DepsGenerator setNumThreads(int numThreads) {
+    checkArgument(numThreads > 0, "numThreads must be positive: %s", numThreads);
+    this.numThreads = numThreads;
+    return this;
+  }
+
+  /**
+   * Sets a cache of previously scanned source files. Files that haven't changed since they were
+   * cached are not read again, except that ES6 modules have their imports resolved again.
+   */
+  public DepsGenerator setCache(@Nullable DependencyInfoCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
   /**
    * Performs the parsing inputs and writing of outputs.
    * @throws IOException Occurs upon an IO error.
@@ -449,8 +479,7 @@ public class DepsGenerator {
     // calls as well.
     for (SourceFile src : srcs) {
       if (!shouldSkipDepsFile(src)) {
-        List<DependencyInfo> srcInfos =
-            depsParser.parseFileReader(src.getName(), src.getCodeReader());
+        List<DependencyInfo> srcInfos = parseDepsFileInfos(depsParser, src);
         for (DependencyInfo info : srcInfos) {
           depsFiles.put(info.getPathRelativeToClosureBase(), info);
         }
@@ -460,6 +489,27 @@ public class DepsGenerator {
     return depsFiles;
   }
 
+  /** Parses the goog.addDependency calls in a source file, or gets them from the cache. */
+  private List<DependencyInfo> parseDepsFileInfos(DepsFileParser depsParser, SourceFile src)
+      throws IOException {
+    DependencyInfoCache.Entry stamp = cache != null ? DependencyInfoCache.stamp(src) : null;
+    if (stamp != null) {
+      DependencyInfoCache.Entry cached = cache.get(src, stamp);
+      if (cached != null && cached.depsFileInfos != null) {
+        return cached.depsFileInfos;
+      }
+    }
+
+    int diagnosticCount = errorManager.getErrorCount() + errorManager.getWarningCount();
+    List<DependencyInfo> srcInfos =
+        depsParser.parseFileReader(src.getName(), src.getCodeReader());
+    if (stamp != null
+        && diagnosticCount == errorManager.getErrorCount() + errorManager.getWarningCount()) {
+      cache.putDepsFileInfos(src, stamp, srcInfos);
+    }
+    return srcInfos;
+  }
+
   /**
    * Parses all source files for dependency information.
    * @param preparsedFiles A set of closure-relative paths.
@@ -470,11 +520,10 @@ public class DepsGenerator {
    */
   private Map<String, DependencyInfo> parseSources(
       Set<String> preparsedFiles) throws IOException {
-    Map<String, DependencyInfo> parsedFiles = new LinkedHashMap<>();
-    JsFileParser jsParser = new JsFileParser(errorManager).setModuleLoader(loader);
-    Compiler compiler = new Compiler();
-    compiler.init(ImmutableList.of(), ImmutableList.of(), new CompilerOptions());
-
+    // Each source is scanned with its own parser and error manager, so that the files can be
+    // scanned in parallel and their diagnostics reported in order afterwards.
+    ThreadLocal<Compiler> compilers = ThreadLocal.withInitial(DepsGenerator::createParseCompiler);
+    List<Callable<ParsedSource>> tasks = new ArrayList<>();
     for (SourceFile file : srcs) {
       String closureRelativePath =
           PathUtil.makeRelative(
@@ -484,21 +533,123 @@ public class DepsGenerator {
       }
       if (InclusionStrategy.WHEN_IN_SRCS == mergeStrategy ||
           !preparsedFiles.contains(closureRelativePath)) {
-        DependencyInfo depInfo =
-            jsParser.parseFile(
-                file.getName(), closureRelativePath,
-                file.getCode());
-        depInfo = new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler);
-
-        // Kick the source out of memory.
-        file.clearCachedSource();
-        parsedFiles.put(closureRelativePath, depInfo);
+        tasks.add(() -> parseSource(file, closureRelativePath, compilers.get()));
       }
     }
 
+    Map<String, DependencyInfo> parsedFiles = new LinkedHashMap<>();
+    for (ParsedSource parsed : runTasks(tasks)) {
+      for (JSError error : parsed.diagnostics.getErrors()) {
+        errorManager.report(CheckLevel.ERROR, error);
+      }
+      for (JSError warning : parsed.diagnostics.getWarnings()) {
+        errorManager.report(CheckLevel.WARNING, warning);
+      }
+      parsedFiles.put(parsed.info.getPathRelativeToClosureBase(), parsed.info);
+    }
     return parsedFiles;
   }
 
+  private static Compiler createParseCompiler() {
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.of(), ImmutableList.of(), new CompilerOptions());
+    return compiler;
+  }
+
+  /**
+   * Scans a source file for its provides, requires and load flags, or gets them from the cache.
+   * Determining the load flags takes a full parse of the file, which is why they are computed here
+   * rather than when the deps file is written.
+   */
+  private ParsedSource parseSource(
+      SourceFile file, String closureRelativePath, Compiler compiler) throws IOException {
+    BlackHoleErrorManager diagnostics = new BlackHoleErrorManager();
+    DependencyInfoCache.Entry stamp = cache != null ? DependencyInfoCache.stamp(file) : null;
+    DependencyInfo cachedInfo = null;
+    if (stamp != null) {
+      DependencyInfoCache.Entry cached = cache.get(file, stamp);
+      if (cached != null
+          && cached.sourceInfo != null
+          && cached.sourceInfo.getName().equals(file.getName())
+          && cached.sourceInfo.getPathRelativeToClosureBase().equals(closureRelativePath)) {
+        cachedInfo = cached.sourceInfo;
+      }
+    }
+
+    // The requires of ES6 modules depend on how the module loader resolves their imports, so
+    // only their load flags are reused.
+    boolean isEs6Module =
+        cachedInfo != null && "es6".equals(cachedInfo.getLoadFlags().get("module"));
+    if (cachedInfo != null && !isEs6Module) {
+      return new ParsedSource(cachedInfo, diagnostics);
+    }
+
+    JsFileParser jsParser = new JsFileParser(diagnostics).setModuleLoader(loader);
+    DependencyInfo depInfo =
+        jsParser.parseFile(file.getName(), closureRelativePath, file.getCode());
+    if (cachedInfo != null) {
+      depInfo = SimpleDependencyInfo.Builder.from(depInfo)
+          .setLoadFlags(cachedInfo.getLoadFlags())
+          .build();
+    } else {
+      depInfo =
+          SimpleDependencyInfo.Builder.from(
+                  new LazyParsedDependencyInfo(depInfo, new JsAst(file), compiler))
+              .build();
+      if (stamp != null && diagnostics.getErrorCount() + diagnostics.getWarningCount() == 0) {
+        cache.putSourceInfo(file, stamp, depInfo);
+      }
+    }
+
+    // Kick the source out of memory.
+    file.clearCachedSource();
+    return new ParsedSource(depInfo, diagnostics);
+  }
+
+  /** Runs tasks on {@link #numThreads} threads and returns their results in order. */
+  private <T> List<T> runTasks(List<Callable<T>> tasks) throws IOException {
+    List<T> results = new ArrayList<>();
+    if (numThreads <= 1 || tasks.size() <= 1) {
+      for (Callable<T> task : tasks) {
+        try {
+          results.add(task.call());
+        } catch (IOException | RuntimeException e) {
+          throw e;
+        } catch (Exception e) {
+          throw new IllegalStateException(e);
+        }
+      }
+      return results;
+    }
+
+    ExecutorService executor =
+        Executors.newFixedThreadPool(
+            numThreads,
+            new ThreadFactoryBuilder().setDaemon(true).setNameFormat("deps-generator-%d").build());
+    try {
+      for (Future<T> future : executor.invokeAll(tasks)) {
+        results.add(Futures.getChecked(future, IOException.class));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while scanning sources", e);
+    } finally {
+      executor.shutdownNow();
+    }
+    return results;
+  }
+
+  /** The dependency information of a source file and the diagnostics from scanning it. */
+  private static final class ParsedSource {
+    final DependencyInfo info;
+    final ErrorManager diagnostics;
+
+    ParsedSource(DependencyInfo info, ErrorManager diagnostics) {
+      this.info = info;
+      this.diagnostics = diagnostics;
+    }
+  }
+
   /**
    * Creates the content to put into the output deps.js file. If mergeDeps is
    * true, then all of the dependency information in the providedDeps will be
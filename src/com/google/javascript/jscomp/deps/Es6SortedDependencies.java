@@ -20,19 +20,13 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Iterables;
-import com.google.common.collect.LinkedHashMultimap;
-import com.google.common.collect.Multimap;
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 
 /**
  * A sorted list of inputs following the ES6 module ordering spec.
@@ -48,6 +42,9 @@ import java.util.Set;
  * <p>
  * Also exposes other information about the inputs, like which inputs
  * do not provide symbols.
+ * <p>
+ * The inputs and their imports are indexed by an {@link InputDependencyGraph},
+ * so sorting is linear in the number of inputs and imports.
  *
  * @author stalcup@google.com (John Stalcup)
  */
@@ -56,11 +53,12 @@ public final class Es6SortedDependencies<INPUT extends DependencyInfo>
 
   private final List<INPUT> userOrderedInputs = new ArrayList<>();
   private final List<INPUT> importOrderedInputs = new ArrayList<>();
-  private final Set<INPUT> completedInputs = new HashSet<>();
   private final Map<String, INPUT> nonExportingInputs = new LinkedHashMap<>();
   private final Map<String, INPUT> exportingInputBySymbolName = new HashMap<>();
-  // Maps an input A to the inputs it depends on, ie, inputs that provide stuff that A requires.
-  private final Multimap<INPUT, INPUT> importedInputByImportingInput = LinkedHashMultimap.create();
+  private InputDependencyGraph<INPUT> graph;
+  // The graph ids of userOrderedInputs and importOrderedInputs, position by position.
+  private int[] userOrderIds;
+  private int[] importOrderIds;
 
   public Es6SortedDependencies(List<INPUT> userOrderedInputs) {
     this.userOrderedInputs.addAll(userOrderedInputs);
@@ -69,26 +67,20 @@ public final class Es6SortedDependencies<INPUT extends DependencyInfo>
 
   @Override
   public ImmutableList<INPUT> getDependenciesOf(List<INPUT> rootInputs, boolean sorted) {
-    checkArgument(userOrderedInputs.containsAll(rootInputs));
-
-    Set<INPUT> includedInputs = new HashSet<>();
-    Deque<INPUT> worklist = new ArrayDeque<>(rootInputs);
-    while (!worklist.isEmpty()) {
-      INPUT input = worklist.pop();
-      if (includedInputs.add(input)) {
-        for (String symbolName : input.getRequiredSymbols()) {
-          INPUT importedSymbolName = exportingInputBySymbolName.get(symbolName);
-          if (importedSymbolName != null) {
-            worklist.add(importedSymbolName);
-          }
-        }
-      }
+    InputDependencyGraph<INPUT>.Traversal traversal = graph.newTraversal();
+    List<INPUT> includedInputs = new ArrayList<>();
+    for (INPUT rootInput : rootInputs) {
+      int id = graph.getId(rootInput);
+      checkArgument(id != -1, "Unknown input %s", rootInput);
+      traversal.visit(id, includedInputs);
     }
 
+    List<INPUT> orderedInputs = sorted ? importOrderedInputs : userOrderedInputs;
+    int[] orderedIds = sorted ? importOrderIds : userOrderIds;
     ImmutableList.Builder<INPUT> builder = ImmutableList.builder();
-    for (INPUT input : (sorted ? importOrderedInputs : userOrderedInputs)) {
-      if (includedInputs.contains(input)) {
-        builder.add(input);
+    for (int i = 0; i < orderedIds.length; i++) {
+      if (traversal.isVisited(orderedIds[i])) {
+        builder.add(orderedInputs.get(i));
       }
     }
     return builder.build();
@@ -128,20 +120,6 @@ public final class Es6SortedDependencies<INPUT extends DependencyInfo>
     return nonExportingInputs.get(ModuleNames.fileToModuleName(symbol));
   }
 
-  private void orderInput(INPUT input) {
-    if (completedInputs.contains(input)) {
-      return;
-    }
-
-    completedInputs.add(input);
-    for (INPUT importedInput : importedInputByImportingInput.get(input)) {
-      orderInput(importedInput);
-    }
-
-    // Emit an input after its imports have been emitted.
-    importOrderedInputs.add(input);
-  }
-
   private void processInputs() {
     // Index.
     for (INPUT userOrderedInput : userOrderedInputs) {
@@ -162,25 +140,25 @@ public final class Es6SortedDependencies<INPUT extends DependencyInfo>
         exportingInputBySymbolName.put(providedSymbolName, userOrderedInput);
       }
     }
-    for (INPUT userOrderedInput : userOrderedInputs) {
-      for (String symbolName : userOrderedInput.getRequiredSymbols()) {
-        INPUT importedInput = exportingInputBySymbolName.get(symbolName);
-        if (importedInput != null) {
-          importedInputByImportingInput.put(userOrderedInput, importedInput);
-        }
-      }
+    graph =
+        new InputDependencyGraph<>(
+            userOrderedInputs, exportingInputBySymbolName, DependencyInfo::getRequiredSymbols);
+    userOrderIds = new int[userOrderedInputs.size()];
+    for (int i = 0; i < userOrderIds.length; i++) {
+      userOrderIds[i] = graph.getId(userOrderedInputs.get(i));
     }
 
     // Order.
-    // For each input, traverse in user-provided order.
-    for (INPUT userOrderedInput : userOrderedInputs) {
+    // For each input, traverse in user-provided order, emitting an input after its imports.
+    InputDependencyGraph<INPUT>.Traversal traversal = graph.newTraversal();
+    for (int id : userOrderIds) {
       // Traverse the graph starting from this input and record any
       // newly-reached inputs.
-      orderInput(userOrderedInput);
+      traversal.visit(id, importOrderedInputs);
+    }
+    importOrderIds = new int[importOrderedInputs.size()];
+    for (int i = 0; i < importOrderIds.length; i++) {
+      importOrderIds[i] = graph.getId(importOrderedInputs.get(i));
     }
-
-    // Free temporary indexes.
-    completedInputs.clear();
-    importedInputByImportingInput.clear();
   }
 }
@@ -0,0 +1,186 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.common.base.Function;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The "requires a namespace provided by" relation between a list of inputs, indexed for ordering
+ * very large numbers of inputs.
+ *
+ * <p>Equal inputs share an int id, assigned in the order they are first seen, and every namespace
+ * is resolved to the id of its provider once, up front. The edges are then stored in
+ * compressed-sparse-row form: the dependencies of input {@code i} are
+ * {@code edgeTargets[edgeStart[i]]} through {@code edgeTargets[edgeStart[i + 1] - 1]}, in the
+ * order the input requires them. Requires of namespaces that no input provides are dropped.
+ *
+ * <p>Traversals are iterative, so arbitrarily long require chains can't overflow the stack.
+ */
+public final class InputDependencyGraph<INPUT> {
+
+  private final List<INPUT> inputsById = new ArrayList<>();
+  private final Map<INPUT, Integer> idsByInput = new HashMap<>();
+  // Inputs can be costly to hash, so ids are looked up by identity first.
+  private final Map<INPUT, Integer> idsByIdentity = new IdentityHashMap<>();
+  private final int[] edgeStart;
+  private final int[] edgeTargets;
+
+  /**
+   * @param inputs the inputs, in any order
+   * @param inputsByNamespace the input providing each namespace. Every provider must be one of
+   *     {@code inputs}.
+   * @param requiredNamespaces the namespaces each input requires, in order
+   */
+  public InputDependencyGraph(
+      Iterable<INPUT> inputs,
+      Map<String, INPUT> inputsByNamespace,
+      Function<? super INPUT, ? extends Iterable<String>> requiredNamespaces) {
+    for (INPUT input : inputs) {
+      if (!idsByIdentity.containsKey(input)) {
+        Integer id = idsByInput.putIfAbsent(input, inputsById.size());
+        if (id == null) {
+          id = inputsById.size();
+          inputsById.add(input);
+        }
+        idsByIdentity.put(input, id);
+      }
+    }
+
+    Map<String, Integer> providerIds = new HashMap<>();
+    for (Map.Entry<String, INPUT> entry : inputsByNamespace.entrySet()) {
+      int id = getId(entry.getValue());
+      checkArgument(id != -1, "Namespace %s provided by an unknown input", entry.getKey());
+      providerIds.put(entry.getKey(), id);
+    }
+
+    int size = inputsById.size();
+    edgeStart = new int[size + 1];
+    int[] targets = new int[Math.max(size, 16)];
+    int edgeCount = 0;
+    for (int i = 0; i < size; i++) {
+      edgeStart[i] = edgeCount;
+      for (String namespace : requiredNamespaces.apply(inputsById.get(i))) {
+        Integer target = providerIds.get(namespace);
+        if (target != null) {
+          if (edgeCount == targets.length) {
+            targets = Arrays.copyOf(targets, edgeCount * 2);
+          }
+          targets[edgeCount++] = target;
+        }
+      }
+    }
+    edgeStart[size] = edgeCount;
+    edgeTargets = targets;
+  }
+
+  /** Returns the number of distinct inputs. */
+  public int size() {
+    return inputsById.size();
+  }
+
+  /** Returns the input with the given id. */
+  public INPUT getInput(int id) {
+    return inputsById.get(id);
+  }
+
+  /** Returns the id of an input, or -1 if it isn't in the graph. */
+  public int getId(INPUT input) {
+    Integer id = idsByIdentity.get(input);
+    if (id == null) {
+      id = idsByInput.get(input);
+    }
+    return id != null ? id : -1;
+  }
+
+  /** Returns a new traversal of this graph, with no input visited yet. */
+  public Traversal newTraversal() {
+    return new Traversal();
+  }
+
+  /**
+   * A depth-first traversal that remembers which inputs it has visited, so that it can be
+   * continued from several roots. {@link #reset} forgets the visited inputs in constant time.
+   */
+  public final class Traversal {
+    // An input is visited iff its stamp equals the current generation.
+    private final int[] stamps = new int[size()];
+    private int generation = 1;
+
+    // The explicit DFS stack: an input id and the index of the next edge to follow from it.
+    private final int[] stackIds = new int[size()];
+    private final int[] stackEdges = new int[size()];
+
+    private Traversal() {}
+
+    /** Forgets all visited inputs. */
+    public void reset() {
+      generation++;
+      if (generation == 0) {
+        Arrays.fill(stamps, 0);
+        generation = 1;
+      }
+    }
+
+    /** Returns whether the input with the given id has been visited since the last reset. */
+    public boolean isVisited(int id) {
+      return stamps[id] == generation;
+    }
+
+    /**
+     * Visits the input with the given id, and then each of its not yet visited dependencies in
+     * require order, recursively. Appends every newly visited input to {@code postOrder} after all
+     * of its own dependencies, so that each input comes after what it requires. Dependencies that
+     * close a cycle are skipped.
+     */
+    public void visit(int root, List<INPUT> postOrder) {
+      if (stamps[root] == generation) {
+        return;
+      }
+      stamps[root] = generation;
+      int depth = 0;
+      stackIds[0] = root;
+      stackEdges[0] = edgeStart[root];
+      while (depth >= 0) {
+        int id = stackIds[depth];
+        int edge = stackEdges[depth];
+        int end = edgeStart[id + 1];
+        while (edge < end && stamps[edgeTargets[edge]] == generation) {
+          edge++;
+        }
+        if (edge < end) {
+          int target = edgeTargets[edge];
+          stackEdges[depth] = edge + 1;
+          stamps[target] = generation;
+          depth++;
+          stackIds[depth] = target;
+          stackEdges[depth] = edgeStart[target];
+        } else {
+          postOrder.add(inputsById.get(id));
+          depth--;
+        }
+      }
+    }
+  }
+}
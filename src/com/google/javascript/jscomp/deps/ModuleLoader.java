@@ -34,6 +34,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
 import javax.annotation.Nullable;
 
 /**
@@ -78,6 +79,9 @@ public final class ModuleLoader {
 
   private final ModuleResolver moduleResolver;
 
+  /** Paths resolved by {@link #resolve}, keyed by the unresolved path. */
+  private final Map<String, ModulePath> resolvedPaths = new ConcurrentHashMap<>();
+
   /**
    * Creates an instance of the module loader which can be used to locate ES6 and CommonJS modules.
    *
@@ -219,7 +223,28 @@ public final class ModuleLoader {
 
   /** Resolves a path into a {@link ModulePath}. */
   public ModulePath resolve(String path) {
-    return new ModulePath(normalize(pathEscaper.escape(pathResolver.apply(path)), moduleRootPaths));
+    if (modulePaths.isEmpty()) {
+      // Loaders without inputs, such as EMPTY, are shared between compilations, so don't let their
+      // memo grow without bound.
+      return new ModulePath(
+          normalize(pathEscaper.escape(pathResolver.apply(path)), moduleRootPaths));
+    }
+    return resolvedPaths.computeIfAbsent(
+        path,
+        p -> new ModulePath(normalize(pathEscaper.escape(pathResolver.apply(p)), moduleRootPaths)));
+  }
+
+  /** Returns the number of module addresses that were resolved from a script. */
+  public long getResolutionLookups() {
+    return moduleResolver.getResolutionLookups();
+  }
+
+  /**
+   * Returns the number of module address lookups that were answered from the resolutions of
+   * earlier lookups from the same directory.
+   */
+  public long getResolutionMemoHits() {
+    return moduleResolver.getResolutionMemoHits();
   }
 
   /** Whether this is relative to the current file, or a top-level identifier. */
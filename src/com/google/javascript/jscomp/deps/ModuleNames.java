@@ -16,6 +16,7 @@
 
 package com.google.javascript.jscomp.deps;
 
+import com.google.common.base.CharMatcher;
 import com.google.common.base.Joiner;
 import java.util.Arrays;
 
@@ -31,6 +32,9 @@ public class ModuleNames {
   /** To join together normalized module names. */
   private static final Joiner MODULE_JOINER = Joiner.on(MODULE_SLASH);
 
+  /** The characters that {@link #escapePath} replaces. */
+  private static final CharMatcher SPECIAL_PATH_CHARS = CharMatcher.anyOf(":\\ []<>");
+
   /** Returns a module name for an absolute path, with no resolution or checking. */
   public static String fileToModuleName(String path) {
     return toModuleName(escapePath(path));
@@ -43,6 +47,10 @@ public class ModuleNames {
 
   /** Escapes the given input path. */
   static String escapePath(String input) {
+    if (SPECIAL_PATH_CHARS.matchesNoneOf(input)) {
+      return canonicalizePath(input);
+    }
+
     // Handle special characters
     String encodedInput = input.replace(':', '-')
         .replace('\\', '/')
@@ -93,6 +101,10 @@ public class ModuleNames {
    * If no segment could be consumed for "..", retains the segment.
    */
   static String canonicalizePath(String path) {
+    if (isCanonical(path)) {
+      return path;
+    }
+
     String[] parts = path.split(MODULE_SLASH);
     String[] buffer = new String[parts.length];
     int position = 0;
@@ -134,4 +146,28 @@ public class ModuleNames {
     }
     return MODULE_JOINER.join(Arrays.copyOf(buffer, position));
   }
+
+  /**
+   * Whether {@link #canonicalizePath} would return the path unchanged, which is the case when it
+   * has no "." or ".." segments and no trailing slash.
+   */
+  private static boolean isCanonical(String path) {
+    if (path.endsWith(MODULE_SLASH)) {
+      return false;
+    }
+    int start = 0;
+    while (true) {
+      int end = path.indexOf(MODULE_SLASH, start);
+      int length = (end < 0 ? path.length() : end) - start;
+      if ((length == 1 || length == 2)
+          && path.charAt(start) == '.'
+          && (length == 1 || path.charAt(start + 1) == '.')) {
+        return false;
+      }
+      if (end < 0) {
+        return true;
+      }
+      start = end + MODULE_SLASH.length();
+    }
+  }
 }
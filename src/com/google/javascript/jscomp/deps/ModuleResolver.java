@@ -22,6 +22,8 @@ import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.ErrorHandler;
 import com.google.javascript.jscomp.deps.ModuleLoader.PathEscaper;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.annotation.Nullable;
 
 /** Base class for algorithms that resolve JavaScript module references to input files. */
@@ -32,6 +34,24 @@ public abstract class ModuleResolver {
   /** Root URIs to match module roots against. */
   protected final ImmutableList<String> moduleRootPaths;
 
+  /**
+   * The suffixes that remain of the known module paths after removing a module root, so that a
+   * path can be looked up beneath all module roots at once.
+   */
+  private final ImmutableSet<String> modulePathsBeneathRoots;
+
+  /**
+   * Resolved load addresses, keyed by the directory of the importing script and then by module
+   * address. Resolution only depends on the directory, so all scripts in it share the entries.
+   */
+  private final Map<String, Map<String, String>> resolvedAddresses = new ConcurrentHashMap<>();
+
+  /** Marks a module address that couldn't be resolved, since the maps don't allow null. */
+  private static final String UNRESOLVED = "\0unresolved";
+
+  private final AtomicLong lookups = new AtomicLong();
+  private final AtomicLong memoHits = new AtomicLong();
+
   protected ErrorHandler errorHandler;
   private final PathEscaper pathEscaper;
 
@@ -44,6 +64,20 @@ public abstract class ModuleResolver {
     this.moduleRootPaths = moduleRootPaths;
     this.errorHandler = errorHandler;
     this.pathEscaper = pathEscaper;
+    this.modulePathsBeneathRoots = buildModulePathsBeneathRoots(modulePaths, moduleRootPaths);
+  }
+
+  private static ImmutableSet<String> buildModulePathsBeneathRoots(
+      ImmutableSet<String> modulePaths, ImmutableList<String> moduleRootPaths) {
+    ImmutableSet.Builder<String> builder = ImmutableSet.builder();
+    for (String modulePath : modulePaths) {
+      for (String rootPath : moduleRootPaths) {
+        if (modulePath.startsWith(rootPath)) {
+          builder.add(modulePath.substring(rootPath.length()));
+        }
+      }
+    }
+    return builder.build();
   }
 
   Map<String, String> getPackageJsonMainEntries() {
@@ -88,20 +122,60 @@ public abstract class ModuleResolver {
     }
 
     // Check for the module beneath each of the module roots
-    for (String rootPath : moduleRootPaths) {
-      String modulePath = rootPath + normalizedPath;
-
-      // Since there might be code that relying on whether the path has a leading slash or not,
-      // honor the state it was provided in. In an ideal world this would always be normalized
-      // to contain a leading slash.
-      if (modulePaths.contains(modulePath)) {
-        return canonicalizedPath;
-      }
+    // Since there might be code that relying on whether the path has a leading slash or not,
+    // honor the state it was provided in. In an ideal world this would always be normalized
+    // to contain a leading slash.
+    if (modulePathsBeneathRoots.contains(normalizedPath)) {
+      return canonicalizedPath;
     }
 
     return null;
   }
 
+  /** Resolves a module address relative to a script. Returns null if it can't be found. */
+  @FunctionalInterface
+  protected interface AddressResolution {
+    @Nullable
+    String resolve(String scriptAddress, String moduleAddress);
+  }
+
+  /**
+   * Resolves a module address with the given function, or returns the result of an earlier call
+   * for a script in the same directory. The function must only depend on the directory of the
+   * script and must not report errors, since it isn't called again for the same directory.
+   */
+  @Nullable
+  protected final String resolveMemoized(
+      String scriptAddress, String moduleAddress, AddressResolution resolution) {
+    lookups.incrementAndGet();
+    String directory =
+        scriptAddress.substring(
+            0, scriptAddress.lastIndexOf(ModuleLoader.MODULE_SLASH) + 1);
+    Map<String, String> addresses =
+        resolvedAddresses.computeIfAbsent(directory, k -> new ConcurrentHashMap<>());
+    String loadAddress = addresses.get(moduleAddress);
+    if (loadAddress != null) {
+      memoHits.incrementAndGet();
+    } else {
+      loadAddress = resolution.resolve(scriptAddress, moduleAddress);
+      if (loadAddress == null) {
+        loadAddress = UNRESOLVED;
+      }
+      addresses.put(moduleAddress, loadAddress);
+    }
+    return loadAddress.equals(UNRESOLVED) ? null : loadAddress;
+  }
+
+  /** Returns the number of module addresses resolved through {@link #resolveMemoized}. */
+  long getResolutionLookups() {
+    return lookups.get();
+  }
+
+  /** Returns the number of lookups that were answered by an earlier resolution. */
+  long getResolutionMemoHits() {
+    return memoHits.get();
+  }
+
   /**
    * Normalizes a module path reference. Includes escaping special characters and converting
    * relative paths to absolute references.
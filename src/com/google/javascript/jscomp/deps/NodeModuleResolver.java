@@ -19,15 +19,14 @@ package com.google.javascript.jscomp.deps;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.ImmutableSortedSet;
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.ErrorHandler;
 import com.google.javascript.jscomp.JSError;
 import com.google.javascript.jscomp.deps.ModuleLoader.ModuleResolverFactory;
 import com.google.javascript.jscomp.deps.ModuleLoader.PathEscaper;
+import java.util.HashSet;
 import java.util.Map;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.Set;
 import javax.annotation.Nullable;
 
 /**
@@ -47,8 +46,8 @@ public class NodeModuleResolver extends ModuleResolver {
   /** Named modules found in node_modules folders */
   private final ImmutableMap<String, String> packageJsonMainEntries;
 
-  /** Named modules found in node_modules folders */
-  private final ImmutableSortedSet<String> nodeModulesFolders;
+  /** Folders that contain a node_modules sub-folder */
+  private final ImmutableSet<String> nodeModulesFolders;
 
   /**
    * Build a list of node module paths. Given the following path:
@@ -61,23 +60,11 @@ public class NodeModuleResolver extends ModuleResolver {
    *
    * @param modulePaths Set of all module paths where the key is the module path normalized to have
    *     a leading slash
-   * @return A sorted set with the longest paths first where each entry is the folder containing a
-   *     node_modules sub-folder.
+   * @return A set where each entry is the folder containing a node_modules sub-folder.
    */
-  private static ImmutableSortedSet<String> buildNodeModulesFoldersRegistry(
+  private static ImmutableSet<String> buildNodeModulesFoldersRegistry(
       Iterable<String> modulePaths) {
-    SortedSet<String> registry =
-        new TreeSet<>(
-            // TODO(b/28382956): Take better advantage of Java8 comparing() to simplify this
-            (a, b) -> {
-              // Order longest path first
-              int comparison = Integer.compare(b.length(), a.length());
-              if (comparison != 0) {
-                return comparison;
-              }
-
-              return a.compareTo(b);
-            });
+    Set<String> registry = new HashSet<>();
 
     // For each modulePath, find all the node_modules folders
     // There might be more than one:
@@ -99,7 +86,7 @@ public class NodeModuleResolver extends ModuleResolver {
       }
     }
 
-    return ImmutableSortedSet.copyOfSorted(registry);
+    return ImmutableSet.copyOf(registry);
   }
 
   /** Factory for {@link NodeModuleResolver}. */
@@ -173,9 +160,11 @@ public class NodeModuleResolver extends ModuleResolver {
     String loadAddress;
     if (ModuleLoader.isAbsoluteIdentifier(moduleAddress)
         || ModuleLoader.isRelativeIdentifier(moduleAddress)) {
-      loadAddress = resolveJsModuleNodeFileOrDirectory(scriptAddress, moduleAddress);
+      loadAddress =
+          resolveMemoized(scriptAddress, moduleAddress, this::resolveJsModuleNodeFileOrDirectory);
     } else {
-      loadAddress = resolveJsModuleFromRegistry(scriptAddress, moduleAddress);
+      loadAddress =
+          resolveMemoized(scriptAddress, moduleAddress, this::resolveJsModuleFromRegistry);
     }
 
     if (loadAddress == null) {
@@ -246,12 +235,16 @@ public class NodeModuleResolver extends ModuleResolver {
 
   @Nullable
   private String resolveJsModuleFromRegistry(String scriptAddress, String moduleAddress) {
-    for (String nodeModulesFolder : nodeModulesFolders) {
-      String normalizedScriptAddress =
-          (ModuleLoader.isAmbiguousIdentifier(scriptAddress) ? ModuleLoader.MODULE_SLASH : "")
-              + scriptAddress;
-
-      if (!normalizedScriptAddress.startsWith(nodeModulesFolder)) {
+    String normalizedScriptAddress =
+        (ModuleLoader.isAmbiguousIdentifier(scriptAddress) ? ModuleLoader.MODULE_SLASH : "")
+            + scriptAddress;
+
+    // Visit the folders containing the script, nearest first, that have a node_modules sub-folder.
+    for (int end = normalizedScriptAddress.lastIndexOf(ModuleLoader.MODULE_SLASH);
+        end >= 0;
+        end = normalizedScriptAddress.lastIndexOf(ModuleLoader.MODULE_SLASH, end - 1)) {
+      String nodeModulesFolder = normalizedScriptAddress.substring(0, end + 1);
+      if (!nodeModulesFolders.contains(nodeModulesFolder)) {
         continue;
       }
 
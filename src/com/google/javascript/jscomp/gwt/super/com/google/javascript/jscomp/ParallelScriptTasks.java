@@ -0,0 +1,37 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/** Gwt-compatible version for {@code ParallelScriptTasks} that runs the tasks one at a time. */
+final class ParallelScriptTasks {
+
+  private ParallelScriptTasks() {}
+
+  static <T> List<T> run(
+      AbstractCompiler compiler, String name, List<Node> scripts, Function<Node, T> task) {
+    List<T> results = new ArrayList<>(scripts.size());
+    for (Node script : scripts) {
+      results.add(task.apply(script));
+    }
+    return results;
+  }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/** Gwt-compatible version for {@code SideEffectSummaryCache} that caches nothing. */
+final class SideEffectSummaryCache {
+
+  private SideEffectSummaryCache() {}
+
+  static SideEffectSummaryCache getInstance(AbstractCompiler compiler) {
+    return new SideEffectSummaryCache();
+  }
+
+  List<int[]> getSummaries(List<Node> scripts, Function<Node, int[]> analyzer) {
+    List<int[]> localSideEffects = new ArrayList<>(scripts.size());
+    for (Node script : scripts) {
+      localSideEffects.add(analyzer.apply(script));
+    }
+    return localSideEffects;
+  }
+
+  void save() {}
+}
@@ -40,6 +40,12 @@ public class CheckTypeSummaryWarningsGuard extends FileAwareWarningsGuard {
     return null;
   }
 
+  @Override
+  protected boolean onlySuppresses() {
+    // Subclasses may return other levels.
+    return getClass() == CheckTypeSummaryWarningsGuard.class;
+  }
+
   @Override
   protected int getPriority() {
     // Treat warnings in .i.js files as though they are whitelisted.
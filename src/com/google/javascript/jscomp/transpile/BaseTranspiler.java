@@ -21,6 +21,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Ordering;
 import com.google.javascript.jscomp.CheckLevel;
 import com.google.javascript.jscomp.Compiler;
 import com.google.javascript.jscomp.CompilerOptions;
@@ -66,6 +67,14 @@ public final class BaseTranspiler implements Transpiler {
     return new TranspileResult(path, code, result.source, result.sourceMap);
   }
 
+  /**
+   * Returns a key describing everything besides the path and code of a file that determines how
+   * it is transpiled, for caches that outlive this transpiler.
+   */
+  String configurationKey() {
+    return compilerSupplier.configurationKey();
+  }
+
   @Override
   public String runtime() {
     StringBuilder sb = new StringBuilder();
@@ -156,6 +165,18 @@ public final class BaseTranspiler implements Transpiler {
           transpiled ? sourceMap.toString() : "");
     }
 
+    /**
+     * Returns a key describing the options this supplier compiles with. Subclasses that change the
+     * options in other ways than through the constructor parameters should include those changes.
+     */
+    protected String configurationKey() {
+      return getClass().getName()
+          + "|" + Ordering.natural().sortedCopy(outputFeatureSet.getFeatures())
+          + "|" + moduleResolution
+          + "|" + moduleRoots
+          + "|" + prefixReplacements;
+    }
+
     public String runtime(String library) {
       Compiler compiler = compiler();
       CompilerOptions options = options();
@@ -165,7 +186,12 @@ public final class BaseTranspiler implements Transpiler {
     }
 
     protected Compiler compiler() {
-      return new Compiler();
+      Compiler compiler = new Compiler();
+      if (BatchTranspiler.isWorkerThread()) {
+        // The worker already has a large stack, so don't start a compiler thread.
+        compiler.disableThreads();
+      }
+      return compiler;
     }
 
     protected CompilerOptions options() {
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.transpile;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+import com.google.common.base.Supplier;
+import com.google.common.base.Suppliers;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transpiles many files at once on a fixed pool of threads, for servers that transpile whole
+ * bundles.
+ *
+ * <p>The worker threads are created once, with the large stack the compiler otherwise starts a new
+ * thread for on every compilation, so the compilers that a {@link BaseTranspiler} creates on them
+ * run directly on the worker. The runtime is computed once and shared by all batches.
+ */
+public final class BatchTranspiler implements AutoCloseable {
+
+  // The same stack size as the compiler's own thread.
+  private static final long WORKER_STACK_SIZE = 1L << 26;
+
+  private static final ThreadLocal<Boolean> isWorkerThread = ThreadLocal.withInitial(() -> false);
+
+  private final Transpiler delegate;
+  private final ListeningExecutorService executor;
+  private final Supplier<String> runtime;
+
+  /**
+   * @param delegate the transpiler to run on the worker threads. It must be safe to call
+   *     concurrently, as {@link BaseTranspiler} and {@link CachingTranspiler} are.
+   */
+  public BatchTranspiler(Transpiler delegate, int numThreads) {
+    checkArgument(numThreads > 0, "numThreads must be positive");
+    this.delegate = checkNotNull(delegate);
+    this.executor =
+        MoreExecutors.listeningDecorator(
+            Executors.newFixedThreadPool(numThreads, new WorkerThreadFactory()));
+    this.runtime = Suppliers.memoize(delegate::runtime);
+  }
+
+  /** Returns whether the current thread is a worker of some batch transpiler. */
+  static boolean isWorkerThread() {
+    return isWorkerThread.get();
+  }
+
+  /**
+   * Starts transpiling all the given sources and returns their results in the order they complete,
+   * so that each result can be sent out as soon as it is available. A source that fails to
+   * transpile fails its future with a {@link
+   * com.google.javascript.jscomp.bundle.TranspilationException}.
+   */
+  public ImmutableList<ListenableFuture<TranspileResult>> transpileAll(Map<URI, String> sources) {
+    List<ListenableFuture<TranspileResult>> results = new ArrayList<>(sources.size());
+    for (Map.Entry<URI, String> source : sources.entrySet()) {
+      URI path = source.getKey();
+      String code = source.getValue();
+      results.add(executor.submit(() -> delegate.transpile(path, code)));
+    }
+    return Futures.inCompletionOrder(results);
+  }
+
+  /** Returns the runtime needed by the transpiled code. */
+  public String runtime() {
+    return runtime.get();
+  }
+
+  /** Stops the worker threads once the transpilations already started have finished. */
+  @Override
+  public void close() {
+    executor.shutdown();
+  }
+
+  private static final class WorkerThreadFactory implements ThreadFactory {
+    private final AtomicInteger count = new AtomicInteger();
+
+    @Override
+    public Thread newThread(Runnable r) {
+      Runnable worker =
+          () -> {
+            isWorkerThread.set(true);
+            r.run();
+          };
+      String name = "jscomp-transpiler-" + count.incrementAndGet();
+      Thread t = new Thread(null, worker, name, WORKER_STACK_SIZE);
+      t.setDaemon(true); // Do not prevent the JVM from exiting.
+      return t;
+    }
+  }
+}
@@ -23,7 +23,9 @@ import com.google.common.base.Suppliers;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
 import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.google.javascript.jscomp.bundle.PersistentCache;
 import com.google.javascript.jscomp.bundle.TranspilationException;
 import java.net.URI;
 import java.util.Objects;
@@ -32,6 +34,8 @@ import java.util.Objects;
  * A transpiler implementation that delegates to a lower-level
  * implementation on a cache miss.  Passed a CacheBuilder to
  * allow specifying maximum size and other requirements externally.
+ * May also be given a {@link PersistentCache} that is consulted on
+ * misses of the in-memory cache, so that results survive restarts.
  */
 public final class CachingTranspiler implements Transpiler {
 
@@ -50,6 +54,38 @@ public final class CachingTranspiler implements Transpiler {
     this.runtime = Suppliers.memoize(delegate::runtime);
   }
 
+  /**
+   * @param persistentCache the disk tier under the in-memory cache
+   * @param configurationKey describes how the delegate transpiles, e.g. its output language. It
+   *     is part of the key of every persistent entry, so that transpilers configured differently
+   *     can share a cache directory.
+   */
+  public CachingTranspiler(
+      final Transpiler delegate,
+      CacheBuilder<Object, ? super TranspileResult> builder,
+      final PersistentCache persistentCache,
+      final String configurationKey) {
+    checkNotNull(delegate);
+    checkNotNull(persistentCache);
+    checkNotNull(configurationKey);
+    this.cache = builder.build(new CacheLoader<Key, TranspileResult>() {
+      @Override
+      public TranspileResult load(Key key) {
+        ImmutableList<String> persistentKey =
+            ImmutableList.of("transpile", configurationKey, key.path.toString(), key.code);
+        ImmutableList<String> values = persistentCache.get(persistentKey);
+        if (values != null && values.size() == 2) {
+          return new TranspileResult(key.path, key.code, values.get(0), values.get(1));
+        }
+        TranspileResult result = delegate.transpile(key.path, key.code);
+        persistentCache.put(
+            persistentKey, ImmutableList.of(result.transpiled(), result.sourceMap()));
+        return result;
+      }
+    });
+    this.runtime = Suppliers.memoize(delegate::runtime);
+  }
+
   @Override
   public TranspileResult transpile(URI path, String code) {
     try {
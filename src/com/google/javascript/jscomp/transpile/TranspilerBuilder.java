@@ -17,6 +17,7 @@
 package com.google.javascript.jscomp.transpile;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.javascript.jscomp.bundle.PersistentCache;
 import javax.annotation.CheckReturnValue;
 
 /**
@@ -36,9 +37,15 @@ public final class TranspilerBuilder {
           new BaseTranspiler(new BaseTranspiler.CompilerSupplier(), "es6_runtime"));
 
   private final Transpiler transpiler;
+  private final String configurationKey;
 
-  TranspilerBuilder(Transpiler transpiler) {
+  TranspilerBuilder(BaseTranspiler transpiler) {
+    this(transpiler, transpiler.configurationKey());
+  }
+
+  private TranspilerBuilder(Transpiler transpiler, String configurationKey) {
     this.transpiler = transpiler;
+    this.configurationKey = configurationKey;
   }
 
   /**
@@ -66,7 +73,19 @@ public final class TranspilerBuilder {
    */
   @CheckReturnValue
   public TranspilerBuilder caching(CacheBuilder builder) {
-    return new TranspilerBuilder(new CachingTranspiler(transpiler, builder));
+    return new TranspilerBuilder(new CachingTranspiler(transpiler, builder), configurationKey);
+  }
+
+  /**
+   * Returns a TranspilerBuilder with cached transpilations, using the given cache builder for the
+   * in-memory cache and falling back to the given persistent cache on its misses. Note that the
+   * builder itself is not changed.
+   */
+  @CheckReturnValue
+  public TranspilerBuilder caching(CacheBuilder builder, PersistentCache persistentCache) {
+    return new TranspilerBuilder(
+        new CachingTranspiler(transpiler, builder, persistentCache, configurationKey),
+        configurationKey);
   }
 
   private static final String DEFAULT_CACHE_SPEC = "maximumSize=10000";
@@ -37,6 +37,7 @@ public class AggressiveInlineAliasesTest extends CompilerTestCase {
 
   @Override
   protected CompilerPass getProcessor(Compiler compiler) {
+    GlobalNamespaceProvider.getInstance(compiler).enableVerification();
     return new AggressiveInlineAliases(compiler);
   }
 
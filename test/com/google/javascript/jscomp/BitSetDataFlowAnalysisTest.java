@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.AbstractCompiler.LifeCycleStage;
+import com.google.javascript.jscomp.ControlFlowGraph.Branch;
+import com.google.javascript.jscomp.DataFlowAnalysis.FlowState;
+import com.google.javascript.jscomp.LiveVariablesAnalysis.LiveVariableLattice;
+import com.google.javascript.jscomp.graph.DiGraph.DiGraphNode;
+import com.google.javascript.rhino.Node;
+import junit.framework.TestCase;
+
+/**
+ * Tests for {@link BitSetDataFlowAnalysis}. The analyses built on it are tested by {@link
+ * LiveVariablesAnalysisTest}, {@link MaybeReachingVariableUseTest} and {@link
+ * MustBeReachingVariableDefTest}.
+ */
+public final class BitSetDataFlowAnalysisTest extends TestCase {
+
+  private static final int STATEMENT_COUNT = 10000;
+  private static final int VARIABLE_COUNT = 50;
+
+  private Compiler compiler;
+  private Es6SyntacticScopeCreator scopeCreator;
+  private Node function;
+  private Scope functionScope;
+  private Scope functionBlockScope;
+  private ControlFlowGraph<Node> cfg;
+
+  public void testLargeFunctionFlowsThroughEachNodeOnce() {
+    parseFunction(createLargeFunctionBody());
+    // Straight-line code converges in a single visit of each node when the nodes are visited in
+    // reverse postorder.
+    int maxSteps = getNodeCount();
+
+    Node firstAssignment = function.getLastChild().getChildAtIndex(VARIABLE_COUNT);
+    Node lastAssignment = function.getLastChild().getLastChild().getPrevious();
+    Node returnStatement = function.getLastChild().getLastChild();
+
+    // Each analysis replaces the annotations of the previous one.
+    LiveVariablesAnalysis liveness =
+        new LiveVariablesAnalysis(cfg, functionScope, functionBlockScope, compiler, scopeCreator);
+    liveness.analyze(maxSteps);
+    // The first assignment reads v1 and overwrites v0.
+    assertTrue(getState(firstAssignment).getIn().isLive(liveness.getVarIndex("v1")));
+    assertFalse(getState(firstAssignment).getIn().isLive(liveness.getVarIndex("v0")));
+
+    MaybeReachingVariableUse reachingUses =
+        new MaybeReachingVariableUse(cfg, functionBlockScope, compiler, scopeCreator);
+    reachingUses.analyze(maxSteps);
+    assertThat(reachingUses.getUses("v49", lastAssignment)).containsExactly(returnStatement);
+
+    MustBeReachingVariableDef reachingDef =
+        new MustBeReachingVariableDef(cfg, functionBlockScope, compiler, scopeCreator);
+    reachingDef.analyze(maxSteps);
+    assertSame(lastAssignment, reachingDef.getDefNode("v49", returnStatement));
+  }
+
+  public void testLoopReachesFixedPoint() {
+    parseFunction("var x = 0; var y = 0; while (f()) { g(y); y = x; x = 1; } return;");
+
+    LiveVariablesAnalysis liveness =
+        new LiveVariablesAnalysis(cfg, functionScope, functionBlockScope, compiler, scopeCreator);
+    liveness.analyze();
+
+    // x is read in the second iteration, before it is assigned.
+    Node loopBody = function.getLastChild().getSecondChild().getNext().getLastChild();
+    Node readY = loopBody.getFirstChild();
+    assertTrue(getState(readY).getIn().isLive(liveness.getVarIndex("x")));
+    assertTrue(getState(readY).getIn().isLive(liveness.getVarIndex("y")));
+    assertFalse(getState(loopBody.getSecondChild()).getIn().isLive(liveness.getVarIndex("y")));
+  }
+
+  public void testReanalysisGivesSameResults() {
+    parseFunction("var x = 0; if (f()) { x = 1; } g(x);");
+    MustBeReachingVariableDef reachingDef =
+        new MustBeReachingVariableDef(cfg, functionBlockScope, compiler, scopeCreator);
+    Node use = function.getLastChild().getLastChild();
+
+    reachingDef.analyze();
+    assertNull(reachingDef.getDefNode("x", use));
+
+    reachingDef.analyze();
+    assertNull(reachingDef.getDefNode("x", use));
+    Node declaration = function.getLastChild().getFirstChild();
+    assertSame(declaration, reachingDef.getDefNode("x", declaration.getNext()));
+  }
+
+  public void testTooFewSteps() {
+    parseFunction(createLargeFunctionBody());
+    LiveVariablesAnalysis liveness =
+        new LiveVariablesAnalysis(cfg, functionScope, functionBlockScope, compiler, scopeCreator);
+    try {
+      liveness.analyze(STATEMENT_COUNT / 2);
+      fail("Expected a MaxIterationsExceededException");
+    } catch (DataFlowAnalysis.MaxIterationsExceededException expected) {
+    }
+  }
+
+  /** Returns a body of {@link #STATEMENT_COUNT} assignments that read one another. */
+  private static String createLargeFunctionBody() {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < VARIABLE_COUNT; i++) {
+      sb.append("var v").append(i).append(" = ").append(i).append(";");
+    }
+    for (int i = VARIABLE_COUNT; i < STATEMENT_COUNT; i++) {
+      int v = i % VARIABLE_COUNT;
+      sb.append("v").append(v).append(" = v").append((v + 1) % VARIABLE_COUNT).append(" + 1;");
+    }
+    return sb.append("return v").append((STATEMENT_COUNT - 1) % VARIABLE_COUNT).append(";")
+        .toString();
+  }
+
+  private FlowState<LiveVariableLattice> getState(Node n) {
+    return cfg.getNode(n).getAnnotation();
+  }
+
+  private int getNodeCount() {
+    int count = 0;
+    for (DiGraphNode<Node, Branch> unused : cfg.getDirectedGraphNodes()) {
+      count++;
+    }
+    return count;
+  }
+
+  private void parseFunction(String body) {
+    compiler = new Compiler();
+    compiler.initOptions(new CompilerOptions());
+    compiler.setLifeCycleStage(LifeCycleStage.NORMALIZED);
+    scopeCreator = new Es6SyntacticScopeCreator(compiler);
+    Node script = compiler.parseTestCode("function f(a, b) {" + body + "}");
+    assertEquals(0, compiler.getErrorCount());
+    function = script.getFirstChild();
+    Scope globalScope = scopeCreator.createScope(script, null);
+    functionScope = scopeCreator.createScope(function, globalScope);
+    functionBlockScope = scopeCreator.createScope(function.getLastChild(), functionScope);
+    ControlFlowAnalysis cfa = new ControlFlowAnalysis(compiler, false, true);
+    cfa.process(null, function);
+    cfg = cfa.getCfg();
+  }
+}
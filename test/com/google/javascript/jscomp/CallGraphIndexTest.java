@@ -0,0 +1,123 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.javascript.jscomp.OptimizeCalls.ReferenceMap;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import junit.framework.TestCase;
+
+/** Tests for {@link CallGraphIndex}. */
+public final class CallGraphIndexTest extends TestCase {
+
+  public void testReferenceMapMatchesFreshBuild() {
+    Compiler compiler =
+        initCompiler(
+            "var extern; extern.externProp;",
+            "function f(a) { return a.x; } var o = {x: 1, 'y': 2};",
+            "function g() { return f(o) + extern + o.externProp; } g();");
+
+    assertSameReferences(
+        OptimizeCalls.buildPropAndGlobalNameReferenceMap(
+            compiler, compiler.getRoot().getFirstChild(), compiler.getJsRoot()),
+        CallGraphIndex.getInstance(compiler).getReferenceMap());
+  }
+
+  public void testRecollectsChangedScripts() {
+    Compiler compiler = initCompiler("", "function f() {}", "function g() { f(); }");
+    CallGraphIndex index = CallGraphIndex.getInstance(compiler).enableVerification();
+    index.getReferenceMap();
+
+    // Add a call to g in f.
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    Node newStatement = IR.exprResult(IR.call(IR.name("g")));
+    f.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    ReferenceMap referenceMap = index.getReferenceMap();
+    Map<String, List<Node>> names = toMap(referenceMap.getNameReferences());
+    assertThat(names.keySet()).containsExactly("f", "g");
+    assertThat(names.get("g")).contains(newStatement.getFirstFirstChild());
+    assertSameReferences(
+        OptimizeCalls.buildPropAndGlobalNameReferenceMap(
+            compiler, compiler.getRoot().getFirstChild(), compiler.getJsRoot()),
+        referenceMap);
+  }
+
+  public void testForgetsRemovedScripts() {
+    Compiler compiler = initCompiler("", "function f() {}", "function g() { f(); }");
+    CallGraphIndex index = CallGraphIndex.getInstance(compiler);
+    index.getReferenceMap();
+
+    Node script = compiler.getJsRoot().getLastChild();
+    compiler.reportChangeToEnclosingScope(script.getFirstChild());
+    script.detach();
+
+    ReferenceMap referenceMap = index.getReferenceMap();
+    assertThat(toMap(referenceMap.getNameReferences()).get("f")).hasSize(1);
+  }
+
+  public void testGetScriptsReferencingNames() {
+    Compiler compiler =
+        initCompiler("", "function f() {}", "function g() { f(); }", "function h() {}");
+    Node root = compiler.getJsRoot();
+
+    CallGraphIndex index = CallGraphIndex.getInstance(compiler);
+    assertThat(index.getScriptsReferencingNames(ImmutableList.of("f")))
+        .containsExactly(root.getFirstChild(), root.getSecondChild())
+        .inOrder();
+  }
+
+  private static void assertSameReferences(ReferenceMap expected, ReferenceMap actual) {
+    assertEquals(toMap(expected.getNameReferences()), toMap(actual.getNameReferences()));
+    assertEquals(toMap(expected.getPropReferences()), toMap(actual.getPropReferences()));
+  }
+
+  private static Map<String, List<Node>> toMap(
+      Iterable<Map.Entry<String, ArrayList<Node>>> references) {
+    Map<String, List<Node>> result = new LinkedHashMap<>();
+    for (Map.Entry<String, ArrayList<Node>> entry : references) {
+      result.put(entry.getKey(), entry.getValue());
+    }
+    return result;
+  }
+
+  private static Compiler initCompiler(String externs, String... sources) {
+    ImmutableList.Builder<SourceFile> srcs = ImmutableList.builder();
+    for (int i = 0; i < sources.length; i++) {
+      srcs.add(SourceFile.fromCode("testcode" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.of(SourceFile.fromCode("externs.js", externs)),
+        srcs.build(),
+        new CompilerOptions());
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    compiler.setExternProperties(ImmutableSet.of("externProp"));
+    return compiler;
+  }
+}
@@ -19,11 +19,14 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.CheckConformance.InvalidRequirementSpec;
 import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.jscomp.ConformanceRules.AbstractRule;
 import com.google.javascript.jscomp.ConformanceRules.ConformanceResult;
 import com.google.javascript.rhino.Node;
+import com.google.javascript.rhino.Token;
 import com.google.protobuf.TextFormat;
 import com.google.protobuf.TextFormat.ParseException;
 import java.util.List;
@@ -34,6 +37,8 @@ import java.util.List;
  */
 public final class CheckConformanceTest extends CompilerTestCase {
   private String configuration;
+  private int numParallelThreads;
+  private TracerMode tracerMode;
 
   private static final String EXTERNS =
       lines(
@@ -81,9 +86,19 @@ public final class CheckConformanceTest extends CompilerTestCase {
     enableRewriteClosureCode();
     setLanguage(LanguageMode.ECMASCRIPT_2015, LanguageMode.ECMASCRIPT5_STRICT);
     configuration = DEFAULT_CONFORMANCE;
+    numParallelThreads = 1;
+    tracerMode = TracerMode.OFF;
     ignoreWarnings(DiagnosticGroups.MISSING_PROPERTIES);
   }
 
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    options.setTracerMode(tracerMode);
+    return options;
+  }
+
   @Override
   protected CompilerPass getProcessor(final Compiler compiler) {
     ConformanceConfig.Builder builder = ConformanceConfig.newBuilder();
@@ -92,6 +107,8 @@ public final class CheckConformanceTest extends CompilerTestCase {
     } catch (ParseException e) {
       throw new RuntimeException(e);
     }
+    // The test compiler doesn't create the tracker by itself.
+    compiler.maybeSetTracker();
     return new CheckConformance(compiler, ImmutableList.of(builder.build()));
   }
 
@@ -410,6 +427,36 @@ public final class CheckConformanceTest extends CompilerTestCase {
         "anything;", CheckConformance.CONFORMANCE_VIOLATION, "Violation: testcode is not allowed");
   }
 
+  public void testScriptLocalRulesCheckedInParallel() {
+    numParallelThreads = 2;
+    configuration =
+        lines(
+            DEFAULT_CONFORMANCE,
+            "requirement: {",
+            "  type: CUSTOM",
+            "  java_class: 'com.google.javascript.jscomp.ConformanceRules$RequireUseStrict'",
+            "  error_message: 'missing use strict'",
+            "}");
+
+    testWarning(
+        srcs("'use strict'; var a;", "var b;", "'use strict'; var c;"),
+        warning(CheckConformance.CONFORMANCE_VIOLATION)
+            .withMessage("Violation: missing use strict"));
+    testWarning(
+        srcs("'use strict'; var a;", "'use strict'; eval();"),
+        warning(CheckConformance.CONFORMANCE_VIOLATION)
+            .withMessage("Violation: eval is not allowed"));
+  }
+
+  public void testRuleRuntimesAreTracked() {
+    tracerMode = TracerMode.TIMING_ONLY;
+
+    testNoWarning("var a = x;");
+
+    assertThat(getLastCompiler().getPerformanceTracker().getConformanceRuleRuntimes().keySet())
+        .containsExactly("BANNED_NAME#0", "BANNED_PROPERTY#1");
+  }
+
   public void testReportLooseTypeViolations() {
     configuration =
         lines(
@@ -1132,6 +1179,50 @@ public final class CheckConformanceTest extends CompilerTestCase {
         "anything;", CheckConformance.CONFORMANCE_VIOLATION, "Violation: CustomRule Message");
   }
 
+  public void testCustomRuleIsOnlyCheckedOnItsTokensAndNames() {
+    configuration =
+        "requirement: {\n" +
+        "  type: CUSTOM\n" +
+        "  java_class: 'com.google.javascript.jscomp.CheckConformanceTest$" +
+        "CustomRuleReportingFoo'\n" +
+        "  error_message: 'CustomRule Message'\n" +
+        "}";
+
+    testNoWarning("var bar = {}; bar.baz; bar['qux'];");
+    testWarning(
+        "var bar = {}; bar.foo;",
+        CheckConformance.CONFORMANCE_VIOLATION,
+        "Violation: CustomRule Message");
+    testWarning(
+        "var bar = {}; bar['foo'];",
+        CheckConformance.CONFORMANCE_VIOLATION,
+        "Violation: CustomRule Message");
+  }
+
+  // A custom rule that reports every GETPROP and GETELEM node of the property "foo" it is checked
+  // on, and only declares it checks those.
+  public static class CustomRuleReportingFoo extends AbstractRule {
+    public CustomRuleReportingFoo(AbstractCompiler compiler, Requirement requirement)
+        throws InvalidRequirementSpec {
+      super(compiler, requirement);
+    }
+
+    @Override
+    public ImmutableSet<Token> getTokens() {
+      return ImmutableSet.of(Token.GETPROP, Token.GETELEM);
+    }
+
+    @Override
+    public ImmutableSet<String> getNames() {
+      return ImmutableSet.of("foo");
+    }
+
+    @Override
+    protected ConformanceResult checkConformance(NodeTraversal t, Node n) {
+      return ConformanceResult.VIOLATION;
+    }
+  }
+
   public void testCustomBanExpose() {
     configuration =
         "requirement: {\n" +
@@ -17,6 +17,9 @@
 package com.google.javascript.jscomp;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
@@ -24,6 +27,8 @@ import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
+import java.io.IOException;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -2110,6 +2115,80 @@ public final class CodePrinterTest extends CodePrinterTestBase {
     assertPrint("var x ='\\x7f';", "var x=\"\\u007f\"");
   }
 
+  public void testBuildBytes() {
+    String js = "var x = 'caf\u00e9 \u0800 \ud83d\ude00';";
+    assertBuildBytes(js, null, "var x=\"caf\\u00e9 \\u0800 \\ud83d\\ude00\"");
+    // The encoder doesn't encode surrogates one at a time.
+    assertBuildBytes(js, UTF_8, "var x=\"caf\u00e9 \u0800 \\ud83d\\ude00\"");
+    assertBuildBytes(js, US_ASCII, "var x=\"caf\\u00e9 \\u0800 \\ud83d\\ude00\"");
+    assertBuildBytes(js, ISO_8859_1, "var x=\"caf\u00e9 \\u0800 \\ud83d\\ude00\"");
+  }
+
+  public void testBuildBytesEscapesTypeAnnotations() {
+    // Type annotations are printed as they are, so they are only escaped when the code is encoded.
+    String js = "/** @type {caf\u00e9} */ var x;";
+    CompilerOptions options = new CompilerOptions();
+    options.setPreserveTypeAnnotations(true);
+    options.setOutputCharset(US_ASCII);
+    CodePrinter.Builder builder = new CodePrinter.Builder(parse(js)).setCompilerOptions(options);
+    assertThat(builder.build()).isEqualTo("/** @type {caf\u00e9} */ var x");
+    assertThat(new String(builder.buildBytes(), US_ASCII))
+        .isEqualTo("/** @type {caf\\u00e9} */ var x");
+
+    options.setOutputCharset(UTF_8);
+    builder = new CodePrinter.Builder(parse(js)).setCompilerOptions(options);
+    assertThat(builder.buildBytes()).isEqualTo(builder.build().getBytes(UTF_8));
+  }
+
+  public void testBuildBytesSourceMap() throws IOException {
+    String js =
+        LINE_JOINER.join(
+            "var \u00e9\u00e9 = '\u00e9\u00e9\u00e9\u00e9 \ud83d\ude00';",
+            "function f(a, b) { return a + '\u0800\u0800\u0800\u0800' + b; }",
+            "var y = f('\u00e9\u00e9', '\u00e9\u00e9\u00e9'); y = f(y, y);",
+            "if (y) { alert(y); }");
+    for (boolean prettyPrint : new boolean[] {false, true}) {
+      for (int lineLengthThreshold : new int[] {0, 10, 25}) {
+        CompilerOptions options = new CompilerOptions();
+        options.setOutputCharset(UTF_8);
+        options.setPrettyPrint(prettyPrint);
+        options.setLineBreak(lineLengthThreshold > 0);
+        options.setLineLengthThreshold(lineLengthThreshold);
+        options.setPreferLineBreakAtEndOfFile(true);
+        Node root = parse(js);
+
+        SourceMap charsMap = SourceMap.Format.DEFAULT.getInstance();
+        String code =
+            new CodePrinter.Builder(root)
+                .setCompilerOptions(options)
+                .setSourceMap(charsMap)
+                .build();
+        SourceMap bytesMap = SourceMap.Format.DEFAULT.getInstance();
+        byte[] bytes =
+            new CodePrinter.Builder(root)
+                .setCompilerOptions(options)
+                .setSourceMap(bytesMap)
+                .buildBytes();
+
+        assertThat(new String(bytes, UTF_8)).isEqualTo(code);
+        StringBuilder charsMapContent = new StringBuilder();
+        charsMap.appendTo(charsMapContent, "out.js");
+        StringBuilder bytesMapContent = new StringBuilder();
+        bytesMap.appendTo(bytesMapContent, "out.js");
+        assertThat(bytesMapContent.toString()).isEqualTo(charsMapContent.toString());
+      }
+    }
+  }
+
+  private void assertBuildBytes(String js, Charset charset, String expected) {
+    CompilerOptions options = new CompilerOptions();
+    options.setOutputCharset(charset);
+    CodePrinter.Builder builder = new CodePrinter.Builder(parse(js)).setCompilerOptions(options);
+    assertThat(builder.build()).isEqualTo(expected);
+    assertThat(builder.buildBytes())
+        .isEqualTo(expected.getBytes(charset == null ? UTF_8 : charset));
+  }
+
   // Separate from testNumericKeys() so we can set allowWarnings.
   public void testOctalNumericKey() {
     allowWarnings = true;
@@ -29,7 +29,11 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
+import com.google.common.hash.Hashing;
 import com.google.common.io.Files;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.FlagEntry;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.FlagUsageException;
 import com.google.javascript.jscomp.AbstractCommandLineRunner.JsSourceType;
@@ -196,6 +200,26 @@ public final class CommandLineRunnerTest extends TestCase {
     test("function f() { this.a = 3; }", CheckGlobalThis.GLOBAL_THIS);
   }
 
+  public void testStreamErrors() {
+    args.add("--stream_errors");
+    args.add("--jscomp_error=globalThis");
+    test("function f() { this.a = 3; }", CheckGlobalThis.GLOBAL_THIS);
+    String output = new String(errReader.toByteArray(), UTF_8);
+    assertThat(output).contains("ERROR - dangerous use of the global this object");
+    assertThat(output).contains("\n1 error(s), 0 warning(s)");
+  }
+
+  public void testStreamErrorsAsJson() {
+    args.add("--stream_errors");
+    args.add("--error_format=JSON");
+    args.add("--jscomp_warning=globalThis");
+    test("function f() { this.a = 3; }", CheckGlobalThis.GLOBAL_THIS);
+    String output = new String(errReader.toByteArray(), UTF_8);
+    assertThat(output).startsWith("[{\"level\":\"warning\"");
+    assertThat(output).contains("{\"level\":\"info\",\"description\":\"0 error(s), 1 warning(s)");
+    assertThat(output).endsWith("\"}]");
+  }
+
   public void testWarningGuardWildcard1() {
     args.add("--jscomp_warning=*");
     test("/** @public */function f() { this.a = 3; }", CheckGlobalThis.GLOBAL_THIS);
@@ -670,6 +694,7 @@ public final class CommandLineRunnerTest extends TestCase {
     String output = new String(outReader.toByteArray(), UTF_8);
     assertThat(output).contains(" --help ");
     assertThat(output).contains(" --version ");
+    assertThat(output).contains(" --output_chunk_hashes ");
   }
 
   public void testHoistedFunction1() {
@@ -1398,6 +1423,64 @@ public final class CommandLineRunnerTest extends TestCase {
     assertThat(builder.toString()).contains("transitive-dependencies");
   }
 
+  public void testOutputModuleHashes() throws Exception {
+    useModules = ModulePattern.CHAIN;
+    args.add("--output_chunk_hashes=hashes.json");
+    testSame(new String[] {"var x = 3;", "var y = 4;"});
+
+    StringBuilder builder = new StringBuilder();
+    lastCommandLineRunner.printModuleHashesTo(builder);
+    JsonArray modules = new JsonParser().parse(builder.toString()).getAsJsonArray();
+    assertThat(modules.size()).isEqualTo(2);
+
+    JsonObject m0 = modules.get(0).getAsJsonObject();
+    assertThat(m0.get("name").getAsString()).isEqualTo("m0");
+    assertThat(m0.get("path").getAsString()).isEqualTo("./m0.js");
+    assertThat(m0.get("hash").getAsString())
+        .isEqualTo(Hashing.sha256().hashString("var x=3;\n", UTF_8).toString());
+    assertThat(m0.getAsJsonArray("dependencies").size()).isEqualTo(0);
+
+    JsonObject m1 = modules.get(1).getAsJsonObject();
+    assertThat(m1.get("name").getAsString()).isEqualTo("m1");
+    assertThat(m1.get("hash").getAsString())
+        .isEqualTo(Hashing.sha256().hashString("var y=4;\n", UTF_8).toString());
+    assertThat(m1.getAsJsonArray("dependencies").get(0).getAsString()).isEqualTo("m0");
+  }
+
+  public void testModuleOutputPathHashPlaceholder() throws Exception {
+    useModules = ModulePattern.CHAIN;
+    args.add("--chunk_output_path_prefix=[hash].");
+    args.add("--create_source_map=%outname%.map");
+    testSame(new String[] {"var x = 3;", "var y = 4;"});
+
+    String hash = Hashing.sha256().hashString("var x=3;\n", UTF_8).toString();
+    JSModule m0 = lastCompiler.getModuleGraph().getRootModule();
+    assertThat(lastCommandLineRunner.expandSourceMapPath(lastCompiler.getOptions(), m0))
+        .isEqualTo(hash.substring(0, 16) + ".m0.js.map");
+
+    StringBuilder builder = new StringBuilder();
+    lastCommandLineRunner.printModuleHashesTo(builder);
+    JsonObject json =
+        new JsonParser().parse(builder.toString()).getAsJsonArray().get(0).getAsJsonObject();
+    assertThat(json.get("path").getAsString()).isEqualTo(hash.substring(0, 16) + ".m0.js");
+    assertThat(json.get("source-map-path").getAsString())
+        .isEqualTo(hash.substring(0, 16) + ".m0.js.map");
+    assertThat(json.has("source-map-hash")).isTrue();
+  }
+
+  public void testModuleOutputPathHashPlaceholderWithBaseName() throws Exception {
+    args.add("--env=CUSTOM");
+    args.add("--chunk_output_path_prefix=out/[hash].");
+    args.add("--chunk_wrapper=m0:%s // %basename%");
+    CommandLineRunner runner = createCommandLineRunner(new String[0]);
+    try {
+      runner.doRun();
+      fail("Expected flag usage exception");
+    } catch (FlagUsageException e) {
+      assertThat(e).hasMessageThat().contains("%basename%");
+    }
+  }
+
   public void testVersionFlag() {
     args.add("--version");
     CommandLineRunner runner =
@@ -31,6 +31,7 @@ import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
 import com.google.javascript.jscomp.deps.ModuleLoader.ResolutionMode;
 import com.google.javascript.rhino.IR;
 import com.google.javascript.rhino.InputId;
+import com.google.javascript.rhino.JSDocInfo;
 import com.google.javascript.rhino.Node;
 import com.google.javascript.rhino.Token;
 import java.io.ByteArrayInputStream;
@@ -487,6 +488,71 @@ public final class CompilerTest extends TestCase {
     assertFalse(compiler.getInput(new InputId("in2")).isExtern());
   }
 
+  public void testInjectsCopiesOfSharedRuntimeLibraries() throws Exception {
+    Compiler first = createParsedCompiler(LanguageMode.ECMASCRIPT5, false);
+    Node firstLibrary = first.ensureLibraryInjected("es6/util/inherits", false);
+    String firstSource = first.toSource();
+    // Compilations with other parser options in the same JVM.
+    Compiler second = createParsedCompiler(LanguageMode.ECMASCRIPT_2017, false);
+    Node secondLibrary = second.ensureLibraryInjected("es6/util/inherits", false);
+    Compiler third = createParsedCompiler(LanguageMode.ECMASCRIPT5, true);
+    third.ensureLibraryInjected("es6/util/inherits", false);
+    // A compilation that copies the library parsed by the first one.
+    Compiler fourth = createParsedCompiler(LanguageMode.ECMASCRIPT5, false);
+    Node fourthLibrary = fourth.ensureLibraryInjected("es6/util/inherits", false);
+
+    assertThat(firstSource).contains("$jscomp.inherits");
+    assertThat(second.toSource()).isEqualTo("'use strict';" + firstSource);
+    assertThat(third.toSource()).isEqualTo(firstSource);
+    assertThat(fourth.toSource()).isEqualTo(firstSource);
+
+    // The copy has its own source file, registered with its compiler, and its own JSDoc.
+    String library = firstLibrary.getSourceFileName();
+    assertSame(fourth.getSourceFileByName(library), fourthLibrary.getStaticSourceFile());
+    assertNotSame(firstLibrary.getStaticSourceFile(), fourthLibrary.getStaticSourceFile());
+    assertThat(fourth.getSourceFileByName(library).getCode())
+        .isEqualTo(first.getSourceFileByName(library).getCode());
+    List<JSDocInfo> firstJsDoc = getJsDocInfos(firstLibrary.getParent());
+    List<JSDocInfo> fourthJsDoc = getJsDocInfos(fourthLibrary.getParent());
+    assertThat(fourthJsDoc).hasSize(firstJsDoc.size());
+    assertThat(fourthJsDoc).isNotEmpty();
+    for (int i = 0; i < firstJsDoc.size(); i++) {
+      assertNotSame(firstJsDoc.get(i), fourthJsDoc.get(i));
+    }
+
+    // Changing the library in one compilation doesn't change it in the others.
+    fourthLibrary.detach();
+    secondLibrary.detach();
+    assertThat(first.toSource()).isEqualTo(firstSource);
+    Compiler fifth = createParsedCompiler(LanguageMode.ECMASCRIPT5, false);
+    fifth.ensureLibraryInjected("es6/util/inherits", false);
+    assertThat(fifth.toSource()).isEqualTo(firstSource);
+  }
+
+  private static Compiler createParsedCompiler(
+      LanguageMode languageIn, boolean preserveDetailedSourceInfo) {
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(languageIn);
+    options.setPreserveDetailedSourceInfo(preserveDetailedSourceInfo);
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(), ImmutableList.of(SourceFile.fromCode("in1", "")), options);
+    compiler.parse();
+    return compiler;
+  }
+
+  private static List<JSDocInfo> getJsDocInfos(Node root) {
+    List<JSDocInfo> infos = new ArrayList<>();
+    NodeUtil.visitPreOrder(
+        root,
+        n -> {
+          if (n.getJSDocInfo() != null) {
+            infos.add(n.getJSDocInfo());
+          }
+        });
+    return infos;
+  }
+
   public void testRebuildInputsFromModule() {
     List<JSModule> modules = ImmutableList.of(
         new JSModule("m1"), new JSModule("m2"));
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.graph.Annotation;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import junit.framework.TestCase;
+
+/** Tests for {@link ControlFlowGraphCache}. */
+public final class ControlFlowGraphCacheTest extends TestCase {
+
+  public void testReusesGraphOfUnchangedFunction() {
+    Compiler compiler = initCompiler("function f() { return 1; }");
+    ControlFlowGraphCache cache = ControlFlowGraphCache.getInstance(compiler);
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+
+    ControlFlowGraph<Node> cfg = cache.getCfg(f);
+    cfg.getEntry().setAnnotation(new Annotation() {});
+
+    assertSame(cfg, cache.getCfg(f));
+    assertNull(cfg.getEntry().getAnnotation());
+    assertEquals(1, cache.getHits());
+    assertEquals(1, cache.getMisses());
+  }
+
+  public void testRebuildsGraphOfChangedFunction() {
+    Compiler compiler = initCompiler("function f() { return 1; }");
+    ControlFlowGraphCache cache = ControlFlowGraphCache.getInstance(compiler);
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    ControlFlowGraph<Node> cfg = cache.getCfg(f);
+
+    Node newStatement = IR.exprResult(IR.call(IR.name("g")));
+    f.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    ControlFlowGraph<Node> newCfg = cache.getCfg(f);
+    assertNotSame(cfg, newCfg);
+    assertNotNull(newCfg.getNode(newStatement));
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  public void testIgnoresChangesToNestedFunctions() {
+    Compiler compiler = initCompiler("function f() { function g() {} return g; }");
+    ControlFlowGraphCache cache = ControlFlowGraphCache.getInstance(compiler);
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    ControlFlowGraph<Node> cfg = cache.getCfg(f);
+
+    Node g = f.getLastChild().getFirstChild();
+    Node newStatement = IR.exprResult(IR.call(IR.name("h")));
+    g.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    assertSame(cfg, cache.getCfg(f));
+  }
+
+  public void testEvictsLeastRecentlyUsedGraphs() {
+    Compiler compiler =
+        initCompiler("function f() { a(); }", "function g() { b(); }", "function h() { c(); }");
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    Node g = compiler.getJsRoot().getSecondChild().getFirstChild();
+    Node h = compiler.getJsRoot().getLastChild().getFirstChild();
+    int graphSize = new ControlFlowGraphCache(compiler, 0).getCfg(f).getNodeCount();
+    ControlFlowGraphCache cache = new ControlFlowGraphCache(compiler, 2 * graphSize);
+
+    ControlFlowGraph<Node> cfgF = cache.getCfg(f);
+    ControlFlowGraph<Node> cfgG = cache.getCfg(g);
+    // Make g the least recently used graph.
+    cache.getCfg(f);
+    cache.getCfg(h);
+
+    assertEquals(2 * graphSize, cache.getCachedNodeCount());
+    assertSame(cfgF, cache.getCfg(f));
+    assertNotSame(cfgG, cache.getCfg(g));
+  }
+
+  public void testDoesNotCacheGraphsLargerThanTheBound() {
+    Compiler compiler = initCompiler("function f() { a(); }");
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    ControlFlowGraphCache cache = new ControlFlowGraphCache(compiler, 1);
+
+    assertNotSame(cache.getCfg(f), cache.getCfg(f));
+    assertEquals(0, cache.getCachedNodeCount());
+    assertEquals(2, cache.getMisses());
+  }
+
+  private static Compiler initCompiler(String... sources) {
+    ImmutableList.Builder<SourceFile> srcs = ImmutableList.builder();
+    for (int i = 0; i < sources.length; i++) {
+      srcs.add(SourceFile.fromCode("testcode" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.<SourceFile>of(), srcs.build(), new CompilerOptions());
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    return compiler;
+  }
+}
@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableSet;
+import java.util.Arrays;
 import java.util.Collections;
 import junit.framework.TestCase;
 
@@ -57,6 +58,24 @@ public final class DefaultNameGeneratorTest extends TestCase {
     }
   }
 
+  public static void testGenerateLongerNames() throws Exception {
+    DefaultNameGenerator ng = new DefaultNameGenerator(
+        Collections.<String>emptySet(), "", null);
+    String[] result = generate(ng, "", 3500);
+    int lastTwoCharName = Arrays.asList(result).indexOf("$$");
+    assertEquals("aaa", result[lastTwoCharName + 1]);
+    assertEquals("baa", result[lastTwoCharName + 2]);
+    assertThat(ImmutableSet.copyOf(result)).hasSize(result.length);
+
+    // Names made of other characters after a reset.
+    ng.reset(Collections.<String>emptySet(), "", new char[] {'a'});
+    result = generate(ng, "", 54);
+    assertEquals("b", result[0]);
+    assertEquals("$", result[51]);
+    assertEquals("bb", result[52]);
+    assertEquals("cb", result[53]);
+  }
+
   public static void testGenerate() throws Exception {
     DefaultNameGenerator ng = new DefaultNameGenerator(
         RESERVED_NAMES, "", null);
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import junit.framework.TestCase;
+
+/** Tests for {@link FunctionCostCache}. */
+public final class FunctionCostCacheTest extends TestCase {
+
+  public void testReusesEstimatesOfUnchangedFunctions() {
+    Compiler compiler = initCompiler("function f(a) { if (a) { return 1; } return 2; }");
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    FunctionCostCache cache = FunctionCostCache.getInstance(compiler);
+
+    int cost = cache.getCost(f, Integer.MAX_VALUE);
+    assertEquals(InlineCostEstimator.getCost(f), cost);
+    assertEquals(2, cache.getReturnCount(f));
+
+    // A change that isn't reported isn't seen.
+    f.getLastChild().addChildToFront(IR.returnNode());
+    assertEquals(cost, cache.getCost(f, Integer.MAX_VALUE));
+    assertEquals(2, cache.getReturnCount(f));
+  }
+
+  public void testForgetsEstimatesOfChangedFunctions() {
+    Compiler compiler = initCompiler("function f() { return function g() {}; }");
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    Node g = f.getLastChild().getFirstFirstChild();
+    FunctionCostCache cache = FunctionCostCache.getInstance(compiler);
+    cache.getCost(f, Integer.MAX_VALUE);
+    cache.getCost(g, Integer.MAX_VALUE);
+
+    // A change to g is a change to f.
+    Node newStatement = IR.returnNode();
+    g.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    assertEquals(InlineCostEstimator.getCost(f), cache.getCost(f, Integer.MAX_VALUE));
+    assertEquals(InlineCostEstimator.getCost(g), cache.getCost(g, Integer.MAX_VALUE));
+    assertEquals(1, cache.getReturnCount(g));
+  }
+
+  public void testForgetsEstimatesOfDeletedFunctions() {
+    Compiler compiler = initCompiler("function f() {} function g() {}");
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    Node g = f.getNext();
+    FunctionCostCache cache = FunctionCostCache.getInstance(compiler);
+    cache.getCost(f, Integer.MAX_VALUE);
+    cache.getCost(g, Integer.MAX_VALUE);
+    assertEquals(2, cache.size());
+
+    Node script = g.getParent();
+    g.detach();
+    compiler.reportChangeToEnclosingScope(script);
+    compiler.reportFunctionDeleted(g);
+
+    cache.getCost(f, Integer.MAX_VALUE);
+    assertEquals(1, cache.size());
+  }
+
+  public void testForgetsEstimatesOfDetachedFunctions() {
+    StringBuilder source = new StringBuilder();
+    for (int i = 0; i < 100; i++) {
+      source.append("function f").append(i).append("() {}");
+    }
+    Compiler compiler = initCompiler(source.toString());
+    Node script = compiler.getJsRoot().getFirstChild();
+    FunctionCostCache cache = FunctionCostCache.getInstance(compiler);
+    for (Node fnNode : script.children()) {
+      cache.getCost(fnNode, Integer.MAX_VALUE);
+    }
+    assertEquals(100, cache.size());
+
+    // Detached without being reported as deleted.
+    Node last = script.getLastChild();
+    while (script.getFirstChild() != last) {
+      script.getFirstChild().detach();
+    }
+    compiler.reportChangeToEnclosingScope(script);
+
+    cache.getCost(last, Integer.MAX_VALUE);
+    assertEquals(1, cache.size());
+  }
+
+  public void testEstimatesAboveThreshold() {
+    Compiler compiler = initCompiler("function f(a, b, c) { return a + b + c; }");
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    FunctionCostCache cache = FunctionCostCache.getInstance(compiler).enableVerification();
+    int cost = InlineCostEstimator.getCost(f);
+
+    // The estimate stopped at the threshold is reused for lower thresholds only.
+    assertTrue(cache.getCost(f, 10) >= 10);
+    assertTrue(cache.getCost(f, 5) >= 5);
+    assertEquals(cost, cache.getCost(f, cost + 1));
+    assertEquals(cost, cache.getCost(f, 5));
+  }
+
+  private static Compiler initCompiler(String source) {
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(SourceFile.fromCode("testcode.js", source)),
+        new CompilerOptions());
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    return compiler;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.GlobalNamespace.Name;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import junit.framework.TestCase;
+
+/** Tests for {@link GlobalNamespaceProvider}. */
+public final class GlobalNamespaceProviderTest extends TestCase {
+
+  public void testReturnsNewNamespaceForEachRequest() {
+    Compiler compiler = initCompiler("var a = {}; a.b = 1;");
+    GlobalNamespaceProvider provider =
+        GlobalNamespaceProvider.getInstance(compiler).enableVerification();
+
+    GlobalNamespace namespace = provider.getNamespace();
+
+    assertNotSame(namespace, provider.getNamespace());
+    assertThat(provider.getNamespace().getNameIndex().keySet()).containsExactly("a", "a.b");
+  }
+
+  public void testUpdatesChangedScripts() {
+    Compiler compiler =
+        initCompiler("var a = {}; a.b = 1;", "function f() { return a.b; }");
+    GlobalNamespaceProvider provider =
+        GlobalNamespaceProvider.getInstance(compiler).enableVerification();
+    Name ab = provider.getNamespace().getOwnSlot("a.b");
+    assertEquals(1, ab.totalGets);
+
+    // Add a second read of "a.b" to f and report it.
+    Node f = compiler.getJsRoot().getLastChild().getFirstChild();
+    Node newStatement = IR.exprResult(IR.getprop(IR.name("a"), IR.string("b")));
+    f.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    GlobalNamespace namespace = provider.getNamespace();
+
+    assertEquals(2, namespace.getOwnSlot("a.b").totalGets);
+    // The set of "a.b" comes from the unchanged script, so it is resolved in the same scope.
+    assertSame(ab.getDeclaration().scope, namespace.getOwnSlot("a.b").getDeclaration().scope);
+  }
+
+  public void testRebuildsWhenGlobalDeclarationsChange() {
+    Compiler compiler = initCompiler("var a = {};", "function f() { return c; }");
+    GlobalNamespaceProvider provider =
+        GlobalNamespaceProvider.getInstance(compiler).enableVerification();
+    assertThat(provider.getNamespace().getNameIndex().keySet()).containsExactly("a", "f");
+
+    // Declare "c" in the first script, which makes the reference in f a global reference.
+    Node script = compiler.getJsRoot().getFirstChild();
+    script.addChildToBack(IR.var(IR.name("c"), IR.number(1)));
+    compiler.reportChangeToEnclosingScope(script.getLastChild());
+
+    GlobalNamespace namespace = provider.getNamespace();
+
+    assertThat(namespace.getNameIndex().keySet()).containsExactly("a", "c", "f");
+    assertEquals(1, namespace.getOwnSlot("c").totalGets);
+  }
+
+  private static Compiler initCompiler(String... sources) {
+    ImmutableList.Builder<SourceFile> srcs = ImmutableList.builder();
+    for (int i = 0; i < sources.length; i++) {
+      srcs.add(SourceFile.fromCode("testcode" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.<SourceFile>of(), srcs.build(), new CompilerOptions());
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    return compiler;
+  }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import junit.framework.TestCase;
+
+/** Tests for {@link IncrementalCodeSizeEstimator}. */
+public final class IncrementalCodeSizeEstimatorTest extends TestCase {
+
+  private static final String[] SOURCES = {
+    "function f(a) { return a.alpha + a.beta + a.gamma; }",
+    "function g(b) { return f({alpha: b, beta: b, gamma: b}); }",
+    "var x = g(1) + g(2) + g(3); function h() { return x; }",
+  };
+
+  public void testMeasuresWholeCode() {
+    Compiler compiler = initCompiler(SOURCES);
+    Node jsRoot = compiler.getJsRoot();
+    IncrementalCodeSizeEstimator estimator = new IncrementalCodeSizeEstimator();
+    estimator.measure(jsRoot);
+
+    PerformanceTrackerCodeSizeEstimator full =
+        PerformanceTrackerCodeSizeEstimator.estimate(jsRoot, true);
+    assertEquals(full.getCodeSize(), estimator.getCodeSize());
+    assertEquals(full.getZippedCodeSize(), estimator.getZippedCodeSize());
+
+    // Nothing changed.
+    estimator.update(jsRoot);
+    assertEquals(full.getCodeSize(), estimator.getCodeSize());
+    assertEquals(full.getZippedCodeSize(), estimator.getZippedCodeSize());
+  }
+
+  public void testEstimatesChangedCode() {
+    Compiler compiler = initCompiler(SOURCES);
+    Node jsRoot = compiler.getJsRoot();
+    IncrementalCodeSizeEstimator estimator = new IncrementalCodeSizeEstimator();
+    estimator.measure(jsRoot);
+    int oldZippedCodeSize = estimator.getZippedCodeSize();
+
+    // Add a statement to h.
+    Node h = jsRoot.getLastChild().getLastChild();
+    Node newStatement = IR.exprResult(IR.call(IR.name("g"), IR.number(4)));
+    h.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+    estimator.update(jsRoot);
+
+    PerformanceTrackerCodeSizeEstimator full =
+        PerformanceTrackerCodeSizeEstimator.estimate(jsRoot, true);
+    assertEquals(full.getCodeSize(), estimator.getCodeSize());
+    assertThat(estimator.getZippedCodeSize()).isGreaterThan(oldZippedCodeSize);
+    assertThat((double) estimator.getZippedCodeSize())
+        .isWithin(full.getZippedCodeSize() * 0.1)
+        .of(full.getZippedCodeSize());
+  }
+
+  private static Compiler initCompiler(String... sources) {
+    ImmutableList.Builder<SourceFile> srcs = ImmutableList.builder();
+    for (int i = 0; i < sources.length; i++) {
+      srcs.add(SourceFile.fromCode("testcode" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.<SourceFile>of(), srcs.build(), new CompilerOptions());
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    return compiler;
+  }
+}
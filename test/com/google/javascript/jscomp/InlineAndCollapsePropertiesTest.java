@@ -41,6 +41,7 @@ public final class InlineAndCollapsePropertiesTest extends CompilerTestCase {
 
   @Override
   protected CompilerPass getProcessor(final Compiler compiler) {
+    GlobalNamespaceProvider.getInstance(compiler).enableVerification();
     return new CompilerPass() {
       AggressiveInlineAliases aggressiveInlineAliases = new AggressiveInlineAliases(compiler);
       CollapseProperties collapseProperties =
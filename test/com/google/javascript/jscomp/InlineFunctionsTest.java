@@ -56,6 +56,8 @@ public class InlineFunctionsTest extends CompilerTestCase {
 
   @Override
   protected CompilerPass getProcessor(Compiler compiler) {
+    CallGraphIndex.getInstance(compiler).enableVerification();
+    FunctionCostCache.getInstance(compiler).enableVerification();
     compiler.resetUniqueNameId();
 
     return new InlineFunctions(
@@ -160,6 +160,55 @@ public final class JSModuleGraphTest extends TestCase {
     assertDeepestCommonDepInclusive(F, F, F);
   }
 
+  public void testDeepestCommonDepInLargeGraph() {
+    // A binary tree of modules, large enough for the dependencies to span several words.
+    int moduleCount = 200;
+    JSModule[] modules = new JSModule[moduleCount];
+    for (int i = 0; i < moduleCount; i++) {
+      modules[i] = new JSModule("m" + i);
+      if (i > 0) {
+        modules[i].addDependency(modules[(i - 1) / 2]);
+      }
+    }
+    JSModuleGraph graph = new JSModuleGraph(modules);
+
+    for (int i = 0; i < moduleCount; i++) {
+      for (int j = 0; j < moduleCount; j++) {
+        // The deepest module that is a strict ancestor of both i and j.
+        JSModule expected = null;
+        for (int a = i; a > 0 && expected == null; ) {
+          a = (a - 1) / 2;
+          for (int b = j; b > 0; ) {
+            b = (b - 1) / 2;
+            if (a == b) {
+              expected = modules[a];
+              break;
+            }
+          }
+        }
+        assertSame(expected, graph.getDeepestCommonDependency(modules[i], modules[j]));
+      }
+    }
+  }
+
+  public void testDeepestCommonDepPrefersLaterModuleAtSameDepth() {
+    JSModule a = new JSModule("a");
+    JSModule b = new JSModule("b");
+    JSModule c = new JSModule("c");
+    JSModule d = new JSModule("d");
+    JSModule e = new JSModule("e");
+    b.addDependency(a);
+    c.addDependency(a);
+    d.addDependency(b);
+    d.addDependency(c);
+    e.addDependency(b);
+    e.addDependency(c);
+    JSModuleGraph graph = new JSModuleGraph(new JSModule[] {a, b, c, d, e});
+
+    assertSame(c, graph.getDeepestCommonDependency(d, e));
+    assertSame(c, graph.getDeepestCommonDependencyInclusive(d, e));
+  }
+
   public void testSmallestCoveringSubtree() {
     assertSmallestCoveringSubtree(A, A, A, A);
     assertSmallestCoveringSubtree(A, A, A, B);
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import junit.framework.TestCase;
+
+/** Tests for {@link NameOccurrenceCounter}. */
+public final class NameOccurrenceCounterTest extends TestCase {
+
+  public void testCountsInOrderOfFirstOccurrence() {
+    NameOccurrenceCounter counter = new NameOccurrenceCounter();
+    counter.increment("b");
+    counter.increment("a");
+    counter.increment("b");
+    counter.add("c", 5);
+    counter.increment("a");
+    counter.increment("b");
+
+    assertEquals(3, counter.size());
+    assertEquals("b", counter.getName(0));
+    assertEquals(3, counter.getCount(0));
+    assertEquals("a", counter.getName(1));
+    assertEquals(2, counter.getCount(1));
+    assertEquals("c", counter.getName(2));
+    assertEquals(5, counter.getCount(2));
+    assertEquals(0, counter.getCount("d"));
+  }
+
+  public void testGrows() {
+    NameOccurrenceCounter counter = new NameOccurrenceCounter();
+    for (int i = 0; i < 1000; i++) {
+      for (int j = 0; j <= i % 3; j++) {
+        counter.increment("name" + i);
+      }
+    }
+
+    assertEquals(1000, counter.size());
+    for (int i = 0; i < 1000; i++) {
+      assertEquals("name" + i, counter.getName(i));
+      assertEquals(i % 3 + 1, counter.getCount(i));
+      assertEquals(i % 3 + 1, counter.getCount("name" + i));
+    }
+  }
+}
@@ -29,6 +29,7 @@ public final class OptimizeParametersTest extends CompilerTestCase {
 
   @Override
   protected CompilerPass getProcessor(Compiler compiler) {
+    CallGraphIndex.getInstance(compiler).enableVerification();
     return new OptimizeParameters(compiler);
   }
 
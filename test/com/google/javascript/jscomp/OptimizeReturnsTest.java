@@ -23,6 +23,7 @@ package com.google.javascript.jscomp;
 public final class OptimizeReturnsTest extends CompilerTestCase {
   @Override
   protected CompilerPass getProcessor(Compiler compiler) {
+    CallGraphIndex.getInstance(compiler).enableVerification();
     return new OptimizeReturns(compiler);
   }
 
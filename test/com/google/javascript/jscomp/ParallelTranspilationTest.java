@@ -0,0 +1,152 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.javascript.jscomp.CompilerOptions.LanguageMode;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link ParallelTranspilation}. */
+public final class ParallelTranspilationTest extends TestCase {
+
+  private static final String[] SOURCES = {
+    "class A { constructor(x) { this.x = x; } } for (const a of [1, 2]) { alert(a); }",
+    "class B extends Object {} async function f() { await 1; } let g = (...xs) => f(...xs);",
+    "for (const b of []) { let c = () => b; } function h(a, b = 1) { return a ** b; }",
+  };
+
+  public void testGivesSameOutputAsSequentialTranspilation() throws Exception {
+    String sequential = compile(1, SOURCES);
+    String parallel = compile(4, SOURCES);
+
+    assertThat(parallel).doesNotContain("class");
+    assertThat(parallel).doesNotContain("=>");
+    // Only the ids in the made up names may differ.
+    assertThat(withoutIds(parallel)).isEqualTo(withoutIds(sequential));
+  }
+
+  public void testMadeUpNamesOnlyDifferFromSequentialTranspilationInTheirIds() throws Exception {
+    String[] sources = {
+      "for (const a of [1]) {} let {x, y: [w]} = {}; function f(...z) { return () => z; }",
+      "for (const b of [2]) { for (const c of b) {} } async function g() { await 1; }",
+      "function* h() { yield 1; } for (const d of h()) { let e = () => d; }",
+      "for (const a of [3]) {} let [p, ...q] = [];",
+      "class C { m(...xs) { return [...xs]; } } for (const a of []) {}",
+    };
+    String sequential = compile(1, sources);
+    String parallel = compile(4, sources);
+
+    List<String> sequentialNames = getMadeUpNames(sequential);
+    List<String> parallelNames = getMadeUpNames(parallel);
+    assertThat(parallelNames).hasSize(sequentialNames.size());
+    assertThat(parallelNames.size()).isGreaterThan(sources.length);
+    assertThat(parallelNames).isNotEqualTo(sequentialNames);
+    assertThat(withoutIds(parallel)).isEqualTo(withoutIds(sequential));
+  }
+
+  public void testGivesSameOutputOnEveryRun() throws Exception {
+    String first = compile(4, SOURCES);
+    for (int i = 0; i < 2; i++) {
+      assertThat(compile(4, SOURCES)).isEqualTo(first);
+    }
+  }
+
+  public void testMadeUpNamesAreUniqueAcrossScripts() throws Exception {
+    String output =
+        compile(
+            4,
+            "for (const a of [1]) {} for (const b of [2]) {}",
+            "for (const c of [3]) {} for (const d of [4]) {}");
+
+    List<String> iterators = new ArrayList<>();
+    for (String name : getMadeUpNames(output)) {
+      if (name.startsWith("$jscomp$iter$")) {
+        iterators.add(name);
+      }
+    }
+    assertThat(iterators).hasSize(4);
+  }
+
+  public void testGroupsScriptLocalPasses() {
+    CompilerOptions options = createOptions(4);
+    List<PassFactory> passes = new ArrayList<>();
+    TranspilationPasses.addPostCheckTranspilationPasses(passes, options);
+
+    List<String> names = new ArrayList<>();
+    for (PassFactory pass : passes) {
+      names.add(pass.getName());
+    }
+    assertThat(names)
+        .containsExactly(
+            "parallelTranspilation",
+            "Es6RewriteBlockScopedDeclaration",
+            "parallelTranspilation",
+            "es6ConvertSuperConstructorCalls")
+        .inOrder();
+  }
+
+  private static List<SourceFile> externs;
+
+  private static List<SourceFile> getExterns() throws IOException {
+    if (externs == null) {
+      externs = AbstractCommandLineRunner.getBuiltinExterns(CompilerOptions.Environment.BROWSER);
+    }
+    return externs;
+  }
+
+  private static String compile(int numThreads, String... sources) throws IOException {
+    List<SourceFile> inputs = new ArrayList<>();
+    for (int i = 0; i < sources.length; i++) {
+      inputs.add(SourceFile.fromCode("input" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    Result result =
+        compiler.compile(
+            getExterns(),
+            inputs,
+            createOptions(numThreads));
+    assertTrue(result.success);
+    return compiler.toSource();
+  }
+
+  private static CompilerOptions createOptions(int numThreads) {
+    CompilerOptions options = new CompilerOptions();
+    options.setLanguageIn(LanguageMode.ECMASCRIPT_2017);
+    options.setLanguageOut(LanguageMode.ECMASCRIPT5);
+    options.setNumParallelThreads(numThreads);
+    return options;
+  }
+
+  /** Returns the distinct names ending in an id, in the order they appear. */
+  private static List<String> getMadeUpNames(String source) {
+    List<String> names = new ArrayList<>();
+    for (String word : source.split("[^\\w$]+")) {
+      if (word.matches(".*\\$\\d+") && !names.contains(word)) {
+        names.add(word);
+      }
+    }
+    return names;
+  }
+
+  private static String withoutIds(String source) {
+    return source.replaceAll("\\$\\d+\\b", "\\$N");
+  }
+}
@@ -33,11 +33,23 @@ import java.util.Set;
 public final class PeepholeOptimizationsPassTest extends CompilerTestCase {
 
   private ImmutableList<AbstractPeepholeOptimization> currentPeepholePasses;
+  private boolean useWorklist;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    useWorklist = false;
+  }
 
   @Override
   protected CompilerPass getProcessor(final Compiler compiler) {
-    return new PeepholeOptimizationsPass(
-        compiler, getName(), currentPeepholePasses.toArray(new AbstractPeepholeOptimization[0]));
+    PeepholeOptimizationsPass pass =
+        new PeepholeOptimizationsPass(
+            compiler,
+            getName(),
+            currentPeepholePasses.toArray(new AbstractPeepholeOptimization[0]));
+    pass.setUseWorklist(useWorklist);
+    return pass;
   }
 
   @Override
@@ -244,4 +256,33 @@ public final class PeepholeOptimizationsPassTest extends CompilerTestCase {
 
     test("var y; var z;", "var z;");
   }
+
+  public void testWorklistRevisitsOnlyChangedNeighborhoods() {
+    final List<String> visitationLog = new ArrayList<>();
+    AbstractPeepholeOptimization logNames =
+        new AbstractPeepholeOptimization() {
+          @Override
+          public Node optimizeSubtree(Node node) {
+            if (node.isName()) {
+              visitationLog.add(node.getString());
+            }
+            return node;
+          }
+        };
+    currentPeepholePasses = ImmutableList.of(logNames, new RenameYToX());
+    String source = "function f() { var a = 1; var b = 2; var c = y; }";
+    String expected = "function f() { var a = 1; var b = 2; var c = x; }";
+
+    // The second traversal revisits the whole function.
+    test(source, expected);
+    assertThat(visitationLog)
+        .containsExactly("f", "a", "b", "y", "c", "f", "a", "b", "x", "c")
+        .inOrder();
+
+    // The second traversal only revisits the declaration of c.
+    visitationLog.clear();
+    useWorklist = true;
+    test(source, expected);
+    assertThat(visitationLog).containsExactly("f", "a", "b", "y", "c", "x", "c").inOrder();
+  }
 }
@@ -19,6 +19,7 @@ package com.google.javascript.jscomp;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.javascript.jscomp.CompilerOptions.TracerMode;
 import com.google.javascript.jscomp.PerformanceTracker.Stats;
@@ -102,6 +103,37 @@ public final class PerformanceTrackerTest extends TestCase {
     assertEquals(0, st.changes);
   }
 
+  public void testControlFlowGraphCacheStats() {
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.<SourceFile>of(),
+        ImmutableList.of(SourceFile.fromCode("testcode.js", "function f() {}")),
+        new CompilerOptions());
+    Node f = compiler.parseInputs().getLastChild().getFirstFirstChild();
+    ControlFlowGraphCache cache = ControlFlowGraphCache.getInstance(compiler);
+    PerformanceTracker tracker =
+        new PerformanceTracker(emptyExternRoot, emptyJsRoot, TracerMode.TIMING_ONLY, null);
+    tracker.setControlFlowGraphCache(cache);
+
+    tracker.recordPassStart("passA", true);
+    cache.getCfg(f);
+    tracker.recordPassStop("passA", 0);
+
+    tracker.recordPassStart("passB", false);
+    cache.getCfg(f);
+    tracker.recordPassStop("passB", 0);
+
+    tracker.recordPassStart("passB", false);
+    cache.getCfg(f);
+    tracker.recordPassStop("passB", 0);
+
+    ImmutableMap<String, Stats> stats = tracker.getStats();
+    assertEquals(0, stats.get("passA").cfgCacheHits);
+    assertEquals(1, stats.get("passA").cfgCacheMisses);
+    assertEquals(2, stats.get("passB").cfgCacheHits);
+    assertEquals(0, stats.get("passB").cfgCacheMisses);
+  }
+
   public void testOutputFormat() {
     ByteArrayOutputStream output = new ByteArrayOutputStream();
     try (PrintStream outstream = new PrintStream(output)) {
@@ -126,6 +158,10 @@ public final class PerformanceTrackerTest extends TestCase {
         "Estimated AST size\\(#nodes\\): -?[0-9]+",
         "Estimated Size\\(bytes\\): -?[0-9]+",
         "Estimated GzSize\\(bytes\\): -?[0-9]+",
+        "CFG cache hits: [0-9]+",
+        "CFG cache misses: [0-9]+",
+        "Module resolution lookups: [0-9]+",
+        "Module resolution memo hits: [0-9]+",
         "",
         "Inputs:",
         "JS lines:   [0-9]+",
@@ -134,10 +170,12 @@ public final class PerformanceTrackerTest extends TestCase {
         "Extern sources: [0-9]+",
         "",
         "Summary:",
-        "pass,runtime,allocMem,runs,changingRuns,astReduction,reduction,gzReduction",
+        "pass,runtime,allocMem,runs,changingRuns,astReduction,reduction,gzReduction,"
+            + "cfgCacheHits,cfgCacheMisses",
         "",
         "Log:",
-        "pass,runtime,allocMem,codeChanged,astReduction,reduction,gzReduction,astSize,size,gzSize",
+        "pass,runtime,allocMem,codeChanged,astReduction,reduction,gzReduction,astSize,size,gzSize,"
+            + "cfgCacheHits,cfgCacheMisses",
         "",
         ".*"),
         Pattern.DOTALL);
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.javascript.jscomp.ReferenceIndex.OwnedReferences;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link ReferenceIndex}. */
+public final class ReferenceIndexTest extends TestCase {
+
+  public void testCollectsVariablesOwnedByFunction() {
+    Compiler compiler =
+        initCompiler("function f() { var a = 1; use(a); function g() { var b = a; use(b); } }");
+    Node f = findFunction(compiler.getRoot(), "f");
+
+    OwnedReferences references = ReferenceIndex.getInstance(compiler).getReferencesOwnedBy(f);
+
+    assertThat(getNames(references)).containsExactly("a", "g");
+    assertThat(getReferences(references, "a").references).hasSize(3);
+  }
+
+  public void testCollectsBlockScopedVariablesOwnedByScript() {
+    Compiler compiler = initCompiler("var x = 0; { let y = 1; use(x, y); }");
+    Node script = compiler.getJsRoot().getFirstChild();
+
+    OwnedReferences references =
+        ReferenceIndex.getInstance(compiler).getReferencesOwnedBy(script);
+
+    assertThat(getNames(references)).containsExactly("y");
+    assertThat(getReferences(references, "y").references).hasSize(2);
+  }
+
+  public void testReusesReferencesUntilOwnerChanges() {
+    Compiler compiler =
+        initCompiler(
+            "function f() { var a = 1; function g() { var b = a; } }",
+            "function h() { var c = 1; }");
+    ReferenceIndex index = ReferenceIndex.getInstance(compiler);
+    Node f = findFunction(compiler.getRoot(), "f");
+    Node g = findFunction(compiler.getRoot(), "g");
+    Node h = findFunction(compiler.getRoot(), "h");
+
+    OwnedReferences fReferences = index.getReferencesOwnedBy(f);
+    OwnedReferences gReferences = index.getReferencesOwnedBy(g);
+    OwnedReferences hReferences = index.getReferencesOwnedBy(h);
+    assertSame(fReferences, index.getReferencesOwnedBy(f));
+    assertThat(getReferences(fReferences, "a").references).hasSize(2);
+
+    // Add a reference to "a" in the nested function and report it.
+    Node newStatement = IR.exprResult(IR.name("a"));
+    g.getLastChild().addChildToBack(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    OwnedReferences newFReferences = index.getReferencesOwnedBy(f);
+    assertNotSame(fReferences, newFReferences);
+    assertThat(getReferences(newFReferences, "a").references).hasSize(3);
+    assertNotSame(gReferences, index.getReferencesOwnedBy(g));
+    // Owners that don't contain the change are reused.
+    assertSame(hReferences, index.getReferencesOwnedBy(h));
+  }
+
+  public void testLooksUpVariablesFromOtherScopeCreators() {
+    Compiler compiler = initCompiler("var x = 0; function f() { var a = x; use(a); }");
+    Node f = findFunction(compiler.getRoot(), "f");
+    Es6SyntacticScopeCreator scopeCreator = new Es6SyntacticScopeCreator(compiler);
+    Scope globalScope = scopeCreator.createScope(compiler.getRoot(), null);
+    Scope functionScope = scopeCreator.createScope(f, globalScope);
+    Scope functionBlockScope = scopeCreator.createScope(f.getLastChild(), functionScope);
+
+    ReferenceIndex index = ReferenceIndex.getInstance(compiler);
+
+    assertThat(index.getReferences(functionBlockScope.getVar("a")).references).hasSize(2);
+    // Variables in the global scope are not indexed.
+    assertNull(index.getReferences(globalScope.getVar("x")));
+  }
+
+  private static List<String> getNames(OwnedReferences references) {
+    List<String> names = new ArrayList<>();
+    for (Var v : references.getAllSymbols()) {
+      names.add(v.getName());
+    }
+    return names;
+  }
+
+  private static ReferenceCollection getReferences(OwnedReferences references, String name) {
+    for (Var v : references.getAllSymbols()) {
+      if (v.getName().equals(name)) {
+        return references.getReferences(v);
+      }
+    }
+    throw new AssertionError("No references to " + name);
+  }
+
+  private static Node findFunction(Node n, String name) {
+    if (n.isFunction() && n.getFirstChild().getString().equals(name)) {
+      return n;
+    }
+    for (Node c = n.getFirstChild(); c != null; c = c.getNext()) {
+      Node result = findFunction(c, name);
+      if (result != null) {
+        return result;
+      }
+    }
+    return null;
+  }
+
+  private static Compiler initCompiler(String... sources) {
+    ImmutableList.Builder<SourceFile> srcs = ImmutableList.builder();
+    for (int i = 0; i < sources.length; i++) {
+      srcs.add(SourceFile.fromCode("testcode" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    compiler.init(
+        ImmutableList.of(SourceFile.fromCode("externs.js", "function use(var_args) {}")),
+        srcs.build(),
+        new CompilerOptions());
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    return compiler;
+  }
+}
@@ -34,6 +34,7 @@ public final class RenamePropertiesTest extends CompilerTestCase {
   private RenameProperties renameProperties;
   private boolean generatePseudoNames;
   private VariableMap prevUsedPropertyMap;
+  private int numParallelThreads;
 
   public RenamePropertiesTest() {
     super(EXTERNS);
@@ -44,10 +45,18 @@ public final class RenamePropertiesTest extends CompilerTestCase {
     super.setUp();
     generatePseudoNames = false;
     prevUsedPropertyMap = null;
+    numParallelThreads = 1;
     enableNormalize();
     enableGatherExternProperties();
   }
 
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
+  }
+
   @Override
   protected int getNumRepetitions() {
     // The RenameProperties pass should only be run once over a parse tree.
@@ -232,6 +241,25 @@ public final class RenamePropertiesTest extends CompilerTestCase {
          "var foo={}; foo.$bar$=1; foo['abc']=2");
   }
 
+  public void testMultipleScripts() {
+    test(
+        srcs(
+            "var x = {}; x.bar = 1; x.foo = 2; x['quoted'] = 3;",
+            "x.bar = x.foo + x.bar; f(JSCompiler_renameProperty('foo'));",
+            "x.bar = x.fooExported; x.a = x.quoted;"),
+        expected(
+            new String[] {
+              "var x = {}; x.a = 1; x.b = 2; x['quoted'] = 3;",
+              "x.a = x.b + x.a; f('b');",
+              "x.a = x.fooExported; x.c = x.d;"
+            }));
+  }
+
+  public void testMultipleScriptsInParallel() {
+    numParallelThreads = 4;
+    testMultipleScripts();
+  }
+
   public void testModules() {
     String module1Js =
         "function Bar(){} Bar.prototype.getA=function(x){};"
@@ -44,6 +44,7 @@ public final class RenameVarsTest extends CompilerTestCase {
   private boolean shouldShadow = false;
   private boolean preferStableNames = false;
   private boolean withNormalize = false;
+  private int numParallelThreads = 1;
 
   // NameGenerator to use, or null for a default.
   private DefaultNameGenerator nameGenerator = null;
@@ -84,6 +85,13 @@ public final class RenameVarsTest extends CompilerTestCase {
     return pass;
   }
 
+  @Override
+  protected CompilerOptions getOptions() {
+    CompilerOptions options = super.getOptions();
+    options.setNumParallelThreads(numParallelThreads);
+    return options;
+  }
+
   @Override
   protected int getNumRepetitions() {
     return 1;
@@ -103,6 +111,26 @@ public final class RenameVarsTest extends CompilerTestCase {
     shouldShadow = false;
     preferStableNames = false;
     nameGenerator = null;
+    numParallelThreads = 1;
+  }
+
+  public void testRenameMultipleScripts() {
+    test(
+        srcs(
+            "function Foo(v1, v2) { return v1; }",
+            "var bar = Foo(1, 2); function g(x) { var y = bar; return x + y; }",
+            "Foo(bar); g(bar);"),
+        expected(
+            new String[] {
+              "function b(a, d) { return a; }",
+              "var c = b(1, 2); function e(a) { var d = c; return a + d; }",
+              "b(c); e(c);"
+            }));
+  }
+
+  public void testRenameMultipleScriptsInParallel() {
+    numParallelThreads = 4;
+    testRenameMultipleScripts();
   }
 
   public void testRenameSimple() {
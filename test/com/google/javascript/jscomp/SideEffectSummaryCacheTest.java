@@ -0,0 +1,181 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.Files;
+import com.google.javascript.rhino.IR;
+import com.google.javascript.rhino.Node;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link SideEffectSummaryCache}. */
+public final class SideEffectSummaryCacheTest extends TestCase {
+
+  private static final String[] SOURCES = {
+    "function f(a) { a.x = 1; return 1; }",
+    "function g() { var o = {}; f(o); return o; }",
+    "function h() { throw 1; } var x = g(); var y = f(x);",
+  };
+
+  public void testReusesSummariesOfUnchangedScripts() {
+    Compiler compiler =
+        initCompiler(
+            new CompilerOptions(), "function f() { return 1; }", "function g(a) { a.x = 1; }");
+    SideEffectSummaryCache cache = SideEffectSummaryCache.getInstance(compiler);
+
+    markPureFunctions(compiler);
+    assertEquals(0, cache.getHits());
+    assertEquals(2, cache.getMisses());
+
+    markPureFunctions(compiler);
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMisses());
+  }
+
+  public void testReanalyzesChangedScripts() {
+    Compiler compiler =
+        initCompiler(
+            new CompilerOptions(), "function f() { return 1; }", "function g(a) { a.x = 1; }");
+    SideEffectSummaryCache cache = SideEffectSummaryCache.getInstance(compiler);
+    markPureFunctions(compiler);
+
+    // Make f throw.
+    Node f = compiler.getJsRoot().getFirstFirstChild();
+    Node newStatement = IR.throwNode(IR.number(1));
+    f.getLastChild().addChildToFront(newStatement);
+    compiler.reportChangeToEnclosingScope(newStatement);
+
+    markPureFunctions(compiler);
+    assertEquals(1, cache.getHits());
+    assertEquals(3, cache.getMisses());
+  }
+
+  public void testReadsSummariesWrittenByEarlierCompilation() throws Exception {
+    File file = File.createTempFile("side_effects", ".cache");
+    file.deleteOnExit();
+    CompilerOptions options = new CompilerOptions();
+    options.setFunctionSideEffectsCachePath(file.getPath());
+
+    Compiler first = initCompiler(options, SOURCES);
+    markPureFunctions(first);
+    assertEquals(SOURCES.length, SideEffectSummaryCache.getInstance(first).getMisses());
+
+    Compiler second = initCompiler(options, SOURCES);
+    SideEffectSummaryCache cache = SideEffectSummaryCache.getInstance(second);
+    markPureFunctions(second);
+
+    assertEquals(SOURCES.length, cache.getHits());
+    assertEquals(0, cache.getMisses());
+    assertEquals(getCallFlags(first), getCallFlags(second));
+  }
+
+  public void testIgnoresUnreadableCacheFile() throws Exception {
+    File file = File.createTempFile("side_effects", ".cache");
+    file.deleteOnExit();
+    Files.write(new byte[] {1, 2, 3}, file);
+    CompilerOptions options = new CompilerOptions();
+    options.setFunctionSideEffectsCachePath(file.getPath());
+
+    Compiler compiler = initCompiler(options, SOURCES);
+    markPureFunctions(compiler);
+
+    assertEquals(SOURCES.length, SideEffectSummaryCache.getInstance(compiler).getMisses());
+  }
+
+  public void testIgnoresUnwritableCacheFile() throws Exception {
+    File directory = Files.createTempDir();
+    directory.deleteOnExit();
+    CompilerOptions options = new CompilerOptions();
+    options.setFunctionSideEffectsCachePath(new File(directory, "missing/cache").getPath());
+
+    Compiler compiler = initCompiler(options, SOURCES);
+    markPureFunctions(compiler);
+
+    assertEquals(SOURCES.length, SideEffectSummaryCache.getInstance(compiler).getMisses());
+  }
+
+  public void testLeavesOnlyTheCacheFile() throws Exception {
+    File directory = Files.createTempDir();
+    File file = new File(directory, "cache");
+    CompilerOptions options = new CompilerOptions();
+    options.setFunctionSideEffectsCachePath(file.getPath());
+
+    markPureFunctions(initCompiler(options, SOURCES));
+    markPureFunctions(initCompiler(options, SOURCES));
+
+    assertThat(directory.list()).asList().containsExactly("cache");
+    assertTrue(file.delete());
+    assertTrue(directory.delete());
+  }
+
+  public void testParallelAnalysisGivesSameResults() {
+    Compiler sequential = initCompiler(new CompilerOptions(), SOURCES);
+    markPureFunctions(sequential);
+
+    CompilerOptions options = new CompilerOptions();
+    options.setNumParallelThreads(4);
+    Compiler parallel = initCompiler(options, SOURCES);
+    markPureFunctions(parallel);
+
+    assertEquals(getCallFlags(sequential), getCallFlags(parallel));
+    assertEquals(SOURCES.length, SideEffectSummaryCache.getInstance(parallel).getMisses());
+  }
+
+  public void testHashDependsOnCallFlags() {
+    Node script = IR.script(IR.exprResult(IR.call(IR.name("f"))));
+    String hash = SideEffectSummaryCache.hashContents(script);
+    assertEquals(hash, SideEffectSummaryCache.hashContents(script.cloneTree()));
+
+    script.getFirstFirstChild().setSideEffectFlags(Node.NO_SIDE_EFFECTS);
+    assertThat(SideEffectSummaryCache.hashContents(script)).isNotEqualTo(hash);
+  }
+
+  private static void markPureFunctions(Compiler compiler) {
+    new PureFunctionIdentifier.Driver(compiler, null)
+        .process(compiler.getExternsRoot(), compiler.getJsRoot());
+  }
+
+  private static List<Integer> getCallFlags(Compiler compiler) {
+    final List<Integer> flags = new ArrayList<>();
+    NodeUtil.visitPreOrder(
+        compiler.getJsRoot(),
+        node -> {
+          if (node.isCall()) {
+            flags.add(node.getSideEffectFlags());
+          }
+        });
+    return flags;
+  }
+
+  private static Compiler initCompiler(CompilerOptions options, String... sources) {
+    ImmutableList.Builder<SourceFile> srcs = ImmutableList.builder();
+    for (int i = 0; i < sources.length; i++) {
+      srcs.add(SourceFile.fromCode("testcode" + i + ".js", sources[i]));
+    }
+    Compiler compiler = new Compiler();
+    compiler.init(ImmutableList.<SourceFile>of(), srcs.build(), options);
+    compiler.parseInputs();
+    checkState(!compiler.hasErrors());
+    return compiler;
+  }
+}
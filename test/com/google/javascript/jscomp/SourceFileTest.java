@@ -55,6 +55,22 @@ public final class SourceFileTest extends TestCase {
     assertThat(sf.getLineOffset(3)).isEqualTo(14);
   }
 
+  public void testGetLineAndRegion() throws Exception {
+    SourceFile sf = SourceFile.fromCode("test.js", "1\n2\n\n4\n5\n6\n7");
+    assertThat(sf.getLine(1)).isEqualTo("1");
+    assertThat(sf.getLine(3)).isEmpty();
+    assertThat(sf.getLine(7)).isEqualTo("7");
+    assertThat(sf.getLine(8)).isNull();
+
+    Region region = sf.getRegion(4);
+    assertThat(region.getBeginningLineNumber()).isEqualTo(2);
+    assertThat(region.getEndingLineNumber()).isEqualTo(7);
+    assertThat(region.getSourceExcerpt()).isEqualTo("2\n\n4\n5\n6\n");
+    region = sf.getRegion(6);
+    assertThat(region.getBeginningLineNumber()).isEqualTo(4);
+    assertThat(region.getSourceExcerpt()).isEqualTo("4\n5\n6\n7");
+  }
+
   public void testCachingFile() throws IOException {
     // Setup environment.
     String expectedContent = "// content content content";
@@ -0,0 +1,147 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.javascript.jscomp.testing.SimpleSourceExcerptProvider;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import junit.framework.TestCase;
+
+/** Tests for {@link StreamingErrorManager}. */
+public final class StreamingErrorManagerTest extends TestCase {
+
+  private static final DiagnosticType FOO_TYPE = DiagnosticType.error("TEST_FOO", "Foo");
+  private static final DiagnosticType BAR_TYPE = DiagnosticType.warning("TEST_BAR", "Bar");
+
+  private static final SourceExcerptProvider SOURCE =
+      new SimpleSourceExcerptProvider("var x;\nvar y = x.y;\n");
+
+  private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+  private final PrintStream stream = new PrintStream(output, true);
+
+  public void testPrintsTextAsReported() {
+    StreamingErrorManager manager =
+        StreamingErrorManager.text(ErrorFormat.SINGLELINE.toFormatter(SOURCE, false), stream);
+
+    manager.report(CheckLevel.WARNING, JSError.make("input", 2, 8, BAR_TYPE));
+    assertThat(output()).isEqualTo("input:2: WARNING - Bar\nvar y = x.y;\n        ^\n\n");
+
+    manager.report(CheckLevel.ERROR, JSError.make("input", 1, 4, FOO_TYPE));
+    manager.generateReport();
+    assertThat(output())
+        .isEqualTo(
+            "input:2: WARNING - Bar\nvar y = x.y;\n        ^\n\n"
+                + "input:1: ERROR - Foo\nvar x;\n    ^\n\n"
+                + "1 error(s), 1 warning(s)\n");
+  }
+
+  public void testPrintsJsonAsReported() {
+    StreamingErrorManager manager = StreamingErrorManager.json(stream, SOURCE);
+
+    manager.report(CheckLevel.WARNING, JSError.make("input", 2, 8, BAR_TYPE));
+    assertThat(output())
+        .isEqualTo(
+            "[{\"level\":\"warning\",\"description\":\"Bar\",\"source\":\"input\",\"line\":2,"
+                + "\"column\":8,\"context\":\"var y = x.y;\\n        ^\"}");
+
+    manager.generateReport();
+    assertThat(output())
+        .endsWith(",{\"level\":\"info\",\"description\":\"0 error(s), 1 warning(s)\"}]");
+  }
+
+  public void testPrintsSameJsonAsSortingManager() {
+    JSError warning = JSError.make("input", 2, 8, BAR_TYPE);
+    JSError error = JSError.make("input", 1, 4, FOO_TYPE);
+
+    StreamingErrorManager streaming = StreamingErrorManager.json(stream, SOURCE);
+    streaming.report(CheckLevel.WARNING, warning);
+    streaming.report(CheckLevel.ERROR, error);
+    streaming.generateReport();
+    String streamed = output();
+    output.reset();
+
+    PrintStreamJSONErrorManager sorting = new PrintStreamJSONErrorManager(stream, SOURCE);
+    sorting.report(CheckLevel.ERROR, error);
+    sorting.report(CheckLevel.WARNING, warning);
+    sorting.generateReport();
+    assertThat(streamed).isEqualTo(output());
+  }
+
+  public void testPrintsEmptyJsonArray() {
+    StreamingErrorManager manager = StreamingErrorManager.json(stream, SOURCE);
+    manager.generateReport();
+    assertThat(output())
+        .isEqualTo("[{\"level\":\"info\",\"description\":\"0 error(s), 0 warning(s)\"}]");
+  }
+
+  public void testDropsDuplicates() {
+    StreamingErrorManager manager =
+        StreamingErrorManager.text(ErrorFormat.SOURCELESS.toFormatter(null, false), stream);
+    JSError warning = JSError.make("input", 2, 8, BAR_TYPE);
+
+    manager.report(CheckLevel.WARNING, warning);
+    manager.report(CheckLevel.WARNING, JSError.make("input", 2, 8, BAR_TYPE));
+    manager.report(CheckLevel.ERROR, warning);
+
+    assertThat(manager.getWarningCount()).isEqualTo(1);
+    assertThat(manager.getErrorCount()).isEqualTo(1);
+    assertThat(output().split("\n\n")).hasLength(2);
+  }
+
+  public void testDropsDuplicatesReportedLongAfterTheOriginal() {
+    StreamingErrorManager manager = StreamingErrorManager.json(stream, SOURCE);
+
+    for (int i = 0; i < 10000; i++) {
+      manager.report(CheckLevel.WARNING, JSError.make("input", i, 0, BAR_TYPE));
+    }
+    manager.report(CheckLevel.WARNING, JSError.make("input", 0, 0, BAR_TYPE));
+
+    assertThat(manager.getWarningCount()).isEqualTo(10000);
+    assertThat(manager.getWarnings()).hasLength(10000);
+    assertThat(manager.getUnretainedCount()).isEqualTo(0);
+  }
+
+  public void testCountsAllButRetainsFew() {
+    StreamingErrorManager manager =
+        StreamingErrorManager.text(ErrorFormat.SOURCELESS.toFormatter(null, false), stream);
+    manager.setMaxRetained(2);
+
+    for (int i = 1; i <= 5; i++) {
+      manager.report(CheckLevel.WARNING, JSError.make("input", i, 0, BAR_TYPE));
+      manager.report(CheckLevel.ERROR, JSError.make("input", i, 0, BAR_TYPE));
+    }
+
+    assertThat(manager.getWarningCount()).isEqualTo(5);
+    assertThat(manager.getErrorCount()).isEqualTo(5);
+    assertThat(manager.getWarnings()).hasLength(2);
+    assertThat(manager.getErrors()).hasLength(2);
+    assertThat(manager.getWarnings()[1].getLineNumber()).isEqualTo(2);
+    assertThat(manager.getUnretainedCount()).isEqualTo(6);
+    // Only errors of an error type halt the compilation.
+    assertFalse(manager.hasHaltingErrors());
+
+    manager.report(CheckLevel.ERROR, JSError.make("input", 1, 0, FOO_TYPE));
+    assertTrue(manager.hasHaltingErrors());
+  }
+
+  private String output() {
+    return new String(output.toByteArray(), UTF_8);
+  }
+}
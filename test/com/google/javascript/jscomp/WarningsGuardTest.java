@@ -262,6 +262,96 @@ public final class WarningsGuardTest extends TestCase {
     assertTrue(guardA.disables(DiagnosticGroups.ACCESS_CONTROLS));
   }
 
+  public void testComposeGuardMemoizesGuardsThatDependOnlyOnSourceAndType() {
+    CountingGuard memoized = new CountingGuard(true, OFF);
+    ComposeWarningsGuard guard = new ComposeWarningsGuard(memoized);
+
+    assertEquals(OFF, guard.level(makeError("foo.js", 1)));
+    assertEquals(OFF, guard.level(makeError("foo.js", 2)));
+    assertEquals(1, memoized.calls);
+    assertEquals(OFF, guard.level(makeError("bar.js", 1)));
+    assertEquals(OFF, guard.level(makeError("bar.js", VISIBILITY_MISMATCH)));
+    assertEquals(3, memoized.calls);
+
+    // Adding a guard forgets the memoized results.
+    guard.addGuard(visibilityWarning);
+    assertEquals(WARNING, guard.level(makeError("bar.js", VISIBILITY_MISMATCH)));
+    assertEquals(OFF, guard.level(makeError("foo.js", 3)));
+    assertEquals(4, memoized.calls);
+  }
+
+  public void testComposeGuardDoesNotMemoizeOtherGuards() {
+    CountingGuard other = new CountingGuard(false, null);
+    CountingGuard memoized = new CountingGuard(true, WARNING);
+    // Of guards with the same priority, the last one added is applied first.
+    ComposeWarningsGuard guard = new ComposeWarningsGuard(memoized, other);
+
+    assertEquals(WARNING, guard.level(makeError("foo.js", 1)));
+    assertEquals(WARNING, guard.level(makeError("foo.js", 2)));
+    assertEquals(2, other.calls);
+    assertEquals(1, memoized.calls);
+  }
+
+  public void testComposeGuardIsKnownToSuppress() {
+    ComposeWarningsGuard guard =
+        new ComposeWarningsGuard(new ShowByPathWarningsGuard("/foo/"), visibilityOff);
+
+    // Nothing is known before the first error.
+    assertFalse(guard.isKnownToSuppress("bar.js", BAR_WARNING));
+    assertEquals(OFF, guard.level(makeError("bar.js", BAR_WARNING)));
+    assertTrue(guard.isKnownToSuppress("bar.js", BAR_WARNING));
+    assertFalse(guard.isKnownToSuppress("other.js", BAR_WARNING));
+
+    assertNull(guard.level(makeError("/foo/bar.js", BAR_WARNING)));
+    assertFalse(guard.isKnownToSuppress("/foo/bar.js", BAR_WARNING));
+    assertEquals(OFF, guard.level(makeError("/foo/bar.js", VISIBILITY_MISMATCH)));
+    assertTrue(guard.isKnownToSuppress("/foo/bar.js", VISIBILITY_MISMATCH));
+  }
+
+  public void testComposeGuardIsKnownToSuppressSkipsGuardsThatOnlySuppress() {
+    CountingGuard suppressing = new CountingGuard(false, null);
+    suppressing.onlySuppresses = true;
+    ComposeWarningsGuard guard = new ComposeWarningsGuard(visibilityOff, suppressing);
+    assertEquals(OFF, guard.level(makeError("bar.js", VISIBILITY_MISMATCH)));
+    assertTrue(guard.isKnownToSuppress("bar.js", VISIBILITY_MISMATCH));
+
+    suppressing.onlySuppresses = false;
+    guard = new ComposeWarningsGuard(visibilityOff, suppressing);
+    assertEquals(OFF, guard.level(makeError("bar.js", VISIBILITY_MISMATCH)));
+    assertFalse(guard.isKnownToSuppress("bar.js", VISIBILITY_MISMATCH));
+  }
+
+  /** A guard that returns a fixed level and counts how often it was asked. */
+  private static class CountingGuard extends WarningsGuard {
+    private static final long serialVersionUID = 1L;
+
+    private final boolean dependsOnlyOnSourceAndType;
+    private final CheckLevel level;
+    private boolean onlySuppresses = false;
+    private int calls = 0;
+
+    CountingGuard(boolean dependsOnlyOnSourceAndType, CheckLevel level) {
+      this.dependsOnlyOnSourceAndType = dependsOnlyOnSourceAndType;
+      this.level = level;
+    }
+
+    @Override
+    public CheckLevel level(JSError error) {
+      calls++;
+      return level;
+    }
+
+    @Override
+    protected boolean dependsOnlyOnSourceAndType() {
+      return dependsOnlyOnSourceAndType;
+    }
+
+    @Override
+    protected boolean onlySuppresses() {
+      return onlySuppresses;
+    }
+  }
+
   public void testEmergencyComposeGuard1() {
     ComposeWarningsGuard guard = new ComposeWarningsGuard();
     guard.addGuard(new StrictWarningsGuard());
@@ -23,6 +23,11 @@ import static org.mockito.Mockito.when;
 
 import com.google.common.annotations.GwtIncompatible;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.function.Function;
 import junit.framework.TestCase;
 import org.mockito.Mock;
@@ -63,4 +68,40 @@ public final class CachedTransformerTest extends TestCase {
     assertThat(cached.transform(FOO)).isSameAs(BAR);
     verify(delegate, times(1)).apply(FOO);
   }
+
+  public void testPersistentCacheSurvivesRestart() throws Exception {
+    Path directory = Files.createTempDirectory("jscomp");
+    try {
+      PersistentCache persistentCache = new PersistentCache(directory, 1 << 20);
+      Source transformed =
+          FOO.toBuilder()
+              .setCode("transformed")
+              .setSourceMap("map")
+              .addRuntime("runtime1", "runtime2")
+              .setLoadFlags(ImmutableMap.of("lang", "es5"))
+              .build();
+      when(delegate.apply(FOO)).thenReturn(transformed);
+
+      assertThat(
+              new CachedTransformer(
+                      Source.Transformer.of(delegate),
+                      CacheBuilder.newBuilder(),
+                      persistentCache,
+                      "transform")
+                  .transform(FOO))
+          .isSameAs(transformed);
+      Source restored =
+          new CachedTransformer(
+                  Source.Transformer.of(delegate),
+                  CacheBuilder.newBuilder(),
+                  persistentCache,
+                  "transform")
+              .transform(FOO);
+
+      assertThat(restored).isEqualTo(transformed);
+      verify(delegate, times(1)).apply(FOO);
+    } finally {
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
 }
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.bundle;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.annotations.GwtIncompatible;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import junit.framework.TestCase;
+
+/** Tests for {@link PersistentCache}. */
+@GwtIncompatible
+public final class PersistentCacheTest extends TestCase {
+
+  private Path directory;
+
+  @Override
+  protected void setUp() throws IOException {
+    directory = Files.createTempDirectory("jscomp");
+  }
+
+  @Override
+  protected void tearDown() throws IOException {
+    MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+  }
+
+  public void testRoundTrip() throws IOException {
+    PersistentCache cache = new PersistentCache(directory, 1 << 20);
+    assertThat(cache.get(ImmutableList.of("a", "b"))).isNull();
+
+    cache.put(ImmutableList.of("a", "b"), ImmutableList.of("x", "", "é😀"));
+
+    assertThat(cache.get(ImmutableList.of("a", "b")))
+        .containsExactly("x", "", "é😀")
+        .inOrder();
+    assertThat(cache.get(ImmutableList.of("ab"))).isNull();
+    assertThat(cache.get(ImmutableList.of("a", "b", ""))).isNull();
+  }
+
+  public void testEntriesAreSharedThroughTheDirectory() throws IOException {
+    new PersistentCache(directory, 1 << 20).put(ImmutableList.of("a"), ImmutableList.of("x"));
+    assertThat(new PersistentCache(directory, 1 << 20).get(ImmutableList.of("a")))
+        .containsExactly("x");
+  }
+
+  public void testUnreadableEntryIsAMiss() throws IOException {
+    PersistentCache cache = new PersistentCache(directory, 1 << 20);
+    cache.put(ImmutableList.of("a"), ImmutableList.of("x"));
+    for (Path entry : entries()) {
+      Files.write(entry, new byte[] {1, 2, 3});
+    }
+
+    assertThat(cache.get(ImmutableList.of("a"))).isNull();
+    cache.put(ImmutableList.of("a"), ImmutableList.of("y"));
+    assertThat(cache.get(ImmutableList.of("a"))).containsExactly("y");
+  }
+
+  public void testEvictsLeastRecentlyUsedEntries() throws IOException {
+    ImmutableList<String> values = ImmutableList.of("value");
+    new PersistentCache(directory, 1 << 20).put(ImmutableList.of("old"), values);
+    long entrySize = Files.size(Iterables.getOnlyElement(entries()));
+    // Room for two entries but not three.
+    PersistentCache cache = new PersistentCache(directory, entrySize * 5 / 2);
+
+    cache.put(ImmutableList.of("used"), values);
+    for (Path entry : entries()) {
+      Files.setLastModifiedTime(entry, FileTime.fromMillis(1000));
+    }
+    assertThat(cache.get(ImmutableList.of("used"))).isNotNull();
+    cache.put(ImmutableList.of("new"), values);
+
+    assertThat(cache.get(ImmutableList.of("old"))).isNull();
+    assertThat(cache.get(ImmutableList.of("used"))).isNotNull();
+    assertThat(cache.get(ImmutableList.of("new"))).isNotNull();
+    assertThat(cache.getSize()).isEqualTo(2 * entrySize);
+  }
+
+  private ImmutableList<Path> entries() throws IOException {
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+      return ImmutableList.copyOf(entries);
+    }
+  }
+}
@@ -16,16 +16,25 @@
 package com.google.javascript.jscomp.deps;
 
 import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.mockito.Mockito.RETURNS_SMART_NULLS;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.Files;
 import com.google.javascript.jscomp.bundle.TranspilationException;
 import com.google.javascript.jscomp.transpile.BaseTranspiler;
 import com.google.javascript.jscomp.transpile.TranspileResult;
 import com.google.javascript.jscomp.transpile.Transpiler;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
 import junit.framework.TestCase;
 import org.mockito.Mockito;
 
@@ -223,4 +232,58 @@ public final class ClosureBundlerTest extends TestCase {
           .contains("Parse error. Character '＿' (U+FF3F) is not a valid identifier start char");
     }
   }
+
+  public void testChannelMatchesAppendable() throws IOException {
+    File file = File.createTempFile("bundled", ".js");
+    file.deleteOnExit();
+    Files.asCharSink(file, UTF_8).write("var s = 'ｅ';\n");
+    ClosureBundler bundler = new ClosureBundler();
+    for (ClosureBundler b :
+        ImmutableList.of(
+            bundler,
+            bundler.withSourceUrl("URL"),
+            bundler.useEval(true),
+            bundler.useEval(true).withSourceUrl("URL"))) {
+      for (DependencyInfo info : ImmutableList.of(MODULE, TRADITIONAL)) {
+        StringBuilder sb = new StringBuilder();
+        b.appendTo(sb, info, file, UTF_8);
+        assertThat(appendToChannel(b, info, file)).isEqualTo(sb.toString());
+      }
+    }
+  }
+
+  public void testChannelCachesTransformedOutputUntilFileChanges() throws Exception {
+    File file = File.createTempFile("bundled", ".js");
+    file.deleteOnExit();
+    Files.asCharSink(file, UTF_8).write("a;");
+    Transpiler transpiler = Mockito.mock(Transpiler.class, RETURNS_SMART_NULLS);
+    when(transpiler.transpile(new URI("foo.js"), "a;"))
+        .thenReturn(new TranspileResult(new URI("foo.js"), "a;", "A;", "MAP_A"));
+    when(transpiler.transpile(new URI("foo.js"), "b;"))
+        .thenReturn(new TranspileResult(new URI("foo.js"), "b;", "B;", "MAP_B"));
+    ClosureBundler bundler = new ClosureBundler(transpiler);
+
+    assertThat(appendToChannel(bundler.withPath("foo.js"), TRADITIONAL, file)).isEqualTo("A;");
+    assertThat(appendToChannel(bundler.withPath("foo.js"), TRADITIONAL, file)).isEqualTo("A;");
+    verify(transpiler, times(1)).transpile(new URI("foo.js"), "a;");
+    assertThat(bundler.getSourceMap("foo.js")).isEqualTo("MAP_A");
+
+    // Other output for the same file isn't served from the cache.
+    assertThat(appendToChannel(bundler.withPath("foo.js").useEval(true), TRADITIONAL, file))
+        .isEqualTo("eval(\"A;\");\n");
+
+    Files.asCharSink(file, UTF_8).write("b;");
+    file.setLastModified(file.lastModified() + 2000);
+    assertThat(appendToChannel(bundler.withPath("foo.js"), TRADITIONAL, file)).isEqualTo("B;");
+    assertThat(bundler.getSourceMap("foo.js")).isEqualTo("MAP_B");
+  }
+
+  private static String appendToChannel(ClosureBundler bundler, DependencyInfo info, File file)
+      throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (WritableByteChannel channel = Channels.newChannel(out)) {
+      bundler.appendTo(channel, info, file, UTF_8);
+    }
+    return new String(out.toByteArray(), UTF_8);
+  }
 }
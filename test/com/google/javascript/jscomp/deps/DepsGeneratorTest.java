@@ -19,12 +19,16 @@ package com.google.javascript.jscomp.deps;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth.assertWithMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
 
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.javascript.jscomp.ErrorManager;
 import com.google.javascript.jscomp.PrintStreamErrorManager;
 import com.google.javascript.jscomp.SourceFile;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
 import junit.framework.TestCase;
@@ -351,6 +355,96 @@ public final class DepsGeneratorTest extends TestCase {
     assertNotContains("d.js", result);
   }
 
+  public void testParallelScanning() throws Exception {
+    List<SourceFile> srcs = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      srcs.add(
+          SourceFile.fromCode(
+              "/base/javascript/foo/file" + i + ".js",
+              i == 0
+                  ? "goog.provide('ns0');"
+                  : LINE_JOINER.join(
+                      "goog.provide('ns" + i + "');", "goog.require('ns" + (i - 1) + "');")));
+    }
+    srcs.add(
+        SourceFile.fromCode(
+            "/base/javascript/foo/conflict.js", "goog.provide('my.namespace');\nexport var x;"));
+
+    String serialOutput = createGenerator(srcs).computeDependencyCalls();
+    assertErrorWarningCount(0, 1);
+
+    errorManager = new PrintStreamErrorManager(System.err);
+    String parallelOutput = createGenerator(srcs).setNumThreads(4).computeDependencyCalls();
+    assertWarnings(
+        "File cannot be a combination of goog.provide, goog.module, and/or ES6 "
+            + "module: javascript/foo/conflict.js");
+    assertThat(parallelOutput).isEqualTo(serialOutput);
+    assertContains("goog.addDependency('../foo/file19.js', ['ns19'], ['ns18']);", parallelOutput);
+  }
+
+  public void testCache() throws Exception {
+    File dir = Files.createTempDirectory("deps").toFile();
+    File a = writeFile(new File(dir, "a.js"), "goog.provide('a');");
+    File b = writeFile(new File(dir, "b.js"), "goog.provide('b');\ngoog.require('a');");
+    File cacheFile = new File(dir, "deps.cache");
+
+    DependencyInfoCache cache = new DependencyInfoCache();
+    String output = createGenerator(a, b, dir).setCache(cache).computeDependencyCalls();
+    assertNoWarnings();
+    assertContains("['b'], ['a']", output);
+    assertThat(cache.size()).isEqualTo(2);
+    cache.save(cacheFile);
+
+    // An edit that keeps the file's size and modification time is not noticed.
+    long lastModified = b.lastModified();
+    writeFile(b, "goog.provide('c');\ngoog.require('a');");
+    b.setLastModified(lastModified);
+    cache = DependencyInfoCache.load(cacheFile);
+    assertThat(cache.size()).isEqualTo(2);
+    assertThat(createGenerator(a, b, dir).setCache(cache).computeDependencyCalls())
+        .isEqualTo(output);
+
+    b.setLastModified(lastModified + 10000);
+    String updatedOutput = createGenerator(a, b, dir).setCache(cache).computeDependencyCalls();
+    assertContains("['c'], ['a']", updatedOutput);
+    assertThat(updatedOutput).isEqualTo(createGenerator(a, b, dir).computeDependencyCalls());
+  }
+
+  public void testLoadMissingCache() throws Exception {
+    File dir = Files.createTempDirectory("deps").toFile();
+    assertThat(DependencyInfoCache.load(new File(dir, "missing")).size()).isEqualTo(0);
+  }
+
+  private DepsGenerator createGenerator(List<SourceFile> srcs) {
+    return new DepsGenerator(
+        ImmutableList.of(),
+        srcs,
+        DepsGenerator.InclusionStrategy.ALWAYS,
+        "/base/javascript/closure",
+        errorManager,
+        new ModuleLoader(
+            null,
+            ImmutableList.of("/base/"),
+            ImmutableList.of(),
+            BrowserModuleResolver.FACTORY,
+            ModuleLoader.PathResolver.ABSOLUTE));
+  }
+
+  private DepsGenerator createGenerator(File a, File b, File closureDir) {
+    return new DepsGenerator(
+        ImmutableList.of(),
+        ImmutableList.of(SourceFile.fromFile(a.getPath()), SourceFile.fromFile(b.getPath())),
+        DepsGenerator.InclusionStrategy.ALWAYS,
+        closureDir.getPath(),
+        errorManager,
+        ModuleLoader.EMPTY);
+  }
+
+  private static File writeFile(File file, String content) throws IOException {
+    Files.write(file.toPath(), content.getBytes(UTF_8));
+    return file;
+  }
+
   private String testMergeStrategyHelper(DepsGenerator.InclusionStrategy mergeStrategy)
       throws Exception {
     SourceFile dep1 =
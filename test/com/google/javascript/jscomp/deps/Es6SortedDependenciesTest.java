@@ -19,7 +19,9 @@ package com.google.javascript.jscomp.deps;
 import static com.google.common.truth.Truth.assertThat;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Lists;
 import com.google.javascript.jscomp.deps.DependencyInfo.Require;
+import java.util.ArrayList;
 import java.util.List;
 import junit.framework.TestCase;
 
@@ -328,6 +330,26 @@ public class Es6SortedDependenciesTest extends TestCase {
     assertThat(sorted.getSortedList()).containsExactly(c, a, b).inOrder();
   }
 
+  public void testSortLongChain() throws Exception {
+    // Each input requires the next one, deeper than a recursive sort could go.
+    int length = 100000;
+    List<SimpleDependencyInfo> inputs = new ArrayList<>();
+    for (int i = 0; i < length; i++) {
+      inputs.add(
+          SimpleDependencyInfo.builder("f" + i, "f" + i)
+              .setProvides("n" + i)
+              .setRequires(Require.googRequireSymbol("n" + (i + 1)))
+              .build());
+    }
+
+    SortedDependencies<SimpleDependencyInfo> sorted = createSortedDependencies(inputs);
+
+    assertThat(sorted.getSortedList()).isEqualTo(Lists.reverse(inputs));
+    assertThat(sorted.getSortedDependenciesOf(ImmutableList.of(inputs.get(length - 2))))
+        .containsExactly(inputs.get(length - 1), inputs.get(length - 2))
+        .inOrder();
+  }
+
   private static void assertSortedInputs(
       List<SimpleDependencyInfo> expected, List<SimpleDependencyInfo> shuffled) throws Exception {
     SortedDependencies<SimpleDependencyInfo> sorted = createSortedDependencies(shuffled);
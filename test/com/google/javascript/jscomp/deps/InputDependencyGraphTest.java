@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.deps;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.TestCase;
+
+/** Tests for {@link InputDependencyGraph}. */
+public final class InputDependencyGraphTest extends TestCase {
+
+  // Input "a" requires "b" and "c", "b" requires "c" and "x" (which nobody provides), and "c" and
+  // "d" require each other.
+  private static final ImmutableListMultimap<String, String> REQUIRES =
+      ImmutableListMultimap.<String, String>builder()
+          .putAll("a", "b", "c")
+          .putAll("b", "c", "x")
+          .putAll("c", "d")
+          .putAll("d", "c")
+          .build();
+
+  private InputDependencyGraph<String> graph;
+
+  @Override
+  protected void setUp() throws Exception {
+    super.setUp();
+    graph =
+        new InputDependencyGraph<>(
+            ImmutableList.of("a", "b", "c", "a", "d"),
+            ImmutableMap.of("a", "a", "b", "b", "c", "c", "d", "d"),
+            REQUIRES::get);
+  }
+
+  public void testIds() {
+    assertThat(graph.size()).isEqualTo(4);
+    assertThat(graph.getId("a")).isEqualTo(0);
+    assertThat(graph.getId("d")).isEqualTo(3);
+    assertThat(graph.getId("x")).isEqualTo(-1);
+    assertThat(graph.getInput(2)).isEqualTo("c");
+  }
+
+  public void testVisitEmitsDependenciesFirst() {
+    List<String> postOrder = new ArrayList<>();
+    graph.newTraversal().visit(graph.getId("a"), postOrder);
+    assertThat(postOrder).containsExactly("d", "c", "b", "a").inOrder();
+  }
+
+  public void testVisitSkipsVisitedInputs() {
+    InputDependencyGraph<String>.Traversal traversal = graph.newTraversal();
+    List<String> postOrder = new ArrayList<>();
+    traversal.visit(graph.getId("c"), postOrder);
+    traversal.visit(graph.getId("b"), postOrder);
+    traversal.visit(graph.getId("c"), postOrder);
+    assertThat(postOrder).containsExactly("d", "c", "b").inOrder();
+    assertThat(traversal.isVisited(graph.getId("a"))).isFalse();
+    assertThat(traversal.isVisited(graph.getId("d"))).isTrue();
+  }
+
+  public void testReset() {
+    InputDependencyGraph<String>.Traversal traversal = graph.newTraversal();
+    List<String> postOrder = new ArrayList<>();
+    traversal.visit(graph.getId("b"), postOrder);
+    traversal.reset();
+    assertThat(traversal.isVisited(graph.getId("b"))).isFalse();
+    traversal.visit(graph.getId("d"), postOrder);
+    assertThat(postOrder).containsExactly("d", "c", "b", "c", "d").inOrder();
+  }
+}
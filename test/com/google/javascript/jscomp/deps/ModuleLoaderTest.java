@@ -23,9 +23,12 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.javascript.jscomp.CompilerInput;
 import com.google.javascript.jscomp.ErrorHandler;
+import com.google.javascript.jscomp.JSError;
 import com.google.javascript.jscomp.SourceFile;
 import com.google.javascript.jscomp.deps.ModuleLoader.PathEscaper;
 import com.google.javascript.jscomp.deps.ModuleLoader.PathResolver;
+import java.util.ArrayList;
+import java.util.List;
 import javax.annotation.Nullable;
 import junit.framework.TestCase;
 
@@ -527,6 +530,45 @@ public final class ModuleLoaderTest extends TestCase {
     assertUri("file.js", loader.resolve("/path/to/project/file.js"));
   }
 
+  public void testResolutionIsMemoizedPerDirectory() {
+    ModuleLoader loader =
+        new ModuleLoader(
+            null,
+            ImmutableList.of(),
+            inputs(
+                "/a/x.js",
+                "/a/y.js",
+                "/a/b/z.js",
+                "/node_modules/A/index.js",
+                "/a/node_modules/A/index.js"),
+            new NodeModuleResolver.Factory());
+
+    assertUri("/a/node_modules/A/index.js", loader.resolve("/a/x.js").resolveJsModule("A"));
+    assertUri("/a/node_modules/A/index.js", loader.resolve("/a/y.js").resolveJsModule("A"));
+    assertUri("/a/node_modules/A/index.js", loader.resolve("/a/b/z.js").resolveJsModule("A"));
+    assertUri("/node_modules/A/index.js", loader.resolve("/app.js").resolveJsModule("A"));
+    assertNull(loader.resolve("/a/x.js").resolveJsModule("./missing"));
+    assertNull(loader.resolve("/a/y.js").resolveJsModule("./missing"));
+
+    assertThat(loader.getResolutionLookups()).isEqualTo(6);
+    assertThat(loader.getResolutionMemoHits()).isEqualTo(2);
+  }
+
+  public void testUnresolvedImportIsReportedForEachLookup() {
+    List<JSError> errors = new ArrayList<>();
+    ModuleLoader loader =
+        new ModuleLoader(
+            (level, error) -> errors.add(error),
+            ImmutableList.of(),
+            inputs("/a/x.js", "/a/y.js"),
+            BrowserModuleResolver.FACTORY);
+
+    assertNull(loader.resolve("/a/x.js").resolveJsModule("./missing.js"));
+    assertNull(loader.resolve("/a/y.js").resolveJsModule("./missing.js"));
+    assertThat(errors).hasSize(2);
+    assertThat(loader.getResolutionMemoHits()).isEqualTo(1);
+  }
+
   CompilerInput input(String name) {
     return new CompilerInput(SourceFile.fromCode(name, ""), false);
   }
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2018 The Closure Compiler Authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.javascript.jscomp.transpile;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.javascript.jscomp.bundle.TranspilationException;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import junit.framework.TestCase;
+
+/** Tests for {@link BatchTranspiler}. */
+public final class BatchTranspilerTest extends TestCase {
+
+  private BatchTranspiler batch;
+
+  @Override
+  protected void setUp() {
+    batch = new BatchTranspiler(BaseTranspiler.ES5_TRANSPILER, 2);
+  }
+
+  @Override
+  protected void tearDown() {
+    batch.close();
+  }
+
+  public void testTranspileAll() throws Exception {
+    Map<URI, String> sources =
+        ImmutableMap.of(
+            new URI("a.js"), "let a = 1;",
+            new URI("b.js"), "var b = () => 2;",
+            new URI("c.js"), "var c = 3;");
+
+    Map<URI, TranspileResult> results = new HashMap<>();
+    for (ListenableFuture<TranspileResult> result : batch.transpileAll(sources)) {
+      results.put(result.get().path(), result.get());
+    }
+
+    assertThat(results.keySet()).containsExactlyElementsIn(sources.keySet());
+    for (Map.Entry<URI, String> source : sources.entrySet()) {
+      assertThat(results.get(source.getKey()))
+          .isEqualTo(BaseTranspiler.ES5_TRANSPILER.transpile(source.getKey(), source.getValue()));
+    }
+    assertThat(results.get(new URI("a.js")).transpiled()).isEqualTo("var a = 1;\n");
+    assertThat(results.get(new URI("c.js")).wasTranspiled()).isFalse();
+  }
+
+  public void testFailureOnlyFailsItsOwnResult() throws Exception {
+    ImmutableList<ListenableFuture<TranspileResult>> results =
+        batch.transpileAll(
+            ImmutableMap.of(new URI("bad.js"), "let let;", new URI("good.js"), "let a = 1;"));
+
+    int failures = 0;
+    for (ListenableFuture<TranspileResult> result : results) {
+      try {
+        assertThat(result.get().path()).isEqualTo(new URI("good.js"));
+      } catch (ExecutionException e) {
+        assertThat(e.getCause()).isInstanceOf(TranspilationException.class);
+        failures++;
+      }
+    }
+    assertThat(failures).isEqualTo(1);
+  }
+
+  public void testRuntimeIsShared() {
+    String runtime = batch.runtime();
+    assertThat(runtime).isNotEmpty();
+    assertThat(batch.runtime()).isSameAs(runtime);
+  }
+}
@@ -23,8 +23,13 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.cache.CacheBuilder;
+import com.google.common.io.MoreFiles;
+import com.google.common.io.RecursiveDeleteOption;
+import com.google.javascript.jscomp.bundle.PersistentCache;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import junit.framework.TestCase;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
@@ -94,4 +99,27 @@ public final class CachingTranspilerTest extends TestCase {
     assertThat(transpiler.runtime()).isSameAs("xyzzy");
     verify(delegate, times(1)).runtime();
   }
+
+  public void testPersistentCacheSurvivesRestart() throws Exception {
+    Path directory = Files.createTempDirectory("jscomp");
+    try {
+      PersistentCache persistentCache = new PersistentCache(directory, 1 << 20);
+      when(delegate.transpile(FOO_JS, "bar")).thenReturn(RESULT1);
+      Transpiler first =
+          new CachingTranspiler(delegate, CacheBuilder.newBuilder(), persistentCache, "es5");
+      assertThat(first.transpile(FOO_JS, "bar")).isSameAs(RESULT1);
+
+      Transpiler second =
+          new CachingTranspiler(delegate, CacheBuilder.newBuilder(), persistentCache, "es5");
+      assertThat(second.transpile(FOO_JS, "bar")).isEqualTo(RESULT1);
+      verify(delegate, times(1)).transpile(FOO_JS, "bar");
+
+      Transpiler otherConfiguration =
+          new CachingTranspiler(delegate, CacheBuilder.newBuilder(), persistentCache, "es6");
+      assertThat(otherConfiguration.transpile(FOO_JS, "bar")).isSameAs(RESULT1);
+      verify(delegate, times(2)).transpile(FOO_JS, "bar");
+    } finally {
+      MoreFiles.deleteRecursively(directory, RecursiveDeleteOption.ALLOW_INSECURE);
+    }
+  }
 }